@@ -179,7 +179,9 @@ public class CentralScrutinizer implements IApplication {
             pause();
         }
         
-        return EXIT_OK;
+        // A provider may have set an exit code
+        int exitCode = CommandLineState.getExitCode();
+        return exitCode == 0 ? EXIT_OK : exitCode;
     }
     
     private void showHelp() {
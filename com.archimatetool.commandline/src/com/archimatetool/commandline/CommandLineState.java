@@ -6,6 +6,7 @@
 package com.archimatetool.commandline;
 
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.util.ModelIDIndex;
 
 /**
  * Command Line State
@@ -20,12 +21,45 @@ public class CommandLineState {
      */
     private static IArchimateModel singletonModel;
     
+    /**
+     * The exit code to return when all providers have run
+     */
+    private static int exitCode;
+    
     public static IArchimateModel getModel() {
         return singletonModel;
     }
     
     public static void setModel(IArchimateModel model) {
+        // Remove the ID index from the previous model
+        if(singletonModel != model) {
+            ModelIDIndex.removeIndex(singletonModel);
+        }
+        
         singletonModel = model;
     }
     
+    /**
+     * @return The ID index of the loaded model, or null if there is no model.
+     *         Providers should use this to look up objects by ID rather than iterating the model.
+     */
+    public static ModelIDIndex getModelIDIndex() {
+        return ModelIDIndex.getIndex(singletonModel);
+    }
+    
+    /**
+     * @return The exit code to return when all providers have run. 0 if no provider has set one.
+     */
+    public static int getExitCode() {
+        return exitCode;
+    }
+    
+    /**
+     * Set the exit code to return when all providers have run, for example if a provider has found a problem that should fail a build.
+     * The provider does not stop the providers that run after it.
+     */
+    public static void setExitCode(int code) {
+        exitCode = code;
+    }
+    
 }
@@ -5,13 +5,13 @@
  */
 package com.archimatetool.csv.importer;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.Reader;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
@@ -52,10 +52,18 @@ import com.archimatetool.model.util.ArchimateModelUtils;
 /**
  * CSV Importer
  * 
+ * Records are handled as they are read from each file rather than reading the whole file first,
+ * and the changes are kept until all of the files have been read and the Commands are created.
+ * 
  * @author Phillip Beauvoir
  */
 public class CSVImporter implements CSVConstants {
     
+    /**
+     * Number of characters at the start of a file to look at for the delimiter
+     */
+    static final int SNIFF_LENGTH = 1024;
+    
     private IArchimateModel fModel;
     
     // ID -> IArchimateConcept: new elements and relations added
@@ -209,21 +217,14 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException
      */
     void importElements(File file) throws IOException, CSVParseException {
-        List<CSVRecord> records = getRecords(file);
-        
-        // Should have at least one record
-        if(records.isEmpty()) {
-            throw new CSVParseException(Messages.CSVImporter_1);
-        }
-        
-        for(CSVRecord csvRecord : records) {
+        long count = readRecords(file, csvRecord -> {
             if(!isElementsRecordCorrectSize(csvRecord)) {
                 throw new CSVParseException(Messages.CSVImporter_2);
             }
 
             // Header
             if(isHeaderRecord(csvRecord, MODEL_ELEMENTS_HEADER)) {
-                continue;
+                return;
             }
 
             // Model (this is optional)
@@ -234,6 +235,11 @@ public class CSVImporter implements CSVConstants {
             else {
                 createElementFromRecord(csvRecord);
             }
+        });
+        
+        // Should have at least one record
+        if(count == 0) {
+            throw new CSVParseException(Messages.CSVImporter_1);
         }
     }
     
@@ -315,20 +321,20 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException
      */
     void importRelations(File file) throws IOException, CSVParseException {
-        for(CSVRecord csvRecord : getRecords(file)) {
+        readRecords(file, csvRecord -> {
             if(!isRelationsRecordCorrectSize(csvRecord)) {
                 throw new CSVParseException(Messages.CSVImporter_2);
             }
 
             // Header
             if(isHeaderRecord(csvRecord, RELATIONSHIPS_HEADER)) {
-                continue;
+                return;
             }
             // Relation
             else {
                 createRelationFromRecord(csvRecord);
             }
-        }
+        });
         
         // Now connect the relations
         for(Entry<String, IArchimateConcept> entry : newConcepts.entrySet()) {
@@ -412,20 +418,20 @@ public class CSVImporter implements CSVConstants {
      * @throws CSVParseException
      */
     void importProperties(File file) throws IOException, CSVParseException {
-        for(CSVRecord csvRecord : getRecords(file)) {
+        readRecords(file, csvRecord -> {
             if(!isPropertiesRecordCorrectSize(csvRecord)) {
                 throw new CSVParseException(Messages.CSVImporter_2);
             }
 
             // Header
             if(isHeaderRecord(csvRecord, PROPERTIES_HEADER)) {
-                continue;
+                return;
             }
             // Property
             else {
                 createPropertyFromRecord(csvRecord);
             }
-        }
+        });
     }
     
     private boolean isPropertiesRecordCorrectSize(CSVRecord csvRecord) {
@@ -517,60 +523,101 @@ public class CSVImporter implements CSVConstants {
     // -------------------------------- Helpers --------------------------------
     
     /**
-     * Get all records for a CSV file.
-     * This is a brute-force approach to try with a comma delimiter first. If that fails then
-     * try a semicolon, and if that fails, a tab.
+     * Handles each record of a CSV file as it is read
+     */
+    interface IRecordHandler {
+        void handleRecord(CSVRecord csvRecord) throws CSVParseException;
+    }
+    
+    /**
+     * Read the records of a CSV file one at a time so that the whole file is not held in memory.
+     * The delimiter is found from the start of the file before the records are read.
      * 
      * @param file The file to open
-     * @return Records, which may be empty but never null
+     * @param handler Handles each record
+     * @return The number of records read
+     * @throws IOException
+     * @throws CSVParseException
+     */
+    long readRecords(File file, IRecordHandler handler) throws IOException, CSVParseException {
+        try(Reader reader = new BufferedReader(new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"))) { //$NON-NLS-1$
+            char delimiter = getDelimiter(reader);
+            
+            try(CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withDelimiter(delimiter))) {
+                long count = 0;
+                
+                for(CSVRecord csvRecord : parser) {
+                    handler.handleRecord(csvRecord);
+                    count++;
+                }
+                
+                return count;
+            }
+            // The parser's iterator wraps an IOException in an IllegalStateException
+            catch(IllegalStateException ex) {
+                if(ex.getCause() instanceof IOException) {
+                    throw (IOException)ex.getCause();
+                }
+                throw ex;
+            }
+        }
+    }
+    
+    /**
+     * Find the delimiter of a CSV file by looking at its first record in the first SNIFF_LENGTH characters.
+     * The delimiter is the one of comma, semicolon or tab that occurs most often outside of quotes, or comma if none of them do.
+     * 
+     * @param reader The reader, which must support mark(). It is reset to where it was when this returns.
+     * @return The delimiter
      * @throws IOException
      */
-    List<CSVRecord> getRecords(File file) throws IOException {
-        List<CSVRecord> records = new ArrayList<CSVRecord>(); 
-        CSVParser parser = null;
+    char getDelimiter(Reader reader) throws IOException {
+        char[] buffer = new char[SNIFF_LENGTH];
+        int length = 0;
         
-        String errorMessage = "invalid char between encapsulated token and delimiter"; //$NON-NLS-1$
+        reader.mark(SNIFF_LENGTH);
         
         try {
-            InputStreamReader is = new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
-            parser = new CSVParser(is, CSVFormat.DEFAULT);
-            records = parser.getRecords();
+            for(int read; length < SNIFF_LENGTH && (read = reader.read(buffer, length, SNIFF_LENGTH - length)) != -1;) {
+                length += read;
+            }
+        }
+        finally {
+            reader.reset();
         }
-        catch(IOException ex) {
-            if(parser != null) {
-                parser.close();
+        
+        int[] counts = new int[DELIMITERS.length];
+        boolean inQuotes = false;
+        
+        for(int i = 0; i < length; i++) {
+            char c = buffer[i];
+            
+            if(c == '"') {
+                inQuotes = !inQuotes; // An escaped quote toggles this twice
             }
-            if(ex.getMessage() != null && ex.getMessage().contains(errorMessage)) {
-                try {
-                    InputStreamReader is = new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
-                    parser = new CSVParser(is, CSVFormat.DEFAULT.withDelimiter(';'));
-                    records = parser.getRecords();
+            else if(!inQuotes) {
+                // End of the first record
+                if(c == '\r' || c == '\n') {
+                    break;
                 }
-                catch(IOException ex2) {
-                    if(parser != null) {
-                        parser.close();
-                    }
-                    if(ex2.getMessage() != null && ex2.getMessage().contains(errorMessage)) {
-                        InputStreamReader is = new InputStreamReader(new BOMInputStream(new FileInputStream(file)), "UTF-8"); //$NON-NLS-1$
-                        parser = new CSVParser(is, CSVFormat.DEFAULT.withDelimiter('\t'));
-                        records = parser.getRecords();
-                    }
-                    else {
-                        throw ex2;
+                
+                for(int j = 0; j < DELIMITERS.length; j++) {
+                    if(c == DELIMITERS[j]) {
+                        counts[j]++;
                     }
                 }
             }
-            else {
-                throw ex;
-            }
         }
-        finally {
-            if(parser != null) {
-                parser.close();
+        
+        // Comma is first so it wins a tie
+        int best = 0;
+        for(int j = 1; j < DELIMITERS.length; j++) {
+            if(counts[j] > counts[best]) {
+                best = j;
             }
         }
         
-        return records;
+        return DELIMITERS[best];
     }
     
     /**
@@ -0,0 +1,207 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.figures.connections;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+
+
+/**
+ * Spatial index of the segments of the RoundedPolylineConnections in a diagram, used to find line jump crossing points.
+ *
+ * Each segment is put in the cells of a grid that its bounds overlap, so that the segments that can cross a segment
+ * are found in the cells that it overlaps, without looking at every segment of every connection in the diagram.
+ * Connections update their segments when their route changes, and the connections with segments in the same cells
+ * are told to forget their cached crossing points.
+ *
+ * There is one index for each root figure. Connections are only weakly referenced so that the index does not keep
+ * a diagram's figures alive.
+ *
+ * @author Phillip Beauvoir
+ */
+class ConnectionSegmentIndex {
+
+    /**
+     * Width and height of a grid cell
+     */
+    static final int CELL_SIZE = 128;
+
+    private static Map<IFigure, ConnectionSegmentIndex> indexes = new WeakHashMap<>();
+
+    /**
+     * @return The index of the connections under a root figure
+     */
+    static ConnectionSegmentIndex getIndex(IFigure root) {
+        return indexes.computeIfAbsent(root, r -> new ConnectionSegmentIndex());
+    }
+
+    /**
+     * A connection's entry in the index
+     */
+    static class Entry {
+        private final WeakReference<RoundedPolylineConnection> connection;
+        private final List<Segment> segments = new ArrayList<>();
+
+        Entry(RoundedPolylineConnection connection) {
+            this.connection = new WeakReference<>(connection);
+        }
+
+        RoundedPolylineConnection getConnection() {
+            return connection.get();
+        }
+    }
+
+    /**
+     * A segment between two bendpoints of a connection
+     */
+    static class Segment {
+        final Entry entry;
+        final Point start;
+        final Point end;
+
+        Segment(Entry entry, Point start, Point end) {
+            this.entry = entry;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // Segments keyed by grid cell
+    private Map<Long, List<Segment>> fCells = new HashMap<>();
+
+    /**
+     * Set the segments of a connection from its points and invalidate the crossing points of the connections near
+     * its old and new segments
+     * @return The connection's entry
+     */
+    Entry update(Entry entry, RoundedPolylineConnection connection, PointList points) {
+        Set<Entry> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        if(entry == null) {
+            entry = new Entry(connection);
+        }
+        else {
+            removeSegments(entry, changed);
+        }
+
+        for(int i = 0; i < points.size() - 1; i++) {
+            Segment segment = new Segment(entry, points.getPoint(i), points.getPoint(i + 1));
+            entry.segments.add(segment);
+
+            for(long cell : getCells(segment.start, segment.end)) {
+                List<Segment> segments = fCells.computeIfAbsent(cell, k -> new ArrayList<>());
+                addEntries(segments, changed);
+                segments.add(segment);
+            }
+        }
+
+        changed.add(entry);
+        invalidate(changed);
+
+        return entry;
+    }
+
+    /**
+     * Remove a connection's segments and invalidate the crossing points of the connections near them
+     */
+    void remove(Entry entry) {
+        Set<Entry> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removeSegments(entry, changed);
+        invalidate(changed);
+    }
+
+    /**
+     * @return The segments of other connections that may cross the segment from start to end
+     */
+    List<Segment> getSegments(Entry entry, Point start, Point end) {
+        Set<Segment> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Segment> list = new ArrayList<>();
+
+        for(long cell : getCells(start, end)) {
+            List<Segment> segments = fCells.get(cell);
+            if(segments != null) {
+                for(Segment segment : segments) {
+                    if(segment.entry != entry && segment.entry.getConnection() != null && result.add(segment)) {
+                        list.add(segment);
+                    }
+                }
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * @return The number of cells that contain segments
+     */
+    int getCellCount() {
+        return fCells.size();
+    }
+
+    private void removeSegments(Entry entry, Set<Entry> changed) {
+        for(Segment segment : entry.segments) {
+            for(long cell : getCells(segment.start, segment.end)) {
+                List<Segment> segments = fCells.get(cell);
+                if(segments != null) {
+                    segments.remove(segment);
+                    addEntries(segments, changed);
+                    if(segments.isEmpty()) {
+                        fCells.remove(cell);
+                    }
+                }
+            }
+        }
+
+        entry.segments.clear();
+    }
+
+    private void addEntries(List<Segment> segments, Set<Entry> entries) {
+        for(Segment segment : segments) {
+            entries.add(segment.entry);
+        }
+    }
+
+    private void invalidate(Set<Entry> entries) {
+        for(Entry entry : entries) {
+            RoundedPolylineConnection connection = entry.getConnection();
+            if(connection != null) {
+                connection.invalidateCrossPoints();
+            }
+        }
+    }
+
+    /**
+     * @return The keys of the cells that the bounds of the segment from start to end overlap
+     */
+    private static long[] getCells(Point start, Point end) {
+        int x1 = Math.floorDiv(Math.min(start.x, end.x), CELL_SIZE);
+        int x2 = Math.floorDiv(Math.max(start.x, end.x), CELL_SIZE);
+        int y1 = Math.floorDiv(Math.min(start.y, end.y), CELL_SIZE);
+        int y2 = Math.floorDiv(Math.max(start.y, end.y), CELL_SIZE);
+
+        long[] cells = new long[(x2 - x1 + 1) * (y2 - y1 + 1)];
+        int i = 0;
+
+        for(int x = x1; x <= x2; x++) {
+            for(int y = y1; y <= y2; y++) {
+                cells[i++] = ((long)x << 32) | (y & 0xFFFFFFFFL);
+            }
+        }
+
+        return cells;
+    }
+}
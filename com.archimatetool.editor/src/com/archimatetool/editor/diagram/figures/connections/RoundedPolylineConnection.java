@@ -33,7 +33,7 @@ import org.eclipse.draw2d.geometry.PointList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Rectangle;
@@ -64,6 +64,95 @@ public class RoundedPolylineConnection extends PolylineConnection {
 	final double PI2 = Math.PI * 2.0;
 	final double PI12 = Math.PI * 1.0 / 2.0;
 
+	// Index of the segments of all connections on current diagram, set when this figure is added to it
+	private ConnectionSegmentIndex segmentIndex;
+	private ConnectionSegmentIndex.Entry segmentEntry;
+
+	// Crossing points of the line segments drawn by outlineShape, in the order they were added.
+	// Cleared when the route of this connection or of a connection near it changes.
+	private List<CrossPoints> crossPointsCache = new ArrayList<CrossPoints>();
+	private int crossPointsCount;
+
+	private static class CrossPoints {
+		final Point start;
+		final Point end;
+		final List<Point> points;
+
+		CrossPoints(Point start, Point end, List<Point> points) {
+			this.start = start;
+			this.end = end;
+			this.points = points;
+		}
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		segmentIndex = ConnectionSegmentIndex.getIndex(getRoot());
+		updateSegmentIndex();
+	}
+
+	@Override
+	public void removeNotify() {
+		if (segmentIndex != null && segmentEntry != null)
+			segmentIndex.remove(segmentEntry);
+		segmentIndex = null;
+		segmentEntry = null;
+		invalidateCrossPoints();
+		super.removeNotify();
+	}
+
+	@Override
+	public void setPoints(PointList points) {
+		super.setPoints(points);
+		updateSegmentIndex();
+	}
+
+	@Override
+	public void setPoint(Point pt, int index) {
+		super.setPoint(pt, index);
+		updateSegmentIndex();
+	}
+
+	@Override
+	public void addPoint(Point pt) {
+		super.addPoint(pt);
+		updateSegmentIndex();
+	}
+
+	@Override
+	public void insertPoint(Point pt, int index) {
+		super.insertPoint(pt, index);
+		updateSegmentIndex();
+	}
+
+	@Override
+	public void removePoint(int index) {
+		super.removePoint(index);
+		updateSegmentIndex();
+	}
+
+	@Override
+	public void removeAllPoints() {
+		super.removeAllPoints();
+		updateSegmentIndex();
+	}
+
+	/**
+	 * Put a copy of the current route in the segment index
+	 */
+	private void updateSegmentIndex() {
+		if (segmentIndex != null)
+			segmentEntry = segmentIndex.update(segmentEntry, this, getPoints().getCopy());
+	}
+
+	/**
+	 * Forget the cached crossing points so that they are computed again on next paint
+	 */
+	void invalidateCrossPoints() {
+		crossPointsCache.clear();
+	}
+
 	@Override
 	public Rectangle getBounds() {
 		if (Preferences.STORE.getBoolean(IPreferenceConstants.USE_LINE_JUMPS))
@@ -73,18 +162,18 @@ public class RoundedPolylineConnection extends PolylineConnection {
 	}
 	
 	@Override
-	@SuppressWarnings("rawtypes")
 	protected void outlineShape(Graphics g) {
 		// Original list of bendpoints
 		PointList bendpoints = getPoints();
 		// List of bendpoints and points added to draw line-curves and line-jumps
 		PointList linepoints = new PointList();
-		// List of all connections on current diagram
-		ArrayList connections = getAllConnections();
 
 		if (bendpoints.size() == 0) {
 			return;
 		}
+
+		// Crossing points are cached for each line segment in drawing order
+		crossPointsCount = 0;
 		
 		// Start point is the first "previous" point
 		Point prev = bendpoints.getPoint(0);
@@ -97,7 +186,7 @@ public class RoundedPolylineConnection extends PolylineConnection {
 			// If last bendpoint, define points for line segment
 			// and then draw polyline
 			if (i == bendpoints.size() - 1) {
-				addSegment(g, prev, bp, connections, linepoints);
+				addSegment(g, prev, bp, linepoints);
 				continue;
 			}
 
@@ -144,7 +233,7 @@ public class RoundedPolylineConnection extends PolylineConnection {
 				}
 				
 				// Now that bendpoint position has been refined we can add line segment
-				addSegment(g, prev, bpprev, connections, linepoints);
+				addSegment(g, prev, bpprev, linepoints);
 				
 				// Create circle approximation
 				for (double a = 1; a < MAX_ITER; a++) {
@@ -158,7 +247,7 @@ public class RoundedPolylineConnection extends PolylineConnection {
 				prev = bpnext;
 			} else {
 				// Add line segment
-				addSegment(g, prev, bp, connections, linepoints);
+				addSegment(g, prev, bp, linepoints);
 				// Prepare next iteration
 				prev = bp;
 			}
@@ -168,10 +257,7 @@ public class RoundedPolylineConnection extends PolylineConnection {
 		g.drawPolyline(linepoints);
 	}
 	
-	@SuppressWarnings({ "rawtypes" })
-	private void addSegment(Graphics g, Point start, Point end, ArrayList connections, PointList linepoints){
-		// List of crossing points
-		ArrayList<Point> crosspoints = new ArrayList<Point>();
+	private void addSegment(Graphics g, Point start, Point end, PointList linepoints){
 		//
 		int radius = (int) JUMP_MAX_RADIUS;
 		
@@ -185,38 +271,12 @@ public class RoundedPolylineConnection extends PolylineConnection {
 			double angle = end_p.theta % Math.PI;
 			boolean reverse = (end_p.theta != angle);
 			
-			// For each other connection, check if a crossing point exist.
-			// If yes, add it to the list
-			for (Iterator I = connections.iterator(); I.hasNext();) {
-				RoundedPolylineConnection conn = (RoundedPolylineConnection) I.next();
-				PointList bendpoints = conn.getPoints();
-				
-				// Iterate on connection segments
-				for (int j = 0; j < bendpoints.size() - 1; j++) {
-					Point bp = bendpoints.getPoint(j);
-					Point next = bendpoints.getPoint(j + 1);
-					Point crosspoint = lineIntersect(start, end, bp, next);
-					// Check if crossing point found and not too close from ends
-					if (crosspoint != null
-						&& (new PolarPoint(crosspoint, start)).r > JUMP_MAX_RADIUS
-						&& (new PolarPoint(crosspoint, end)).r > JUMP_MAX_RADIUS
-						&& (new PolarPoint(crosspoint, bp)).r > JUMP_MAX_RADIUS
-						&& (new PolarPoint(crosspoint, next)).r > JUMP_MAX_RADIUS) {
-						double con_angle = ((new PolarPoint(bp, next)).theta % Math.PI);
-						if (angle > con_angle && !crosspoints.contains(crosspoint))
-							crosspoints.add(crosspoint);
-					}
-				}
-			}
+			// List of crossing points, sorted from start to end
+			List<Point> crosspoints = getCrossPoints(start, end, angle);
 	
 			// If crossing points found, render them using a half circle
 			if (crosspoints.size() != 0) {
-				// Sort crosspoints from start to end
-				crosspoints.add(start);
-				Collections.sort(crosspoints, new PointCompare());
-				if (crosspoints.get(0) != start) Collections.reverse(crosspoints);
-				// Do not add start point to the list a second time, so start at i=1
-				for (int i = 1; i < crosspoints.size(); i++ ) {
+				for (int i = 0; i < crosspoints.size(); i++ ) {
 					for (double a = 0; a <= MAX_ITER; a++) {
 						if (reverse)
 							linepoints.addPoint((new PolarPoint(radius, angle - a*Math.PI/MAX_ITER)).toAbsolutePoint(crosspoints.get(i)));
@@ -231,25 +291,62 @@ public class RoundedPolylineConnection extends PolylineConnection {
 		linepoints.addPoint(end);
 	}
 
-	@SuppressWarnings("rawtypes")
-	private ArrayList getAllConnections() {
-		ArrayList result = new ArrayList();
-		getAllConnections(getRoot(), result);
-		return result;
+	/**
+	 * @return The crossing points of the line segment from start to end, sorted from start to end.
+	 * Taken from the cache if the segment was drawn before and nothing near it has changed since.
+	 */
+	private List<Point> getCrossPoints(Point start, Point end, double angle) {
+		int index = crossPointsCount++;
+		
+		if (index < crossPointsCache.size()) {
+			CrossPoints cached = crossPointsCache.get(index);
+			if (cached.start.equals(start) && cached.end.equals(end))
+				return cached.points;
+			// Segments have changed, so cached points after this one can't be used
+			crossPointsCache.subList(index, crossPointsCache.size()).clear();
+		}
+		
+		List<Point> crosspoints = findCrossPoints(start, end, angle);
+		crossPointsCache.add(new CrossPoints(start.getCopy(), end.getCopy(), crosspoints));
+		return crosspoints;
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
-	private void getAllConnections(IFigure figure, ArrayList list) {
-		for (Iterator I = figure.getChildren().iterator(); I.hasNext();) {
-			IFigure child = (IFigure) I.next();
-			if (child == this)
-				continue;
-			getAllConnections(child, list);
-
-			if (!(child instanceof RoundedPolylineConnection))
-				continue;
-			list.add(child);
+	/**
+	 * For each segment of other connections near the line segment, check if a crossing point exist.
+	 * If yes, add it to the list
+	 */
+	private List<Point> findCrossPoints(Point start, Point end, double angle) {
+		ArrayList<Point> crosspoints = new ArrayList<Point>();
+		
+		if (segmentIndex == null)
+			return crosspoints;
+		
+		for (ConnectionSegmentIndex.Segment segment : segmentIndex.getSegments(segmentEntry, start, end)) {
+			Point bp = segment.start;
+			Point next = segment.end;
+			Point crosspoint = lineIntersect(start, end, bp, next);
+			// Check if crossing point found and not too close from ends
+			if (crosspoint != null
+				&& (new PolarPoint(crosspoint, start)).r > JUMP_MAX_RADIUS
+				&& (new PolarPoint(crosspoint, end)).r > JUMP_MAX_RADIUS
+				&& (new PolarPoint(crosspoint, bp)).r > JUMP_MAX_RADIUS
+				&& (new PolarPoint(crosspoint, next)).r > JUMP_MAX_RADIUS) {
+				double con_angle = ((new PolarPoint(bp, next)).theta % Math.PI);
+				if (angle > con_angle && !crosspoints.contains(crosspoint))
+					crosspoints.add(crosspoint);
+			}
 		}
+		
+		if (crosspoints.size() != 0) {
+			// Sort crosspoints from start to end
+			crosspoints.add(start);
+			Collections.sort(crosspoints, new PointCompare());
+			if (crosspoints.get(0) != start) Collections.reverse(crosspoints);
+			// Start point is not a crossing point
+			crosspoints.remove(0);
+		}
+		
+		return crosspoints;
 	}
 
 	private IFigure getRoot() {
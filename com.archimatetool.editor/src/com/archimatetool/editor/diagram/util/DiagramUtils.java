@@ -47,6 +47,44 @@ public final class DiagramUtils {
      * @return A Graphical Viewer
      */
     public static GraphicalViewerImpl createViewer(IDiagramModel model, Composite parent) {
+        GraphicalViewerImpl viewer = createViewer(parent);
+        setViewerContents(viewer, model);
+        return viewer;
+    }
+    
+    /**
+     * Create an empty GraphicalViewerImpl that can show diagram models one after another with setViewerContents().
+     * This saves creating a Viewer for each diagram model when creating images of many diagram models.
+     * The Viewer has no Scroll Bars
+     * @param parent
+     * @return A Graphical Viewer
+     */
+    public static GraphicalViewerImpl createViewer(Composite parent) {
+        GraphicalViewerImpl viewer = new GraphicalViewerImpl();
+        viewer.createControl(parent);
+        
+        RootEditPart rootPart = new FreeformGraphicalRootEditPart();
+        viewer.setRootEditPart(rootPart);
+        
+        return viewer;
+    }
+    
+    /**
+     * Show a diagram model in a Viewer created with createViewer(), replacing the diagram model that it shows
+     * @param viewer
+     * @param model
+     */
+    public static void setViewerContents(GraphicalViewer viewer, IDiagramModel model) {
+        viewer.setEditPartFactory(createEditPartFactory(model));
+        viewer.setContents(model);
+        viewer.flush();
+    }
+    
+    /**
+     * @param model
+     * @return The EditPartFactory for the type of diagram model
+     */
+    public static EditPartFactory createEditPartFactory(IDiagramModel model) {
         EditPartFactory editPartFactory = null;
         
         if(model instanceof IArchimateDiagramModel) {
@@ -67,18 +105,7 @@ public final class DiagramUtils {
             throw new RuntimeException("Unsupported model type"); //$NON-NLS-1$
         }
         
-        GraphicalViewerImpl viewer = new GraphicalViewerImpl();
-        viewer.createControl(parent);
-        
-        viewer.setEditPartFactory(editPartFactory);
-        
-        RootEditPart rootPart = new FreeformGraphicalRootEditPart();
-        viewer.setRootEditPart(rootPart);
-        
-        viewer.setContents(model);
-        viewer.flush();
-        
-        return viewer;
+        return editPartFactory;
     }
     
     /**
@@ -124,10 +151,25 @@ public final class DiagramUtils {
         return createModelReferencedImage(graphicalViewer, scale, margin).getImage();
     }
     
-    private static ModelReferencedImage createModelReferencedImage(GraphicalViewer graphicalViewer, double scale, int margin) {
+    /**
+     * @param graphicalViewer The GraphicalViewer to create the image from
+     * @param scale The scale to use. 1 is full size. Max of 5 is allowed.
+     * @param margin amount of white space margin to apply around the image
+     * @return ModelReferencedImage wrapper class containing a Scaled Image from the given GraphicalViewer and offset bounds
+     *         Clients must dispose of the Image when done.
+     *         If graphicalViewer has no children a blank image of 100x100 is returned
+     */
+    public static ModelReferencedImage createModelReferencedImage(GraphicalViewer graphicalViewer, double scale, int margin) {
+        return createModelReferencedImage(getPrintableFigure(graphicalViewer), scale, margin);
+    }
+    
+    /**
+     * @param graphicalViewer The GraphicalViewer
+     * @return The Figure of the GraphicalViewer's printable layers that images are created from
+     */
+    public static IFigure getPrintableFigure(GraphicalViewer graphicalViewer) {
         LayerManager layerManager = (LayerManager)graphicalViewer.getEditPartRegistry().get(LayerManager.ID);
-        IFigure rootFigure = layerManager.getLayer(LayerConstants.PRINTABLE_LAYERS);
-        return createModelReferencedImage(rootFigure, scale, margin);
+        return layerManager.getLayer(LayerConstants.PRINTABLE_LAYERS);
     }
     
     /**
@@ -186,9 +228,7 @@ public final class DiagramUtils {
      * If there are no children in the diagram a minimal size of 100x100 is returned.
      */
     public static Rectangle getDiagramExtents(GraphicalViewer graphicalViewer) {
-        LayerManager layerManager = (LayerManager)graphicalViewer.getEditPartRegistry().get(LayerManager.ID);
-        IFigure rootFigure = layerManager.getLayer(LayerConstants.PRINTABLE_LAYERS);
-        Rectangle r = getMinimumBounds(rootFigure);
+        Rectangle r = getMinimumBounds(getPrintableFigure(graphicalViewer));
         return r == null ? new Rectangle(0, 0, 100, 100) : r;
     }
     
@@ -0,0 +1,40 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.model.compatibility;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+import com.archimatetool.model.IArchimateModel;
+
+/**
+ * Interface to fix backward compatibility issues in individual objects of a model.
+ * 
+ * ModelCompatibility applies all handlers that implement this together in one traversal of the model
+ * rather than calling fixCompatibility(Resource) on each of them.
+ * 
+ * @author Phillip Beauvoir
+ */
+public interface IObjectCompatibilityHandler extends ICompatibilityHandler {
+    
+    /**
+     * @param model The model
+     * @return true if objects in the model need to be fixed by this handler
+     */
+    boolean isApplicable(IArchimateModel model);
+    
+    /**
+     * @return The classes of objects that this handler fixes. Instances of sub-classes are also fixed.
+     */
+    EClass[] getEClasses();
+    
+    /**
+     * Fix the issue in an object
+     * @param eObject An instance of one of the classes returned by getEClasses()
+     * @throws CompatibilityHandlerException
+     */
+    void fixObject(EObject eObject) throws CompatibilityHandlerException;
+}
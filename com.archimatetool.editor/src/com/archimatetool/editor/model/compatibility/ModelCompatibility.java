@@ -6,12 +6,20 @@
 package com.archimatetool.editor.model.compatibility;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.Resource.Diagnostic;
 import org.eclipse.emf.ecore.xmi.ClassNotFoundException;
@@ -36,6 +44,8 @@ public class ModelCompatibility {
     
     private Resource fResource;
     
+    private Map<String, Long> fTimings = new LinkedHashMap<String, Long>();
+    
     // Too noisy converting from A2 to A3 models
     boolean doLog = false;
     
@@ -133,17 +143,127 @@ public class ModelCompatibility {
      * @throws CompatibilityHandlerException 
      */
     public void fixCompatibility() throws CompatibilityHandlerException {
+        fixCompatibility(null);
+    }
+    
+    /**
+     * Fix any compatibility issues in registered handlers.
+     * Handlers are applied in the order that they are registered. Consecutive handlers that implement IObjectCompatibilityHandler
+     * are applied together in one traversal of the model, so a handler that works on the whole resource, such as a conversion
+     * from an older version, has been applied before the object handlers registered after it and after those registered before it.
+     * @param visitor If not null this is called for each object in the model in the last traversal, after all handlers have been applied
+     * @throws CompatibilityHandlerException 
+     */
+    public void fixCompatibility(Consumer<EObject> visitor) throws CompatibilityHandlerException {
+        fixCompatibility(getRegisteredHandlers(), visitor);
+    }
+    
+    void fixCompatibility(List<ICompatibilityHandler> handlers, Consumer<EObject> visitor) throws CompatibilityHandlerException {
+        fTimings.clear();
+        
+        // Consecutive object handlers
+        List<IObjectCompatibilityHandler> objectHandlers = new ArrayList<IObjectCompatibilityHandler>();
+        
+        for(ICompatibilityHandler handler : handlers) {
+            if(handler instanceof IObjectCompatibilityHandler) {
+                objectHandlers.add((IObjectCompatibilityHandler)handler);
+            }
+            else {
+                traverse(objectHandlers, null);
+                objectHandlers.clear();
+                
+                long start = System.currentTimeMillis();
+                handler.fixCompatibility(fResource);
+                fTimings.put(handler.getClass().getSimpleName(), System.currentTimeMillis() - start);
+            }
+        }
+        
+        traverse(objectHandlers, visitor);
+    }
+    
+    /**
+     * Apply the object handlers that apply to the model, and the visitor, to each object in one traversal of the model.
+     * Whether a handler applies is checked now so that it sees the changes made by the handlers before it.
+     */
+    private void traverse(List<IObjectCompatibilityHandler> handlers, Consumer<EObject> visitor) throws CompatibilityHandlerException {
+        IArchimateModel model = (IArchimateModel)fResource.getContents().get(0);
+        
+        List<IObjectCompatibilityHandler> objectHandlers = new ArrayList<IObjectCompatibilityHandler>();
+        for(IObjectCompatibilityHandler handler : handlers) {
+            if(handler.isApplicable(model)) {
+                objectHandlers.add(handler);
+            }
+        }
+        
+        if(objectHandlers.isEmpty() && visitor == null) {
+            return;
+        }
+        
+        long start = System.currentTimeMillis();
+        
+        // Handlers for each class of object
+        Map<EClass, List<IObjectCompatibilityHandler>> classHandlers = new HashMap<EClass, List<IObjectCompatibilityHandler>>();
+        
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+            
+            List<IObjectCompatibilityHandler> list = classHandlers.get(eObject.eClass());
+            if(list == null) {
+                list = getHandlersForClass(objectHandlers, eObject.eClass());
+                classHandlers.put(eObject.eClass(), list);
+            }
+            
+            for(IObjectCompatibilityHandler handler : list) {
+                handler.fixObject(eObject);
+            }
+            
+            if(visitor != null) {
+                visitor.accept(eObject);
+            }
+        }
+        
+        fTimings.merge("Traversal", System.currentTimeMillis() - start, Long::sum); //$NON-NLS-1$
+    }
+    
+    private List<IObjectCompatibilityHandler> getHandlersForClass(List<IObjectCompatibilityHandler> objectHandlers, EClass eClass) {
+        List<IObjectCompatibilityHandler> list = new ArrayList<IObjectCompatibilityHandler>();
+        
+        for(IObjectCompatibilityHandler handler : objectHandlers) {
+            for(EClass handlerClass : handler.getEClasses()) {
+                if(handlerClass.isSuperTypeOf(eClass)) {
+                    list.add(handler);
+                    break;
+                }
+            }
+        }
+        
+        return list.isEmpty() ? Collections.emptyList() : list;
+    }
+    
+    /**
+     * @return The time in milliseconds of each phase of the last call to fixCompatibility(), keyed by the name of the handler.
+     *         The time of all object handlers and traversals is under "Traversal".
+     */
+    public Map<String, Long> getTimings() {
+        return Collections.unmodifiableMap(fTimings);
+    }
+    
+    private List<ICompatibilityHandler> getRegisteredHandlers() {
+        List<ICompatibilityHandler> handlers = new ArrayList<ICompatibilityHandler>();
+        
         IExtensionRegistry registry = Platform.getExtensionRegistry();
         for(IConfigurationElement configurationElement : registry.getConfigurationElementsFor(ICompatibilityHandler.EXTENSION_ID)) {
             try {
                 ICompatibilityHandler handler = (ICompatibilityHandler)configurationElement.createExecutableExtension("class"); //$NON-NLS-1$
                 if(handler != null) {
-                    handler.fixCompatibility(fResource);
+                    handlers.add(handler);
                 }
             } 
             catch(CoreException ex) {
                 ex.printStackTrace();
             } 
         }
+        
+        return handlers;
     }
 }
@@ -7,13 +7,15 @@ package com.archimatetool.editor.model.compatibility.handlers;
 
 import java.util.Iterator;
 
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 
 import com.archimatetool.editor.model.compatibility.CompatibilityHandlerException;
-import com.archimatetool.editor.model.compatibility.ICompatibilityHandler;
+import com.archimatetool.editor.model.compatibility.IObjectCompatibilityHandler;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IDiagramModelArchimateObject;
 import com.archimatetool.model.IDiagramModelGroup;
 import com.archimatetool.model.IDiagramModelObject;
@@ -27,7 +29,7 @@ import com.archimatetool.model.ITextAlignment;
  * 
  * @author Phillip Beauvoir
  */
-public class DefaultTextAlignmentHandler implements ICompatibilityHandler {
+public class DefaultTextAlignmentHandler implements IObjectCompatibilityHandler {
     
     @Override
     public void fixCompatibility(Resource resource) throws CompatibilityHandlerException {
@@ -38,6 +40,31 @@ public class DefaultTextAlignmentHandler implements ICompatibilityHandler {
         }
     }
     
+    @Override
+    public boolean isApplicable(IArchimateModel model) {
+        return isVersion(model);
+    }
+    
+    @Override
+    public EClass[] getEClasses() {
+        return new EClass[] {
+                IArchimatePackage.Literals.DIAGRAM_MODEL_ARCHIMATE_OBJECT,
+                IArchimatePackage.Literals.DIAGRAM_MODEL_GROUP
+        };
+    }
+    
+    @Override
+    public void fixObject(EObject eObject) {
+        if((eObject instanceof IDiagramModelArchimateObject && ((IDiagramModelArchimateObject)eObject).getArchimateConcept() instanceof IGrouping)
+                || (eObject instanceof IDiagramModelGroup)) {
+            
+            if(((IDiagramModelObject)eObject).getTextAlignment() == ITextAlignment.TEXT_ALIGNMENT_CENTER) {
+                ((IDiagramModelObject)eObject).setTextAlignment(ITextAlignment.TEXT_ALIGNMENT_LEFT);
+            }
+            
+        }
+    }
+    
     public boolean isVersion(IArchimateModel model) {
         String version = model.getVersion();
         return version != null && StringUtils.compareVersionNumbers(version, "4.4.0") < 0; //$NON-NLS-1$
@@ -45,16 +72,7 @@ public class DefaultTextAlignmentHandler implements ICompatibilityHandler {
     
     private void convertTextPosition(IArchimateModel model) {
         for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            
-            if((eObject instanceof IDiagramModelArchimateObject && ((IDiagramModelArchimateObject)eObject).getArchimateConcept() instanceof IGrouping)
-                    || (eObject instanceof IDiagramModelGroup)) {
-                
-                if(((IDiagramModelObject)eObject).getTextAlignment() == ITextAlignment.TEXT_ALIGNMENT_CENTER) {
-                    ((IDiagramModelObject)eObject).setTextAlignment(ITextAlignment.TEXT_ALIGNMENT_LEFT);
-                }
-                
-            }
+            fixObject(iter.next());
         }
     }
 }
@@ -8,15 +8,17 @@ package com.archimatetool.editor.model.compatibility.handlers;
 import java.util.Iterator;
 
 import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 
 import com.archimatetool.editor.model.compatibility.CompatibilityHandlerException;
-import com.archimatetool.editor.model.compatibility.ICompatibilityHandler;
+import com.archimatetool.editor.model.compatibility.IObjectCompatibilityHandler;
 import com.archimatetool.editor.ui.factory.IGraphicalObjectUIProvider;
 import com.archimatetool.editor.ui.factory.ObjectUIFactory;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IBounds;
 import com.archimatetool.model.IDiagramModelArchimateObject;
 import com.archimatetool.model.IDiagramModelContainer;
@@ -31,7 +33,7 @@ import com.archimatetool.model.IJunction;
  * 
  * @author Phillip Beauvoir
  */
-public class FixDefaultSizesHandler implements ICompatibilityHandler {
+public class FixDefaultSizesHandler implements IObjectCompatibilityHandler {
     
     @Override
     public void fixCompatibility(Resource resource) throws CompatibilityHandlerException {
@@ -43,6 +45,37 @@ public class FixDefaultSizesHandler implements ICompatibilityHandler {
         }
     }
     
+    @Override
+    public boolean isApplicable(IArchimateModel model) {
+        return isVersion(model);
+    }
+    
+    @Override
+    public EClass[] getEClasses() {
+        return new EClass[] { IArchimatePackage.Literals.DIAGRAM_MODEL_OBJECT };
+    }
+    
+    /**
+     * Fix missing width and height value of a diagram object.
+     * Objects have to be fixed in containment order, parents before their children, as the size of a parent is based on its children.
+     */
+    @Override
+    public void fixObject(EObject eObject) {
+        // An Image width/height of -1, -1 signified the actual width/height of the image.
+        // However, here, Images with -1, -1 would be converted to a default box size of 200, 150. So ignore it.
+        if(eObject instanceof IDiagramModelImage) {
+            return;
+        }
+        
+        if(eObject instanceof IDiagramModelObject) {
+            IDiagramModelObject dmo = (IDiagramModelObject)eObject;
+            Dimension d = getNewSize(dmo);
+            IBounds bounds = dmo.getBounds();
+            bounds.setWidth(d.width);
+            bounds.setHeight(d.height);
+        }
+    }
+    
     boolean isVersion(IArchimateModel model) {
         String version = model.getVersion();
         return version != null && StringUtils.compareVersionNumbers(version, "3.0.0") < 0; //$NON-NLS-1$
@@ -53,21 +86,7 @@ public class FixDefaultSizesHandler implements ICompatibilityHandler {
      */
     void fixMissingWidthAndHeight(IArchimateModel model) {
         for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            
-            // An Image width/height of -1, -1 signified the actual width/height of the image.
-            // However, here, Images with -1, -1 would be converted to a default box size of 200, 150. So ignore it.
-            if(eObject instanceof IDiagramModelImage) {
-                continue;
-            }
-            
-            if(eObject instanceof IDiagramModelObject) {
-                IDiagramModelObject dmo = (IDiagramModelObject)eObject;
-                Dimension d = getNewSize(dmo);
-                IBounds bounds = dmo.getBounds();
-                bounds.setWidth(d.width);
-                bounds.setHeight(d.height);
-            }
+            fixObject(iter.next());
         }
     }
     
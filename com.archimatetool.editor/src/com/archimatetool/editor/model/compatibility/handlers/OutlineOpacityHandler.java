@@ -7,13 +7,15 @@ package com.archimatetool.editor.model.compatibility.handlers;
 
 import java.util.Iterator;
 
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 
 import com.archimatetool.editor.model.compatibility.CompatibilityHandlerException;
-import com.archimatetool.editor.model.compatibility.ICompatibilityHandler;
+import com.archimatetool.editor.model.compatibility.IObjectCompatibilityHandler;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IDiagramModelObject;
 
 
@@ -24,7 +26,7 @@ import com.archimatetool.model.IDiagramModelObject;
  * 
  * @author Phillip Beauvoir
  */
-public class OutlineOpacityHandler implements ICompatibilityHandler {
+public class OutlineOpacityHandler implements IObjectCompatibilityHandler {
     
     @Override
     public void fixCompatibility(Resource resource) throws CompatibilityHandlerException {
@@ -36,6 +38,24 @@ public class OutlineOpacityHandler implements ICompatibilityHandler {
         }
     }
     
+    @Override
+    public boolean isApplicable(IArchimateModel model) {
+        return isVersion(model);
+    }
+    
+    @Override
+    public EClass[] getEClasses() {
+        return new EClass[] { IArchimatePackage.Literals.DIAGRAM_MODEL_OBJECT };
+    }
+    
+    @Override
+    public void fixObject(EObject eObject) {
+        if(eObject instanceof IDiagramModelObject) {
+            IDiagramModelObject dmo = (IDiagramModelObject)eObject;
+            dmo.setLineAlpha(dmo.getAlpha());
+        }
+    }
+    
     boolean isVersion(IArchimateModel model) {
         String version = model.getVersion();
         return version != null && (StringUtils.compareVersionNumbers(version, "4.0.1") == 0 || //$NON-NLS-1$
@@ -44,11 +64,7 @@ public class OutlineOpacityHandler implements ICompatibilityHandler {
 
     void setDefaultOutlineOpacity(IArchimateModel model) {
         for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            if(eObject instanceof IDiagramModelObject) {
-                IDiagramModelObject dmo = (IDiagramModelObject)eObject;
-                dmo.setLineAlpha(dmo.getAlpha());
-            }
+            fixObject(iter.next());
         }
     }
     
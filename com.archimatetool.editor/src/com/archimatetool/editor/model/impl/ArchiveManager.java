@@ -10,14 +10,21 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -31,9 +38,9 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.widgets.Display;
 
+import com.archimatetool.editor.Logger;
 import com.archimatetool.editor.model.IArchiveManager;
 import com.archimatetool.editor.utils.FileUtils;
-import com.archimatetool.editor.utils.ZipUtils;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IDiagramModelImageProvider;
 import com.archimatetool.model.util.ArchimateResourceFactory;
@@ -45,14 +52,24 @@ import com.archimatetool.model.util.ArchimateResourceFactory;
  * Handles saving a model to archive file if model contains images or to XML file if no images
  * Handles image data, saving images, creating images
  * 
+ * Images in the model's own archive file are not read when the model is loaded, only the archive's index of entries is read.
+ * Each image is read from the archive file when it is asked for. The archive file is only open while an image is read.
+ * When the model is saved to another file, images that are read from the old archive file are read into memory first.
+ * 
  * @author Phillip Beauvoir
  */
 public class ArchiveManager implements IArchiveManager {
     
+    /**
+     * Images larger than this number of bytes are kept in a temporary file rather than in memory.
+     * Set with the "com.archimatetool.editor.imageSpillThreshold" system property. If less than zero all images are kept in memory.
+     */
+    static final long IMAGE_SPILL_THRESHOLD = Long.getLong("com.archimatetool.editor.imageSpillThreshold", -1); //$NON-NLS-1$
+    
     /**
      * Raw image bytes stored for all images in this model
      */
-    private ByteArrayStorage byteArrayStorage = new ByteArrayStorage();
+    ByteArrayStorage byteArrayStorage = new ByteArrayStorage(IMAGE_SPILL_THRESHOLD);
     
     /**
      * The ArchiMate model
@@ -105,7 +122,9 @@ public class ArchiveManager implements IArchiveManager {
     @Override
     public Image createImage(String imagePath) throws Exception {
         if(byteArrayStorage.hasEntry(imagePath)) {
-            return new Image(Display.getCurrent(), byteArrayStorage.getInputStream(imagePath));
+            try(InputStream in = byteArrayStorage.getInputStream(imagePath)) {
+                return new Image(Display.getCurrent(), in);
+            }
         }
         
         return null;
@@ -134,13 +153,30 @@ public class ArchiveManager implements IArchiveManager {
     }
     
     /**
-     * Load images from model's archive file
+     * Load the index of images from model's archive file. The images are read when they are asked for.
      */
     @Override
     public void loadImages() throws IOException {
-        if(!fImagesLoaded && loadImagesFromModelFile(fModel.getFile())) {
-            fImagesLoaded = true;
+        if(fImagesLoaded) {
+            return;
+        }
+        
+        File file = fModel.getFile();
+        if(file == null || !file.exists() || !FACTORY.isArchiveFile(file)) {
+            return;
+        }
+        
+        try(ZipFile zipFile = new ZipFile(file)) {
+            for(Enumeration<? extends ZipEntry> enm = zipFile.entries(); enm.hasMoreElements();) {
+                ZipEntry zipEntry = enm.nextElement();
+                String entryName = zipEntry.getName();
+                if(entryName.startsWith("images/") && !byteArrayStorage.hasEntry(entryName)) { //$NON-NLS-1$
+                    byteArrayStorage.addZipEntry(entryName, file, zipEntry);
+                }
+            }
         }
+        
+        fImagesLoaded = true;
     }
     
     @Override
@@ -149,22 +185,20 @@ public class ArchiveManager implements IArchiveManager {
             return false;
         }
         
-        ZipFile zipFile = new ZipFile(file);
-        
-        for(Enumeration<? extends ZipEntry> enm = zipFile.entries(); enm.hasMoreElements();) {
-            ZipEntry zipEntry = enm.nextElement();
-            String entryName = zipEntry.getName();
-            if(entryName.startsWith("images/")) { //$NON-NLS-1$
-                // Add to ByteArrayStorage
-                if(!byteArrayStorage.hasEntry(entryName)) {
-                    InputStream in = zipFile.getInputStream(zipEntry);
-                    byteArrayStorage.addStreamEntry(entryName, in);
+        try(ZipFile zipFile = new ZipFile(file)) {
+            for(Enumeration<? extends ZipEntry> enm = zipFile.entries(); enm.hasMoreElements();) {
+                ZipEntry zipEntry = enm.nextElement();
+                String entryName = zipEntry.getName();
+                if(entryName.startsWith("images/")) { //$NON-NLS-1$
+                    // Add to ByteArrayStorage
+                    if(!byteArrayStorage.hasEntry(entryName)) {
+                        InputStream in = zipFile.getInputStream(zipEntry);
+                        byteArrayStorage.addStreamEntry(entryName, in);
+                    }
                 }
             }
         }
         
-        zipFile.close();
-        
         return true;
     }
     
@@ -226,6 +260,8 @@ public class ArchiveManager implements IArchiveManager {
             saveModelToArchiveFile(file);
         }
         else {
+            // Images may still be read from the file that is about to be replaced
+            byteArrayStorage.releaseZipFiles(file, Collections.emptySet());
             saveResource(file);
         }
     }
@@ -234,8 +270,8 @@ public class ArchiveManager implements IArchiveManager {
     public IArchiveManager clone(IArchimateModel model) {
         ArchiveManager archiveManager = new ArchiveManager(model);
         
-        for(Entry<String, byte[]> entry : byteArrayStorage.getEntrySet()) {
-            archiveManager.byteArrayStorage.addByteContentEntry(entry.getKey(), entry.getValue());
+        for(String entryName : byteArrayStorage.getEntryNames()) {
+            archiveManager.byteArrayStorage.addByteContentEntry(entryName, byteArrayStorage.getEntry(entryName));
         }
         
         return archiveManager;
@@ -243,27 +279,76 @@ public class ArchiveManager implements IArchiveManager {
     
     /**
      * Save the model to Archive File format
+     * The archive is written to a temporary file which then replaces the model's file
+     * because images may be read from the model's file while it is written.
+     * If the model's file is a symbolic link then the file that it links to is replaced,
+     * and the existing file's permissions, owner and group are kept.
      */
     private void saveModelToArchiveFile(File file) throws IOException {
-        // Temp file for xml model file
-        File tmpFile = File.createTempFile("archi-", null); //$NON-NLS-1$
-        tmpFile.deleteOnExit();
-        saveResource(tmpFile);
+        file = file.getAbsoluteFile();
+        
+        // Write through a symbolic link to the real file
+        Path targetPath = file.exists() ? file.toPath().toRealPath() : file.toPath();
         
-        // Create Zip File output stream to model's file
-        BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(file));
-        ZipOutputStream zOut = new ZipOutputStream(out);
+        File tmpFile = new File(targetPath.getParent().toFile(), targetPath.getFileName() + ".tmp"); //$NON-NLS-1$
         
         try {
-            // Add the model xml file
-            ZipUtils.addFileToZip(tmpFile, "model.xml", zOut); //$NON-NLS-1$
+            Set<String> imagePaths;
             
-            // Add any images
-            saveImages(zOut);
+            // Create Zip File output stream to temp file
+            try(ZipOutputStream zOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                // Write the model xml file straight into the zip
+                zOut.putNextEntry(new ZipEntry("model.xml")); //$NON-NLS-1$
+                saveResource(file, zOut);
+                zOut.closeEntry();
+                
+                // Add any images
+                imagePaths = saveImages(zOut);
+            }
+            
+            // Read the images that won't be in the new file, or that are read from another file as after "Save As"
+            byteArrayStorage.releaseZipFiles(file, imagePaths);
+            
+            copyFileAttributes(targetPath, tmpFile.toPath());
+            
+            Files.move(tmpFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            
+            // The other images are now read from the new file
+            byteArrayStorage.zipFileReplaced(file, imagePaths);
         }
         finally {
             tmpFile.delete();
-            zOut.close();
+        }
+    }
+    
+    /**
+     * Copy the permissions, owner and group of an existing file to the file that will replace it
+     */
+    private void copyFileAttributes(Path source, Path target) throws IOException {
+        if(!Files.exists(source)) {
+            return;
+        }
+        
+        PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if(sourceView == null || targetView == null) {
+            return;
+        }
+        
+        PosixFileAttributes attributes = sourceView.readAttributes();
+        targetView.setPermissions(attributes.permissions());
+        
+        // Changing the owner or group may not be allowed, in which case the new file has the current user's
+        try {
+            if(!attributes.owner().equals(targetView.getOwner())) {
+                targetView.setOwner(attributes.owner());
+            }
+            if(!attributes.group().equals(targetView.readAttributes().group())) {
+                targetView.setGroup(attributes.group());
+            }
+        }
+        catch(IOException ex) {
+            Logger.logWarning("Could not keep the owner of " + source, ex); //$NON-NLS-1$
         }
     }
     
@@ -271,6 +356,45 @@ public class ArchiveManager implements IArchiveManager {
      * Save the model to Resource
      */
     private void saveResource(File file) throws IOException {
+        Resource resource = getResource(file);
+        
+        // Catch *all* exceptions in case of XML errors
+        try {
+            resource.save(null);
+        }
+        catch(Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    /**
+     * Save the model's Resource to an output stream without closing the stream
+     */
+    private void saveResource(File file, OutputStream out) throws IOException {
+        Resource resource = getResource(file);
+        
+        OutputStream shieldOut = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        
+        // Catch *all* exceptions in case of XML errors
+        try {
+            resource.save(shieldOut, resource.getDefaultSaveOptions());
+        }
+        catch(Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+    
+    private Resource getResource(File file) {
         Resource resource = fModel.eResource();
         
         // No parent Resource set, so create a new one
@@ -283,35 +407,28 @@ public class ArchiveManager implements IArchiveManager {
             resource.setURI(URI.createFileURI(file.getAbsolutePath()));
         }
         
-        // Catch *all* exceptions in case of XML errors
-        try {
-            resource.save(null);
-        }
-        catch(Exception ex) {
-            throw new IOException(ex);
-        }
+        return resource;
     }
     
-    private void saveImages(ZipOutputStream zOut) throws IOException {
-        List<String> added = new ArrayList<String>();
+    /**
+     * Write the model's images to the zip. Images read from an archive file are copied without being held in memory.
+     * @return The paths of the images that were written
+     */
+    private Set<String> saveImages(ZipOutputStream zOut) throws IOException {
+        Set<String> added = new HashSet<String>();
         
         for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
             EObject eObject = iter.next();
             if(eObject instanceof IDiagramModelImageProvider) {
                 IDiagramModelImageProvider imageProvider = (IDiagramModelImageProvider)eObject;
                 String imagePath = imageProvider.getImagePath();
-                if(imagePath != null && !added.contains(imagePath)) {
-                    byte[] bytes = byteArrayStorage.getEntry(imagePath);
-                    if(bytes != null) {
-                        ZipEntry zipEntry = new ZipEntry(imagePath);
-                        zOut.putNextEntry(zipEntry);
-                        zOut.write(bytes);
-                        zOut.closeEntry();
-                        added.add(imagePath);
-                    }
+                if(imagePath != null && !added.contains(imagePath) && byteArrayStorage.writeEntry(imagePath, zOut)) {
+                    added.add(imagePath);
                 }
             }
         }
+        
+        return added;
     }
     
     private String createArchiveImagePathname(File file) {
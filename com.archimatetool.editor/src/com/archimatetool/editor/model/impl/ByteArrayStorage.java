@@ -5,68 +5,171 @@
  */
 package com.archimatetool.editor.model.impl;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.archimatetool.editor.Logger;
+import com.archimatetool.editor.utils.DigestUtils;
 
 /**
  * Byte Array Storage Unit
+ *
+ * Entries are keyed by name and the same bytes added under different names are stored once.
+ * Bytes are found by a digest of their content so that checking for existing bytes doesn't compare against every entry.
+ *
+ * If a spill threshold is set then bytes larger than the threshold are written to a temporary file
+ * and read back when they are needed rather than being kept in memory.
  * 
+ * Entries can also be added from a zip file without reading them. These are read from the zip file when they are needed.
+ * Their digest isn't known until then so when bytes are added they are compared with zip entries of the same size and CRC.
+ * The zip file is only open while an entry is read so that it is not locked and can be replaced, renamed or deleted.
+ * Before a zip file is replaced or no longer used the entries read from it are read into this storage.
+ *
  * @author Phillip Beauvoir
  */
 public class ByteArrayStorage {
     
-    private Map<String, byte[]> fdataTable = new HashMap<String, byte[]>();
+    /**
+     * Stored bytes, shared by all entries with the same content
+     */
+    private static class Blob {
+        String digest;
+        byte[] bytes;
+        File file;
+        ZipSource zipSource;
+        String zipEntryName;
+        long size;
+        long crc;
+        
+        byte[] getBytes() {
+            if(bytes != null) {
+                return bytes;
+            }
+            
+            try {
+                if(file != null) {
+                    return Files.readAllBytes(file.toPath());
+                }
+                return getBytesFromStream(getInputStream());
+            }
+            catch(IOException ex) {
+                Logger.logError("Could not read stored bytes", ex); //$NON-NLS-1$
+                return null;
+            }
+        }
+        
+        InputStream getInputStream() throws IOException {
+            if(bytes != null) {
+                return new ByteArrayInputStream(bytes);
+            }
+            if(file != null) {
+                return new BufferedInputStream(new FileInputStream(file));
+            }
+            return zipSource.getInputStream(zipEntryName);
+        }
+        
+        boolean isZipEntry() {
+            return zipSource != null;
+        }
+        
+        void dispose() {
+            bytes = null;
+            if(file != null) {
+                file.delete();
+                file = null;
+            }
+        }
+    }
+    
+    // File extensions of image formats that are already compressed and so are not compressed again in a zip file
+    private static final String[] COMPRESSED_FORMATS = { ".png", ".jpg", ".jpeg", ".gif" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    
+    // Entry name -> Blob
+    private Map<String, Blob> fdataTable = new HashMap<String, Blob>();
+    
+    // Digest -> name of the first entry added with that content
+    private Map<String, String> fDigestTable = new HashMap<String, String>();
+    
+    // Size and CRC -> Blobs of zip entries that have not been read yet
+    private Map<String, List<Blob>> fUnreadZipEntries = new HashMap<String, List<Blob>>();
+    
+    // Zip files that entries are read from
+    private Map<File, ZipSource> fZipSources = new HashMap<File, ZipSource>();
+    
+    private long fSpillThreshold;
+    
+    /**
+     * Create a storage unit that keeps all bytes in memory
+     */
+    public ByteArrayStorage() {
+        this(-1);
+    }
+    
+    /**
+     * @param spillThreshold Bytes larger than this size are stored in a temporary file. If less than zero all bytes are kept in memory.
+     */
+    public ByteArrayStorage(long spillThreshold) {
+        fSpillThreshold = spillThreshold;
+    }
     
     InputStream getInputStream(String entryName) {
         if(entryName != null) {
-            byte[] bytes = fdataTable.get(entryName);
-            if(bytes != null) {
-                return new ByteArrayInputStream(bytes);
+            Blob blob = fdataTable.get(entryName);
+            if(blob != null) {
+                try {
+                    return blob.getInputStream();
+                }
+                catch(IOException ex) {
+                    Logger.logError("Could not read stored bytes of " + entryName, ex); //$NON-NLS-1$
+                }
             }
         }
         return null;
     }
-
+    
     String getKey(byte[] bytes) {
-        for(Entry<String, byte[]> entry : fdataTable.entrySet()) {
-            byte[] entryBytes = entry.getValue();
-            if(Arrays.equals(bytes, entryBytes)) {
-                return entry.getKey();
-            }
+        if(bytes == null) {
+            return null;
         }
         
-        return null;
+        readZipEntriesMatching(bytes);
+        return fDigestTable.get(getDigest(bytes));
     }
     
     long getEntrySize(String entryName) {
         if(entryName != null) {
-            byte[] bytes = fdataTable.get(entryName);
-            if(bytes != null) {
-                return bytes.length;
+            Blob blob = fdataTable.get(entryName);
+            if(blob != null) {
+                return blob.size;
             }
         }
         return -1;
     }
     
-    Set<Entry<String, byte[]>> getEntrySet() {
-        return fdataTable.entrySet();
-    }
-    
     List<String> getEntryNames() {
         return new ArrayList<>(fdataTable.keySet());
     }
-
+    
     boolean hasEntries() {
         return !fdataTable.isEmpty();
     }
@@ -75,12 +178,58 @@ public class ByteArrayStorage {
         return fdataTable.containsKey(entryName);
     }
     
+    /**
+     * @return true if the entry's bytes are stored in a temporary file rather than in memory
+     */
+    boolean isSpilled(String entryName) {
+        Blob blob = fdataTable.get(entryName);
+        return blob != null && blob.file != null;
+    }
+    
+    /**
+     * @return true if the entry's bytes are read from a zip file when they are needed
+     */
+    boolean isZipEntry(String entryName) {
+        Blob blob = fdataTable.get(entryName);
+        return blob != null && blob.isZipEntry();
+    }
+    
     void removeEntry(String entryName) {
-        fdataTable.remove(entryName);
+        Blob blob = fdataTable.remove(entryName);
+        if(blob == null) {
+            return;
+        }
+        
+        // Not read yet so there is only this entry
+        if(blob.digest == null) {
+            removeUnreadZipEntry(blob);
+            return;
+        }
+        
+        // If this was the entry found by the digest then find another entry with the same bytes
+        if(entryName.equals(fDigestTable.get(blob.digest))) {
+            String otherName = null;
+            
+            for(Entry<String, Blob> entry : fdataTable.entrySet()) {
+                if(entry.getValue() == blob) {
+                    otherName = entry.getKey();
+                    break;
+                }
+            }
+            
+            if(otherName != null) {
+                fDigestTable.put(blob.digest, otherName);
+            }
+            else {
+                fDigestTable.remove(blob.digest);
+                blob.dispose();
+            }
+        }
     }
     
     byte[] getEntry(String entryName) {
-        return fdataTable.get(entryName);
+        Blob blob = fdataTable.get(entryName);
+        return blob != null ? blob.getBytes() : null;
     }
     
     void addFileContentEntry(String entryName, File file) throws IOException {
@@ -91,22 +240,159 @@ public class ByteArrayStorage {
         byte[] bytes = getBytesFromStream(in);
         addByteContentEntry(entryName, bytes);
     }
-
+    
     void addByteContentEntry(String entryName, byte[] bytes) {
+        // Replacing an entry
+        if(fdataTable.containsKey(entryName)) {
+            removeEntry(entryName);
+        }
+        
         // Check if we have these bytes already. If we do then re-reference them
         // We might be adding the same set of bytes but from a different file
-        String key = getKey(bytes);
+        readZipEntriesMatching(bytes);
+        String digest = getDigest(bytes);
+        String key = fDigestTable.get(digest);
         
         // Yes we have them, so re-use the bytes
         if(key != null) {
-            fdataTable.put(entryName, getEntry(key));
+            fdataTable.put(entryName, fdataTable.get(key));
         }
         // No, so add the bytes
         else {
-            fdataTable.put(entryName, bytes);
+            fdataTable.put(entryName, createBlob(digest, bytes));
+            fDigestTable.put(digest, entryName);
         }
     }
     
+    /**
+     * Add an entry that is read from a zip file when it is needed
+     * @param entryName The name of the entry in this storage
+     * @param file The zip file
+     * @param zipEntry The zip entry in the zip file
+     */
+    void addZipEntry(String entryName, File file, ZipEntry zipEntry) {
+        // Replacing an entry
+        if(fdataTable.containsKey(entryName)) {
+            removeEntry(entryName);
+        }
+        
+        Blob blob = new Blob();
+        blob.zipSource = fZipSources.computeIfAbsent(file.getAbsoluteFile(), ZipSource::new);
+        blob.zipEntryName = zipEntry.getName();
+        blob.size = zipEntry.getSize();
+        blob.crc = zipEntry.getCrc();
+        
+        fdataTable.put(entryName, blob);
+        
+        // Size and CRC are not known so read it now
+        if(blob.size < 0 || blob.crc < 0) {
+            resolveDigest(blob, entryName);
+        }
+        else {
+            fUnreadZipEntries.computeIfAbsent(getSizeAndCRCKey(blob.size, blob.crc), k -> new ArrayList<>()).add(blob);
+        }
+    }
+    
+    /**
+     * Write an entry to a zip output stream.
+     * An entry in an already compressed image format is stored without compression using its known size and CRC.
+     * Other entries, or if the size or CRC is not known because the entry could not be read, are compressed.
+     * @return false if there is no entry
+     */
+    boolean writeEntry(String entryName, ZipOutputStream zOut) throws IOException {
+        Blob blob = fdataTable.get(entryName);
+        if(blob == null) {
+            return false;
+        }
+        
+        ZipEntry zipEntry = new ZipEntry(entryName);
+        
+        if(isCompressedFormat(entryName) && blob.size >= 0 && blob.crc >= 0) {
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(blob.size);
+            zipEntry.setCompressedSize(blob.size);
+            zipEntry.setCrc(blob.crc);
+        }
+        else {
+            zipEntry.setMethod(ZipEntry.DEFLATED);
+        }
+        
+        zOut.putNextEntry(zipEntry);
+        copyStream(blob.getInputStream(), zOut);
+        zOut.closeEntry();
+        
+        return true;
+    }
+    
+    /**
+     * A zip file is about to be replaced by a new file that contains the given entries.
+     * Entries that are read from another zip file, or that are read from this zip file but are not in the new file,
+     * are read now so that they don't depend on a file that may be replaced, moved or deleted.
+     * Once the file has been replaced call {@link #zipFileReplaced(File, Set)}.
+     * @param file The zip file that will be replaced. This may not exist or may not be a zip file.
+     * @param newEntryNames The names of entries in the new file
+     */
+    void releaseZipFiles(File file, Set<String> newEntryNames) throws IOException {
+        ZipSource zipSource = fZipSources.get(file.getAbsoluteFile());
+        Map<Blob, String> newNames = getNewEntryNames(zipSource, newEntryNames);
+        
+        for(Blob blob : new HashSet<>(fdataTable.values())) {
+            if(blob.isZipEntry() && !newNames.containsKey(blob)) {
+                readZipEntry(blob);
+            }
+        }
+        
+        // Only the zip file being replaced is still used
+        fZipSources.values().removeIf(source -> source != zipSource);
+    }
+    
+    /**
+     * The zip file has been replaced by a new file that contains the given entries.
+     * Entries that were read from the zip file are read from their entry name in the new file.
+     * @param file The zip file that has been replaced
+     * @param newEntryNames The names of entries in the new file
+     */
+    void zipFileReplaced(File file, Set<String> newEntryNames) {
+        ZipSource zipSource = fZipSources.get(file.getAbsoluteFile());
+        
+        for(Entry<Blob, String> entry : getNewEntryNames(zipSource, newEntryNames).entrySet()) {
+            entry.getKey().zipEntryName = entry.getValue();
+        }
+    }
+    
+    /**
+     * @return An entry name in the new zip file for each blob read from the zip source that is in the new file
+     */
+    private Map<Blob, String> getNewEntryNames(ZipSource zipSource, Set<String> newEntryNames) {
+        Map<Blob, String> newNames = new IdentityHashMap<>();
+        
+        if(zipSource != null) {
+            for(Entry<String, Blob> entry : fdataTable.entrySet()) {
+                Blob blob = entry.getValue();
+                if(blob.zipSource == zipSource && newEntryNames.contains(entry.getKey())) {
+                    newNames.putIfAbsent(blob, entry.getKey());
+                }
+            }
+        }
+        
+        return newNames;
+    }
+    
+    /**
+     * Read the bytes of a zip entry into this storage so that it is no longer read from the zip file
+     */
+    private void readZipEntry(Blob blob) throws IOException {
+        byte[] bytes = blob.getBytes();
+        if(bytes == null) {
+            throw new IOException("Could not read entry: " + blob.zipEntryName); //$NON-NLS-1$
+        }
+        
+        removeUnreadZipEntry(blob);
+        blob.zipSource = null;
+        blob.zipEntryName = null;
+        storeBytes(blob, bytes);
+    }
+    
     byte[] getBytesFromFile(File file) throws IOException {
         // Get the bytes from the file
         if(file != null && file.exists()) {
@@ -117,15 +403,154 @@ public class ByteArrayStorage {
     }
     
     void dispose() {
+        for(Blob blob : new HashSet<>(fdataTable.values())) {
+            blob.dispose();
+        }
+        
         fdataTable.clear();
         fdataTable = null;
+        fDigestTable.clear();
+        fDigestTable = null;
+        fUnreadZipEntries.clear();
+        fUnreadZipEntries = null;
+        fZipSources.clear();
+        fZipSources = null;
+    }
+    
+    /**
+     * Read any zip entries that might have the same bytes so that their digests are known
+     */
+    private void readZipEntriesMatching(byte[] bytes) {
+        if(fUnreadZipEntries.isEmpty()) {
+            return;
+        }
+        
+        List<Blob> blobs = fUnreadZipEntries.remove(getSizeAndCRCKey(bytes.length, getCRC(bytes)));
+        if(blobs != null) {
+            for(Blob blob : blobs) {
+                for(Entry<String, Blob> entry : fdataTable.entrySet()) {
+                    if(entry.getValue() == blob) {
+                        resolveDigest(blob, entry.getKey());
+                        break;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Read a zip entry to set its digest. If the same bytes are already stored then the entry re-uses them.
+     */
+    private void resolveDigest(Blob blob, String entryName) {
+        byte[] bytes = blob.getBytes();
+        if(bytes == null) {
+            return;
+        }
+        
+        blob.digest = getDigest(bytes);
+        blob.size = bytes.length;
+        blob.crc = getCRC(bytes);
+        
+        String key = fDigestTable.get(blob.digest);
+        if(key != null) {
+            fdataTable.put(entryName, fdataTable.get(key));
+        }
+        else {
+            fDigestTable.put(blob.digest, entryName);
+        }
+    }
+    
+    private void removeUnreadZipEntry(Blob blob) {
+        String key = getSizeAndCRCKey(blob.size, blob.crc);
+        List<Blob> blobs = fUnreadZipEntries.get(key);
+        if(blobs != null) {
+            blobs.remove(blob);
+            if(blobs.isEmpty()) {
+                fUnreadZipEntries.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * @return true if the entry name is of an image format that is already compressed
+     */
+    static boolean isCompressedFormat(String entryName) {
+        String name = entryName.toLowerCase();
+        for(String ext : COMPRESSED_FORMATS) {
+            if(name.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String getSizeAndCRCKey(long size, long crc) {
+        return size + ":" + crc; //$NON-NLS-1$
+    }
+    
+    private static long getCRC(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+    
+    private Blob createBlob(String digest, byte[] bytes) {
+        Blob blob = new Blob();
+        blob.digest = digest;
+        blob.size = bytes.length;
+        blob.crc = getCRC(bytes);
+        
+        storeBytes(blob, bytes);
+        return blob;
+    }
+    
+    /**
+     * Store the bytes of a blob in memory or, if larger than the spill threshold, in a temporary file
+     */
+    private void storeBytes(Blob blob, byte[] bytes) {
+        if(fSpillThreshold >= 0 && bytes.length > fSpillThreshold) {
+            try {
+                File file = File.createTempFile("archi-bytes-", null); //$NON-NLS-1$
+                file.deleteOnExit();
+                Files.write(file.toPath(), bytes);
+                blob.file = file;
+                return;
+            }
+            catch(IOException ex) {
+                // Keep it in memory
+                Logger.logWarning("Could not store bytes in a temporary file", ex); //$NON-NLS-1$
+            }
+        }
+        
+        blob.bytes = bytes;
+    }
+    
+    /**
+     * @return A digest of the bytes as a hex string
+     */
+    static String getDigest(byte[] bytes) {
+        return DigestUtils.getSHA256(bytes);
     }
     
     /**
      * Read in a stream and return its contents as a byte array
      */
-    private byte[] getBytesFromStream(InputStream in) throws IOException {
+    private static byte[] getBytesFromStream(InputStream in) throws IOException {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            copyStream(in, out);
+        }
+        finally {
+            out.close();
+        }
+        
+        return out.toByteArray();
+    }
+    
+    /**
+     * Copy a stream to an output stream and close the input stream
+     */
+    private static void copyStream(InputStream in, OutputStream out) throws IOException {
         byte[] buf = new byte[8192];
         try {
             int size;
@@ -134,10 +559,47 @@ public class ByteArrayStorage {
             }
         }
         finally {
-            out.close();
             in.close();
         }
+    }
+    
+    /**
+     * A zip file that entries are read from.
+     * The zip file is opened for each entry that is read and closed when the entry's stream is closed,
+     * so that the file is not kept open and locked.
+     */
+    private static class ZipSource {
+        File file;
         
-        return out.toByteArray();
+        ZipSource(File file) {
+            this.file = file;
+        }
+        
+        InputStream getInputStream(String entryName) throws IOException {
+            ZipFile zipFile = new ZipFile(file);
+            
+            try {
+                ZipEntry zipEntry = zipFile.getEntry(entryName);
+                if(zipEntry == null) {
+                    throw new IOException("Entry not found: " + entryName); //$NON-NLS-1$
+                }
+                
+                return new FilterInputStream(zipFile.getInputStream(zipEntry)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        }
+                        finally {
+                            zipFile.close();
+                        }
+                    }
+                };
+            }
+            catch(IOException | RuntimeException ex) {
+                zipFile.close();
+                throw ex;
+            }
+        }
     }
 }
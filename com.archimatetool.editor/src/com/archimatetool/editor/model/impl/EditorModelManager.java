@@ -11,8 +11,11 @@ import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
@@ -54,6 +57,7 @@ import com.archimatetool.model.IDiagramModel;
 import com.archimatetool.model.ModelVersion;
 import com.archimatetool.model.util.ArchimateResourceFactory;
 import com.archimatetool.model.util.IModelContentListener;
+import com.archimatetool.model.util.ModelIDIndex;
 
 
 
@@ -264,6 +268,10 @@ implements IEditorModelManager {
         // Check model compatibility
         ModelCompatibility modelCompatibility = new ModelCompatibility(resource);
         
+        // Time taken by each phase of loading
+        Map<String, Long> timings = new LinkedHashMap<String, Long>();
+        long start = System.currentTimeMillis();
+        
         // Load the model file
         try {
             resource.load(null);
@@ -288,6 +296,8 @@ implements IEditorModelManager {
         }
         
         model = (IArchimateModel)resource.getContents().get(0);
+        
+        timings.put("Load", System.currentTimeMillis() - start); //$NON-NLS-1$
 
         // Once loaded - check for later model version
         if(PlatformUI.isWorkbenchRunning()) {
@@ -326,11 +336,20 @@ implements IEditorModelManager {
         }
 
         // And then fix any backward compatibility issues
+        // Initiate all diagram models to be marked as "saved" in the same traversal - this is for the editor view persistence
         try {
-            modelCompatibility.fixCompatibility();
+            modelCompatibility.fixCompatibility(eObject -> {
+                if(eObject instanceof IDiagramModel) {
+                    ((IDiagramModel)eObject).setAdapter(ADAPTER_PROPERTY_MODEL_SAVED, true);
+                }
+            });
         }
         catch(CompatibilityHandlerException ex) {
+            markDiagramModelsAsSaved(model);
         }
+        
+        timings.putAll(modelCompatibility.getTimings());
+        start = System.currentTimeMillis();
 
         model.setFile(file);
         model.setDefaults();
@@ -346,8 +365,11 @@ implements IEditorModelManager {
         // New Archive Manager
         createNewArchiveManager(model);
         
-        // Initiate all diagram models to be marked as "saved" - this is for the editor view persistence
-        markDiagramModelsAsSaved(model);
+        timings.put("Initialise", System.currentTimeMillis() - start); //$NON-NLS-1$
+        
+        if(Platform.inDebugMode()) {
+            Logger.logInfo("Loaded model " + file + " " + timings); //$NON-NLS-1$ //$NON-NLS-2$
+        }
 
         // This last
         firePropertyChange(this, PROPERTY_MODEL_LOADED, null, model);
@@ -383,6 +405,9 @@ implements IEditorModelManager {
   
         // Delete Archive Manager
         deleteArchiveManager(model);
+        
+        // Remove the ID index's adapter from the model's objects
+        ModelIDIndex.removeIndex(model);
 
         // *at the very last* dispose of this model so its contents can be garbage collected
         // Some Eclipse components such as the Properties View might still reference the model or some of its contents
@@ -0,0 +1,343 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.ui.textrender;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.model.IArchimateModelObject;
+
+/**
+ * A label expression parsed once into a list of nodes that render an object in one pass.
+ *
+ * Only expressions made of the internal renderers' expressions are compiled.
+ * A rendered value that contains a "$" might contain another expression and would be rendered again by the
+ * registered renderers, so in that case the compiled expression returns null and the caller renders the expression
+ * with the registered renderers to get the same result.
+ *
+ * @author Phillip Beauvoir
+ */
+@SuppressWarnings("nls")
+class CompiledExpression {
+
+    /**
+     * An expression that can't be compiled
+     */
+    static final CompiledExpression NOT_COMPILED = new CompiledExpression(null);
+
+    private static final Pattern PREFIX_PATTERN = Pattern.compile(ITextRenderer.corePrefixes + "|" + ITextRenderer.connectionPrefixes);
+    private static final Pattern CONTENT_PREFIX_PATTERN = Pattern.compile("connection:(?:source|target)");
+
+    private static final String WORDWRAP = "wordwrap:";
+    private static final String PROPERTY = "property:";
+    private static final String PROPERTIES = "properties:";
+
+    private static final NameRenderer nameRenderer = new NameRenderer();
+    private static final DocumentationRenderer documentationRenderer = new DocumentationRenderer();
+    private static final TypeRenderer typeRenderer = new TypeRenderer();
+    private static final PropertiesRenderer propertiesRenderer = new PropertiesRenderer();
+    private static final TextContentRenderer textContentRenderer = new TextContentRenderer();
+    private static final RelationshipRenderer relationshipRenderer = new RelationshipRenderer();
+    private static final ViewpointRenderer viewpointRenderer = new ViewpointRenderer();
+
+    /**
+     * A part of a compiled expression
+     */
+    private interface Node {
+        /**
+         * Append the rendered text of the object to sb
+         * @return false if the expression has to be rendered by the registered renderers
+         */
+        boolean render(IArchimateModelObject object, StringBuilder sb);
+    }
+
+    private List<Node> nodes;
+
+    private CompiledExpression(List<Node> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Compile an expression
+     * @param expression The expression with newline escapement removed
+     * @return The compiled expression or NOT_COMPILED if the expression can't be compiled
+     */
+    static CompiledExpression compile(String expression) {
+        Parser parser = new Parser(expression);
+        List<Node> nodes = parser.parse(false);
+        return nodes != null && parser.pos == expression.length() ? new CompiledExpression(nodes) : NOT_COMPILED;
+    }
+
+    /**
+     * @return true if the expression was compiled
+     */
+    boolean isCompiled() {
+        return nodes != null;
+    }
+
+    /**
+     * Render the object in one pass
+     * @return The rendered text, or null if the expression has to be rendered by the registered renderers
+     */
+    String render(IArchimateModelObject object) {
+        if(nodes == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        return render(nodes, object, sb) ? sb.toString() : null;
+    }
+
+    private static boolean render(List<Node> nodes, IArchimateModelObject object, StringBuilder sb) {
+        for(Node node : nodes) {
+            if(!node.render(object, sb)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return A node that appends a value, if the value does not contain another expression
+     */
+    private static Node value(Function<IArchimateModelObject, String> function) {
+        return (object, sb) -> {
+            String value = StringUtils.safeString(function.apply(object));
+            if(value.indexOf('$') != -1) {
+                return false;
+            }
+
+            sb.append(value);
+            return true;
+        };
+    }
+
+    /**
+     * @return A node that appends a value, or the expression's text if there is no value as the renderer does
+     */
+    private static Node valueOrExpression(Function<IArchimateModelObject, String> function, String expression) {
+        return (object, sb) -> {
+            String value = function.apply(object);
+            if(value == null) {
+                sb.append(expression);
+                return true;
+            }
+
+            if(value.indexOf('$') != -1) {
+                return false;
+            }
+
+            sb.append(value);
+            return true;
+        };
+    }
+
+    /**
+     * @return A node that word wraps the rendered text of its child nodes
+     */
+    private static Node wordWrap(List<Node> children, int lineLength) {
+        return (object, sb) -> {
+            StringBuilder text = new StringBuilder();
+            if(!render(children, object, text)) {
+                return false;
+            }
+
+            // The text to wrap can't be empty or contain the start or end of an expression
+            if(text.length() == 0 || text.indexOf("$") != -1 || text.indexOf("}") != -1) {
+                return false;
+            }
+
+            sb.append(WordWrapRenderer.wrap(text.toString(), lineLength));
+            return true;
+        };
+    }
+
+    /**
+     * Parses an expression into nodes.
+     * Anything that is not exactly one of the internal renderers' expressions means that the expression can't be compiled.
+     */
+    private static class Parser {
+        String s;
+        int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        /**
+         * @return The nodes up to the end of the text, or up to a closing brace if inWordWrap is true, or null
+         */
+        List<Node> parse(boolean inWordWrap) {
+            List<Node> nodes = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+
+            while(pos < s.length()) {
+                char c = s.charAt(pos);
+
+                if(c == '}' && inWordWrap) {
+                    break;
+                }
+
+                if(c == '$') {
+                    addLiteral(nodes, literal);
+
+                    Node node = parseExpression();
+                    if(node == null) {
+                        return null;
+                    }
+
+                    nodes.add(node);
+                }
+                else {
+                    literal.append(c);
+                    pos++;
+                }
+            }
+
+            addLiteral(nodes, literal);
+
+            return nodes;
+        }
+
+        private void addLiteral(List<Node> nodes, StringBuilder literal) {
+            if(literal.length() > 0) {
+                String text = literal.toString();
+                nodes.add((object, sb) -> {
+                    sb.append(text);
+                    return true;
+                });
+                literal.setLength(0);
+            }
+        }
+
+        /**
+         * Parse an expression starting with "$" at pos
+         */
+        private Node parseExpression() {
+            int open = s.indexOf('{', pos);
+            if(open == -1) {
+                return null;
+            }
+
+            String prefix = open > pos + 1 ? s.substring(pos + 1, open) : null;
+
+            if(prefix == null && s.startsWith(WORDWRAP, open + 1)) {
+                pos = open + 1 + WORDWRAP.length();
+                return parseWordWrap();
+            }
+
+            int close = s.indexOf('}', open);
+            if(close == -1) {
+                return null;
+            }
+
+            String content = s.substring(open + 1, close);
+            if(content.indexOf('$') != -1 || content.indexOf('{') != -1) {
+                return null;
+            }
+
+            String expression = s.substring(pos, close + 1);
+            pos = close + 1;
+
+            return createNode(prefix, content, expression);
+        }
+
+        /**
+         * Parse "N:text}" of a word wrap expression at pos
+         */
+        private Node parseWordWrap() {
+            int start = pos;
+            while(pos < s.length() && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+                pos++;
+            }
+
+            if(pos == start || pos == s.length() || s.charAt(pos) != ':') {
+                return null;
+            }
+
+            int lineLength;
+            try {
+                lineLength = Integer.parseInt(s.substring(start, pos));
+            }
+            catch(NumberFormatException ex) {
+                lineLength = 999999; // As WordWrapRenderer
+            }
+
+            pos++;
+
+            List<Node> children = parse(true);
+            if(children == null || children.isEmpty() || pos == s.length()) {
+                return null;
+            }
+
+            pos++; // closing brace
+
+            return wordWrap(children, lineLength);
+        }
+
+        private Node createNode(String prefix, String content, String expression) {
+            boolean validPrefix = prefix == null || PREFIX_PATTERN.matcher(prefix).matches();
+
+            switch(content) {
+                case "name":
+                    return validPrefix ? value(object -> nameRenderer.renderName(object, prefix)) : null;
+
+                case "documentation":
+                case "doc":
+                    return validPrefix ? value(object -> documentationRenderer.renderDocumentation(object, prefix)) : null;
+
+                case "type":
+                    return prefix == null ? value(object -> typeRenderer.renderType(object)) : null;
+
+                case "viewpoint":
+                    return prefix == null ? value(object -> viewpointRenderer.renderViewpoint(object)) : null;
+
+                case "strength":
+                    return prefix == null ? valueOrExpression(object -> relationshipRenderer.renderStrength(object), expression) : null;
+
+                case "content":
+                    return prefix == null || CONTENT_PREFIX_PATTERN.matcher(prefix).matches()
+                            ? value(object -> textContentRenderer.renderContent(object, prefix)) : null;
+
+                case "properties":
+                    return validPrefix ? valueOrExpression(object -> propertiesRenderer.renderProperties(object, prefix, true), expression) : null;
+
+                case "propertiesvalues":
+                    return validPrefix ? valueOrExpression(object -> propertiesRenderer.renderProperties(object, prefix, false), expression) : null;
+
+                default:
+                    break;
+            }
+
+            if(!validPrefix) {
+                return null;
+            }
+
+            // ${property:key}
+            if(content.startsWith(PROPERTY) && content.length() > PROPERTY.length()) {
+                String key = content.substring(PROPERTY.length());
+                return value(object -> propertiesRenderer.renderPropertyValue(object, prefix, key));
+            }
+
+            // ${properties:separator:key}
+            if(content.startsWith(PROPERTIES)) {
+                String separatorAndKey = content.substring(PROPERTIES.length());
+                int colon = separatorAndKey.indexOf(':');
+                if(colon != -1 && colon < separatorAndKey.length() - 1) {
+                    String separator = separatorAndKey.substring(0, colon);
+                    String key = separatorAndKey.substring(colon + 1);
+                    return valueOrExpression(object -> propertiesRenderer.renderFilteredProperties(object, prefix, separator, key), expression);
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -28,22 +28,29 @@ public class DocumentationRenderer extends AbstractTextRenderer {
         
         while(matcher.find()) {
             String prefix = matcher.group(1);
-            String replacement = "";
-            
-            // Get ref object...
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            // If ref object is IDocumentable
-            if(refObject instanceof IDocumentable) {
-                replacement = ((IDocumentable)refObject).getDocumentation();
-            }
-            // If ref object is IArchimateModel use Purpose
-            else if(refObject instanceof IArchimateModel) {
-                replacement = ((IArchimateModel)refObject).getPurpose();
-            }
-            
-            text = text.replace(matcher.group(), replacement);
+            text = text.replace(matcher.group(), renderDocumentation(object, prefix));
         }
         
         return text;
     }
+    
+    /**
+     * @return The documentation of the object referred to by prefix, or "" if there is no such object
+     */
+    String renderDocumentation(IArchimateModelObject object, String prefix) {
+        // Get ref object...
+        IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
+        
+        // If ref object is IDocumentable
+        if(refObject instanceof IDocumentable) {
+            return ((IDocumentable)refObject).getDocumentation();
+        }
+        
+        // If ref object is IArchimateModel use Purpose
+        if(refObject instanceof IArchimateModel) {
+            return ((IArchimateModel)refObject).getPurpose();
+        }
+        
+        return "";
+    }
 }
\ No newline at end of file
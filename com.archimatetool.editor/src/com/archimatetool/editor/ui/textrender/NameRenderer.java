@@ -26,16 +26,17 @@ public class NameRenderer extends AbstractTextRenderer {
         
         while(matcher.find()) {
             String prefix = matcher.group(1);
-            String replacement = "";
-            
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            if(refObject != null) {
-                replacement = refObject.getName();
-            }
-            
-            text = text.replace(matcher.group(), replacement);
+            text = text.replace(matcher.group(), renderName(object, prefix));
         }
         
         return text;
     }
+    
+    /**
+     * @return The name of the object referred to by prefix, or "" if there is no such object
+     */
+    String renderName(IArchimateModelObject object, String prefix) {
+        IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
+        return refObject != null ? refObject.getName() : "";
+    }
 }
\ No newline at end of file
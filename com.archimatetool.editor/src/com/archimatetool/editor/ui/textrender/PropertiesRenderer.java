@@ -47,22 +47,27 @@ public class PropertiesRenderer extends AbstractTextRenderer {
         while(matcher.find()) {
             String prefix = matcher.group(1);
             String key = matcher.group(2);
-            String propertyValue = "";
-            
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            if(refObject instanceof IProperties) {
-                IProperty property = getProperty((IProperties)refObject, key);
-                if(property != null) {
-                    propertyValue = property.getValue();
-                }
-            }
-            
-            text = text.replace(matcher.group(), propertyValue);
+            text = text.replace(matcher.group(), renderPropertyValue(object, prefix, key));
         }
 
         return text;
     }
     
+    /**
+     * @return The value of the property with key of the object referred to by prefix, or ""
+     */
+    String renderPropertyValue(IArchimateModelObject object, String prefix, String key) {
+        IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
+        if(refObject instanceof IProperties) {
+            IProperty property = getProperty((IProperties)refObject, key);
+            if(property != null) {
+                return property.getValue();
+            }
+        }
+        
+        return "";
+    }
+    
     // List all properties like key: value
     private String renderPropertiesList(IArchimateModelObject object, String text) {
         Matcher matcher = PROPERTIES_PATTERN.matcher(text);
@@ -70,9 +75,9 @@ public class PropertiesRenderer extends AbstractTextRenderer {
         while(matcher.find()) {
             String prefix = matcher.group(1);
             
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            if(refObject instanceof IProperties) {
-                text = text.replace(matcher.group(), getAllProperties((IProperties)refObject, true));
+            String s = renderProperties(object, prefix, true);
+            if(s != null) {
+                text = text.replace(matcher.group(), s);
             }
         }
         
@@ -86,14 +91,23 @@ public class PropertiesRenderer extends AbstractTextRenderer {
         while(matcher.find()) {
             String prefix = matcher.group(1);
             
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            if(refObject instanceof IProperties) {
-                text = text.replace(matcher.group(), getAllProperties((IProperties)refObject, false));
+            String s = renderProperties(object, prefix, false);
+            if(s != null) {
+                text = text.replace(matcher.group(), s);
             }
         }
         
         return text;
     }
+    
+    /**
+     * @return All properties of the object referred to by prefix as "key: value" if full is true, else their values,
+     *         or null if the object has no properties
+     */
+    String renderProperties(IArchimateModelObject object, String prefix, boolean full) {
+        IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
+        return refObject instanceof IProperties ? getAllProperties((IProperties)refObject, full) : null;
+    }
 
     // List of all of a certain property key with separator
     private String renderPropertiesValuesCustomList(IArchimateModelObject object, String text) {
@@ -103,25 +117,40 @@ public class PropertiesRenderer extends AbstractTextRenderer {
             String prefix = matcher.group(1);
             String separator = matcher.group(2);
             String key = matcher.group(3);
-            String s = "";
             
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            if(refObject instanceof IProperties) {
-                for(IProperty property : ((IProperties)refObject).getProperties()) {
-                    if(property.getKey().equals(key)) {
-                        if(!s.isEmpty()) {
-                            s += separator;
-                        }
-                        
-                        s += property.getValue();
-                    }
-                }
+            String s = renderFilteredProperties(object, prefix, separator, key);
+            if(s != null) {
                 text = text.replace(matcher.group(), s);
             }
         }
         
         return text;
     }
+    
+    /**
+     * @return The values of all properties with key of the object referred to by prefix joined with separator,
+     *         or null if the object has no properties
+     */
+    String renderFilteredProperties(IArchimateModelObject object, String prefix, String separator, String key) {
+        IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
+        if(!(refObject instanceof IProperties)) {
+            return null;
+        }
+        
+        String s = "";
+        
+        for(IProperty property : ((IProperties)refObject).getProperties()) {
+            if(property.getKey().equals(key)) {
+                if(!s.isEmpty()) {
+                    s += separator;
+                }
+                
+                s += property.getValue();
+            }
+        }
+        
+        return s;
+    }
 
     private String getAllProperties(IProperties object, boolean full) {
         String s = "";
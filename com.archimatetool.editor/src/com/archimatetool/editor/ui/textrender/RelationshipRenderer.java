@@ -20,12 +20,15 @@ public class RelationshipRenderer extends AbstractTextRenderer {
 
     @Override
     public String render(IArchimateModelObject object, String text) {
+        String strength = renderStrength(object);
+        return strength != null ? text.replace(STRENGTH, strength) : text;
+    }
+    
+    /**
+     * @return The strength of an Influence relationship, or null if the object is not an Influence relationship
+     */
+    String renderStrength(IArchimateModelObject object) {
         object = getActualObject(object);
-        
-        if(object instanceof IInfluenceRelationship) {
-            return text.replace(STRENGTH, ((IInfluenceRelationship)object).getStrength());
-        }
-        
-        return text;
+        return object instanceof IInfluenceRelationship ? ((IInfluenceRelationship)object).getStrength() : null;
     }
 }
\ No newline at end of file
@@ -27,16 +27,17 @@ public class TextContentRenderer extends AbstractTextRenderer {
         
         while(matcher.find()) {
             String prefix = matcher.group(1);
-            String replacement = "";
-            
-            IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
-            if(refObject instanceof ITextContent) {
-                replacement = ((ITextContent)refObject).getContent();
-            }
-            
-            text = text.replace(matcher.group(), replacement);
+            text = text.replace(matcher.group(), renderContent(object, prefix));
         }
         
         return text;
     }
+    
+    /**
+     * @return The text content of the object referred to by prefix, or "" if there is no such object
+     */
+    String renderContent(IArchimateModelObject object, String prefix) {
+        IArchimateModelObject refObject = getObjectFromPrefix(object, prefix);
+        return refObject instanceof ITextContent ? ((ITextContent)refObject).getContent() : "";
+    }
 }
\ No newline at end of file
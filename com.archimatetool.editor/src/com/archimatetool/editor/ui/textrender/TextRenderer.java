@@ -7,7 +7,9 @@ package com.archimatetool.editor.ui.textrender;
 
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.IArchimateModelObject;
@@ -30,6 +32,18 @@ public class TextRenderer {
 
     private Set<ITextRenderer> renderers = new LinkedHashSet<>();
     
+    /**
+     * Compiled expressions keyed by format expression
+     */
+    private Map<String, CompiledExpression> compiledExpressions = new ConcurrentHashMap<>();
+    
+    private static final int MAX_COMPILED_EXPRESSIONS = 1000;
+    
+    /**
+     * Expressions are only compiled if no other renderers than the internal ones are registered
+     */
+    private boolean useCompiledExpressions;
+    
     private static TextRenderer defaultTextRenderer = new TextRenderer();
     
     public static TextRenderer getDefault() {
@@ -49,6 +63,8 @@ public class TextRenderer {
         registerRenderer(new ViewpointRenderer());
         
         registerRenderer(new WordWrapRenderer());
+        
+        useCompiledExpressions = true;
     }
     
     /**
@@ -73,6 +89,21 @@ public class TextRenderer {
             return "";
         }
         
+        // Render the compiled expression in one pass if we can
+        if(useCompiledExpressions) {
+            String result = getCompiledExpression(formatExpression).render(object);
+            if(result != null) {
+                return result;
+            }
+        }
+        
+        return renderWithRenderers(object, formatExpression);
+    }
+    
+    /**
+     * Render an object's format expression with the registered renderers until the text no longer changes
+     */
+    String renderWithRenderers(IArchimateModelObject object, String formatExpression) {
         // Remove escapement of newline chars
         String result = renderNewLines(formatExpression);
         
@@ -100,6 +131,25 @@ public class TextRenderer {
         return result;
     }
 
+    /**
+     * @return The compiled format expression, compiling it if it has not been compiled before
+     */
+    CompiledExpression getCompiledExpression(String formatExpression) {
+        CompiledExpression expression = compiledExpressions.get(formatExpression);
+        
+        if(expression == null) {
+            // Don't keep too many, the expression is compiled as it is being edited
+            if(compiledExpressions.size() >= MAX_COMPILED_EXPRESSIONS) {
+                compiledExpressions.clear();
+            }
+            
+            expression = CompiledExpression.compile(renderNewLines(formatExpression));
+            compiledExpressions.put(formatExpression, expression);
+        }
+        
+        return expression;
+    }
+    
     /**
      * @return true if object has a format expression
      */
@@ -141,6 +191,9 @@ public class TextRenderer {
      */
     public void registerRenderer(ITextRenderer renderer) {
         renderers.add(renderer);
+        
+        // Compiled expressions don't know about other renderers
+        useCompiledExpressions = false;
     }
     
     /**
@@ -20,6 +20,13 @@ public class TypeRenderer extends AbstractTextRenderer {
 
     @Override
     public String render(IArchimateModelObject object, String text) {
-        return text.replace(TYPE, ArchiLabelProvider.INSTANCE.getDefaultName(getActualObject(object).eClass()));
+        return text.replace(TYPE, renderType(object));
+    }
+    
+    /**
+     * @return The name of the type of the object
+     */
+    String renderType(IArchimateModelObject object) {
+        return ArchiLabelProvider.INSTANCE.getDefaultName(getActualObject(object).eClass());
     }
 }
\ No newline at end of file
@@ -22,13 +22,18 @@ public class ViewpointRenderer extends AbstractTextRenderer {
 
     @Override
     public String render(IArchimateModelObject object, String text) {
-        String replacement = "";
-        
+        return text.replace(VIEWPOINT, renderViewpoint(object));
+    }
+    
+    /**
+     * @return The name of the Viewpoint of the object's ArchiMate diagram model, or ""
+     */
+    String renderViewpoint(IArchimateModelObject object) {
         // Object is a digram model component or diagram model that is an ArchiMate diagram model
         if(object instanceof IDiagramModelComponent && ((IDiagramModelComponent)object).getDiagramModel() instanceof IArchimateDiagramModel) {
-            replacement = ViewpointManager.INSTANCE.getViewpoint(((IArchimateDiagramModel)((IDiagramModelComponent)object).getDiagramModel()).getViewpoint()).getName();
+            return ViewpointManager.INSTANCE.getViewpoint(((IArchimateDiagramModel)((IDiagramModelComponent)object).getDiagramModel()).getViewpoint()).getName();
         }
         
-        return text.replace(VIEWPOINT, replacement);
+        return "";
     }
 }
\ No newline at end of file
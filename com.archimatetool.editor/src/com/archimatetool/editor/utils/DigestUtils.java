@@ -0,0 +1,52 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+
+
+/**
+ * Message Digest Utilities
+ *
+ * @author Phillip Beauvoir
+ */
+public final class DigestUtils {
+    
+    private DigestUtils() {
+    }
+    
+    /**
+     * @param inputs The bytes to digest, in order
+     * @return The SHA-256 digest of the bytes as a lower case hex string
+     */
+    public static String getSHA256(byte[]... inputs) {
+        MessageDigest md;
+        
+        try {
+            md = MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+        }
+        catch(NoSuchAlgorithmException ex) {
+            // Every Java platform has SHA-256
+            throw new RuntimeException(ex);
+        }
+        
+        for(byte[] bytes : inputs) {
+            md.update(bytes);
+        }
+        
+        byte[] digest = md.digest();
+        
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for(byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        
+        return sb.toString();
+    }
+}
@@ -151,6 +151,12 @@ public class NavigatorViewer extends TreeViewer {
 
         @Override
         public boolean hasChildren(Object element) {
+            // Don't copy an element's relationships just to see if there are any
+            if(element instanceof IArchimateElement) {
+                IArchimateElement archimateElement = (IArchimateElement)element;
+                return fShowTargetElements ? !archimateElement.getSourceRelationships().isEmpty() : !archimateElement.getTargetRelationships().isEmpty();
+            }
+            
             return getChildren(element).length > 0;
         }
         
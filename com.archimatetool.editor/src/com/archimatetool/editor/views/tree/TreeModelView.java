@@ -647,6 +647,7 @@ implements ITreeModelView, IUIRequestListener {
         // Garbage collection
         fTreeViewer = null;
         fFindReplaceProvider = null;
+        fSearchFilter.dispose();
         fSearchFilter = null;
         fSynchroniser = null;
         
@@ -749,6 +750,9 @@ implements ITreeModelView, IUIRequestListener {
         Object notifier = msg.getNotifier();
         Object feature = msg.getFeature();
         
+        // Remove sort keys of changed objects before updating
+        getViewer().invalidateSortKeys(msg);
+        
         // Attribute set
         if(type == Notification.SET) {
             // Viewpoint changed
@@ -794,6 +798,9 @@ implements ITreeModelView, IUIRequestListener {
         Set<Object> updateElements = new HashSet<Object>();
         
         for(Notification msg : notifications) {
+            // Remove sort keys of changed objects
+            getViewer().invalidateSortKeys(msg);
+            
             // Get parent nodes to refresh
             Object parent = getParentToRefreshFromNotification(msg);
             if(parent != null) {
@@ -843,4 +850,4 @@ implements ITreeModelView, IUIRequestListener {
     public String getSearchExpression(Object target) {
         return Messages.TreeModelView_2;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -5,10 +5,19 @@
  */
 package com.archimatetool.editor.views.tree;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
 import org.eclipse.jface.viewers.CellEditor;
@@ -50,8 +59,11 @@ import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimateModelObject;
+import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelComponent;
+import com.archimatetool.model.IFeature;
 import com.archimatetool.model.IFolder;
 import com.archimatetool.model.INameable;
 
@@ -75,6 +87,21 @@ public class TreeModelViewer extends TreeViewer {
     private Font fontItalic = FontFactory.getItalic(getTree().getFont());
     private Font fontBold = FontFactory.getBold(getTree().getFont());;
     
+    /**
+     * Sort keys of tree objects, created when first needed and removed when a model change may have changed them
+     */
+    private Map<Object, SortKey> fSortKeys = new HashMap<Object, SortKey>();
+    
+    /**
+     * Whether a model has a folder with a label expression, created when first needed and removed when a folder changes
+     */
+    private Map<IArchimateModel, Boolean> fHasFormatExpression = new HashMap<IArchimateModel, Boolean>();
+    
+    /**
+     * Collator to compare labels ignoring case
+     */
+    private Collator fCollator = Collator.getInstance();
+    
     
     /**
      * Application Preferences Listener
@@ -107,6 +134,8 @@ public class TreeModelViewer extends TreeViewer {
         setUseHashlookup(true);
         
         // Sort
+        fCollator.setStrength(Collator.SECONDARY);
+        
         setComparator(new ViewerComparator() {
             @Override
             public int compare(Viewer viewer, Object e1, Object e2) {
@@ -123,20 +152,8 @@ public class TreeModelViewer extends TreeViewer {
                     return 0;
                 }
                 
-                // Get rendered text or name
-                String label1 = getAncestorFolderRenderText((IArchimateModelObject)e1);
-                if(label1 == null) {
-                    label1 = StringUtils.safeString(ArchiLabelProvider.INSTANCE.getLabelNormalised(e1));
-                }
-
-                // Get rendered text or name
-                String label2 = getAncestorFolderRenderText((IArchimateModelObject)e2);
-                if(label2 == null) {
-                    label2 = StringUtils.safeString(ArchiLabelProvider.INSTANCE.getLabelNormalised(e2));
-                }
-                
-                //return getComparator().compare(label1, label2);
-                return label1.compareToIgnoreCase(label2);
+                // Compare the keys of the rendered text or name
+                return getSortKey(e1).collationKey.compareTo(getSortKey(e2).collationKey);
             }
             
             @Override
@@ -229,6 +246,12 @@ public class TreeModelViewer extends TreeViewer {
         super.editElement(element, column);
     }
     
+    @Override
+    public void refresh() {
+        clearSortKeys();
+        super.refresh();
+    }
+    
     /**
      * Refresh the tree in the background
      * @param element The root element or null for the whole tree
@@ -279,6 +302,128 @@ public class TreeModelViewer extends TreeViewer {
         return super.getSortedChildren(parentElementOrTreePath);
     }
     
+    /**
+     * @return The sort key for an object in the tree, creating it if needed
+     */
+    private SortKey getSortKey(Object element) {
+        SortKey sortKey = fSortKeys.get(element);
+        
+        if(sortKey == null) {
+            sortKey = new SortKey();
+            
+            // Rendered text or name
+            sortKey.renderText = element instanceof IArchimateModelObject ? getAncestorFolderRenderText((IArchimateModelObject)element) : null;
+            String label = sortKey.renderText != null ? sortKey.renderText : StringUtils.safeString(ArchiLabelProvider.INSTANCE.getLabelNormalised(element));
+            sortKey.collationKey = fCollator.getCollationKey(label);
+            
+            fSortKeys.put(element, sortKey);
+        }
+        
+        return sortKey;
+    }
+    
+    /**
+     * Remove all sort keys
+     */
+    void clearSortKeys() {
+        fSortKeys.clear();
+        fHasFormatExpression.clear();
+    }
+    
+    /**
+     * Remove the sort keys that may have been changed by a model notification.
+     * A label expression can refer to any object in the model so if the model has a folder with a label expression all
+     * sort keys are removed, else only the keys of the changed object and of any objects that were added or removed.
+     */
+    void invalidateSortKeys(Notification msg) {
+        if(fSortKeys.isEmpty()) {
+            fHasFormatExpression.clear();
+            return;
+        }
+        
+        if(msg.isTouch() || !(msg.getNotifier() instanceof EObject)) {
+            return;
+        }
+        
+        // Diagram components are not shown in the tree
+        if(msg.getFeature() == IArchimatePackage.Literals.DIAGRAM_MODEL_CONTAINER__CHILDREN) {
+            return;
+        }
+        
+        EObject treeObject = null;
+        IArchimateModel model = null;
+        
+        for(EObject eObject = (EObject)msg.getNotifier(); eObject != null; eObject = eObject.eContainer()) {
+            if(eObject instanceof IDiagramModelComponent) {
+                return;
+            }
+            if(treeObject == null && (eObject instanceof IArchimateConcept || eObject instanceof IDiagramModel || eObject instanceof IFolder
+                    || eObject instanceof IArchimateModel)) {
+                treeObject = eObject;
+            }
+            if(eObject instanceof IArchimateModel) {
+                model = (IArchimateModel)eObject;
+            }
+        }
+        
+        // A folder's features changed so its label expression may have been added or removed
+        boolean folderFeatureChanged = treeObject instanceof IFolder
+                && (msg.getNotifier() instanceof IFeature || msg.getFeature() == IArchimatePackage.Literals.FEATURES__FEATURES);
+        
+        // A folder was added or removed so a label expression may have been added or removed
+        boolean foldersChanged = msg.getFeature() == IArchimatePackage.Literals.FOLDER_CONTAINER__FOLDERS;
+        
+        if(folderFeatureChanged || foldersChanged) {
+            fHasFormatExpression.remove(model);
+        }
+        
+        if(model == null || folderFeatureChanged || hasFormatExpression(model)) {
+            clearSortKeys();
+            return;
+        }
+        
+        fSortKeys.remove(treeObject);
+        
+        // Objects added or removed
+        if(msg.getFeature() instanceof EReference && ((EReference)msg.getFeature()).isContainment()) {
+            removeSortKeys(msg.getOldValue());
+            removeSortKeys(msg.getNewValue());
+        }
+    }
+    
+    private void removeSortKeys(Object value) {
+        Collection<?> values = value instanceof Collection ? (Collection<?>)value : Collections.singletonList(value);
+        
+        for(Object object : values) {
+            if(object instanceof EObject) {
+                fSortKeys.remove(object);
+                for(Iterator<EObject> iter = ((EObject)object).eAllContents(); iter.hasNext();) {
+                    fSortKeys.remove(iter.next());
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return true if any of the model's folders has a label expression
+     */
+    private boolean hasFormatExpression(IArchimateModel model) {
+        return fHasFormatExpression.computeIfAbsent(model, m -> hasFormatExpression(m.getFolders()));
+    }
+    
+    /**
+     * @return true if any of the folders or their sub-folders has a label expression
+     */
+    private boolean hasFormatExpression(List<IFolder> folders) {
+        for(IFolder folder : folders) {
+            if(TextRenderer.getDefault().hasFormatExpression(folder) || hasFormatExpression(folder.getFolders())) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
     private void setTreeFonts() {
         UIUtils.setFontFromPreferences(getTree(), IPreferenceConstants.MODEL_TREE_FONT, false);
         fontItalic = FontFactory.getItalic(getTree().getFont());
@@ -303,6 +448,17 @@ public class TreeModelViewer extends TreeViewer {
         return null;
     }
     
+    /**
+     * Sort key of an object in the tree
+     */
+    private static class SortKey {
+        // Rendered text of the ancestor folder's label expression, or null
+        String renderText;
+        
+        // Key of the rendered text or name
+        CollationKey collationKey;
+    }
+    
     // ========================= Model Providers =====================================
     
     /**
@@ -375,7 +531,7 @@ public class TreeModelViewer extends TreeViewer {
         
         private String getText(Object element) {
             // If a Concept or a View's parent or ancestor parent folder has a text expression, evaluate it
-            String text = getAncestorFolderRenderText((IArchimateModelObject)element);
+            String text = getSortKey(element).renderText;
             if(text != null) {
                 return text;
             }
@@ -329,7 +329,7 @@ public class DeleteCommandHandler {
         }
         // Element/Relation
         else if(object instanceof IArchimateConcept) {
-            for(IArchimateRelationship relationship : ArchimateModelUtils.getAllRelationshipsForConcept((IArchimateConcept)object)) {
+            for(IArchimateRelationship relationship : ArchimateModelUtils.getRelationships((IArchimateConcept)object)) {
                 fObjectsToDelete.add(relationship);
                 
                 // Recurse
@@ -6,8 +6,14 @@
 package com.archimatetool.editor.views.tree.search;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -17,21 +23,49 @@ import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.swt.widgets.Display;
 
-import com.archimatetool.editor.utils.StringUtils;
-import com.archimatetool.model.IDocumentable;
 import com.archimatetool.model.IFolder;
 import com.archimatetool.model.IFolderContainer;
-import com.archimatetool.model.INameable;
-import com.archimatetool.model.IProperties;
-import com.archimatetool.model.IProperty;
 
 
 /**
  * Search Filter
  * 
+ * Objects are matched against a SearchIndex of the open models in a background Job,
+ * and the tree shows the matched objects and their ancestors when the Job is done.
+ * The search is run again when the models change.
+ * 
  * @author Phillip Beauvoir
  */
 public class SearchFilter extends ViewerFilter {
+    
+    /**
+     * Delay in milliseconds before searching again after a model change
+     */
+    private static final long MODEL_CHANGE_DELAY = 200;
+    
+    /**
+     * Immutable copy of the search criteria
+     */
+    private static class Query {
+        final String text;
+        final boolean filterName;
+        final boolean filterDocumentation;
+        final List<EClass> objectFilter;
+        final List<String> propertiesFilter;
+        
+        Query(String text, boolean filterName, boolean filterDocumentation, List<EClass> objectFilter, List<String> propertiesFilter) {
+            this.text = text.toLowerCase();
+            this.filterName = filterName;
+            this.filterDocumentation = filterDocumentation;
+            this.objectFilter = new ArrayList<EClass>(objectFilter);
+            this.propertiesFilter = new ArrayList<String>(propertiesFilter);
+        }
+        
+        boolean hasText() {
+            return text.length() > 0;
+        }
+    }
+    
     private TreeViewer fViewer;
     private String fSearchText = ""; //$NON-NLS-1$
     private TreePath[] fExpanded;
@@ -43,6 +77,21 @@ public class SearchFilter extends ViewerFilter {
     private List<String> fPropertiesFilter = new ArrayList<String>();
 
     private boolean fShowAllFolders = false;
+    
+    private SearchIndex fIndex;
+    private Query fQuery;
+    private Job fQueryJob;
+    
+    /**
+     * Whether to expand all nodes when the results of the query are shown.
+     * This stays set if a query is cancelled and run again after a model change.
+     */
+    private boolean fExpandOnResults;
+    
+    /**
+     * Objects that match the query and their ancestors, or null if the query has not been run yet
+     */
+    private Set<Object> fVisibleElements;
 
     public SearchFilter(TreeViewer viewer) {
         fViewer = viewer;
@@ -59,9 +108,134 @@ public class SearchFilter extends ViewerFilter {
     }
 
     private void refresh() {
+        fQuery = createQuery();
+        
+        if(isFiltering()) {
+            runQuery(0, true);
+        }
+        else {
+            cancelQuery();
+            fVisibleElements = null;
+            fExpandOnResults = false;
+            refreshViewer(false);
+        }
+    }
+    
+    private Query createQuery() {
+        return new Query(fSearchText, fFilterName, fFilterDocumentation, fObjectFilter, fPropertiesFilter);
+    }
+    
+    /**
+     * Find the matching objects in a Job and then refresh the tree
+     * @param delay Delay in milliseconds before running the Job
+     * @param expand If true expand all nodes when the tree is refreshed
+     */
+    private void runQuery(long delay, boolean expand) {
+        cancelQuery();
+        
+        fExpandOnResults |= expand;
+        
+        final Query query = fQuery;
+        final SearchIndex index = getIndex();
+        final Display display = Display.getCurrent();
+        
+        fQueryJob = new Job(Messages.SearchFilter_0) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                Set<EObject> matchedObjects = new HashSet<EObject>();
+                
+                for(SearchIndex.Entry entry : index.getCandidates(query.text)) {
+                    if(monitor.isCanceled()) {
+                        return Status.CANCEL_STATUS;
+                    }
+                    if(matches(entry, query)) {
+                        matchedObjects.add(entry.object);
+                    }
+                }
+                
+                display.asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Query is still current
+                        if(query == fQuery && !fViewer.getTree().isDisposed()) {
+                            setMatches(matchedObjects);
+                            refreshViewer(fExpandOnResults);
+                            fExpandOnResults = false;
+                        }
+                    }
+                });
+                
+                return Status.OK_STATUS;
+            }
+        };
+        
+        fQueryJob.setSystem(true);
+        fQueryJob.schedule(delay);
+    }
+    
+    private void cancelQuery() {
+        if(fQueryJob != null) {
+            fQueryJob.cancel();
+            fQueryJob = null;
+        }
+    }
+    
+    private void setMatches(Set<EObject> matches) {
+        fVisibleElements = new HashSet<Object>();
+        
+        // Matched objects and their ancestors
+        for(EObject eObject : matches) {
+            for(; eObject != null && fVisibleElements.add(eObject); eObject = eObject.eContainer()) {
+            }
+        }
+    }
+    
+    /**
+     * @return The Search Index, creating it if needed
+     */
+    private SearchIndex getIndex() {
+        if(fIndex == null) {
+            fIndex = new SearchIndex(new Runnable() {
+                @Override
+                public void run() {
+                    // Search again when the models change
+                    if(isFiltering()) {
+                        runQuery(MODEL_CHANGE_DELAY, false);
+                    }
+                }
+            });
+        }
+        
+        return fIndex;
+    }
+    
+    /**
+     * Dispose of the Search Index and stop listening to model changes
+     */
+    public void dispose() {
+        cancelQuery();
+        fVisibleElements = null;
+        
+        if(fIndex != null) {
+            fIndex.dispose();
+            fIndex = null;
+        }
+    }
+    
+    private void refreshViewer(boolean expand) {
         Display.getCurrent().asyncExec(new Runnable() {
             @Override
             public void run() {
+                if(fViewer.getTree().isDisposed()) {
+                    return;
+                }
+                
+                // Refresh after a model change
+                if(!expand && isFiltering()) {
+                    fViewer.refresh();
+                    return;
+                }
+                
                 fViewer.getTree().setRedraw(false);
 
                 try {
@@ -95,6 +269,7 @@ public class SearchFilter extends ViewerFilter {
         fSearchText = ""; //$NON-NLS-1$
         resetFilters();
         fExpanded = null;
+        dispose();
     }
 
     public void resetFilters() {
@@ -114,6 +289,11 @@ public class SearchFilter extends ViewerFilter {
         if(!isFiltering()) {
             return true;
         }
+        
+        // Results of the last query
+        if(fVisibleElements != null) {
+            return fVisibleElements.contains(element) || (isShowAllFolders() && element instanceof IFolder);
+        }
 
         return isElementVisible(parentElement, element);
     }
@@ -154,8 +334,17 @@ public class SearchFilter extends ViewerFilter {
      * @return
      */
     public boolean matchesFilter(Object element) {
+        SearchIndex.Entry entry = getIndex().getEntry(element);
+        return entry != null && matches(entry, fQuery != null ? fQuery : createQuery());
+    }
+    
+    /**
+     * Query whether an indexed object matches the query's criteria.
+     * This is called from the query Job.
+     */
+    private static boolean matches(SearchIndex.Entry entry, Query query) {
         // EObject Type filter - do this first as the master filter
-        if(isObjectFiltered(element)) {
+        if(!query.objectFilter.isEmpty() && !query.objectFilter.contains(entry.eClass)) {
             return false;
         }
 
@@ -163,11 +352,11 @@ public class SearchFilter extends ViewerFilter {
         boolean propertyKeyResult = false;
 
         // Properties Key filter
-        if(isFilteringPropertyKeys() && element instanceof IProperties) {
-            for(IProperty property : ((IProperties)element).getProperties()) {
-                if(fPropertiesFilter.contains(property.getKey())) {
+        if(!query.propertiesFilter.isEmpty() && entry.propertyKeys != null) {
+            for(int i = 0; i < entry.propertyKeys.length; i++) {
+                if(query.propertiesFilter.contains(entry.propertyKeys[i])) {
                     propertyKeyResult = true;
-                    if(hasSearchText() && property.getValue().toLowerCase().contains(fSearchText.toLowerCase())) {
+                    if(query.hasText() && entry.propertyValues[i].contains(query.text)) {
                         textSearchResult = true;
                     }
                 }
@@ -175,41 +364,25 @@ public class SearchFilter extends ViewerFilter {
         }
 
         // If has search Text and no text found yet
-        if(hasSearchText()) {
+        if(query.hasText()) {
             // Name...
-            if(fFilterName && !textSearchResult && element instanceof INameable) {
-                String name = StringUtils.safeString(((INameable)element).getName());
-                
-                // Normalise in case of multi-line text
-                name = StringUtils.normaliseNewLineCharacters(name);
-                
-                if(name.toLowerCase().contains(fSearchText.toLowerCase())) {
-                    textSearchResult = true;
-                }
+            if(query.filterName && !textSearchResult && entry.name != null && entry.name.contains(query.text)) {
+                textSearchResult = true;
             }
 
             // Then Documentation
-            if(fFilterDocumentation && !textSearchResult && element instanceof IDocumentable) {
-                String text = StringUtils.safeString(((IDocumentable)element).getDocumentation());
-                if(text.toLowerCase().contains(fSearchText.toLowerCase())) {
-                    textSearchResult = true;
-                }
+            if(query.filterDocumentation && !textSearchResult && entry.documentation != null && entry.documentation.contains(query.text)) {
+                textSearchResult = true;
             }
-        }
-
-        if((hasSearchText())) {
+            
             return textSearchResult;
         }
 
-        if(isFilteringPropertyKeys()) {
+        if(!query.propertiesFilter.isEmpty()) {
             return propertyKeyResult;
         }
 
-        return !isObjectFiltered(element);
-    }
-
-    private boolean isObjectFiltered(Object element) {
-        return !fObjectFilter.isEmpty() && !fObjectFilter.contains(((EObject)element).eClass());
+        return true;
     }
 
     public boolean isFiltering() {
@@ -220,13 +393,10 @@ public class SearchFilter extends ViewerFilter {
         return fSearchText.length() > 0;
     }
 
-    private boolean isFilteringPropertyKeys() {
-        return !fPropertiesFilter.isEmpty();
-    }
-
     void setFilterOnName(boolean set) {
         if(fFilterName != set) {
             fFilterName = set;
+            fQuery = null;
             if(isFiltering()) {
                 refresh();
             }
@@ -236,6 +406,7 @@ public class SearchFilter extends ViewerFilter {
     void setFilterOnDocumentation(boolean set) {
         if(fFilterDocumentation != set) {
             fFilterDocumentation = set;
+            fQuery = null;
             if(isFiltering()) {
                 refresh();
             }
@@ -292,4 +463,4 @@ public class SearchFilter extends ViewerFilter {
         }
         fViewer.setSelection(selection, true);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,377 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.views.tree.search;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+
+import com.archimatetool.editor.model.IEditorModelManager;
+import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelComponent;
+import com.archimatetool.model.IDocumentable;
+import com.archimatetool.model.IFolder;
+import com.archimatetool.model.INameable;
+import com.archimatetool.model.IProperties;
+import com.archimatetool.model.IProperty;
+
+
+/**
+ * Search Index of the objects shown in the Models Tree
+ *
+ * The lower case name, documentation and properties of each model, folder, concept and view in the open models
+ * are kept in an Entry, and an inverted index of the trigrams of this text finds the objects that may contain a search text.
+ * The index is kept up to date from the models' notifications on the UI thread and can be queried from any thread.
+ *
+ * @author Phillip Beauvoir
+ */
+class SearchIndex implements PropertyChangeListener {
+
+    /**
+     * Length of the substrings in the inverted index
+     */
+    static final int GRAM_SIZE = 3;
+
+    /**
+     * The indexed text of an object. Text is null if the object does not have that feature.
+     */
+    static class Entry {
+        final EObject object;
+        final EClass eClass;
+        final String name;
+        final String documentation;
+        final String[] propertyKeys;
+        final String[] propertyValues;
+
+        Entry(EObject object) {
+            this.object = object;
+            eClass = object.eClass();
+
+            // Normalise in case of multi-line text
+            name = object instanceof INameable
+                    ? StringUtils.normaliseNewLineCharacters(StringUtils.safeString(((INameable)object).getName())).toLowerCase() : null;
+
+            documentation = object instanceof IDocumentable
+                    ? StringUtils.safeString(((IDocumentable)object).getDocumentation()).toLowerCase() : null;
+
+            if(object instanceof IProperties) {
+                List<IProperty> properties = ((IProperties)object).getProperties();
+                propertyKeys = new String[properties.size()];
+                propertyValues = new String[properties.size()];
+                for(int i = 0; i < properties.size(); i++) {
+                    propertyKeys[i] = properties.get(i).getKey();
+                    propertyValues[i] = StringUtils.safeString(properties.get(i).getValue()).toLowerCase();
+                }
+            }
+            else {
+                propertyKeys = null;
+                propertyValues = null;
+            }
+        }
+
+        Set<String> getGrams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(grams, name);
+            addGrams(grams, documentation);
+            if(propertyValues != null) {
+                for(String value : propertyValues) {
+                    addGrams(grams, value);
+                }
+            }
+            return grams;
+        }
+    }
+
+    private Set<IArchimateModel> fModels = new HashSet<>();
+
+    private Map<EObject, Entry> fEntries = new HashMap<>();
+
+    // Objects whose text contains a trigram, keyed by trigram
+    private Map<String, Set<EObject>> fGramIndex = new HashMap<>();
+
+    private Runnable fChangeListener;
+
+    /**
+     * Create an index of the open models and listen to model changes until disposed
+     * @param changeListener Called on the UI thread after the index has changed. Can be null.
+     */
+    SearchIndex(Runnable changeListener) {
+        fChangeListener = changeListener;
+
+        for(IArchimateModel model : IEditorModelManager.INSTANCE.getModels()) {
+            addModel(model);
+        }
+
+        IEditorModelManager.INSTANCE.addPropertyChangeListener(this);
+    }
+
+    void dispose() {
+        IEditorModelManager.INSTANCE.removePropertyChangeListener(this);
+
+        synchronized(this) {
+            fModels.clear();
+            fEntries.clear();
+            fGramIndex.clear();
+        }
+    }
+
+    /**
+     * @return The entry of an object, or null if it is not indexed
+     */
+    synchronized Entry getEntry(Object object) {
+        return fEntries.get(object);
+    }
+
+    /**
+     * @param text Lower case search text, or empty
+     * @return The entries whose text may contain text. If text is shorter than GRAM_SIZE all entries are returned.
+     */
+    synchronized List<Entry> getCandidates(String text) {
+        if(text.length() < GRAM_SIZE) {
+            return new ArrayList<>(fEntries.values());
+        }
+
+        // Intersect the objects of each of the text's trigrams starting with the smallest set
+        List<Set<EObject>> sets = new ArrayList<>();
+        for(String gram : getGrams(text)) {
+            Set<EObject> set = fGramIndex.get(gram);
+            if(set == null) {
+                return Collections.emptyList();
+            }
+            sets.add(set);
+        }
+
+        sets.sort((s1, s2) -> s1.size() - s2.size());
+
+        List<Entry> candidates = new ArrayList<>();
+
+        for(EObject object : sets.get(0)) {
+            boolean inAll = true;
+            for(int i = 1; i < sets.size() && inAll; i++) {
+                inAll = sets.get(i).contains(object);
+            }
+            if(inAll) {
+                candidates.add(fEntries.get(object));
+            }
+        }
+
+        return candidates;
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        String propertyName = evt.getPropertyName();
+
+        if(propertyName == IEditorModelManager.PROPERTY_MODEL_CREATED || propertyName == IEditorModelManager.PROPERTY_MODEL_OPENED) {
+            addModel((IArchimateModel)evt.getNewValue());
+            fireChanged();
+        }
+        else if(propertyName == IEditorModelManager.PROPERTY_MODEL_REMOVED) {
+            removeModel((IArchimateModel)evt.getNewValue());
+            fireChanged();
+        }
+        else if(propertyName == IEditorModelManager.PROPERTY_ECORE_EVENT) {
+            if(notifyChanged((Notification)evt.getNewValue())) {
+                fireChanged();
+            }
+        }
+    }
+
+    /**
+     * Update the index from a model notification
+     * @return true if the index changed
+     */
+    synchronized boolean notifyChanged(Notification msg) {
+        if(msg.isTouch() || !(msg.getNotifier() instanceof EObject)) {
+            return false;
+        }
+
+        // Find the indexed object that owns the notifier
+        EObject owner = null;
+        IArchimateModel model = null;
+
+        for(EObject eObject = (EObject)msg.getNotifier(); eObject != null; eObject = eObject.eContainer()) {
+            // Diagram components are not indexed
+            if(eObject instanceof IDiagramModelComponent) {
+                return false;
+            }
+            if(owner == null && isIndexedType(eObject)) {
+                owner = eObject;
+            }
+            if(eObject instanceof IArchimateModel) {
+                model = (IArchimateModel)eObject;
+            }
+        }
+
+        if(owner == null || !fModels.contains(model)) {
+            return false;
+        }
+
+        // Name, documentation or properties may have changed
+        add(owner);
+
+        // Objects added or removed
+        if(msg.getFeature() instanceof EReference && ((EReference)msg.getFeature()).isContainment()) {
+            for(Object o : getValues(msg.getOldValue())) {
+                // Not if it has been moved elsewhere in the model and will be added again
+                if(o instanceof EObject && getModel((EObject)o) != model) {
+                    removeTree((EObject)o);
+                }
+            }
+            for(Object o : getValues(msg.getNewValue())) {
+                if(o instanceof EObject) {
+                    addTree((EObject)o);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private synchronized void addModel(IArchimateModel model) {
+        if(model != null && fModels.add(model)) {
+            addTree(model);
+        }
+    }
+
+    private synchronized void removeModel(IArchimateModel model) {
+        if(model != null && fModels.remove(model)) {
+            removeTree(model);
+        }
+    }
+
+    /**
+     * Add an object and the folders and objects it contains that are shown in the tree
+     */
+    private void addTree(EObject object) {
+        if(!isIndexedType(object)) {
+            return;
+        }
+
+        add(object);
+
+        if(object instanceof IArchimateModel) {
+            for(IFolder folder : ((IArchimateModel)object).getFolders()) {
+                addTree(folder);
+            }
+        }
+        else if(object instanceof IFolder) {
+            for(IFolder folder : ((IFolder)object).getFolders()) {
+                addTree(folder);
+            }
+            for(EObject element : ((IFolder)object).getElements()) {
+                addTree(element);
+            }
+        }
+    }
+
+    private void removeTree(EObject object) {
+        remove(object);
+
+        if(object instanceof IArchimateModel) {
+            for(IFolder folder : ((IArchimateModel)object).getFolders()) {
+                removeTree(folder);
+            }
+        }
+        else if(object instanceof IFolder) {
+            for(IFolder folder : ((IFolder)object).getFolders()) {
+                removeTree(folder);
+            }
+            for(EObject element : ((IFolder)object).getElements()) {
+                removeTree(element);
+            }
+        }
+    }
+
+    /**
+     * Add or update an object's entry
+     */
+    private void add(EObject object) {
+        remove(object);
+
+        Entry entry = new Entry(object);
+        fEntries.put(object, entry);
+
+        for(String gram : entry.getGrams()) {
+            fGramIndex.computeIfAbsent(gram, k -> new HashSet<>()).add(object);
+        }
+    }
+
+    private void remove(EObject object) {
+        Entry entry = fEntries.remove(object);
+        if(entry == null) {
+            return;
+        }
+
+        for(String gram : entry.getGrams()) {
+            Set<EObject> set = fGramIndex.get(gram);
+            if(set != null) {
+                set.remove(object);
+                if(set.isEmpty()) {
+                    fGramIndex.remove(gram);
+                }
+            }
+        }
+    }
+
+    private void fireChanged() {
+        if(fChangeListener != null) {
+            fChangeListener.run();
+        }
+    }
+
+    /**
+     * @return true if the object is one of the types shown in the tree
+     */
+    private static boolean isIndexedType(EObject object) {
+        return object instanceof IArchimateModel || object instanceof IFolder || object instanceof IArchimateConcept || object instanceof IDiagramModel;
+    }
+
+    private static IArchimateModel getModel(EObject eObject) {
+        for(; eObject != null; eObject = eObject.eContainer()) {
+            if(eObject instanceof IArchimateModel) {
+                return (IArchimateModel)eObject;
+            }
+        }
+        return null;
+    }
+
+    private static Collection<?> getValues(Object value) {
+        if(value instanceof Collection) {
+            return (Collection<?>)value;
+        }
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    static Set<String> getGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        addGrams(grams, text);
+        return grams;
+    }
+
+    private static void addGrams(Set<String> grams, String text) {
+        if(text != null) {
+            for(int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+                grams.add(text.substring(i, i + GRAM_SIZE));
+            }
+        }
+    }
+}
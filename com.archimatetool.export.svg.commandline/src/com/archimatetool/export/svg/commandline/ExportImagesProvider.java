@@ -0,0 +1,409 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg.commandline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.gef.GraphicalViewer;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.layout.FillLayout;
+import org.eclipse.swt.widgets.Shell;
+
+import com.archimatetool.commandline.AbstractCommandLineProvider;
+import com.archimatetool.commandline.CommandLineState;
+import com.archimatetool.editor.diagram.util.DiagramUtils;
+import com.archimatetool.editor.model.IEditorModelManager;
+import com.archimatetool.editor.ui.ImageFactory;
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.export.svg.ExportSVGPlugin;
+import com.archimatetool.export.svg.IPreferenceConstants;
+import com.archimatetool.export.svg.PaintedSVG;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModel;
+
+/**
+ * Command Line interface for exporting the views of a model as images
+ *
+ * Each view's figure is built and painted one at a time on the Display thread.
+ * Encoding the images, writing the SVG and transcoding to PDF are done concurrently in a pool of threads.
+ *
+ * Typical usage - (should be all on one line):
+ *
+ * Archi -consoleLog -nosplash -application com.archimatetool.commandline.app
+   --loadModel "/pathToModel/model.archimate"
+   --images.export "/pathToOutputFolder"
+   --images.format "svg"
+   --images.filter "^Business.*"
+   --images.skipUnchanged
+ *
+ * @author Phillip Beauvoir
+ */
+public class ExportImagesProvider extends AbstractCommandLineProvider {
+
+    static final String PREFIX = Messages.ExportImagesProvider_0;
+
+    static final String OPTION_EXPORT_IMAGES = "images.export"; //$NON-NLS-1$
+    static final String OPTION_FORMAT = "images.format"; //$NON-NLS-1$
+    static final String OPTION_FILTER = "images.filter"; //$NON-NLS-1$
+    static final String OPTION_SCALE = "images.scale"; //$NON-NLS-1$
+    static final String OPTION_SKIP_UNCHANGED = "images.skipUnchanged"; //$NON-NLS-1$
+
+    /**
+     * Image formats
+     */
+    enum Format {
+        PNG(SWT.IMAGE_PNG),
+        JPG(SWT.IMAGE_JPEG),
+        BMP(SWT.IMAGE_BMP),
+        SVG(SWT.NONE),
+        PDF(SWT.NONE);
+
+        final int swtType;
+
+        Format(int swtType) {
+            this.swtType = swtType;
+        }
+
+        String getExtension() {
+            return "." + name().toLowerCase(Locale.ROOT); //$NON-NLS-1$
+        }
+
+        boolean isBitmap() {
+            return swtType != SWT.NONE;
+        }
+    }
+
+    private static final int SCALE_MIN = 25;
+    private static final int SCALE_MAX = 400;
+
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Maximum number of painted images waiting to be written so that memory stays bounded
+     */
+    private static final int MAX_PENDING_IMAGES = THREADS * 2;
+
+    private Format format;
+    private int scale;
+    private boolean embedFonts;
+    private boolean setViewBox;
+
+    private ExecutorService executor;
+
+    public ExportImagesProvider() {
+    }
+
+    @Override
+    public void run(CommandLine commandLine) throws Exception {
+        if(!hasCorrectOptions(commandLine)) {
+            return;
+        }
+
+        IArchimateModel model = CommandLineState.getModel();
+
+        if(model == null) {
+            throw new IOException(Messages.ExportImagesProvider_1);
+        }
+
+        // Folder
+        String value = commandLine.getOptionValue(OPTION_EXPORT_IMAGES);
+        if(!StringUtils.isSet(value)) {
+            logError(Messages.ExportImagesProvider_2);
+            return;
+        }
+
+        File folderOutput = new File(value);
+        folderOutput.mkdirs();
+        if(!folderOutput.isDirectory()) {
+            logError(NLS.bind(Messages.ExportImagesProvider_3, value));
+            return;
+        }
+
+        // Format
+        format = Format.PNG;
+        value = commandLine.getOptionValue(OPTION_FORMAT);
+        if(StringUtils.isSet(value)) {
+            try {
+                format = Format.valueOf(value.toUpperCase(Locale.ROOT));
+            }
+            catch(IllegalArgumentException ex) {
+                logError(NLS.bind(Messages.ExportImagesProvider_4, value));
+                return;
+            }
+        }
+
+        // Filter
+        Pattern filter = null;
+        value = commandLine.getOptionValue(OPTION_FILTER);
+        if(StringUtils.isSet(value)) {
+            try {
+                filter = Pattern.compile(value);
+            }
+            catch(PatternSyntaxException ex) {
+                logError(NLS.bind(Messages.ExportImagesProvider_5, value));
+                return;
+            }
+        }
+
+        // Scale
+        scale = 100;
+        value = commandLine.getOptionValue(OPTION_SCALE);
+        if(StringUtils.isSet(value)) {
+            try {
+                scale = Math.max(SCALE_MIN, Math.min(SCALE_MAX, Integer.parseInt(value)));
+            }
+            catch(NumberFormatException ex) {
+                logError(NLS.bind(Messages.ExportImagesProvider_6, value));
+                return;
+            }
+        }
+
+        // SVG options are the same as in the Export As Image wizard
+        IPreferenceStore store = ExportSVGPlugin.getDefault().getPreferenceStore();
+        embedFonts = format == Format.PDF || store.getBoolean(IPreferenceConstants.SVG_EXPORT_PREFS_EMBED_FONTS);
+        setViewBox = store.getBoolean(IPreferenceConstants.SVG_EXPORT_PREFS_VIEWBOX_ENABLED);
+
+        // Diagrams and their file names.
+        // File names are given to all diagrams so that a diagram's file name is the same whatever the filter.
+        Map<IDiagramModel, File> diagramFiles = new LinkedHashMap<IDiagramModel, File>();
+        Set<String> fileNames = new HashSet<String>();
+        for(IDiagramModel dm : model.getDiagramModels()) {
+            String fileName = getFileName(dm, fileNames);
+            if(filter == null || filter.matcher(StringUtils.safeString(dm.getName())).find()) {
+                diagramFiles.put(dm, new File(folderOutput, fileName));
+            }
+        }
+
+        // Skip unchanged diagrams if the model has a file and has not been changed since it was loaded or saved
+        File modelFile = commandLine.hasOption(OPTION_SKIP_UNCHANGED) && !IEditorModelManager.INSTANCE.isModelDirty(model) ? model.getFile() : null;
+
+        logMessage(NLS.bind(Messages.ExportImagesProvider_7, new Object[] { diagramFiles.size(), format.name(), folderOutput.getPath() }));
+        int skipped = exportImages(diagramFiles, modelFile);
+        logMessage(NLS.bind(Messages.ExportImagesProvider_8, diagramFiles.size() - skipped, skipped));
+    }
+
+    /**
+     * Export the diagrams' images
+     * @param diagramFiles The diagrams and the files to export them to
+     * @param modelFile If not null, skip diagrams whose image file is newer than this
+     * @return The number of diagrams skipped
+     */
+    private int exportImages(Map<IDiagramModel, File> diagramFiles, File modelFile) throws IOException {
+        int skipped = 0;
+
+        // Images waiting to be written
+        Deque<Future<?>> tasks = new ArrayDeque<>();
+
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        // One viewer shows each diagram model in turn
+        Shell shell = new Shell();
+        shell.setLayout(new FillLayout());
+        GraphicalViewer viewer = DiagramUtils.createViewer(shell);
+
+        try {
+            for(Entry<IDiagramModel, File> entry : diagramFiles.entrySet()) {
+                IDiagramModel dm = entry.getKey();
+                File file = entry.getValue();
+
+                if(modelFile != null && file.exists() && file.lastModified() > modelFile.lastModified()) {
+                    skipped++;
+                    continue;
+                }
+
+                // Build and paint the figure here
+                DiagramUtils.setViewerContents(viewer, dm);
+                Callable<Void> task = createWriteTask(DiagramUtils.getPrintableFigure(viewer), file);
+
+                // Limit the images waiting to be written
+                while(tasks.size() >= MAX_PENDING_IMAGES) {
+                    waitForTask(tasks.poll());
+                }
+
+                tasks.add(executor.submit(task));
+            }
+
+            // Wait for all images to be written
+            while(!tasks.isEmpty()) {
+                waitForTask(tasks.poll());
+            }
+        }
+        finally {
+            // Stop any tasks still running if failed
+            executor.shutdownNow();
+            executor = null;
+            shell.dispose();
+        }
+
+        return skipped;
+    }
+
+    /**
+     * Paint a figure on this thread
+     * @return A task to write the painted figure to file on another thread
+     */
+    private Callable<Void> createWriteTask(IFigure figure, File file) {
+        if(format.isBitmap()) {
+            Image image = DiagramUtils.createImage(figure, (double)scale / 100, 10);
+
+            ImageData imageData;
+            try {
+                imageData = image.getImageData(ImageFactory.getImageDeviceZoom());
+            }
+            finally {
+                image.dispose();
+            }
+
+            return () -> {
+                ImageLoader loader = new ImageLoader();
+                loader.data = new ImageData[] { imageData };
+                loader.save(file.getAbsolutePath(), format.swtType);
+                return null;
+            };
+        }
+
+        PaintedSVG svg = PaintedSVG.paint(figure, embedFonts);
+
+        if(format == Format.PDF) {
+            return () -> {
+                svg.writePDF(file);
+                return null;
+            };
+        }
+
+        if(setViewBox) {
+            Rectangle bounds = svg.getBounds();
+            svg.setViewBox(0, 0, bounds.width, bounds.height);
+        }
+
+        return () -> {
+            svg.writeSVG(file);
+            return null;
+        };
+    }
+
+    /**
+     * @return A file name for a diagram that is not in fileNames, and add it to fileNames
+     */
+    private String getFileName(IDiagramModel dm, Set<String> fileNames) {
+        String name = FileUtils.getValidFileName(dm.getName());
+
+        String fileName = name + format.getExtension();
+        int i = 2;
+        while(fileNames.contains(fileName.toLowerCase(Locale.ROOT))) { // Case insensitive file systems
+            fileName = name + "_" + i++ + format.getExtension(); //$NON-NLS-1$
+        }
+
+        fileNames.add(fileName.toLowerCase(Locale.ROOT));
+
+        return fileName;
+    }
+
+    /**
+     * Wait for a task to finish
+     * @throws IOException if the task failed
+     */
+    private void waitForTask(Future<?> task) throws IOException {
+        try {
+            task.get();
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch(ExecutionException ex) {
+            if(ex.getCause() instanceof IOException) {
+                throw (IOException)ex.getCause();
+            }
+            if(ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    @Override
+    protected String getLogPrefix() {
+        return PREFIX;
+    }
+
+    @Override
+    public Options getOptions() {
+        Options options = new Options();
+
+        Option option = Option.builder()
+                .longOpt(OPTION_EXPORT_IMAGES)
+                .hasArg()
+                .argName(Messages.ExportImagesProvider_9)
+                .desc(Messages.ExportImagesProvider_10)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_FORMAT)
+                .hasArg()
+                .argName(Messages.ExportImagesProvider_11)
+                .desc(Messages.ExportImagesProvider_12)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_FILTER)
+                .hasArg()
+                .argName(Messages.ExportImagesProvider_13)
+                .desc(Messages.ExportImagesProvider_14)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_SCALE)
+                .hasArg()
+                .argName(Messages.ExportImagesProvider_15)
+                .desc(Messages.ExportImagesProvider_16)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_SKIP_UNCHANGED)
+                .desc(Messages.ExportImagesProvider_17)
+                .build();
+        options.addOption(option);
+
+        return options;
+    }
+
+    private boolean hasCorrectOptions(CommandLine commandLine) {
+        return commandLine.hasOption(OPTION_EXPORT_IMAGES);
+    }
+}
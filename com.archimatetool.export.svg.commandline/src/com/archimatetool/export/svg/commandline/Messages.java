@@ -0,0 +1,56 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg.commandline;
+
+import org.eclipse.osgi.util.NLS;
+
+public class Messages extends NLS {
+
+    private static final String BUNDLE_NAME = "com.archimatetool.export.svg.commandline.messages"; //$NON-NLS-1$
+
+    public static String ExportImagesProvider_0;
+
+    public static String ExportImagesProvider_1;
+
+    public static String ExportImagesProvider_10;
+
+    public static String ExportImagesProvider_11;
+
+    public static String ExportImagesProvider_12;
+
+    public static String ExportImagesProvider_13;
+
+    public static String ExportImagesProvider_14;
+
+    public static String ExportImagesProvider_15;
+
+    public static String ExportImagesProvider_16;
+
+    public static String ExportImagesProvider_17;
+
+    public static String ExportImagesProvider_2;
+
+    public static String ExportImagesProvider_3;
+
+    public static String ExportImagesProvider_4;
+
+    public static String ExportImagesProvider_5;
+
+    public static String ExportImagesProvider_6;
+
+    public static String ExportImagesProvider_7;
+
+    public static String ExportImagesProvider_8;
+
+    public static String ExportImagesProvider_9;
+    static {
+        // initialize resource bundle
+        NLS.initializeMessages(BUNDLE_NAME, Messages.class);
+    }
+
+    private Messages() {
+    }
+}
@@ -7,16 +7,13 @@ package com.archimatetool.export.svg;
 
 import java.awt.Graphics2D;
 
-import org.apache.batik.dom.GenericDOMImplementation;
 import org.apache.batik.svggen.SVGGeneratorContext;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Rectangle;
-import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import com.archimatetool.editor.diagram.IImageExportProvider;
-import com.archimatetool.editor.diagram.util.DiagramUtils;
 import com.archimatetool.export.svg.graphiti.GraphicsToGraphics2DAdaptor;
 
 
@@ -34,14 +31,7 @@ public abstract class AbstractExportProvider implements IImageExportProvider {
      * @return The bounds
      */
     protected Rectangle getViewportBounds(IFigure figure) {
-        Rectangle rect = DiagramUtils.getMinimumBounds(figure);
-        if(rect == null) {
-            rect = new Rectangle(0, 0, 100, 100); // At least a minimum for a blank image
-        }
-        else {
-            rect.expand(10, 10); // margins
-        }
-        return rect;
+        return PaintedSVG.getViewportBounds(figure);
     }
     
     /**
@@ -49,9 +39,7 @@ public abstract class AbstractExportProvider implements IImageExportProvider {
      * @return The DOM Document to save to
      */
     protected Document createDocument() {
-        DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
-        String svgNS = "http://www.w3.org/2000/svg"; //$NON-NLS-1$
-        return domImpl.createDocument(svgNS, "svg", null); //$NON-NLS-1$
+        return PaintedSVG.createDocument();
     }
     
     /**
@@ -61,10 +49,7 @@ public abstract class AbstractExportProvider implements IImageExportProvider {
      * @return The SVGGeneratorContext
      */
     protected SVGGeneratorContext createContext(Document document, boolean embedFonts) {
-        SVGGeneratorContext ctx = SVGGeneratorContext.createDefault(document);
-        ctx.setEmbeddedFontsOn(embedFonts);
-        ctx.setComment(Messages.SVGExportProvider_1); // Add a comment
-        return ctx;
+        return PaintedSVG.createContext(document, embedFonts);
     }
     
     /**
@@ -74,17 +59,11 @@ public abstract class AbstractExportProvider implements IImageExportProvider {
      * @return The GraphicsToGraphics2DAdaptor
      */
     protected GraphicsToGraphics2DAdaptor createGraphicsToGraphics2DAdaptor(Graphics2D graphics2d, Rectangle viewPort) {
-        ExtendedGraphicsToGraphics2DAdaptor graphicsAdaptor = new ExtendedGraphicsToGraphics2DAdaptor(graphics2d, viewPort);
-        graphicsAdaptor.translate(viewPort.x * -1, viewPort.y * -1);
-        graphicsAdaptor.setClip(viewPort); // need to do this
-        graphicsAdaptor.setAdvanced(true);
-        return graphicsAdaptor;
+        return PaintedSVG.createGraphicsToGraphics2DAdaptor(graphics2d, viewPort);
     }
 
     /**
      * Set the "viewBox" attribute of the DOM root Element from the SVGGraphics2D instance.
-     * See http://www.justinmccandless.com/blog/Making+Sense+of+SVG+viewBox%27s+Madness
-     *     http://www.w3.org/TR/SVG/coords.html#ViewBoxAttribute
      * @param root The DOM root element
      * @param min_x the x origin of the viewBox within the parent
      * @param min_y the y origin of the viewBox within the parent
@@ -92,7 +71,7 @@ public abstract class AbstractExportProvider implements IImageExportProvider {
      * @param height
      */
     protected void setViewBoxAttribute(Element root, int min_x, int min_y, int width, int height) {
-        root.setAttributeNS(null, "viewBox", min_x + " " + min_y + " " + width + " " + height);  //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        PaintedSVG.setViewBoxAttribute(root, min_x, min_y, width, height);
     }
     
 }
@@ -0,0 +1,220 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg;
+
+import java.awt.Graphics2D;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.batik.dom.GenericDOMImplementation;
+import org.apache.batik.svggen.SVGGeneratorContext;
+import org.apache.batik.svggen.SVGGraphics2D;
+import org.apache.batik.transcoder.SVGAbstractTranscoder;
+import org.apache.batik.transcoder.TranscoderException;
+import org.apache.batik.transcoder.TranscoderInput;
+import org.apache.batik.transcoder.TranscoderOutput;
+import org.apache.fop.svg.AbstractFOPTranscoder;
+import org.apache.fop.svg.PDFTranscoder;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.archimatetool.editor.diagram.util.DiagramUtils;
+import com.archimatetool.export.svg.graphiti.GraphicsToGraphics2DAdaptor;
+
+
+
+/**
+ * A Figure painted as SVG that can be written as an SVG or PDF file.
+ *
+ * Painting a figure uses the Display so has to be done on the Display thread.
+ * The painted SVG does not, so it can be written on another thread. This means that the slower
+ * writing and PDF transcoding of many figures can be done concurrently.
+ *
+ * @author Phillip Beauvoir
+ */
+public class PaintedSVG {
+
+    private SVGGraphics2D fSVGGenerator;
+    private Element fRoot;
+    private Rectangle fBounds;
+
+    private PaintedSVG(SVGGraphics2D svgGenerator, Element root, Rectangle bounds) {
+        fSVGGenerator = svgGenerator;
+        fRoot = root;
+        fBounds = bounds;
+    }
+
+    /**
+     * Paint a figure as SVG. This has to be called on the Display thread.
+     * @param figure The figure to paint
+     * @param embedFonts If true will embed fonts
+     * @return The painted SVG
+     */
+    public static PaintedSVG paint(IFigure figure, boolean embedFonts) {
+        // Create a DOM Document
+        Document document = createDocument();
+
+        // Create a context for customisation
+        SVGGeneratorContext ctx = createContext(document, embedFonts);
+
+        // Create a Batik SVGGraphics2D instance
+        SVGGraphics2D svgGenerator = new SVGGraphics2D(ctx, false);
+
+        // Get the outer bounds of the figure
+        Rectangle bounds = getViewportBounds(figure);
+
+        // Create a Graphiti wrapper adapter
+        GraphicsToGraphics2DAdaptor graphicsAdaptor = createGraphicsToGraphics2DAdaptor(svgGenerator, bounds);
+
+        try {
+            // Paint the figure onto the graphics instance
+            figure.paint(graphicsAdaptor);
+        }
+        finally {
+            // Dispose of the SWT resources now while on the Display thread
+            graphicsAdaptor.dispose();
+        }
+
+        // Get the Element root from the SVGGraphics2D instance
+        return new PaintedSVG(svgGenerator, svgGenerator.getRoot(), bounds);
+    }
+
+    /**
+     * @return The outer bounds of the painted figure
+     */
+    public Rectangle getBounds() {
+        return fBounds.getCopy();
+    }
+
+    /**
+     * Set the "viewBox" attribute of the SVG
+     */
+    public void setViewBox(int min_x, int min_y, int width, int height) {
+        setViewBoxAttribute(fRoot, min_x, min_y, width, height);
+    }
+
+    /**
+     * Write as an SVG file. This can be called on any thread.
+     */
+    public void writeSVG(File file) throws IOException {
+        try(Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) { //$NON-NLS-1$
+            fSVGGenerator.stream(fRoot, out);
+        }
+    }
+
+    /**
+     * Write as a PDF file. This can be called on any thread.
+     * The SVG's "viewBox" attribute is set to the size of the figure.
+     */
+    public void writePDF(File file) throws IOException {
+        setViewBox(0, 0, fBounds.width, fBounds.height);
+
+        // Save the root element to temp file
+        File tmp = File.createTempFile("svg", null); //$NON-NLS-1$
+        tmp.deleteOnExit();
+
+        try {
+            writeSVG(tmp);
+
+            // PDF Transcoder
+            TranscoderInput inputSVG = new TranscoderInput(tmp.toURI().toURL().toString());
+
+            try(OutputStream outStream = new FileOutputStream(file)) {
+                TranscoderOutput outputPDF = new TranscoderOutput(outStream);
+
+                PDFTranscoder transcoder = new PDFTranscoder();
+
+                transcoder.addTranscodingHint(AbstractFOPTranscoder.KEY_AUTO_FONTS, false); // Don't create font cache
+                transcoder.addTranscodingHint(SVGAbstractTranscoder.KEY_WIDTH, (float)fBounds.width);
+                transcoder.addTranscodingHint(SVGAbstractTranscoder.KEY_HEIGHT, (float)fBounds.height);
+
+                transcoder.transcode(inputSVG, outputPDF);
+
+                outStream.flush();
+            }
+            catch(TranscoderException ex) {
+                throw new IOException(ex);
+            }
+        }
+        finally {
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Get the viewport bounds for the given figure that will be printed
+     * @param figure the given figure that will be printed
+     * @return The bounds
+     */
+    static Rectangle getViewportBounds(IFigure figure) {
+        Rectangle rect = DiagramUtils.getMinimumBounds(figure);
+        if(rect == null) {
+            rect = new Rectangle(0, 0, 100, 100); // At least a minimum for a blank image
+        }
+        else {
+            rect.expand(10, 10); // margins
+        }
+        return rect;
+    }
+
+    /**
+     * Create the DOM SDocument with root namespace and root element name
+     * @return The DOM Document to save to
+     */
+    static Document createDocument() {
+        DOMImplementation domImpl = GenericDOMImplementation.getDOMImplementation();
+        String svgNS = "http://www.w3.org/2000/svg"; //$NON-NLS-1$
+        return domImpl.createDocument(svgNS, "svg", null); //$NON-NLS-1$
+    }
+
+    /**
+     * Create a SVGGeneratorContext and set its attributes
+     * @param document The DOM Document
+     * @param embeddedFonts If true will embed fonts
+     * @return The SVGGeneratorContext
+     */
+    static SVGGeneratorContext createContext(Document document, boolean embedFonts) {
+        SVGGeneratorContext ctx = SVGGeneratorContext.createDefault(document);
+        ctx.setEmbeddedFontsOn(embedFonts);
+        ctx.setComment(Messages.SVGExportProvider_1); // Add a comment
+        return ctx;
+    }
+
+    /**
+     * Create the Graphiti Graphics2D adapter with its Viewport
+     * @param graphics2d The Batick AWT Graphics2D to wrap
+     * @param viewPort The Viewport of the figure to print
+     * @return The GraphicsToGraphics2DAdaptor
+     */
+    static GraphicsToGraphics2DAdaptor createGraphicsToGraphics2DAdaptor(Graphics2D graphics2d, Rectangle viewPort) {
+        ExtendedGraphicsToGraphics2DAdaptor graphicsAdaptor = new ExtendedGraphicsToGraphics2DAdaptor(graphics2d, viewPort);
+        graphicsAdaptor.translate(viewPort.x * -1, viewPort.y * -1);
+        graphicsAdaptor.setClip(viewPort); // need to do this
+        graphicsAdaptor.setAdvanced(true);
+        return graphicsAdaptor;
+    }
+
+    /**
+     * Set the "viewBox" attribute of the DOM root Element from the SVGGraphics2D instance.
+     * See http://www.justinmccandless.com/blog/Making+Sense+of+SVG+viewBox%27s+Madness
+     *     http://www.w3.org/TR/SVG/coords.html#ViewBoxAttribute
+     * @param root The DOM root element
+     * @param min_x the x origin of the viewBox within the parent
+     * @param min_y the y origin of the viewBox within the parent
+     * @param width
+     * @param height
+     */
+    static void setViewBoxAttribute(Element root, int min_x, int min_y, int width, int height) {
+        root.setAttributeNS(null, "viewBox", min_x + " " + min_y + " " + width + " " + height);  //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+}
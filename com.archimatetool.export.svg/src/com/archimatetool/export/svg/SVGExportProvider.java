@@ -6,12 +6,7 @@
 package com.archimatetool.export.svg;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 
-import org.apache.batik.svggen.SVGGeneratorContext;
-import org.apache.batik.svggen.SVGGraphics2D;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -24,10 +19,6 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Spinner;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import com.archimatetool.export.svg.graphiti.GraphicsToGraphics2DAdaptor;
 
 
 
@@ -48,39 +39,16 @@ public class SVGExportProvider extends AbstractExportProvider implements IPrefer
     
     @Override
     public void export(String providerID, File file) throws Exception {
-        // Create a DOM Document
-        Document document = createDocument();
-        
-        // Create a context for customisation
-        SVGGeneratorContext ctx = createContext(document, fEmbedFontsButton.getSelection());
-        
-        // Create a Batik SVGGraphics2D instance
-        SVGGraphics2D svgGenerator = new SVGGraphics2D(ctx, false);
-        
-        // Get the outer bounds of the figure
-        Rectangle bounds = getViewportBounds(fFigure);
-
-        // Create a Graphiti wrapper adapter
-        GraphicsToGraphics2DAdaptor graphicsAdaptor = createGraphicsToGraphics2DAdaptor(svgGenerator, bounds);
-        
-        // Paint the figure onto the graphics instance
-        fFigure.paint(graphicsAdaptor);
-        
-        // Get the Element root from the SVGGraphics2D instance
-        Element root = svgGenerator.getRoot();
+        // Paint the figure
+        PaintedSVG svg = PaintedSVG.paint(fFigure, fEmbedFontsButton.getSelection());
         
         // And set some attributes on the root element
         if(fSetViewboxButton.getSelection()) {
-            setViewBoxAttribute(root, fSpinner1.getSelection(), fSpinner2.getSelection(), fSpinner3.getSelection(), fSpinner4.getSelection());
+            svg.setViewBox(fSpinner1.getSelection(), fSpinner2.getSelection(), fSpinner3.getSelection(), fSpinner4.getSelection());
         }
         
         // Save the root element
-        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8"); //$NON-NLS-1$
-        svgGenerator.stream(root, out);
-        
-        // Close
-        graphicsAdaptor.dispose();
-        out.close();
+        svg.writeSVG(file);
         
         // Save Preferences
         savePreferences();
@@ -0,0 +1,177 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.commandline;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map.Entry;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.eclipse.osgi.util.NLS;
+
+import com.archimatetool.commandline.AbstractCommandLineProvider;
+import com.archimatetool.commandline.CommandLineState;
+import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.hammer.validation.ValidationReport;
+import com.archimatetool.hammer.validation.ValidationReport.Severity;
+import com.archimatetool.hammer.validation.Validator;
+import com.archimatetool.model.IArchimateModel;
+
+/**
+ * Command Line interface for the Validator
+ *
+ * The checkers that are enabled in the Validator's preferences are run concurrently without the Display or the Validator View.
+ *
+ * Typical usage - (should be all on one line):
+ *
+ * Archi -consoleLog -nosplash -application com.archimatetool.commandline.app
+   --loadModel "/pathToModel/model.archimate"
+   --hammer.validate
+   --hammer.jsonReport "/pathToReports/validation.json"
+   --hammer.junitReport "/pathToReports/validation.xml"
+   --hammer.failOn "error"
+ *
+ * @author Phillip Beauvoir
+ */
+public class ValidateModelProvider extends AbstractCommandLineProvider {
+
+    static final String PREFIX = Messages.ValidateModelProvider_0;
+
+    static final String OPTION_VALIDATE = "hammer.validate"; //$NON-NLS-1$
+    static final String OPTION_JSON_REPORT = "hammer.jsonReport"; //$NON-NLS-1$
+    static final String OPTION_JUNIT_REPORT = "hammer.junitReport"; //$NON-NLS-1$
+    static final String OPTION_FAIL_ON = "hammer.failOn"; //$NON-NLS-1$
+    static final String OPTION_LOG_TIMINGS = "hammer.logTimings"; //$NON-NLS-1$
+
+    /**
+     * Exit code if issues of the fail on severity are found
+     */
+    static final int EXIT_VALIDATION_FAILED = 1;
+
+    /**
+     * Exit code if the fail on severity is not valid
+     */
+    static final int EXIT_INVALID_FAIL_ON = 2;
+
+    public ValidateModelProvider() {
+    }
+
+    @Override
+    public void run(CommandLine commandLine) throws Exception {
+        if(!hasCorrectOptions(commandLine)) {
+            return;
+        }
+
+        IArchimateModel model = CommandLineState.getModel();
+
+        if(model == null) {
+            throw new IOException(Messages.ValidateModelProvider_1);
+        }
+
+        // Fail on severity
+        Severity failSeverity = null;
+        String value = commandLine.getOptionValue(OPTION_FAIL_ON);
+        if(StringUtils.isSet(value)) {
+            failSeverity = Severity.fromName(value);
+            if(failSeverity == null) {
+                logError(NLS.bind(Messages.ValidateModelProvider_2, value));
+                CommandLineState.setExitCode(EXIT_INVALID_FAIL_ON);
+                return;
+            }
+        }
+
+        ValidationReport report = new ValidationReport(new Validator(model));
+        report.setFailSeverity(failSeverity);
+
+        logMessage(NLS.bind(Messages.ValidateModelProvider_3, model.getName()));
+        report.validate();
+        logMessage(NLS.bind(Messages.ValidateModelProvider_4, new Object[] {
+                report.getCount(Severity.ERROR), report.getCount(Severity.WARNING), report.getCount(Severity.ADVICE), report.getTime() }));
+
+        // Per-checker timings
+        if(commandLine.hasOption(OPTION_LOG_TIMINGS)) {
+            for(Entry<String, Long> entry : report.getCheckerTimings().entrySet()) {
+                logMessage(NLS.bind(Messages.ValidateModelProvider_5, entry.getKey(), entry.getValue()));
+            }
+        }
+
+        // JSON report
+        value = commandLine.getOptionValue(OPTION_JSON_REPORT);
+        if(StringUtils.isSet(value)) {
+            File file = new File(value);
+            report.writeJSON(file);
+            logMessage(NLS.bind(Messages.ValidateModelProvider_6, file.getPath()));
+        }
+
+        // JUnit XML report
+        value = commandLine.getOptionValue(OPTION_JUNIT_REPORT);
+        if(StringUtils.isSet(value)) {
+            File file = new File(value);
+            report.writeJUnitXML(file);
+            logMessage(NLS.bind(Messages.ValidateModelProvider_7, file.getPath()));
+        }
+
+        // Exit code
+        if(failSeverity != null && report.hasFailures()) {
+            logError(NLS.bind(Messages.ValidateModelProvider_8, failSeverity.getName()));
+            CommandLineState.setExitCode(EXIT_VALIDATION_FAILED);
+        }
+    }
+
+    @Override
+    protected String getLogPrefix() {
+        return PREFIX;
+    }
+
+    @Override
+    public Options getOptions() {
+        Options options = new Options();
+
+        Option option = Option.builder()
+                .longOpt(OPTION_VALIDATE)
+                .desc(Messages.ValidateModelProvider_9)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_JSON_REPORT)
+                .hasArg()
+                .argName(Messages.ValidateModelProvider_10)
+                .desc(Messages.ValidateModelProvider_11)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_JUNIT_REPORT)
+                .hasArg()
+                .argName(Messages.ValidateModelProvider_10)
+                .desc(Messages.ValidateModelProvider_12)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_FAIL_ON)
+                .hasArg()
+                .argName(Messages.ValidateModelProvider_13)
+                .desc(Messages.ValidateModelProvider_14)
+                .build();
+        options.addOption(option);
+
+        option = Option.builder()
+                .longOpt(OPTION_LOG_TIMINGS)
+                .desc(Messages.ValidateModelProvider_15)
+                .build();
+        options.addOption(option);
+
+        return options;
+    }
+
+    private boolean hasCorrectOptions(CommandLine commandLine) {
+        return commandLine.hasOption(OPTION_VALIDATE);
+    }
+}
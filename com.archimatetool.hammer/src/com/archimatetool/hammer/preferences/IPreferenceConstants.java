@@ -24,4 +24,8 @@ public interface IPreferenceConstants {
     String PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS = "checkDuplicateElements"; //$NON-NLS-1$
     String PREFS_HAMMER_CHECK_JUNCTIONS = "checkJunctions"; //$NON-NLS-1$
     
+    String PREFS_HAMMER_DUPLICATE_MATCH_MODE = "duplicateMatchMode"; //$NON-NLS-1$
+    
+    String PREFS_HAMMER_LIVE_VALIDATION = "liveValidation"; //$NON-NLS-1$
+    
 }
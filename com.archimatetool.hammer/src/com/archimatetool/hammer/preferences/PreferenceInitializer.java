@@ -32,5 +32,9 @@ implements IPreferenceConstants {
 		store.setDefault(PREFS_HAMMER_CHECK_VIEWPOINT, true);
         store.setDefault(PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS, true);
         store.setDefault(PREFS_HAMMER_CHECK_JUNCTIONS, true);
+        
+        store.setDefault(PREFS_HAMMER_DUPLICATE_MATCH_MODE, 0); // DuplicateElementChecker.MatchMode.EXACT
+        
+        store.setDefault(PREFS_HAMMER_LIVE_VALIDATION, false);
     }
 }
@@ -10,9 +10,11 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.PlatformUI;
@@ -34,6 +36,8 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
     
     private Button[] fDoCheckButtons;
     
+    private Combo fDuplicateMatchModeCombo;
+    
     String[] fCheckers = {
             PREFS_HAMMER_CHECK_EMPTY_VIEWS, Messages.ValidatorPreferencePage_0,
             PREFS_HAMMER_CHECK_INVALID_RELATIONS, Messages.ValidatorPreferencePage_1,
@@ -45,6 +49,13 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
             PREFS_HAMMER_CHECK_JUNCTIONS, Messages.ValidatorPreferencePage_8
     };
     
+    // In the order of DuplicateElementChecker.MatchMode
+    String[] fDuplicateMatchModes = {
+            Messages.ValidatorPreferencePage_10,
+            Messages.ValidatorPreferencePage_11,
+            Messages.ValidatorPreferencePage_12
+    };
+    
 	public ValidatorPreferencePage() {
 		setPreferenceStore(ArchiHammerPlugin.INSTANCE.getPreferenceStore());
 	}
@@ -74,6 +85,12 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
             fDoCheckButtons[i].setLayoutData(gd);
         }
         
+        Label label = new Label(checkerGroup, SWT.NONE);
+        label.setText(Messages.ValidatorPreferencePage_9);
+        
+        fDuplicateMatchModeCombo = new Combo(checkerGroup, SWT.READ_ONLY);
+        fDuplicateMatchModeCombo.setItems(fDuplicateMatchModes);
+        
         setValues();
         
         return client;
@@ -83,6 +100,7 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         for(int i = 0; i < fCheckers.length / 2; i++) {
             fDoCheckButtons[i].setSelection(getPreferenceStore().getBoolean(fCheckers[i * 2]));
         }
+        fDuplicateMatchModeCombo.select(getPreferenceStore().getInt(PREFS_HAMMER_DUPLICATE_MATCH_MODE));
     }
     
     @Override
@@ -90,6 +108,7 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         for(int i = 0; i < fCheckers.length / 2; i++) {
             getPreferenceStore().setValue(fCheckers[i * 2], fDoCheckButtons[i].getSelection());
         }
+        getPreferenceStore().setValue(PREFS_HAMMER_DUPLICATE_MATCH_MODE, fDuplicateMatchModeCombo.getSelectionIndex());
         return true;
     }
     
@@ -98,6 +117,7 @@ implements IWorkbenchPreferencePage, IPreferenceConstants {
         for(int i = 0; i < fCheckers.length / 2; i++) {
             fDoCheckButtons[i].setSelection(getPreferenceStore().getDefaultBoolean(fCheckers[i * 2]));
         }
+        fDuplicateMatchModeCombo.select(getPreferenceStore().getDefaultInt(PREFS_HAMMER_DUPLICATE_MATCH_MODE));
         super.performDefaults();
     }
     
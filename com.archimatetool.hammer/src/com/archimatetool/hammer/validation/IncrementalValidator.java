@@ -0,0 +1,424 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+
+import com.archimatetool.hammer.validation.checkers.DuplicateElementChecker;
+import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModelArchimateComponent;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+
+
+
+/**
+ * Incremental Validator
+ *
+ * Keeps the issues found for each element, relation and view of a model and is told about changes to the model
+ * with the model's EMF notifications. Only the objects that have changed, and their neighbours, are marked as dirty
+ * and re-checked when the model is re-validated.
+ *
+ * Neighbours of a changed object are the source and target of a changed relation, the concepts referenced by
+ * added or removed diagram components, and the views that reference a changed concept.
+ * The Possible Duplicates checker needs all elements so it is re-run on all elements when an element is added, removed or renamed.
+ *
+ * Issues are returned in the same order as the {@link Validator}, that is in the order of the checkers and then
+ * in the order of the model's objects.
+ *
+ * @author Phillip Beauvoir
+ */
+public class IncrementalValidator {
+
+    private IArchimateModel fModel;
+    private Validator fValidator;
+
+    private Set<IArchimateElement> fElements = new LinkedHashSet<IArchimateElement>();
+    private Set<IArchimateRelationship> fRelations = new LinkedHashSet<IArchimateRelationship>();
+    private Set<IArchimateDiagramModel> fViews = new LinkedHashSet<IArchimateDiagramModel>();
+
+    // Issues keyed by checker name and then by the element, relation or view that was checked
+    private Map<String, Map<EObject, List<IIssue>>> fIssues = new HashMap<String, Map<EObject, List<IIssue>>>();
+    private List<IIssue> fDuplicateIssues = new ArrayList<IIssue>();
+    
+    // Names of the checkers in the order that the Validator runs them
+    private Set<String> fCheckerNames = new LinkedHashSet<String>();
+    
+    private static final String DUPLICATE_CHECKER_NAME = DuplicateElementChecker.class.getSimpleName();
+
+    private Set<EObject> fDirty = new LinkedHashSet<EObject>();
+    private boolean fDuplicatesDirty;
+
+    private boolean fValidated;
+
+    public IncrementalValidator(IArchimateModel model) {
+        fModel = model;
+        fValidator = new Validator(model);
+    }
+
+    public IArchimateModel getModel() {
+        return fModel;
+    }
+
+    /**
+     * Validate the whole model
+     * @return The list of Issue Categories and Issues
+     */
+    public List<Object> validate() {
+        if(fModel == null) {
+            return null;
+        }
+
+        fElements.clear();
+        fRelations.clear();
+        fViews.clear();
+        fIssues.clear();
+        fDuplicateIssues.clear();
+        fCheckerNames.clear();
+        fDirty.clear();
+
+        for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
+
+            if(eObject instanceof IArchimateRelationship) {
+                fRelations.add((IArchimateRelationship)eObject);
+                fDirty.add(eObject);
+            }
+            else if(eObject instanceof IArchimateElement) {
+                fElements.add((IArchimateElement)eObject);
+                fDirty.add(eObject);
+            }
+            else if(eObject instanceof IArchimateDiagramModel) {
+                fViews.add((IArchimateDiagramModel)eObject);
+                fDirty.add(eObject);
+            }
+        }
+
+        fDuplicatesDirty = true;
+        fValidated = true;
+
+        return revalidate();
+    }
+
+    /**
+     * Re-check the objects that have changed since the last validation.
+     * If the model has not been validated yet the whole model is validated.
+     * @return The list of Issue Categories and Issues
+     */
+    public List<Object> revalidate() {
+        if(fModel == null) {
+            return null;
+        }
+
+        if(!fValidated) {
+            return validate();
+        }
+
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        List<IArchimateRelationship> relations = new ArrayList<IArchimateRelationship>();
+        List<IArchimateDiagramModel> views = new ArrayList<IArchimateDiagramModel>();
+        List<IDiagramModelArchimateObject> diagramObjects = new ArrayList<IDiagramModelArchimateObject>();
+
+        for(EObject eObject : fDirty) {
+            removeIssues(eObject);
+
+            if(fElements.contains(eObject)) {
+                elements.add((IArchimateElement)eObject);
+            }
+            else if(fRelations.contains(eObject)) {
+                relations.add((IArchimateRelationship)eObject);
+            }
+            else if(fViews.contains(eObject)) {
+                views.add((IArchimateDiagramModel)eObject);
+
+                for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+                    EObject child = iter.next();
+                    if(child instanceof IDiagramModelArchimateObject) {
+                        diagramObjects.add((IDiagramModelArchimateObject)child);
+                    }
+                }
+            }
+        }
+
+        fDirty.clear();
+
+        // Include the Possible Duplicates checker in this run if needed so that it has its place in the order of checkers
+        List<IArchimateElement> duplicateElements = fDuplicatesDirty ? new ArrayList<IArchimateElement>(fElements) : null;
+
+        if(!(elements.isEmpty() && relations.isEmpty() && views.isEmpty() && duplicateElements == null)) {
+            fValidator.runCheckers(elements, relations, views, diagramObjects, duplicateElements);
+            
+            if(duplicateElements != null) {
+                fDuplicateIssues.clear();
+            }
+
+            for(Entry<String, List<IIssue>> entry : fValidator.getCheckerIssues().entrySet()) {
+                String checkerName = entry.getKey();
+                fCheckerNames.add(checkerName);
+                
+                if(DUPLICATE_CHECKER_NAME.equals(checkerName)) {
+                    fDuplicateIssues.addAll(entry.getValue());
+                    continue;
+                }
+                
+                for(IIssue issue : entry.getValue()) {
+                    EObject owner = getOwner(issue.getObject());
+                    if(owner != null) {
+                        fIssues.computeIfAbsent(checkerName, k -> new HashMap<EObject, List<IIssue>>())
+                               .computeIfAbsent(owner, k -> new ArrayList<IIssue>()).add(issue);
+                    }
+                }
+            }
+        }
+
+        fDuplicatesDirty = false;
+
+        // Collect all issues in the order of the checkers and then in the order of the model's objects
+        List<IIssue> issues = new ArrayList<IIssue>();
+        
+        for(String checkerName : fCheckerNames) {
+            if(DUPLICATE_CHECKER_NAME.equals(checkerName)) {
+                issues.addAll(fDuplicateIssues);
+                continue;
+            }
+            
+            Map<EObject, List<IIssue>> checkerIssues = fIssues.get(checkerName);
+            if(checkerIssues != null) {
+                addIssues(issues, checkerIssues, fElements);
+                addIssues(issues, checkerIssues, fRelations);
+                addIssues(issues, checkerIssues, fViews);
+            }
+        }
+
+        return fValidator.createResult(issues);
+    }
+
+    /**
+     * @return true if the model has changed since the last validation
+     */
+    public boolean isDirty() {
+        return !fDirty.isEmpty() || fDuplicatesDirty;
+    }
+
+    /**
+     * @return The time in milliseconds taken by each checker in the last validation
+     */
+    public Map<String, Long> getCheckerTimings() {
+        return fValidator.getCheckerTimings();
+    }
+
+    /**
+     * Update the dirty objects from a model notification.
+     * Notifications from other models are ignored.
+     */
+    public void notifyChanged(Notification msg) {
+        if(!fValidated || !(msg.getNotifier() instanceof EObject)) {
+            return;
+        }
+
+        EObject notifier = (EObject)msg.getNotifier();
+        if(getArchimateModel(notifier) != fModel) {
+            return;
+        }
+
+        Object feature = msg.getFeature();
+
+        markDirty(getOwner(notifier));
+
+        // Objects added or removed
+        if(feature instanceof EReference && ((EReference)feature).isContainment()) {
+            for(Object o : getValues(msg.getOldValue())) {
+                objectRemoved(o);
+            }
+            for(Object o : getValues(msg.getNewValue())) {
+                objectAdded(o);
+            }
+        }
+
+        // Element renamed
+        else if(feature == IArchimatePackage.Literals.NAMEABLE__NAME) {
+            if(notifier instanceof IArchimateElement) {
+                fDuplicatesDirty = true;
+            }
+            if(notifier instanceof IArchimateConcept) {
+                markReferencingViewsDirty((IArchimateConcept)notifier);
+            }
+        }
+
+        // Relation reconnected
+        else if(feature == IArchimatePackage.Literals.ARCHIMATE_RELATIONSHIP__SOURCE
+                || feature == IArchimatePackage.Literals.ARCHIMATE_RELATIONSHIP__TARGET) {
+            markConceptDirty(msg.getOldValue());
+            markConceptDirty(msg.getNewValue());
+        }
+
+        // Diagram component's concept changed
+        else if(feature == IArchimatePackage.Literals.DIAGRAM_MODEL_ARCHIMATE_OBJECT__ARCHIMATE_ELEMENT
+                || feature == IArchimatePackage.Literals.DIAGRAM_MODEL_ARCHIMATE_CONNECTION__ARCHIMATE_RELATIONSHIP) {
+            markDirty(msg.getOldValue());
+            markDirty(msg.getNewValue());
+        }
+    }
+
+    private void objectAdded(Object object) {
+        if(!(object instanceof EObject)) {
+            return;
+        }
+
+        EObject eObject = (EObject)object;
+        added(eObject);
+
+        for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+            added(iter.next());
+        }
+    }
+
+    private void added(EObject eObject) {
+        if(eObject instanceof IArchimateRelationship) {
+            IArchimateRelationship relation = (IArchimateRelationship)eObject;
+            fRelations.add(relation);
+            markDirty(relation);
+            markConceptDirty(relation.getSource());
+            markConceptDirty(relation.getTarget());
+        }
+        else if(eObject instanceof IArchimateElement) {
+            fElements.add((IArchimateElement)eObject);
+            markDirty(eObject);
+            fDuplicatesDirty = true;
+        }
+        else if(eObject instanceof IArchimateDiagramModel) {
+            fViews.add((IArchimateDiagramModel)eObject);
+            markDirty(eObject);
+        }
+        else if(eObject instanceof IDiagramModelArchimateComponent) {
+            markDirty(((IDiagramModelArchimateComponent)eObject).getArchimateConcept());
+        }
+    }
+
+    private void objectRemoved(Object object) {
+        if(!(object instanceof EObject)) {
+            return;
+        }
+
+        EObject eObject = (EObject)object;
+
+        // Object was moved to another container in the same model and will be added again
+        if(getArchimateModel(eObject) == fModel) {
+            return;
+        }
+
+        removed(eObject);
+
+        for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+            removed(iter.next());
+        }
+    }
+
+    private void removed(EObject eObject) {
+        if(eObject instanceof IArchimateRelationship) {
+            IArchimateRelationship relation = (IArchimateRelationship)eObject;
+            fRelations.remove(relation);
+            removeIssues(relation);
+            markConceptDirty(relation.getSource());
+            markConceptDirty(relation.getTarget());
+        }
+        else if(eObject instanceof IArchimateElement) {
+            fElements.remove(eObject);
+            removeIssues(eObject);
+            fDuplicatesDirty = true;
+        }
+        else if(eObject instanceof IArchimateDiagramModel) {
+            fViews.remove(eObject);
+            removeIssues(eObject);
+        }
+        else if(eObject instanceof IDiagramModelArchimateComponent) {
+            markDirty(((IDiagramModelArchimateComponent)eObject).getArchimateConcept());
+        }
+    }
+
+    private void markDirty(Object object) {
+        if(object instanceof EObject) {
+            fDirty.add((EObject)object);
+        }
+    }
+
+    /**
+     * Mark a concept and the views that reference it as dirty
+     */
+    private void markConceptDirty(Object object) {
+        if(object instanceof IArchimateConcept) {
+            markDirty(object);
+            markReferencingViewsDirty((IArchimateConcept)object);
+        }
+    }
+
+    private void markReferencingViewsDirty(IArchimateConcept concept) {
+        for(IDiagramModelArchimateComponent dmc : concept.getReferencingDiagramComponents()) {
+            markDirty(dmc.getDiagramModel());
+        }
+    }
+
+    private void removeIssues(EObject eObject) {
+        for(Map<EObject, List<IIssue>> checkerIssues : fIssues.values()) {
+            checkerIssues.remove(eObject);
+        }
+    }
+
+    private void addIssues(List<IIssue> issues, Map<EObject, List<IIssue>> checkerIssues, Collection<? extends EObject> objects) {
+        for(EObject eObject : objects) {
+            List<IIssue> objectIssues = checkerIssues.get(eObject);
+            if(objectIssues != null) {
+                issues.addAll(objectIssues);
+            }
+        }
+    }
+
+    /**
+     * @return The element, relation or view that contains an object, or the object itself
+     */
+    private EObject getOwner(Object object) {
+        for(EObject eObject = object instanceof EObject ? (EObject)object : null; eObject != null; eObject = eObject.eContainer()) {
+            if(eObject instanceof IArchimateConcept || eObject instanceof IArchimateDiagramModel) {
+                return eObject;
+            }
+        }
+        return null;
+    }
+
+    private IArchimateModel getArchimateModel(EObject eObject) {
+        for(; eObject != null; eObject = eObject.eContainer()) {
+            if(eObject instanceof IArchimateModel) {
+                return (IArchimateModel)eObject;
+            }
+        }
+        return null;
+    }
+
+    private Collection<?> getValues(Object value) {
+        if(value instanceof Collection) {
+            return (Collection<?>)value;
+        }
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+}
@@ -0,0 +1,456 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.emf.ecore.EObject;
+import org.jdom2.Document;
+import org.jdom2.Element;
+
+import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.hammer.validation.issues.AdviceType;
+import com.archimatetool.hammer.validation.issues.ErrorType;
+import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.IIssueGroup;
+import com.archimatetool.hammer.validation.issues.WarningType;
+import com.archimatetool.jdom.JDOMUtils;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IIdentifier;
+import com.archimatetool.model.INameable;
+
+
+/**
+ * Validates a model and writes the issues that are found as JSON or JUnit XML reports that can be read by other tools.
+ *
+ * This does not use the Display or the Validator View so can be used headless.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ValidationReport {
+
+    /**
+     * Severity of an Issue, from least to most severe
+     */
+    public enum Severity {
+        ADVICE,
+        WARNING,
+        ERROR;
+
+        /**
+         * @return The Severity of an Issue, or null if it is not an Error, Warning or Advice
+         */
+        public static Severity of(IIssue issue) {
+            if(issue instanceof ErrorType) {
+                return ERROR;
+            }
+            if(issue instanceof WarningType) {
+                return WARNING;
+            }
+            if(issue instanceof AdviceType) {
+                return ADVICE;
+            }
+            return null;
+        }
+
+        /**
+         * @return The Severity with the given name, ignoring case, or null if there is none
+         */
+        public static Severity fromName(String name) {
+            for(Severity severity : values()) {
+                if(severity.getName().equalsIgnoreCase(name)) {
+                    return severity;
+                }
+            }
+            return null;
+        }
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private Validator fValidator;
+
+    private Map<String, List<IIssue>> fCheckerIssues = Collections.emptyMap();
+    private Map<String, Long> fCheckerTimings = Collections.emptyMap();
+    private long fTime;
+
+    private Severity fFailSeverity;
+
+    public ValidationReport(Validator validator) {
+        fValidator = validator;
+    }
+
+    /**
+     * Run all the enabled checkers on the model
+     */
+    public void validate() {
+        long start = System.currentTimeMillis();
+        fValidator.validate();
+        fTime = System.currentTimeMillis() - start;
+
+        fCheckerIssues = fValidator.getCheckerIssues();
+        fCheckerTimings = fValidator.getCheckerTimings();
+    }
+
+    /**
+     * @param severity Issues of this Severity or more severe are failures. If null all issues are failures.
+     */
+    public void setFailSeverity(Severity severity) {
+        fFailSeverity = severity;
+    }
+
+    public Severity getFailSeverity() {
+        return fFailSeverity;
+    }
+
+    /**
+     * @return The time in milliseconds taken by the last validation
+     */
+    public long getTime() {
+        return fTime;
+    }
+
+    /**
+     * @return The time in milliseconds taken by each checker in the last validation, keyed by the checker's name
+     */
+    public Map<String, Long> getCheckerTimings() {
+        return fCheckerTimings;
+    }
+
+    /**
+     * @return All the issues found by the last validation in the order of the checkers
+     */
+    public List<IIssue> getIssues() {
+        List<IIssue> issues = new ArrayList<IIssue>();
+        for(List<IIssue> checkerIssues : fCheckerIssues.values()) {
+            issues.addAll(checkerIssues);
+        }
+        return issues;
+    }
+
+    /**
+     * @return The number of issues of the given Severity
+     */
+    public int getCount(Severity severity) {
+        int count = 0;
+        for(IIssue issue : getIssues()) {
+            if(Severity.of(issue) == severity) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return true if an issue is a failure
+     */
+    public boolean isFailure(IIssue issue) {
+        Severity severity = Severity.of(issue);
+        return severity != null && (fFailSeverity == null || severity.compareTo(fFailSeverity) >= 0);
+    }
+
+    /**
+     * @return true if any issue is a failure
+     */
+    public boolean hasFailures() {
+        for(IIssue issue : getIssues()) {
+            if(isFailure(issue)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the last validation as a JSON report
+     */
+    public void writeJSON(File file) throws IOException {
+        createParentFolder(file);
+
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            writeJSON(writer);
+        }
+    }
+
+    /**
+     * Write the last validation as a JSON report
+     */
+    public void writeJSON(Writer writer) throws IOException {
+        IArchimateModel model = fValidator.getModel();
+
+        writer.write("{\n"); //$NON-NLS-1$
+
+        writer.write("  \"model\": {"); //$NON-NLS-1$
+        writeJSONPair(writer, "id", model.getId(), true); //$NON-NLS-1$
+        writeJSONPair(writer, "name", model.getName(), true); //$NON-NLS-1$
+        writeJSONPair(writer, "file", model.getFile() == null ? null : model.getFile().getPath(), false); //$NON-NLS-1$
+        writer.write("},\n"); //$NON-NLS-1$
+
+        writer.write("  \"time\": " + fTime + ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+        writer.write("  \"failed\": " + hasFailures() + ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        writer.write("  \"summary\": {"); //$NON-NLS-1$
+        for(Severity severity : Severity.values()) {
+            writer.write("\"" + severity.getName() + "\": " + getCount(severity)); //$NON-NLS-1$ //$NON-NLS-2$
+            if(severity.ordinal() < Severity.values().length - 1) {
+                writer.write(", "); //$NON-NLS-1$
+            }
+        }
+        writer.write("},\n"); //$NON-NLS-1$
+
+        writer.write("  \"checkers\": ["); //$NON-NLS-1$
+        for(Iterator<Entry<String, List<IIssue>>> iter = fCheckerIssues.entrySet().iterator(); iter.hasNext();) {
+            Entry<String, List<IIssue>> entry = iter.next();
+            writer.write("\n    {"); //$NON-NLS-1$
+            writeJSONPair(writer, "name", entry.getKey(), true); //$NON-NLS-1$
+            writer.write("\"time\": " + getCheckerTime(entry.getKey()) + ", "); //$NON-NLS-1$ //$NON-NLS-2$
+            writer.write("\"issues\": " + entry.getValue().size() + "}"); //$NON-NLS-1$ //$NON-NLS-2$
+            writer.write(iter.hasNext() ? "," : "\n  "); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        writer.write("],\n"); //$NON-NLS-1$
+
+        writer.write("  \"issues\": ["); //$NON-NLS-1$
+        boolean first = true;
+        for(Entry<String, List<IIssue>> entry : fCheckerIssues.entrySet()) {
+            for(IIssue issue : entry.getValue()) {
+                if(Severity.of(issue) == null) {
+                    continue;
+                }
+
+                writer.write(first ? "\n    {" : ",\n    {"); //$NON-NLS-1$ //$NON-NLS-2$
+                first = false;
+
+                writeJSONPair(writer, "severity", Severity.of(issue).getName(), true); //$NON-NLS-1$
+                writeJSONPair(writer, "checker", entry.getKey(), true); //$NON-NLS-1$
+                writeJSONPair(writer, "name", issue.getName(), true); //$NON-NLS-1$
+                writeJSONPair(writer, "description", issue.getDescription(), true); //$NON-NLS-1$
+                writeJSONPair(writer, "explanation", issue.getExplanation(), true); //$NON-NLS-1$
+
+                writer.write("\"objects\": ["); //$NON-NLS-1$
+                for(Iterator<Object> iter = getObjects(issue).iterator(); iter.hasNext();) {
+                    Object object = iter.next();
+                    writer.write("{"); //$NON-NLS-1$
+                    writeJSONPair(writer, "id", object instanceof IIdentifier ? ((IIdentifier)object).getId() : null, true); //$NON-NLS-1$
+                    writeJSONPair(writer, "name", object instanceof INameable ? ((INameable)object).getName() : null, true); //$NON-NLS-1$
+                    writeJSONPair(writer, "type", object instanceof EObject ? ((EObject)object).eClass().getName() : null, false); //$NON-NLS-1$
+                    writer.write(iter.hasNext() ? "}, " : "}"); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                writer.write("]}"); //$NON-NLS-1$
+            }
+        }
+        writer.write(first ? "]\n" : "\n  ]\n"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        writer.write("}\n"); //$NON-NLS-1$
+    }
+
+    /**
+     * Write the last validation as a JUnit XML report.
+     * Each checker is a test suite and each issue is a test case, failed if the issue is a failure or else skipped.
+     * A checker that found no issues has one test case that passed.
+     */
+    public void writeJUnitXML(File file) throws IOException {
+        JDOMUtils.write2XMLFile(createJUnitXMLDocument(), file);
+    }
+
+    /**
+     * @return The last validation as a JUnit XML Document
+     */
+    public Document createJUnitXMLDocument() {
+        Element rootElement = new Element("testsuites"); //$NON-NLS-1$
+        rootElement.setAttribute("name", StringUtils.safeString(fValidator.getModel().getName())); //$NON-NLS-1$
+        rootElement.setAttribute("time", getSeconds(fTime)); //$NON-NLS-1$
+
+        int totalTests = 0, totalFailures = 0, totalSkipped = 0;
+
+        for(Entry<String, List<IIssue>> entry : fCheckerIssues.entrySet()) {
+            String checkerName = entry.getKey();
+
+            Element suiteElement = new Element("testsuite"); //$NON-NLS-1$
+            rootElement.addContent(suiteElement);
+            suiteElement.setAttribute("name", checkerName); //$NON-NLS-1$
+            suiteElement.setAttribute("time", getSeconds(getCheckerTime(checkerName))); //$NON-NLS-1$
+
+            int tests = 0, failures = 0, skipped = 0;
+
+            for(IIssue issue : entry.getValue()) {
+                if(Severity.of(issue) == null) {
+                    continue;
+                }
+
+                Element caseElement = createTestCaseElement(checkerName, issue.getDescription());
+                suiteElement.addContent(caseElement);
+                tests++;
+
+                if(isFailure(issue)) {
+                    Element failureElement = new Element("failure"); //$NON-NLS-1$
+                    failureElement.setAttribute("message", StringUtils.safeString(issue.getDescription())); //$NON-NLS-1$
+                    failureElement.setAttribute("type", Severity.of(issue).getName()); //$NON-NLS-1$
+                    failureElement.setText(getFailureText(issue));
+                    caseElement.addContent(failureElement);
+                    failures++;
+                }
+                else {
+                    Element skippedElement = new Element("skipped"); //$NON-NLS-1$
+                    skippedElement.setAttribute("message", Severity.of(issue).getName()); //$NON-NLS-1$
+                    caseElement.addContent(skippedElement);
+                    skipped++;
+                }
+            }
+
+            // No issues
+            if(tests == 0) {
+                suiteElement.addContent(createTestCaseElement(checkerName, checkerName));
+                tests++;
+            }
+
+            suiteElement.setAttribute("tests", String.valueOf(tests)); //$NON-NLS-1$
+            suiteElement.setAttribute("failures", String.valueOf(failures)); //$NON-NLS-1$
+            suiteElement.setAttribute("errors", "0"); //$NON-NLS-1$ //$NON-NLS-2$
+            suiteElement.setAttribute("skipped", String.valueOf(skipped)); //$NON-NLS-1$
+
+            totalTests += tests;
+            totalFailures += failures;
+            totalSkipped += skipped;
+        }
+
+        rootElement.setAttribute("tests", String.valueOf(totalTests)); //$NON-NLS-1$
+        rootElement.setAttribute("failures", String.valueOf(totalFailures)); //$NON-NLS-1$
+        rootElement.setAttribute("errors", "0"); //$NON-NLS-1$ //$NON-NLS-2$
+        rootElement.setAttribute("skipped", String.valueOf(totalSkipped)); //$NON-NLS-1$
+
+        return new Document(rootElement);
+    }
+
+    private Element createTestCaseElement(String className, String name) {
+        Element element = new Element("testcase"); //$NON-NLS-1$
+        element.setAttribute("classname", className); //$NON-NLS-1$
+        element.setAttribute("name", StringUtils.safeString(name)); //$NON-NLS-1$
+        element.setAttribute("time", "0"); //$NON-NLS-1$ //$NON-NLS-2$
+        return element;
+    }
+
+    private String getFailureText(IIssue issue) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(StringUtils.safeString(issue.getName()));
+
+        for(Object object : getObjects(issue)) {
+            sb.append("\n"); //$NON-NLS-1$
+            if(object instanceof EObject) {
+                sb.append(((EObject)object).eClass().getName());
+            }
+            if(object instanceof INameable) {
+                sb.append(" '").append(((INameable)object).getName()).append("'"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            if(object instanceof IIdentifier) {
+                sb.append(" (").append(((IIdentifier)object).getId()).append(")"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return The objects of an issue, or of the issues in a group
+     */
+    private List<Object> getObjects(IIssue issue) {
+        List<Object> objects = new ArrayList<Object>();
+
+        if(issue instanceof IIssueGroup) {
+            for(IIssue groupIssue : ((IIssueGroup)issue).getIssues()) {
+                if(groupIssue.getObject() != null) {
+                    objects.add(groupIssue.getObject());
+                }
+            }
+        }
+        else if(issue.getObject() != null) {
+            objects.add(issue.getObject());
+        }
+
+        return objects;
+    }
+
+    private long getCheckerTime(String checkerName) {
+        Long time = fCheckerTimings.get(checkerName);
+        return time == null ? 0 : time;
+    }
+
+    private String getSeconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0); //$NON-NLS-1$
+    }
+
+    private void createParentFolder(File file) {
+        File parent = file.getParentFile();
+        if(parent != null) {
+            parent.mkdirs();
+        }
+    }
+
+    private void writeJSONPair(Writer writer, String name, String value, boolean more) throws IOException {
+        writer.write("\"" + name + "\": "); //$NON-NLS-1$ //$NON-NLS-2$
+        writer.write(value == null ? "null" : quoteJSON(value)); //$NON-NLS-1$
+        if(more) {
+            writer.write(", "); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @return A string as a quoted and escaped JSON string
+     */
+    static String quoteJSON(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+
+        sb.append('"');
+
+        for(int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch(c) {
+                case '"':
+                    sb.append("\\\""); //$NON-NLS-1$
+                    break;
+                case '\\':
+                    sb.append("\\\\"); //$NON-NLS-1$
+                    break;
+                case '\n':
+                    sb.append("\\n"); //$NON-NLS-1$
+                    break;
+                case '\r':
+                    sb.append("\\r"); //$NON-NLS-1$
+                    break;
+                case '\t':
+                    sb.append("\\t"); //$NON-NLS-1$
+                    break;
+                default:
+                    if(c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int)c)); //$NON-NLS-1$
+                    }
+                    else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+
+        sb.append('"');
+
+        return sb.toString();
+    }
+}
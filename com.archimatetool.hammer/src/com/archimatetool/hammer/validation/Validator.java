@@ -6,8 +6,16 @@
 package com.archimatetool.hammer.validation;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -36,25 +44,35 @@ import com.archimatetool.model.IArchimateDiagramModel;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.IDiagramModelArchimateObject;
 
 
 /**
  * Validator
  * 
+ * The model's contents are collected in one traversal and then the enabled checkers are run concurrently
+ * on a ForkJoinPool. Checkers that check each object on its own are split into chunks of objects.
+ * Issues are collected in the order that the checkers and chunks were created so the result is deterministic.
+ * 
  * @author Phillip Beauvoir
  */
 public class Validator {
     
+    /**
+     * Minimum number of objects given to a chunk of a checker
+     */
+    static final int MIN_CHUNK_SIZE = 500;
+    
     private IArchimateModel fModel;
     
     private List<IArchimateElement> fElements;
     private List<IArchimateRelationship> fRelations;
     private List<IArchimateDiagramModel> fViews;
+    private List<IDiagramModelArchimateObject> fDiagramObjects;
+    
+    private Map<String, Long> fCheckerTimings;
+    private Map<String, List<IIssue>> fCheckerIssues;
     
-    private List<ErrorType> fErrorList;
-    private List<WarningType> fWarningList;
-    private List<AdviceType> fAdviceList;
-
     
     public Validator(IArchimateModel model) {
         fModel = model;
@@ -72,6 +90,7 @@ public class Validator {
         fElements = new ArrayList<IArchimateElement>();
         fRelations = new ArrayList<IArchimateRelationship>();
         fViews = new ArrayList<IArchimateDiagramModel>();
+        fDiagramObjects = new ArrayList<IDiagramModelArchimateObject>();
         
         for(Iterator<EObject> iter = fModel.eAllContents(); iter.hasNext();) {
             EObject eObject = iter.next();
@@ -85,73 +104,112 @@ public class Validator {
             else if(eObject instanceof IArchimateDiagramModel) {
                 fViews.add((IArchimateDiagramModel)eObject);
             }
+            else if(eObject instanceof IDiagramModelArchimateObject) {
+                fDiagramObjects.add((IDiagramModelArchimateObject)eObject);
+            }
         }
         
-        // Analyse
-        List<Object> result = new ArrayList<Object>();
+        List<IIssue> issues = runCheckers(getArchimateElements(), getArchimateRelationships(), getArchimateViews(),
+                getArchimateDiagramObjects(), getArchimateElements());
         
-        fErrorList = new ArrayList<ErrorType>();
-        fWarningList = new ArrayList<WarningType>();
-        fAdviceList = new ArrayList<AdviceType>();
+        return createResult(issues);
+    }
+    
+    /**
+     * Run the enabled checkers on the given objects
+     * @param elements Elements to check
+     * @param relations Relations to check
+     * @param views Views to check
+     * @param diagramObjects Diagram Model Archimate Objects in the Views to check
+     * @param duplicateElements All elements to check for duplicates, or null to not check for duplicates
+     * @return The issues in the order of the checkers
+     */
+    List<IIssue> runCheckers(List<IArchimateElement> elements, List<IArchimateRelationship> relations, List<IArchimateDiagramModel> views,
+                             List<IDiagramModelArchimateObject> diagramObjects, List<IArchimateElement> duplicateElements) {
+        IPreferenceStore store = ArchiHammerPlugin.INSTANCE.getPreferenceStore();
         
-        // ------------------ Checkers -----------------------------
+        fCheckerTimings = new LinkedHashMap<String, Long>();
+        fCheckerIssues = new LinkedHashMap<String, List<IIssue>>();
         
-        IPreferenceStore store = ArchiHammerPlugin.INSTANCE.getPreferenceStore();
+        List<CheckerTask> tasks = new ArrayList<CheckerTask>();
         
         // Invalid Relations
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_INVALID_RELATIONS)) {
-            collectIssues(new InvalidRelationsChecker(getArchimateRelationships()));
+            addCheckerTasks(tasks, relations, InvalidRelationsChecker::new);
         }
         
         // Unused Elements
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_UNUSED_ELEMENTS)) {
-            collectIssues(new UnusedElementsChecker(getArchimateElements()));
+            addCheckerTasks(tasks, elements, UnusedElementsChecker::new);
         }
         
         // Unused Relations
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_UNUSED_RELATIONS)) {
-            collectIssues(new UnusedRelationsChecker(getArchimateRelationships()));
+            addCheckerTasks(tasks, relations, UnusedRelationsChecker::new);
         }
         
         // Empty Views
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_EMPTY_VIEWS)) {
-            collectIssues(new EmptyViewsChecker(getArchimateViews()));
+            addCheckerTasks(tasks, views, EmptyViewsChecker::new);
         }
         
         // Components in wrong Viewpoints
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_VIEWPOINT)) {
-            collectIssues(new ViewpointChecker(getArchimateViews()));
+            addCheckerTasks(tasks, diagramObjects, ViewpointChecker::createForDiagramObjects);
         }
         
         // Nested elements
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_NESTING)) {
-            collectIssues(new NestedElementsChecker(getArchimateViews()));
+            addCheckerTasks(tasks, diagramObjects, NestedElementsChecker::createForDiagramObjects);
         }
 
-        // Possible Duplicates
-        if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS)) {
-            collectIssues(new DuplicateElementChecker(getArchimateElements()));
+        // Possible Duplicates (needs all elements so can't be split)
+        if(duplicateElements != null && store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_DUPLICATE_ELEMENTS)) {
+            tasks.add(new CheckerTask(new DuplicateElementChecker(duplicateElements, getDuplicateMatchMode(store))));
         }
         
         // Junctions
         if(store.getBoolean(IPreferenceConstants.PREFS_HAMMER_CHECK_JUNCTIONS)) {
-            collectIssues(new JunctionsChecker(getArchimateElements()));
+            addCheckerTasks(tasks, elements, JunctionsChecker::new);
         }
-
-        // ----------------------------------------------------------
-
-        if(!fErrorList.isEmpty()) {
-            IIssueCategory category = new ErrorsCategory(fErrorList);
+        
+        return runCheckerTasks(tasks);
+    }
+    
+    /**
+     * @return The list of Issue Categories and Issues for the given issues
+     */
+    List<Object> createResult(List<IIssue> issues) {
+        List<Object> result = new ArrayList<Object>();
+        
+        List<ErrorType> errorList = new ArrayList<ErrorType>();
+        List<WarningType> warningList = new ArrayList<WarningType>();
+        List<AdviceType> adviceList = new ArrayList<AdviceType>();
+        
+        for(IIssue issue : issues) {
+            if(issue instanceof ErrorType) {
+                errorList.add((ErrorType)issue);
+            }
+            if(issue instanceof WarningType) {
+                warningList.add((WarningType)issue);
+            }
+            if(issue instanceof AdviceType) {
+                adviceList.add((AdviceType)issue);
+            }
+        }
+        
+        if(!errorList.isEmpty()) {
+            IIssueCategory category = new ErrorsCategory(errorList);
             result.add(category);
         }
 
-        if(!fWarningList.isEmpty()) {
-            IIssueCategory category = new WarningsCategory(fWarningList);
+        if(!warningList.isEmpty()) {
+            IIssueCategory category = new WarningsCategory(warningList);
             result.add(category);
         }
         
-        if(!fAdviceList.isEmpty()) {
-            IIssueCategory category = new AdviceCategory(fAdviceList);
+        if(!adviceList.isEmpty()) {
+            IIssueCategory category = new AdviceCategory(adviceList);
             result.add(category);
         }
 
@@ -162,18 +220,61 @@ public class Validator {
         return result;
     }
     
-    void collectIssues(IChecker checker) {
-        for(IIssue issue : checker.getIssues()) {
-            if(issue instanceof ErrorType) {
-                fErrorList.add((ErrorType)issue);
+    private DuplicateElementChecker.MatchMode getDuplicateMatchMode(IPreferenceStore store) {
+        int index = store.getInt(IPreferenceConstants.PREFS_HAMMER_DUPLICATE_MATCH_MODE);
+        DuplicateElementChecker.MatchMode[] modes = DuplicateElementChecker.MatchMode.values();
+        return index >= 0 && index < modes.length ? modes[index] : DuplicateElementChecker.MatchMode.EXACT;
+    }
+    
+    /**
+     * Add tasks for a checker that checks each object in a list on its own.
+     * If there are enough objects the list is split into chunks and a checker is created for each chunk.
+     */
+    private <T> void addCheckerTasks(List<CheckerTask> tasks, List<T> objects, Function<List<T>, IChecker> factory) {
+        int size = objects.size();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (ForkJoinPool.getCommonPoolParallelism() * 4) + 1);
+        
+        for(int i = 0; i < size; i += chunkSize) {
+            tasks.add(new CheckerTask(factory.apply(objects.subList(i, Math.min(i + chunkSize, size)))));
+        }
+        
+        // Always run the checker even if there are no objects
+        if(size == 0) {
+            tasks.add(new CheckerTask(factory.apply(objects)));
+        }
+    }
+    
+    /**
+     * Run the checker tasks concurrently and collect their issues in task order
+     */
+    private List<IIssue> runCheckerTasks(List<CheckerTask> tasks) {
+        List<IIssue> issues = new ArrayList<IIssue>();
+        
+        List<Future<List<IIssue>>> futures = ForkJoinPool.commonPool().invokeAll(tasks);
+        
+        for(int i = 0; i < tasks.size(); i++) {
+            CheckerTask task = tasks.get(i);
+            
+            try {
+                List<IIssue> taskIssues = futures.get(i).get();
+                issues.addAll(taskIssues);
+                fCheckerIssues.computeIfAbsent(task.getName(), name -> new ArrayList<IIssue>()).addAll(taskIssues);
             }
-            if(issue instanceof WarningType) {
-                fWarningList.add((WarningType)issue);
+            catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
             }
-            if(issue instanceof AdviceType) {
-                fAdviceList.add((AdviceType)issue);
+            catch(ExecutionException ex) {
+                if(ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)ex.getCause();
+                }
+                throw new RuntimeException(ex.getCause());
             }
+            
+            fCheckerTimings.merge(task.getName(), task.getTime(), Long::sum);
         }
+        
+        return issues;
     }
     
     public IArchimateModel getModel() {
@@ -191,4 +292,52 @@ public class Validator {
     public List<IArchimateDiagramModel> getArchimateViews() {
         return new ArrayList<IArchimateDiagramModel>(fViews); // copy
     }
+    
+    public List<IDiagramModelArchimateObject> getArchimateDiagramObjects() {
+        return new ArrayList<IDiagramModelArchimateObject>(fDiagramObjects); // copy
+    }
+    
+    /**
+     * @return The time in milliseconds taken by each checker in the last validation, keyed by the checker's name.
+     *         For checkers that were split into chunks this is the total time of all chunks.
+     */
+    public Map<String, Long> getCheckerTimings() {
+        return fCheckerTimings == null ? Collections.emptyMap() : Collections.unmodifiableMap(fCheckerTimings);
+    }
+    
+    /**
+     * @return The issues found by each checker in the last validation, keyed by the checker's name in the order that the checkers were run.
+     *         Every checker that was run has an entry even if it found no issues.
+     */
+    public Map<String, List<IIssue>> getCheckerIssues() {
+        return fCheckerIssues == null ? Collections.emptyMap() : Collections.unmodifiableMap(fCheckerIssues);
+    }
+    
+    /**
+     * Runs a checker and records how long it took
+     */
+    private static class CheckerTask implements Callable<List<IIssue>> {
+        private IChecker checker;
+        private long time;
+        
+        CheckerTask(IChecker checker) {
+            this.checker = checker;
+        }
+        
+        @Override
+        public List<IIssue> call() {
+            long start = System.currentTimeMillis();
+            List<IIssue> issues = checker.getIssues();
+            time = System.currentTimeMillis() - start;
+            return issues;
+        }
+        
+        String getName() {
+            return checker.getClass().getSimpleName();
+        }
+        
+        long getTime() {
+            return time;
+        }
+    }
 }
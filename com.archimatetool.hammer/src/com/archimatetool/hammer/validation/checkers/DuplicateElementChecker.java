@@ -6,15 +6,21 @@
 package com.archimatetool.hammer.validation.checkers;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.osgi.util.NLS;
 
 import com.archimatetool.editor.ui.ArchiLabelProvider;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.WarningGroupType;
 import com.archimatetool.hammer.validation.issues.WarningType;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimatePackage;
@@ -22,63 +28,245 @@ import com.archimatetool.model.IArchimatePackage;
 
 /**
  * Checks for possible duplicates of elements of the same type
- * 
+ *
+ * Elements are grouped in one pass keyed on their class and normalised name,
+ * and each group of duplicates is reported as one Warning containing a Warning for each element.
+ *
  * @author Phillip Beauvoir
  */
 public class DuplicateElementChecker implements IChecker {
-    
+
+    /**
+     * How names are compared
+     */
+    public enum MatchMode {
+        /**
+         * Names must be exactly the same
+         */
+        EXACT,
+
+        /**
+         * Names are compared ignoring case and whitespace
+         */
+        IGNORE_CASE_AND_WHITESPACE,
+
+        /**
+         * As IGNORE_CASE_AND_WHITESPACE and also names with similar character trigrams
+         */
+        SIMILAR
+    }
+
     final String NAME = Messages.DuplicateElementChecker_0;
     final String DESCRIPTION = Messages.DuplicateElementChecker_1;
     final String EXPLANATION = Messages.DuplicateElementChecker_2;
-    
+    final String GROUP_DESCRIPTION = Messages.DuplicateElementChecker_3;
+    final String SIMILAR_GROUP_DESCRIPTION = Messages.DuplicateElementChecker_4;
+
+    // Minimum Jaccard similarity of two names' trigram sets in SIMILAR mode
+    static final double SIMILARITY_THRESHOLD = 0.7;
+
+    // Trigrams shared by more than this number of names are too common to find candidates with
+    static final int MAX_TRIGRAM_BUCKET_SIZE = 64;
+
     private List<IArchimateElement> fArchimateElements;
-    
+
+    private MatchMode fMatchMode;
+
     public DuplicateElementChecker(List<IArchimateElement> archimateElements) {
+        this(archimateElements, MatchMode.EXACT);
+    }
+
+    public DuplicateElementChecker(List<IArchimateElement> archimateElements, MatchMode matchMode) {
         fArchimateElements = archimateElements;
+        fMatchMode = matchMode != null ? matchMode : MatchMode.EXACT;
     }
 
     @Override
     public List<IIssue> getIssues() {
         return findDuplicateNamesElements();
     }
-    
+
     List<IIssue> findDuplicateNamesElements() {
         List<IIssue> issues = new ArrayList<IIssue>();
-        
-        Set<IArchimateElement> dupes = new LinkedHashSet<IArchimateElement>();
-        
-        for(int i = 0; i < fArchimateElements.size(); i++) {
-            for(int j = i + 1; j < fArchimateElements.size(); j++) {
-                IArchimateElement element1 = fArchimateElements.get(i);
-                IArchimateElement element2 = fArchimateElements.get(j);
-                if(isDuplicate(element1, element2)) {
-                    dupes.add(element1);
-                    dupes.add(element2);
+
+        for(List<IArchimateElement> group : findDuplicateGroups()) {
+            issues.add(createIssue(group));
+        }
+
+        return issues;
+    }
+
+    /**
+     * @return Groups of two or more possible duplicate elements, in the order in which they were first found
+     */
+    List<List<IArchimateElement>> findDuplicateGroups() {
+        // Group by class and normalised name in one pass
+        Map<EClass, Map<String, List<IArchimateElement>>> classMap = new LinkedHashMap<>();
+
+        for(IArchimateElement element : fArchimateElements) {
+            // Ignore Junctions as these tend to just be called "Junction" or may well have a common name like "Or" or "And"
+            if(element.eClass() == IArchimatePackage.eINSTANCE.getJunction()) {
+                continue;
+            }
+
+            classMap.computeIfAbsent(element.eClass(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(normalise(element.getName()), k -> new ArrayList<>())
+                    .add(element);
+        }
+
+        List<List<IArchimateElement>> groups = new ArrayList<>();
+
+        for(Map<String, List<IArchimateElement>> nameMap : classMap.values()) {
+            if(fMatchMode == MatchMode.SIMILAR) {
+                mergeSimilarNames(nameMap);
+            }
+
+            for(List<IArchimateElement> group : nameMap.values()) {
+                if(group.size() > 1) {
+                    groups.add(group);
                 }
             }
         }
-        
-        for(IArchimateElement element : dupes) {
-            String description = NLS.bind(DESCRIPTION, new Object[] { element.getName(),
-                    ArchiLabelProvider.INSTANCE.getDefaultName(element.eClass()) });
 
-            IIssue issue = new WarningType(NAME, description, EXPLANATION, element);
-            issues.add(issue);
+        return groups;
+    }
+
+    private IIssue createIssue(List<IArchimateElement> group) {
+        IArchimateElement first = group.get(0);
+        String typeName = ArchiLabelProvider.INSTANCE.getDefaultName(first.eClass());
+
+        List<WarningType> warnings = new ArrayList<>();
+        boolean sameName = true;
+
+        for(IArchimateElement element : group) {
+            String description = NLS.bind(DESCRIPTION, new Object[] { element.getName(), typeName });
+            warnings.add(new WarningType(NAME, description, EXPLANATION, element));
+            sameName &= StringUtils.safeString(first.getName()).equals(StringUtils.safeString(element.getName()));
         }
-        
-        return issues;
+
+        String description = NLS.bind(sameName ? GROUP_DESCRIPTION : SIMILAR_GROUP_DESCRIPTION,
+                new Object[] { first.getName(), group.size(), typeName });
+
+        return new WarningGroupType(NAME, description, EXPLANATION, warnings);
     }
-    
-    private boolean isDuplicate(IArchimateElement element1, IArchimateElement element2) {
-        // Ignore Junctions as these tend to just be called "Junction" or may well have a common name like "Or" or "And"
-        if(element1.eClass() == IArchimatePackage.eINSTANCE.getJunction() &&
-                element2.eClass() == IArchimatePackage.eINSTANCE.getJunction()) {
-            return false;
+
+    /**
+     * Normalise a name to the key used for grouping, depending on the match mode
+     */
+    String normalise(String name) {
+        name = StringUtils.safeString(name);
+
+        if(fMatchMode == MatchMode.EXACT) {
+            return name;
         }
-        
-        String name1 = StringUtils.safeString(element1.getName());
-        String name2 = StringUtils.safeString(element2.getName());
-        
-        return name1.equals(name2) && (element1.eClass() == element2.eClass());
+
+        StringBuilder sb = new StringBuilder(name.length());
+        for(int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if(!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Merge groups of the same class whose normalised names are similar.
+     * Candidate names are found from an index of trigrams rather than comparing every name with every other,
+     * and very common trigrams are not used so that this stays close to linear.
+     */
+    private void mergeSimilarNames(Map<String, List<IArchimateElement>> nameMap) {
+        List<String> names = new ArrayList<>(nameMap.keySet());
+        int size = names.size();
+        if(size < 2) {
+            return;
+        }
+
+        List<Set<String>> nameTrigrams = new ArrayList<>(size);
+        Map<String, List<Integer>> trigramIndex = new HashMap<>();
+
+        for(int i = 0; i < size; i++) {
+            Set<String> trigrams = getTrigrams(names.get(i));
+            nameTrigrams.add(trigrams);
+            for(String trigram : trigrams) {
+                trigramIndex.computeIfAbsent(trigram, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Union-find of similar names
+        int[] parent = new int[size];
+        for(int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+
+        for(int i = 0; i < size; i++) {
+            Set<Integer> candidates = new HashSet<>();
+
+            for(String trigram : nameTrigrams.get(i)) {
+                List<Integer> bucket = trigramIndex.get(trigram);
+                if(bucket.size() <= MAX_TRIGRAM_BUCKET_SIZE) {
+                    for(int j : bucket) {
+                        if(j > i) {
+                            candidates.add(j);
+                        }
+                    }
+                }
+            }
+
+            for(int j : candidates) {
+                if(getSimilarity(nameTrigrams.get(i), nameTrigrams.get(j)) >= SIMILARITY_THRESHOLD) {
+                    parent[find(parent, j)] = find(parent, i);
+                }
+            }
+        }
+
+        // Merge each name's elements into the group of its root name
+        for(int i = 0; i < size; i++) {
+            int root = find(parent, i);
+            if(root != i) {
+                nameMap.get(names.get(root)).addAll(nameMap.remove(names.get(i)));
+            }
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while(parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * @return The set of trigrams in a name padded with a leading and trailing space
+     */
+    static Set<String> getTrigrams(String name) {
+        Set<String> trigrams = new HashSet<>();
+
+        String padded = " " + name + " "; //$NON-NLS-1$ //$NON-NLS-2$
+        for(int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+
+        return trigrams;
+    }
+
+    /**
+     * @return The Jaccard similarity of two sets of trigrams
+     */
+    static double getSimilarity(Set<String> trigrams1, Set<String> trigrams2) {
+        if(trigrams1.isEmpty() || trigrams2.isEmpty()) {
+            return 0;
+        }
+
+        int intersection = 0;
+        for(String trigram : trigrams1) {
+            if(trigrams2.contains(trigram)) {
+                intersection++;
+            }
+        }
+
+        return (double)intersection / (trigrams1.size() + trigrams2.size() - intersection);
     }
 }
@@ -48,7 +48,7 @@ public class JunctionsChecker implements IChecker {
             if(element instanceof IJunction) {
                 
                 IArchimateRelationship rel = null;
-                for(IArchimateRelationship relation : ArchimateModelUtils.getAllRelationshipsForConcept(element)) {
+                for(IArchimateRelationship relation : ArchimateModelUtils.getRelationships(element)) {
                     if(rel != null && rel.eClass() != relation.eClass()) {
                         String name = ArchiLabelProvider.INSTANCE.getLabel(element);
                         String description = NLS.bind(DESCRIPTION, name);
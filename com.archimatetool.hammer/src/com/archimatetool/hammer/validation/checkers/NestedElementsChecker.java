@@ -42,10 +42,22 @@ public class NestedElementsChecker implements IChecker {
                                       Messages.NestedElementsChecker_3;
     
     private List<IArchimateDiagramModel> fViews;
+    private List<IDiagramModelArchimateObject> fDiagramObjects;
     
     public NestedElementsChecker(List<IArchimateDiagramModel> views) {
         fViews = views;
     }
+    
+    /**
+     * Create a NestedElementsChecker for Diagram Objects that have already been collected from Views
+     * so that the Views' contents don't have to be iterated again
+     * @param diagramObjects The Diagram Model Archimate Objects to check as parents
+     */
+    public static NestedElementsChecker createForDiagramObjects(List<IDiagramModelArchimateObject> diagramObjects) {
+        NestedElementsChecker checker = new NestedElementsChecker(null);
+        checker.fDiagramObjects = diagramObjects;
+        return checker;
+    }
 
     @Override
     public List<IIssue> getIssues() {
@@ -56,27 +68,21 @@ public class NestedElementsChecker implements IChecker {
     List<IIssue> findWrongNestedElements() {
         List<IIssue> issues = new ArrayList<IIssue>();
         
-        for(IArchimateDiagramModel dm : fViews) {
-            for(Iterator<EObject> iter = dm.eAllContents(); iter.hasNext();) {
-                EObject eObject = iter.next();
-                
-                if(eObject instanceof IDiagramModelArchimateObject) {
-                    IDiagramModelArchimateObject parent = (IDiagramModelArchimateObject)eObject;
+        List<IDiagramModelArchimateObject> diagramObjects = fDiagramObjects != null ? fDiagramObjects : getDiagramModelArchimateObjects(fViews);
+        
+        for(IDiagramModelArchimateObject parent : diagramObjects) {
+            for(IDiagramModelObject dmoChild : parent.getChildren()) {
+                if(dmoChild instanceof IDiagramModelArchimateObject) {
+                    IDiagramModelArchimateObject child = (IDiagramModelArchimateObject)dmoChild;
                     
-                    for(IDiagramModelObject dmoChild : parent.getChildren()) {
-                        if(dmoChild instanceof IDiagramModelArchimateObject) {
-                            IDiagramModelArchimateObject child = (IDiagramModelArchimateObject)dmoChild;
-                            
-                            if(isNestedWithoutValidRelation(parent, child)) {
-                                String description =  NLS.bind(fDescription, new Object[] {
-                                        child.getName(),
-                                        parent.getName()
-                                });
-                                
-                                IIssue issue = new AdviceType(fName, description, fExplanation, child);
-                                issues.add(issue);
-                            }
-                        }
+                    if(isNestedWithoutValidRelation(parent, child)) {
+                        String description =  NLS.bind(fDescription, new Object[] {
+                                child.getName(),
+                                parent.getName()
+                        });
+                        
+                        IIssue issue = new AdviceType(fName, description, fExplanation, child);
+                        issues.add(issue);
                     }
                 }
             }
@@ -84,6 +90,24 @@ public class NestedElementsChecker implements IChecker {
         
         return issues;
     }
+    
+    /**
+     * @return All Diagram Model Archimate Objects in the given Views
+     */
+    static List<IDiagramModelArchimateObject> getDiagramModelArchimateObjects(List<IArchimateDiagramModel> views) {
+        List<IDiagramModelArchimateObject> list = new ArrayList<IDiagramModelArchimateObject>();
+        
+        for(IArchimateDiagramModel dm : views) {
+            for(Iterator<EObject> iter = dm.eAllContents(); iter.hasNext();) {
+                EObject eObject = iter.next();
+                if(eObject instanceof IDiagramModelArchimateObject) {
+                    list.add((IDiagramModelArchimateObject)eObject);
+                }
+            }
+        }
+        
+        return list;
+    }
 
     private boolean isNestedWithoutValidRelation(IDiagramModelArchimateObject parent, IDiagramModelArchimateObject child) {
         IArchimateElement parentElement = parent.getArchimateElement();
@@ -95,11 +119,11 @@ public class NestedElementsChecker implements IChecker {
         }
         
         // No relationships between parent and child
-        if(!hasParentChildRelationships(parentElement, childElement)) {
+        if(!ArchimateModelUtils.hasRelationship(parentElement, childElement)) {
             return true;
         }
         
-        for(IArchimateRelationship r : ArchimateModelUtils.getAllRelationshipsForConcept(parentElement)) {
+        for(IArchimateRelationship r : ArchimateModelUtils.getRelationshipsBetween(parentElement, childElement)) {
             // Check for non-nested type relationships
             if((r.getTarget() == childElement || r.getSource() == childElement) && !isNestedTypeRelationship(r)) {
                 return true;
@@ -119,16 +143,6 @@ public class NestedElementsChecker implements IChecker {
         return false;
     }
     
-    private boolean hasParentChildRelationships(IArchimateElement parentElement, IArchimateElement childElement) {
-        for(IArchimateRelationship r : ArchimateModelUtils.getAllRelationshipsForConcept(parentElement)) {
-            if(r.getTarget() == childElement || r.getSource() == childElement) {
-                return true;
-            }
-        }
-        
-        return false;
-    }
-    
     private boolean isNestedTypeRelationship(IArchimateRelationship r) {
         return r instanceof ICompositionRelationship
                 || r instanceof ISpecializationRelationship
@@ -6,10 +6,8 @@
 package com.archimatetool.hammer.validation.checkers;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
-import org.eclipse.emf.ecore.EObject;
 import org.eclipse.osgi.util.NLS;
 
 import com.archimatetool.editor.ui.ArchiLabelProvider;
@@ -36,10 +34,22 @@ public class ViewpointChecker implements IChecker {
                                 Messages.ViewpointChecker_3;
 
     private List<IArchimateDiagramModel> fViews;
+    private List<IDiagramModelArchimateObject> fDiagramObjects;
     
     public ViewpointChecker(List<IArchimateDiagramModel> views) {
         fViews = views;
     }
+    
+    /**
+     * Create a ViewpointChecker for Diagram Objects that have already been collected from Views
+     * so that the Views' contents don't have to be iterated again
+     * @param diagramObjects The Diagram Model Archimate Objects to check
+     */
+    public static ViewpointChecker createForDiagramObjects(List<IDiagramModelArchimateObject> diagramObjects) {
+        ViewpointChecker checker = new ViewpointChecker(null);
+        checker.fDiagramObjects = diagramObjects;
+        return checker;
+    }
 
     @Override
     public List<IIssue> getIssues() {
@@ -49,21 +59,16 @@ public class ViewpointChecker implements IChecker {
     List<IIssue> findComponentsInWrongViewpoints() {
         List<IIssue> issues = new ArrayList<IIssue>();
         
-        for(IArchimateDiagramModel dm : fViews) {
-            String id = dm.getViewpoint();
-            IViewpoint viewPoint = ViewpointManager.INSTANCE.getViewpoint(id);
+        List<IDiagramModelArchimateObject> diagramObjects = fDiagramObjects != null ? fDiagramObjects : NestedElementsChecker.getDiagramModelArchimateObjects(fViews);
+        
+        for(IDiagramModelArchimateObject dmo : diagramObjects) {
+            IArchimateDiagramModel dm = (IArchimateDiagramModel)dmo.getDiagramModel();
+            IViewpoint viewPoint = ViewpointManager.INSTANCE.getViewpoint(dm.getViewpoint());
             
-            for(Iterator<EObject> iter = dm.eAllContents(); iter.hasNext();) {
-                EObject eObject = iter.next();
-                
-                if(eObject instanceof IDiagramModelArchimateObject) {
-                    IDiagramModelArchimateObject dmo = (IDiagramModelArchimateObject)eObject;
-                    IArchimateElement element = dmo.getArchimateElement();
-                    if(!viewPoint.isAllowedConcept(element.eClass())) {
-                        IIssue issue = createIssue(dmo, dm.getName(), viewPoint.getName());
-                        issues.add(issue);
-                    }
-                }
+            IArchimateElement element = dmo.getArchimateElement();
+            if(!viewPoint.isAllowedConcept(element.eClass())) {
+                IIssue issue = createIssue(dmo, dm.getName(), viewPoint.getName());
+                issues.add(issue);
             }
         }
         
@@ -0,0 +1,23 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation.issues;
+
+import java.util.List;
+
+
+
+/**
+ * An Issue that groups together a number of related Issues
+ *
+ * @author Phillip Beauvoir
+ */
+public interface IIssueGroup extends IIssue {
+
+    /**
+     * @return The Issues in this group
+     */
+    List<? extends IIssue> getIssues();
+}
@@ -0,0 +1,31 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation.issues;
+
+import java.util.List;
+
+
+
+/**
+ * Warning Issue Type that groups a number of Warnings.
+ * The object of this Issue is the object of the first Warning in the group.
+ *
+ * @author Phillip Beauvoir
+ */
+public class WarningGroupType extends WarningType implements IIssueGroup {
+
+    private List<WarningType> fIssues;
+
+    public WarningGroupType(String name, String description, String explanation, List<WarningType> issues) {
+        super(name, description, explanation, issues.isEmpty() ? null : issues.get(0).getObject());
+        fIssues = issues;
+    }
+
+    @Override
+    public List<WarningType> getIssues() {
+        return fIssues;
+    }
+}
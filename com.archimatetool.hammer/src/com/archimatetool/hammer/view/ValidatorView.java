@@ -10,6 +10,7 @@ import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.help.HelpSystem;
 import org.eclipse.help.IContext;
 import org.eclipse.help.IContextProvider;
@@ -56,9 +57,12 @@ import com.archimatetool.editor.ui.services.EditorManager;
 import com.archimatetool.editor.ui.services.ViewManager;
 import com.archimatetool.editor.utils.PlatformUtils;
 import com.archimatetool.editor.views.tree.ITreeModelView;
+import com.archimatetool.hammer.ArchiHammerPlugin;
 import com.archimatetool.hammer.IHammerImages;
-import com.archimatetool.hammer.validation.Validator;
+import com.archimatetool.hammer.preferences.IPreferenceConstants;
+import com.archimatetool.hammer.validation.IncrementalValidator;
 import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.IIssueGroup;
 import com.archimatetool.help.hints.IHintsView;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateModel;
@@ -80,9 +84,14 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
     private IAction fActionExplain;
     private IAction fActionSelectObjects;
     private IAction fActionShowPreferences;
+    private IAction fActionLiveValidation;
     
     private IArchimateModel fModel;
     
+    // Validator of the model whose results are shown, updated from model changes when live validation is on
+    private IncrementalValidator fIncrementalValidator;
+    private boolean fRevalidateScheduled;
+    
     public ValidatorView() {
     }
 
@@ -208,6 +217,22 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
                 return getText();
             }
         };
+        
+        fActionLiveValidation = new Action(Messages.ValidatorView_5, IAction.AS_CHECK_BOX) {
+            @Override
+            public void run() {
+                ArchiHammerPlugin.INSTANCE.getPreferenceStore().setValue(IPreferenceConstants.PREFS_HAMMER_LIVE_VALIDATION, isChecked());
+                if(isChecked()) {
+                    scheduleRevalidate();
+                }
+            }
+            
+            @Override
+            public String getToolTipText() {
+                return getText();
+            }
+        };
+        fActionLiveValidation.setChecked(isLiveValidation());
     }
 
     /**
@@ -228,6 +253,7 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
         manager.add(fActionExplain);
         
         final IMenuManager menuManager = bars.getMenuManager();
+        menuManager.add(fActionLiveValidation);
         menuManager.add(fActionShowPreferences); 
     }
     
@@ -309,7 +335,15 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
             List<IDiagramModelComponent> viewComponentList = new ArrayList<IDiagramModelComponent>();
             
             for(Object o : selection.toArray()) {
-                if(o instanceof IIssue) {
+                // Select the objects of all the issues in a group
+                if(o instanceof IIssueGroup) {
+                    for(IIssue issue : ((IIssueGroup)o).getIssues()) {
+                        if(issue.getObject() instanceof IArchimateConcept) {
+                            treeList.add((IArchimateConcept)issue.getObject());
+                        }
+                    }
+                }
+                else if(o instanceof IIssue) {
                     IIssue issue = (IIssue)o;
                     if(issue.getObject() instanceof IArchimateConcept) {
                         treeList.add((IArchimateConcept)issue.getObject());
@@ -351,14 +385,41 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
             @Override
             public void run() {
                 updateStatusBar();
-                Validator validator = new Validator(fModel);
-                List<Object> result = validator.validate();
+                fIncrementalValidator = new IncrementalValidator(fModel);
+                List<Object> result = fIncrementalValidator.validate();
                 fViewer.setInput(result);
                 fViewer.expandAll();
             }
         });
     }
     
+    /**
+     * Re-check the changed objects of the validated model once the current changes have been made
+     */
+    private void scheduleRevalidate() {
+        if(fRevalidateScheduled) {
+            return;
+        }
+        
+        fRevalidateScheduled = true;
+        
+        // Use the view's Display as this might not be called on the UI thread
+        getSite().getShell().getDisplay().asyncExec(() -> {
+            fRevalidateScheduled = false;
+            
+            if(fViewer.getControl().isDisposed() || fIncrementalValidator == null || !fIncrementalValidator.isDirty()) {
+                return;
+            }
+            
+            fViewer.setInput(fIncrementalValidator.revalidate());
+            fViewer.expandAll();
+        });
+    }
+    
+    private boolean isLiveValidation() {
+        return ArchiHammerPlugin.INSTANCE.getPreferenceStore().getBoolean(IPreferenceConstants.PREFS_HAMMER_LIVE_VALIDATION);
+    }
+    
     private void updateStatusBar() {
         if(fModel != null) {
             getViewSite().getActionBars().getStatusLineManager().setMessage(ArchiLabelProvider.INSTANCE.getImage(fModel),
@@ -427,6 +488,33 @@ implements IValidatorView, ISelectionListener, IContextProvider, ITabbedProperty
                 fViewer.setInput(null);
                 fActionValidate.setEnabled(false);
             }
+            if(fIncrementalValidator != null && fIncrementalValidator.getModel() == newValue) {
+                fIncrementalValidator = null;
+            }
+        }
+        
+        // Model changed so mark the changed objects as dirty and re-check them if live validation is on
+        else if(propertyName == IEditorModelManager.PROPERTY_ECORE_EVENT) {
+            // The model might be changed on another thread so handle the change on the UI thread
+            if(Display.getCurrent() == null) {
+                getSite().getShell().getDisplay().asyncExec(() -> {
+                    if(!fViewer.getControl().isDisposed()) {
+                        ecoreChanged((Notification)newValue);
+                    }
+                });
+            }
+            else {
+                ecoreChanged((Notification)newValue);
+            }
+        }
+    }
+    
+    private void ecoreChanged(Notification msg) {
+        if(fIncrementalValidator != null) {
+            fIncrementalValidator.notifyChanged(msg);
+            if(isLiveValidation()) {
+                scheduleRevalidate();
+            }
         }
     }
 
@@ -26,6 +26,7 @@ import org.eclipse.swt.widgets.TreeColumn;
 import com.archimatetool.editor.ui.ArchiLabelProvider;
 import com.archimatetool.hammer.validation.issues.IIssue;
 import com.archimatetool.hammer.validation.issues.IIssueCategory;
+import com.archimatetool.hammer.validation.issues.IIssueGroup;
 
 
 
@@ -143,6 +144,10 @@ public class ValidatorViewer extends TreeViewer {
                 return ((IIssueCategory)parentElement).getIssues().toArray();
             }
             
+            if(parentElement instanceof IIssueGroup) {
+                return ((IIssueGroup)parentElement).getIssues().toArray();
+            }
+            
             if(parentElement instanceof List<?>) {
                 return ((List<?>)parentElement).toArray();
             }
@@ -18,6 +18,7 @@ import org.eclipse.osgi.util.NLS;
 import com.archimatetool.commandline.AbstractCommandLineProvider;
 import com.archimatetool.commandline.CommandLineState;
 import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.jasperreports.CompiledReportCache;
 import com.archimatetool.jasperreports.JasperReportsExporter;
 import com.archimatetool.jasperreports.JasperReportsPlugin;
 import com.archimatetool.model.IArchimateModel;
@@ -133,6 +134,9 @@ public class JasperReportsProvider extends AbstractCommandLineProvider {
         
         JasperReportsExporter exporter = new JasperReportsExporter(model, folderOutput, filename, templateFile, title, locale, exportOptions);
         
+        // Compiled templates are cached so only those that have changed are compiled
+        int compiledCount = CompiledReportCache.getDefault().getCompiledCount();
+        
         exporter.export(new NullProgressMonitor() {
             @Override
             public void subTask(String name) {
@@ -140,6 +144,8 @@ public class JasperReportsProvider extends AbstractCommandLineProvider {
             }
         });
         
+        logMessage(NLS.bind(Messages.JasperReportsProvider_20, CompiledReportCache.getDefault().getCompiledCount() - compiledCount));
+        
         logMessage(Messages.JasperReportsProvider_8);
     }
     
@@ -0,0 +1,226 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.jasperreports;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Platform;
+import org.osgi.framework.Bundle;
+
+import com.archimatetool.editor.ArchiPlugin;
+import com.archimatetool.editor.utils.DigestUtils;
+
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+
+
+/**
+ * Cache of compiled Jasper Reports
+ *
+ * Compiling a jrxml file takes longer than filling it so compiled reports are kept in memory and saved as
+ * ".jasper" files in a cache folder. A compiled report is keyed by a digest of the jrxml file's content, the
+ * Jasper Reports serialization version and the versions of the Jasper Reports and Archi plug-ins so that a report
+ * is only compiled again if its jrxml file has changed or Archi has been updated.
+ * Styles and sub-reports are resolved when the report is filled and so are not part of a compiled report.
+ *
+ * The most recently used reports are kept in memory and in the cache folder, up to a maximum number.
+ *
+ * @author Phillip Beauvoir
+ */
+public class CompiledReportCache {
+
+    /**
+     * Maximum number of compiled reports kept in memory
+     */
+    static final int MAX_MEMORY_REPORTS = 20;
+
+    /**
+     * Maximum number of compiled reports kept in a cache folder
+     */
+    static final int MAX_CACHE_FILES = 50;
+
+    /**
+     * Compiled reports in memory, shared by all caches, keyed by digest, least recently used first
+     */
+    @SuppressWarnings("serial")
+    private static final Map<String, JasperReport> MEMORY_CACHE = Collections.synchronizedMap(new LinkedHashMap<String, JasperReport>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JasperReport> eldest) {
+            return size() > MAX_MEMORY_REPORTS;
+        }
+    });
+
+    /**
+     * The versions that a compiled report depends on
+     */
+    private static final String VERSIONS = JRConstants.SERIAL_VERSION_UID
+            + "|" + getBundleVersion(JasperReportsPlugin.PLUGIN_ID) //$NON-NLS-1$
+            + "|" + getBundleVersion(ArchiPlugin.PLUGIN_ID); //$NON-NLS-1$
+
+    private static CompiledReportCache defaultCache;
+
+    private File fCacheFolder;
+
+    private int fCompiledCount;
+
+    /**
+     * @return The default cache that saves compiled reports in this plug-in's state location,
+     *         or in memory only if there is no state location
+     */
+    public static synchronized CompiledReportCache getDefault() {
+        if(defaultCache == null) {
+            File folder = null;
+
+            try {
+                folder = JasperReportsPlugin.INSTANCE.getStateLocation().append("compiled").toFile(); //$NON-NLS-1$
+            }
+            catch(IllegalStateException ex) {
+                // No instance location so just use memory
+            }
+
+            defaultCache = new CompiledReportCache(folder);
+        }
+
+        return defaultCache;
+    }
+
+    /**
+     * @param cacheFolder The folder to save compiled reports in. If null compiled reports are only kept in memory
+     */
+    public CompiledReportCache(File cacheFolder) {
+        fCacheFolder = cacheFolder;
+    }
+
+    /**
+     * @return The folder that compiled reports are saved in, or null
+     */
+    public File getCacheFolder() {
+        return fCacheFolder;
+    }
+
+    /**
+     * Get the compiled report for a jrxml file, compiling it only if it is not in memory or in the cache folder
+     * @param jrxmlFile The jrxml file
+     * @return The compiled report
+     * @throws IOException
+     * @throws JRException
+     */
+    public JasperReport getReport(File jrxmlFile) throws IOException, JRException {
+        byte[] bytes = Files.readAllBytes(jrxmlFile.toPath());
+        String digest = getDigest(bytes);
+
+        // In memory
+        JasperReport report = MEMORY_CACHE.get(digest);
+        if(report != null) {
+            return report;
+        }
+
+        // In cache folder
+        File jasperFile = fCacheFolder == null ? null : new File(fCacheFolder, digest + ".jasper"); //$NON-NLS-1$
+        if(jasperFile != null && jasperFile.exists()) {
+            try {
+                report = (JasperReport)JRLoader.loadObject(jasperFile);
+                // Mark it as recently used
+                jasperFile.setLastModified(System.currentTimeMillis());
+            }
+            catch(JRException | ClassCastException ex) {
+                // Corrupt or unreadable so compile it again
+                jasperFile.delete();
+            }
+        }
+
+        // Compile it
+        if(report == null) {
+            report = JasperCompileManager.compileReport(jrxmlFile.getPath());
+            synchronized(this) {
+                fCompiledCount++;
+            }
+
+            if(jasperFile != null) {
+                saveReport(report, jasperFile);
+                pruneCacheFolder(MAX_CACHE_FILES);
+            }
+        }
+
+        MEMORY_CACHE.put(digest, report);
+
+        return report;
+    }
+
+    /**
+     * @return The number of reports that this cache has compiled
+     */
+    public synchronized int getCompiledCount() {
+        return fCompiledCount;
+    }
+
+    /**
+     * Clear compiled reports from memory
+     */
+    public static void clearMemory() {
+        MEMORY_CACHE.clear();
+    }
+
+    /**
+     * Save the compiled report to a temp file and then move it so that another process never reads part of a file
+     */
+    private void saveReport(JasperReport report, File jasperFile) throws IOException, JRException {
+        fCacheFolder.mkdirs();
+
+        File tmpFile = File.createTempFile("report", ".tmp", fCacheFolder); //$NON-NLS-1$ //$NON-NLS-2$
+
+        try {
+            JRSaver.saveObject(report, tmpFile);
+            if(!tmpFile.renameTo(jasperFile) && !jasperFile.exists()) {
+                throw new IOException("Could not save compiled report: " + jasperFile); //$NON-NLS-1$
+            }
+        }
+        finally {
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Delete the least recently used compiled reports in the cache folder so that there are no more than maxFiles
+     */
+    void pruneCacheFolder(int maxFiles) {
+        File[] files = fCacheFolder.listFiles((dir, name) -> name.endsWith(".jasper")); //$NON-NLS-1$
+        if(files == null || files.length <= maxFiles) {
+            return;
+        }
+
+        // Newest first
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+
+        for(int i = maxFiles; i < files.length; i++) {
+            files[i].delete();
+        }
+    }
+
+    /**
+     * @return A digest of the jrxml bytes, the Jasper Reports serialization version and the plug-in versions as a hex string
+     */
+    static String getDigest(byte[] bytes) {
+        return DigestUtils.getSHA256(VERSIONS.getBytes(StandardCharsets.UTF_8), bytes);
+    }
+
+    private static String getBundleVersion(String bundleId) {
+        Bundle bundle = Platform.getBundle(bundleId);
+        return bundle != null ? bundle.getVersion().toString() : ""; //$NON-NLS-1$
+    }
+}
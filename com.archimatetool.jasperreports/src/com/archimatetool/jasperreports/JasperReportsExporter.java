@@ -5,15 +5,31 @@
  */
 package com.archimatetool.jasperreports;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.StringJoiner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.osgi.util.NLS;
@@ -34,16 +50,20 @@ import com.archimatetool.model.IDiagramModel;
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
-import net.sf.jasperreports.engine.JasperCompileManager;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.FileHtmlResourceHandler;
+import net.sf.jasperreports.engine.export.HtmlExporter;
 import net.sf.jasperreports.engine.export.JRRtfExporter;
 import net.sf.jasperreports.engine.export.oasis.JROdtExporter;
 import net.sf.jasperreports.engine.export.ooxml.JRDocxExporter;
 import net.sf.jasperreports.engine.export.ooxml.JRPptxExporter;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
 import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
 import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
 import net.sf.jasperreports.export.SimpleWriterExporterOutput;
 
@@ -68,6 +88,106 @@ public class JasperReportsExporter {
     public static final int EXPORT_RTF = 1 << 4;
     public static final int EXPORT_ODT = 1 << 5;
     
+    private static final int EXPORT_ALL = EXPORT_HTML | EXPORT_PDF | EXPORT_DOCX | EXPORT_PPT | EXPORT_RTF | EXPORT_ODT;
+    
+    /**
+     * Maximum number of copies of the filled report in memory at the same time when exporting more than one format
+     */
+    static final int MAX_JASPER_PRINT_COPIES = 2;
+    
+    /**
+     * Maximum number of formats that are exported at the same time.
+     * Each one has its own copy of the filled report so this is no more than MAX_JASPER_PRINT_COPIES.
+     */
+    static final int THREADS = Math.min(MAX_JASPER_PRINT_COPIES, Runtime.getRuntime().availableProcessors());
+    
+    /**
+     * Provides the filled report to a format's exporter
+     */
+    interface JasperPrintSource {
+        JasperPrint get() throws JRException;
+    }
+    
+    /**
+     * Writes the filled report in one format to a stream
+     */
+    interface FormatWriter {
+        void write(JasperPrint jasperPrint, OutputStream out) throws JRException;
+    }
+    
+    /**
+     * Export of the filled report in one format to its own file.
+     * It can be cancelled while it is being written as the stream is checked for cancellation on each write.
+     */
+    static class FormatExport implements Callable<FormatExport> {
+        final String name;
+        final File file;
+        final JasperPrintSource source;
+        final FormatWriter writer;
+        
+        Future<FormatExport> future;
+        volatile boolean cancelled;
+        volatile long time;
+        
+        FormatExport(String name, File file, JasperPrintSource source, FormatWriter writer) {
+            this.name = name;
+            this.file = file;
+            this.source = source;
+            this.writer = writer;
+        }
+        
+        @Override
+        public FormatExport call() throws Exception {
+            long start = System.currentTimeMillis();
+            
+            try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file)) {
+                @Override
+                public synchronized void write(int b) throws IOException {
+                    checkCancelled();
+                    super.write(b);
+                }
+                
+                @Override
+                public synchronized void write(byte[] b, int off, int len) throws IOException {
+                    checkCancelled();
+                    super.write(b, off, len);
+                }
+            }) {
+                writer.write(source.get(), out);
+            }
+            catch(Exception ex) {
+                // Don't leave a partly written file
+                file.delete();
+                
+                if(cancelled) {
+                    throw new CancelledException(Messages.JasperReportsExporter_12);
+                }
+                
+                throw ex;
+            }
+            
+            time = System.currentTimeMillis() - start;
+            
+            return this;
+        }
+        
+        /**
+         * Cancel this export if it has not finished
+         */
+        void cancel() {
+            cancelled = true;
+            if(future != null) {
+                future.cancel(true);
+            }
+        }
+        
+        private void checkCancelled() throws IOException {
+            if(cancelled) {
+                throw new CancelledException(Messages.JasperReportsExporter_12);
+            }
+        }
+    }
+    
     private boolean DELETE_TEMP_FILES = true;
     
     private IArchimateModel fModel;
@@ -125,37 +245,10 @@ public class JasperReportsExporter {
         try {
             writeDiagrams(tmpFolder);
             
+            // Fill once and export to each format concurrently
             JasperPrint jasperPrint = createJasperPrint(tmpFolder);
             
-            if((fExportOptions & EXPORT_HTML) != 0) {
-                setProgressSubTask(Messages.JasperReportsExporter_3);
-                exportHTML(jasperPrint, new File(fExportFolder, fExportFileName + ".html")); //$NON-NLS-1$
-            }
-
-            if((fExportOptions & EXPORT_PDF) != 0) {
-                setProgressSubTask(Messages.JasperReportsExporter_4);
-                exportPDF(jasperPrint, new File(fExportFolder, fExportFileName + ".pdf")); //$NON-NLS-1$
-            }
-
-            if((fExportOptions & EXPORT_DOCX) != 0) {
-                setProgressSubTask(Messages.JasperReportsExporter_5);
-                exportDOCX(jasperPrint, new File(fExportFolder, fExportFileName + ".docx")); //$NON-NLS-1$
-            }
-            
-            if((fExportOptions & EXPORT_PPT) != 0) {
-                setProgressSubTask(Messages.JasperReportsExporter_6);
-                exportPPT(jasperPrint, new File(fExportFolder, fExportFileName + ".pptx")); //$NON-NLS-1$
-            }
-            
-            if((fExportOptions & EXPORT_RTF) != 0) {
-                setProgressSubTask(Messages.JasperReportsExporter_7);
-                exportRTF(jasperPrint, new File(fExportFolder, fExportFileName + ".rtf")); //$NON-NLS-1$
-            }
-            
-            if((fExportOptions & EXPORT_ODT) != 0) {
-                setProgressSubTask(Messages.JasperReportsExporter_8);
-                exportODT(jasperPrint, new File(fExportFolder, fExportFileName + ".odt")); //$NON-NLS-1$
-            }
+            exportFormats(jasperPrint, fExportOptions);
         }
         finally {
             if(DELETE_TEMP_FILES) {
@@ -231,16 +324,18 @@ public class JasperReportsExporter {
             params.put("MODEL_DIRECTORY", fModel.getFile().getParent() + File.separator); //$NON-NLS-1$
         }
 
-        // Compile Main Report
+        // Compile Main Report, or get it from the cache if unchanged
         setProgressSubTask(Messages.JasperReportsExporter_10);
         
-        JasperReport mainReport = JasperCompileManager.compileReport(fMainTemplateFile.getPath());
+        CompiledReportCache cache = CompiledReportCache.getDefault();
         
-        // Compile sub-reports
+        JasperReport mainReport = cache.getReport(fMainTemplateFile);
+        
+        // Compile sub-reports, or get them from the cache if unchanged
         for(File file : reportFolder.listFiles()) {
             if(!file.equals(fMainTemplateFile) && file.getName().endsWith(".jrxml")) { //$NON-NLS-1$
                 //System.out.println("Compiling Sub-Report: " + file);
-                JasperReport jr = JasperCompileManager.compileReport(file.getPath());
+                JasperReport jr = cache.getReport(file);
                 params.put(jr.getName(), jr);
             }
         }
@@ -251,39 +346,232 @@ public class JasperReportsExporter {
         return JasperFillManager.fillReport(mainReport, params, new ArchimateModelDataSource(fModel));
     }
     
-    void exportHTML(JasperPrint jasperPrint, File file) throws JRException {
-        JasperExportManager.exportReportToHtmlFile(jasperPrint, file.getPath());
+    /**
+     * Export the filled report to each of the selected formats concurrently.
+     * Each format is written to its own stream from its own copy of the filled report on a thread in a pool of at most THREADS threads.
+     * The progress monitor shows when each format is finished and how long it took, and if cancelled
+     * the formats that have not finished are cancelled and their partly written files deleted.
+     * @param jasperPrint The filled report
+     * @param exportOptions XOR of EXPORT_* options
+     */
+    void exportFormats(JasperPrint jasperPrint, int exportOptions) throws IOException, JRException {
+        List<FormatExport> exports = createFormatExports(jasperPrint, exportOptions);
+        if(exports.isEmpty()) {
+            return;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS, exports.size()));
+        CompletionService<FormatExport> completionService = new ExecutorCompletionService<>(executor);
+        
+        try {
+            StringJoiner names = new StringJoiner(", "); //$NON-NLS-1$
+            for(FormatExport export : exports) {
+                export.future = completionService.submit(export);
+                names.add(export.name);
+            }
+            
+            setProgressSubTask(NLS.bind(Messages.JasperReportsExporter_13, names));
+            
+            for(int remaining = exports.size(); remaining > 0;) {
+                Future<FormatExport> future = completionService.poll(100, TimeUnit.MILLISECONDS);
+                
+                if(future == null) {
+                    updateProgress();
+                }
+                else {
+                    remaining--;
+                    FormatExport export = getFormatExport(future);
+                    setProgressSubTask(NLS.bind(Messages.JasperReportsExporter_14, export.name, export.time));
+                }
+            }
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch(CancelledException ex) {
+            for(FormatExport export : exports) {
+                if(!export.future.isDone()) {
+                    export.cancel();
+                    if(progressMonitor != null) {
+                        progressMonitor.subTask(NLS.bind(Messages.JasperReportsExporter_15, export.name));
+                    }
+                }
+            }
+            throw ex;
+        }
+        finally {
+            // Stop any formats still being written if cancelled or failed
+            for(FormatExport export : exports) {
+                export.cancel();
+            }
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * @return The FormatExports for the selected formats
+     */
+    List<FormatExport> createFormatExports(JasperPrint jasperPrint, int exportOptions) throws JRException {
+        List<FormatExport> exports = new ArrayList<>();
+        
+        JasperPrintSource source = createJasperPrintSource(jasperPrint, exportOptions);
+        
+        if((exportOptions & EXPORT_HTML) != 0) {
+            File file = new File(fExportFolder, fExportFileName + ".html"); //$NON-NLS-1$
+            exports.add(new FormatExport("HTML", file, source, (print, out) -> exportHTML(print, file, out))); //$NON-NLS-1$
+        }
+
+        if((exportOptions & EXPORT_PDF) != 0) {
+            File file = new File(fExportFolder, fExportFileName + ".pdf"); //$NON-NLS-1$
+            exports.add(new FormatExport("PDF", file, source, this::exportPDF)); //$NON-NLS-1$
+        }
+
+        if((exportOptions & EXPORT_DOCX) != 0) {
+            File file = new File(fExportFolder, fExportFileName + ".docx"); //$NON-NLS-1$
+            exports.add(new FormatExport("DOCX", file, source, this::exportDOCX)); //$NON-NLS-1$
+        }
+        
+        if((exportOptions & EXPORT_PPT) != 0) {
+            File file = new File(fExportFolder, fExportFileName + ".pptx"); //$NON-NLS-1$
+            exports.add(new FormatExport("PPTX", file, source, this::exportPPT)); //$NON-NLS-1$
+        }
+        
+        if((exportOptions & EXPORT_RTF) != 0) {
+            File file = new File(fExportFolder, fExportFileName + ".rtf"); //$NON-NLS-1$
+            exports.add(new FormatExport("RTF", file, source, this::exportRTF)); //$NON-NLS-1$
+        }
+        
+        if((exportOptions & EXPORT_ODT) != 0) {
+            File file = new File(fExportFolder, fExportFileName + ".odt"); //$NON-NLS-1$
+            exports.add(new FormatExport("ODT", file, source, this::exportODT)); //$NON-NLS-1$
+        }
+        
+        return exports;
+    }
+    
+    /**
+     * The exporters are not guaranteed to be safe to use at the same time on one JasperPrint, so if more than one format
+     * is exported the filled report is serialized once and each format gets its own copy of it.
+     * This trades memory for safety: while exporting, memory holds the filled report, its serialized bytes and one copy
+     * for each format being exported. The thread pool is no larger than MAX_JASPER_PRINT_COPIES so that the number of
+     * copies is bounded however many formats are selected. Each copy can be garbage collected once its format is written.
+     * @return The source of the filled report for each format
+     */
+    JasperPrintSource createJasperPrintSource(JasperPrint jasperPrint, int exportOptions) throws JRException {
+        if(Integer.bitCount(exportOptions & EXPORT_ALL) < 2) {
+            return () -> jasperPrint;
+        }
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JRSaver.saveObject(jasperPrint, out);
+        byte[] bytes = out.toByteArray();
+        
+        return () -> (JasperPrint)JRLoader.loadObject(new ByteArrayInputStream(bytes));
+    }
+    
+    /**
+     * @return The finished FormatExport
+     * @throws IOException or JRException if the export failed
+     */
+    private FormatExport getFormatExport(Future<FormatExport> future) throws IOException, JRException, InterruptedException {
+        try {
+            return future.get();
+        }
+        catch(ExecutionException ex) {
+            if(ex.getCause() instanceof IOException) {
+                throw (IOException)ex.getCause();
+            }
+            if(ex.getCause() instanceof JRException) {
+                throw (JRException)ex.getCause();
+            }
+            if(ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+    }
+    
+    void exportHTML(JasperPrint jasperPrint, File file) throws JRException, IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            exportHTML(jasperPrint, file, out);
+        }
+    }
+    
+    void exportHTML(JasperPrint jasperPrint, File file, OutputStream out) throws JRException {
+        // Images and other resources are written to the "file_files" folder as for JasperExportManager.exportReportToHtmlFile()
+        File resourcesFolder = new File(file.getParentFile(), file.getName() + "_files"); //$NON-NLS-1$
+        FileHtmlResourceHandler resourceHandler = new FileHtmlResourceHandler(resourcesFolder, resourcesFolder.getName() + "/{0}"); //$NON-NLS-1$
+        
+        SimpleHtmlExporterOutput output = new SimpleHtmlExporterOutput(out, "UTF-8"); //$NON-NLS-1$
+        output.setImageHandler(resourceHandler);
+        output.setResourceHandler(resourceHandler);
+        
+        HtmlExporter exporter = new HtmlExporter();
+        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+        exporter.setExporterOutput(output);
+        exporter.exportReport();
     }
 
-    void exportPDF(JasperPrint jasperPrint, File file) throws JRException {
-        JasperExportManager.exportReportToPdfFile(jasperPrint, file.getPath());
+    void exportPDF(JasperPrint jasperPrint, File file) throws JRException, IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            exportPDF(jasperPrint, out);
+        }
+    }
+    
+    void exportPDF(JasperPrint jasperPrint, OutputStream out) throws JRException {
+        JasperExportManager.exportReportToPdfStream(jasperPrint, out);
+    }
+    
+    void exportDOCX(JasperPrint jasperPrint, File file) throws JRException, IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            exportDOCX(jasperPrint, out);
+        }
     }
     
-    void exportDOCX(JasperPrint jasperPrint, File file) throws JRException {
+    void exportDOCX(JasperPrint jasperPrint, OutputStream out) throws JRException {
         JRDocxExporter exporter = new JRDocxExporter();
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(file));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
         exporter.exportReport();
     }
 
-    void exportPPT(JasperPrint jasperPrint, File file) throws JRException {
+    void exportPPT(JasperPrint jasperPrint, File file) throws JRException, IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            exportPPT(jasperPrint, out);
+        }
+    }
+    
+    void exportPPT(JasperPrint jasperPrint, OutputStream out) throws JRException {
         JRPptxExporter exporter = new JRPptxExporter();
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(file));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
         exporter.exportReport();
     }
 
-    void exportODT(JasperPrint jasperPrint, File file) throws JRException {
+    void exportODT(JasperPrint jasperPrint, File file) throws JRException, IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            exportODT(jasperPrint, out);
+        }
+    }
+    
+    void exportODT(JasperPrint jasperPrint, OutputStream out) throws JRException {
         JROdtExporter exporter = new JROdtExporter();
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(file));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
         exporter.exportReport();
     }
     
-    void exportRTF(JasperPrint jasperPrint, File file) throws JRException {
+    void exportRTF(JasperPrint jasperPrint, File file) throws JRException, IOException {
+        try(OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            exportRTF(jasperPrint, out);
+        }
+    }
+    
+    void exportRTF(JasperPrint jasperPrint, OutputStream out) throws JRException {
         JRRtfExporter exporter = new JRRtfExporter();
         exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-        exporter.setExporterOutput(new SimpleWriterExporterOutput(file));
+        exporter.setExporterOutput(new SimpleWriterExporterOutput(out));
         exporter.exportReport();
     }
 
@@ -85,19 +85,13 @@ public class Messages extends NLS {
 
     public static String JasperReportsExporter_12;
 
-    public static String JasperReportsExporter_2;
-
-    public static String JasperReportsExporter_3;
-
-    public static String JasperReportsExporter_4;
+    public static String JasperReportsExporter_13;
 
-    public static String JasperReportsExporter_5;
+    public static String JasperReportsExporter_14;
 
-    public static String JasperReportsExporter_6;
+    public static String JasperReportsExporter_15;
 
-    public static String JasperReportsExporter_7;
-
-    public static String JasperReportsExporter_8;
+    public static String JasperReportsExporter_2;
 
     public static String JasperReportsExporter_9;
     static {
@@ -0,0 +1,217 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.jdom;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.Text;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.Attributes2;
+import org.xml.sax.helpers.DefaultHandler;
+
+
+/**
+ * Reads an XML file a part at a time with SAX, so that a large file does not have to be built as a JDOM Document in memory.
+ *
+ * Each element is passed to a handler when it starts, with its attributes but no content yet. The handler chooses whether
+ * the element is built with all of its content, or whether its child elements are passed to the handler in turn.
+ * Elements are added to their parent element so that a handler can look at an element's ancestors,
+ * and a handler should detach an element when it has finished with it. Comments and processing instructions are not kept.
+ *
+ * @author Phillip Beauvoir
+ */
+public class JDOMStreamReader {
+
+    /**
+     * Handler of the elements that are read
+     */
+    public interface IElementHandler {
+        /**
+         * An element has started. It has its attributes and has been added to its parent element, but has no content yet.
+         * @param element The element
+         * @return true to build the element with all of its content, or false to pass its child elements to this handler
+         */
+        boolean startElement(Element element) throws SAXException;
+
+        /**
+         * An element has ended. If it was built it has all of its content.
+         * @param element The element
+         */
+        void endElement(Element element) throws SAXException;
+    }
+
+    private IElementHandler fHandler;
+
+    public JDOMStreamReader(IElementHandler handler) {
+        fHandler = handler;
+    }
+
+    /**
+     * Read a file
+     */
+    public void read(File file) throws IOException, SAXException {
+        read(file, null);
+    }
+
+    /**
+     * Read a file
+     * @param validatorHandler If not null the file is validated by this as it is read
+     */
+    public void read(File file, ValidatorHandler validatorHandler) throws IOException, SAXException {
+        XMLReader reader = createXMLReader();
+
+        ContentHandler contentHandler = new Builder();
+        if(validatorHandler != null) {
+            validatorHandler.setContentHandler(contentHandler);
+            contentHandler = validatorHandler;
+        }
+        reader.setContentHandler(contentHandler);
+
+        // This allows UNC mapped locations to load
+        try(InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            reader.parse(new InputSource(in));
+        }
+    }
+
+    private XMLReader createXMLReader() throws SAXException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+
+        try {
+            // Don't allow DTD loading in case of XSS exploits
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true); //$NON-NLS-1$
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false); //$NON-NLS-1$
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false); //$NON-NLS-1$
+
+            return factory.newSAXParser().getXMLReader();
+        }
+        catch(ParserConfigurationException ex) {
+            throw new SAXException(ex);
+        }
+    }
+
+    /**
+     * Builds the elements from the SAX events
+     */
+    private class Builder extends DefaultHandler {
+        // Started elements
+        private List<Element> elements = new ArrayList<Element>();
+
+        // Depth in the element that is being built with all of its content, or 0
+        private int buildDepth;
+
+        private StringBuilder text = new StringBuilder();
+
+        // Namespaces declared for the next element
+        private List<Namespace> declaredNamespaces = new ArrayList<Namespace>();
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            declaredNamespaces.add(Namespace.getNamespace(prefix, uri));
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            addText();
+
+            Element element = new Element(localName, getPrefix(qName), uri);
+
+            // As JDOM's SAXHandler, keep the namespace declarations
+            for(Namespace namespace : declaredNamespaces) {
+                if(namespace != element.getNamespace()) {
+                    element.addNamespaceDeclaration(namespace);
+                }
+            }
+            declaredNamespaces.clear();
+
+            for(int i = 0; i < attributes.getLength(); i++) {
+                // Not a default value added by a ValidatorHandler, so that elements are the same whether validated or not
+                if(attributes instanceof Attributes2 && !((Attributes2)attributes).isSpecified(i)) {
+                    continue;
+                }
+                
+                String attributeURI = attributes.getURI(i);
+                if(attributeURI.length() == 0) {
+                    element.setAttribute(attributes.getLocalName(i), attributes.getValue(i));
+                }
+                else {
+                    element.setAttribute(attributes.getLocalName(i), attributes.getValue(i),
+                            Namespace.getNamespace(getPrefix(attributes.getQName(i)), attributeURI));
+                }
+            }
+
+            if(!elements.isEmpty()) {
+                elements.get(elements.size() - 1).addContent(element);
+            }
+            elements.add(element);
+
+            if(buildDepth > 0) {
+                buildDepth++;
+            }
+            else if(fHandler.startElement(element)) {
+                buildDepth = 1;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            addText();
+
+            Element element = elements.remove(elements.size() - 1);
+
+            // In an element that is being built
+            if(buildDepth > 1) {
+                buildDepth--;
+                return;
+            }
+
+            buildDepth = 0;
+            fHandler.endElement(element);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            // Text is only kept in elements that are being built
+            if(buildDepth > 0) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            // As JDOM's SAXHandler, which is how a validating ValidatorHandler passes on whitespace between elements
+            characters(ch, start, length);
+        }
+
+        private void addText() {
+            if(text.length() > 0) {
+                elements.get(elements.size() - 1).addContent(new Text(text.toString()));
+                text.setLength(0);
+            }
+        }
+
+        private String getPrefix(String qName) {
+            int index = qName.indexOf(':');
+            return index == -1 ? "" : qName.substring(0, index); //$NON-NLS-1$
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.jdom;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Attribute;
+import org.jdom2.Content;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.output.Format;
+import org.jdom2.output.support.AbstractXMLOutputProcessor;
+import org.jdom2.output.support.FormatStack;
+import org.jdom2.util.NamespaceStack;
+
+
+/**
+ * Writes an XML Document to a stream a part at a time in the same format as {@link JDOMUtils#write2XMLFile(org.jdom2.Document, File)},
+ * so that a large Document does not have to be built in memory before it is written.
+ *
+ * Elements are started and ended in document order. The elements that are added to the last started element are written
+ * and removed from it when another element is started or ended or when flush() is called.
+ * An element's start tag is not written until something is written in it, so an element that stays empty can be left out.
+ * The document is only complete when endDocument() is called. Closing the writer without calling it, for example
+ * because writing failed, leaves the output incomplete rather than ending the started elements.
+ *
+ * @author Phillip Beauvoir
+ */
+public class JDOMStreamWriter implements Closeable {
+
+    /**
+     * A started element
+     */
+    private static class Frame {
+        final Element element;
+        final boolean omitIfEmpty;
+        boolean isOpen; // Start tag has been written
+
+        Frame(Element element, boolean omitIfEmpty) {
+            this.element = element;
+            this.omitIfEmpty = omitIfEmpty;
+        }
+    }
+
+    /**
+     * Gives access to JDOM's own printing so that the output is the same as XMLOutputter's
+     */
+    private static class Processor extends AbstractXMLOutputProcessor {
+        void writeStartTag(Writer out, FormatStack fstack, NamespaceStack nstack, Element element) throws IOException {
+            nstack.push(element);
+
+            write(out, "<"); //$NON-NLS-1$
+            write(out, element.getQualifiedName());
+
+            for(Namespace ns : nstack.addedForward()) {
+                printNamespace(out, fstack, ns);
+            }
+
+            if(element.hasAttributes()) {
+                for(Attribute attribute : element.getAttributes()) {
+                    printAttribute(out, fstack, attribute);
+                }
+            }
+
+            write(out, ">"); //$NON-NLS-1$
+        }
+
+        void writeEndTag(Writer out, Element element) throws IOException {
+            write(out, "</"); //$NON-NLS-1$
+            write(out, element.getQualifiedName());
+            write(out, ">"); //$NON-NLS-1$
+        }
+
+        void writeElement(Writer out, FormatStack fstack, NamespaceStack nstack, Element element) throws IOException {
+            printElement(out, fstack, nstack, element);
+        }
+
+        void writeRaw(Writer out, String text) throws IOException {
+            if(text != null) {
+                write(out, text);
+            }
+        }
+    }
+
+    private Writer out;
+    private Processor processor = new Processor();
+    private FormatStack fstack;
+    private NamespaceStack nstack = new NamespaceStack();
+    private List<Frame> frames = new ArrayList<Frame>();
+    private boolean hasRootElement;
+
+    /**
+     * Create a writer to a file, creating the file's parent folder if it doesn't exist
+     */
+    public JDOMStreamWriter(File file) throws IOException {
+        this(createOutputStream(file));
+    }
+
+    /**
+     * Create a writer to an output stream, which is closed when this writer is closed
+     */
+    public JDOMStreamWriter(OutputStream outputStream) throws IOException {
+        Format format = Format.getPrettyFormat();
+
+        // As XMLOutputter
+        out = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(outputStream), format.getEncoding()));
+        fstack = new FormatStack(format);
+
+        // Declaration
+        processor.writeRaw(out, "<?xml version=\"1.0\" encoding=\"" + fstack.getEncoding() + "\"?>"); //$NON-NLS-1$ //$NON-NLS-2$
+        processor.writeRaw(out, fstack.getLineSeparator());
+    }
+
+    private static OutputStream createOutputStream(File file) throws IOException {
+        // Create parent folder if it doesn't exist
+        File parent = file.getParentFile();
+        if(parent != null) {
+            parent.mkdirs();
+        }
+
+        return new FileOutputStream(file);
+    }
+
+    /**
+     * Start an element as the root element or in the last started element.
+     * Elements added to it are written when another element is started or ended or when flush() is called.
+     * @param element The element, which must not have a parent
+     */
+    public void startElement(Element element) throws IOException {
+        startElement(element, false);
+    }
+
+    /**
+     * Start an element as the root element or in the last started element.
+     * Elements added to it are written when another element is started or ended or when flush() is called.
+     * @param element The element, which must not have a parent
+     * @param omitIfEmpty If true nothing is written for the element if it is empty when it is ended
+     */
+    public void startElement(Element element, boolean omitIfEmpty) throws IOException {
+        if(frames.isEmpty() && hasRootElement) {
+            throw new IllegalStateException("Root element has already been written"); //$NON-NLS-1$
+        }
+
+        // Elements added before this one come first
+        flush();
+
+        frames.add(new Frame(element, omitIfEmpty));
+        hasRootElement = true;
+    }
+
+    /**
+     * Write the elements that have been added to the last started element and remove them from it
+     */
+    public void flush() throws IOException {
+        if(frames.isEmpty()) {
+            return;
+        }
+
+        Frame frame = frames.get(frames.size() - 1);
+        if(frame.element.getContentSize() == 0) {
+            return;
+        }
+
+        open(frames.size() - 1);
+
+        for(Content content : frame.element.getContent()) {
+            if(!(content instanceof Element)) {
+                throw new IllegalStateException("Only elements can be written before an element is ended"); //$NON-NLS-1$
+            }
+
+            processor.writeRaw(out, fstack.getPadBetween());
+            processor.writeElement(out, fstack, nstack, (Element)content);
+        }
+
+        frame.element.removeContent();
+    }
+
+    /**
+     * End the last started element, writing the elements that have been added to it
+     */
+    public void endElement() throws IOException {
+        if(frames.isEmpty()) {
+            throw new IllegalStateException("No element has been started"); //$NON-NLS-1$
+        }
+
+        int index = frames.size() - 1;
+        Frame frame = frames.get(index);
+
+        if(frame.isOpen) {
+            flush();
+
+            processor.writeRaw(out, fstack.getPadLast());
+            processor.writeEndTag(out, frame.element);
+            fstack.pop();
+            nstack.pop();
+        }
+        // Nothing has been written yet so write the whole element
+        else if(!(frame.omitIfEmpty && frame.element.getContentSize() == 0)) {
+            if(index > 0) {
+                open(index - 1);
+                processor.writeRaw(out, fstack.getPadBetween());
+            }
+
+            processor.writeElement(out, fstack, nstack, frame.element);
+            frame.element.removeContent();
+        }
+
+        frames.remove(index);
+    }
+
+    /**
+     * Write the start tags of a started element and the elements it is in if they have not been written
+     */
+    private void open(int index) throws IOException {
+        Frame frame = frames.get(index);
+        if(frame.isOpen) {
+            return;
+        }
+
+        if(index > 0) {
+            open(index - 1);
+            processor.writeRaw(out, fstack.getPadBetween());
+        }
+
+        processor.writeStartTag(out, fstack, nstack, frame.element);
+        fstack.push();
+        frame.isOpen = true;
+    }
+
+    /**
+     * End any started elements to complete the document
+     */
+    public void endDocument() throws IOException {
+        while(!frames.isEmpty()) {
+            endElement();
+        }
+
+        // As XMLOutputter
+        if(hasRootElement) {
+            processor.writeRaw(out, fstack.getLineSeparator());
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Close the output. Started elements are not ended, so call endDocument() first to complete the document.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.impl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.UniqueEList;
+
+import com.archimatetool.model.IArchimateRelationship;
+
+/**
+ * List of the source or target relationships of a concept.
+ * 
+ * When the list grows beyond a few relationships it also keeps a set of them so that contains(),
+ * and so adding a relationship to this unique list, doesn't have to look through every relationship
+ * of a concept with many relationships.
+ * 
+ * @author Phillip Beauvoir
+ */
+@SuppressWarnings("serial")
+class RelationshipsEList extends UniqueEList<IArchimateRelationship> {
+    
+    /**
+     * Size above which the set of relationships is kept
+     */
+    static final int SET_THRESHOLD = 16;
+    
+    private Set<Object> set;
+    
+    @Override
+    public boolean contains(Object object) {
+        return set != null ? set.contains(object) : super.contains(object);
+    }
+    
+    @Override
+    protected void didAdd(int index, IArchimateRelationship newObject) {
+        if(set != null) {
+            set.add(newObject);
+        }
+        else if(size > SET_THRESHOLD) {
+            set = new HashSet<>(this);
+        }
+    }
+    
+    @Override
+    protected void didSet(int index, IArchimateRelationship newObject, IArchimateRelationship oldObject) {
+        if(set != null) {
+            set.remove(oldObject);
+            set.add(newObject);
+        }
+    }
+    
+    @Override
+    protected void didRemove(int index, IArchimateRelationship oldObject) {
+        if(set != null) {
+            set.remove(oldObject);
+        }
+    }
+    
+    @Override
+    protected void didClear(int oldSize, Object[] oldData) {
+        set = null;
+    }
+    
+    /**
+     * @return true if the set of relationships is being kept
+     */
+    boolean hasSet() {
+        return set != null;
+    }
+}
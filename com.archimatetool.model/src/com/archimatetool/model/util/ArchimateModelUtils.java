@@ -7,10 +7,10 @@ package com.archimatetool.model.util;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
 
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
@@ -19,7 +19,6 @@ import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
-import com.archimatetool.model.IIdentifier;
 
 
 
@@ -83,15 +82,8 @@ public class ArchimateModelUtils {
      * @return All valid relationship types between sourceType and targetType
      */
     public static EClass[] getValidRelationships(EClass sourceType, EClass targetType) {
-        List<EClass> list = new ArrayList<EClass>();
-        
-        for(EClass eClass : getRelationsClasses()) {
-            if(isValidRelationship(sourceType, targetType, eClass)) {
-                list.add(eClass); 
-            }
-        }
-        
-        return list.toArray(new EClass[list.size()]);
+        // Copy the matrix's cached array so that it can't be changed
+        return RelationshipsMatrix.INSTANCE.getValidRelationships(sourceType, targetType).clone();
     }
     
     /**
@@ -103,13 +95,13 @@ public class ArchimateModelUtils {
      */
     public static boolean hasDirectRelationship(IArchimateConcept concept1, IArchimateConcept concept2) {
         if(concept1 instanceof IArchimateRelationship) {
-            if(getAllRelationshipsForConcept(concept2).contains(concept1)) {
+            if(isConnected(concept2, (IArchimateRelationship)concept1)) {
                 return true;
             }
         }
         
         if(concept2 instanceof IArchimateRelationship) {
-            if(getAllRelationshipsForConcept(concept1).contains(concept2)) {
+            if(isConnected(concept1, (IArchimateRelationship)concept2)) {
                 return true;
             }
         }
@@ -117,19 +109,158 @@ public class ArchimateModelUtils {
         return false;
     }
     
+    /**
+     * @return true if relationship is one of the source or target relationships of concept
+     */
+    private static boolean isConnected(IArchimateConcept concept, IArchimateRelationship relationship) {
+        return concept.getSourceRelationships().contains(relationship) || concept.getTargetRelationships().contains(relationship);
+    }
+    
     /**
      * @param concept The Archimate concept to get relationships for
-     * @return A list of all relationships that a concept has, both as target and as source
+     * @return A new list of all relationships that a concept has, both as target and as source
      */
     public static List<IArchimateRelationship> getAllRelationshipsForConcept(IArchimateConcept concept) {
-        Set<IArchimateRelationship> set = new HashSet<IArchimateRelationship>();
-        set.addAll(concept.getSourceRelationships());
-        set.addAll(concept.getTargetRelationships());
-        return new ArrayList<>(set);
+        List<IArchimateRelationship> list = new ArrayList<>(concept.getSourceRelationships().size() + concept.getTargetRelationships().size());
+        for(IArchimateRelationship relationship : getRelationships(concept)) {
+            list.add(relationship);
+        }
+        return list;
+    }
+    
+    /**
+     * Iterate over all of the relationships that a concept has, both as source and as target, without copying them.
+     * A relationship that has the concept as both its source and target is returned once.
+     * The concept's relationships must not change while iterating.
+     * @param concept The Archimate concept to get relationships for
+     * @return The relationships of the concept
+     */
+    public static Iterable<IArchimateRelationship> getRelationships(IArchimateConcept concept) {
+        return () -> new RelationshipsIterator(concept, null);
+    }
+    
+    /**
+     * Iterate over the relationships of a given type that a concept has, both as source and as target, without copying them.
+     * The concept's relationships must not change while iterating.
+     * @param concept The Archimate concept to get relationships for
+     * @param relationshipType The type of relationship, including sub-types
+     * @return The relationships of the concept of the given type
+     */
+    public static Iterable<IArchimateRelationship> getRelationships(IArchimateConcept concept, EClass relationshipType) {
+        return () -> new RelationshipsIterator(concept, relationship -> relationshipType.isInstance(relationship));
+    }
+    
+    /**
+     * Iterate over the relationships between two concepts in either direction, without copying them.
+     * Only the relationships of the concept that has fewer relationships are looked at.
+     * The concepts' relationships must not change while iterating.
+     * @param concept1 One concept
+     * @param concept2 The other concept
+     * @return The relationships that connect concept1 and concept2
+     */
+    public static Iterable<IArchimateRelationship> getRelationshipsBetween(IArchimateConcept concept1, IArchimateConcept concept2) {
+        return () -> {
+            IArchimateConcept concept = getRelationshipsCount(concept1) <= getRelationshipsCount(concept2) ? concept1 : concept2;
+            IArchimateConcept other = concept == concept1 ? concept2 : concept1;
+            return new RelationshipsIterator(concept, relationship -> relationship.getSource() == other || relationship.getTarget() == other);
+        };
+    }
+    
+    /**
+     * @param concept1 One concept
+     * @param concept2 The other concept
+     * @return true if there is a relationship between concept1 and concept2 in either direction
+     */
+    public static boolean hasRelationship(IArchimateConcept concept1, IArchimateConcept concept2) {
+        return getRelationshipsBetween(concept1, concept2).iterator().hasNext();
+    }
+    
+    /**
+     * @param concept1 One concept
+     * @param concept2 The other concept
+     * @param relationshipType The type of relationship, including sub-types
+     * @return true if there is a relationship of the given type between concept1 and concept2 in either direction
+     */
+    public static boolean hasRelationship(IArchimateConcept concept1, IArchimateConcept concept2, EClass relationshipType) {
+        for(IArchimateRelationship relationship : getRelationshipsBetween(concept1, concept2)) {
+            if(relationshipType.isInstance(relationship)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int getRelationshipsCount(IArchimateConcept concept) {
+        return concept.getSourceRelationships().size() + concept.getTargetRelationships().size();
+    }
+    
+    /**
+     * Iterates over the source and then the target relationships of a concept that are accepted by a filter
+     */
+    private static class RelationshipsIterator implements Iterator<IArchimateRelationship> {
+        private IArchimateConcept concept;
+        private Predicate<IArchimateRelationship> filter;
+        private List<IArchimateRelationship> sourceRelationships, targetRelationships;
+        private boolean inTargets;
+        private int index;
+        private IArchimateRelationship next;
+        
+        RelationshipsIterator(IArchimateConcept concept, Predicate<IArchimateRelationship> filter) {
+            this.concept = concept;
+            this.filter = filter;
+            sourceRelationships = concept.getSourceRelationships();
+            targetRelationships = concept.getTargetRelationships();
+            findNext();
+        }
+        
+        private void findNext() {
+            next = null;
+            
+            while(next == null) {
+                List<IArchimateRelationship> list = inTargets ? targetRelationships : sourceRelationships;
+                
+                if(index >= list.size()) {
+                    if(inTargets) {
+                        return;
+                    }
+                    inTargets = true;
+                    index = 0;
+                    continue;
+                }
+                
+                IArchimateRelationship relationship = list.get(index++);
+                
+                // A relationship connected to the concept at both ends has already been returned as a source relationship
+                if(inTargets && relationship.getSource() == concept && sourceRelationships.contains(relationship)) {
+                    continue;
+                }
+                
+                if(filter == null || filter.test(relationship)) {
+                    next = relationship;
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public IArchimateRelationship next() {
+            if(next == null) {
+                throw new NoSuchElementException();
+            }
+            
+            IArchimateRelationship relationship = next;
+            findNext();
+            return relationship;
+        }
     }
     
     /**
      * Get an EObject type in an Archimate Model given its String ID
+     * The lookup uses the model's ModelIDIndex which is created on first call
      * @param model The owning Archimate Model
      * @param id The ID of the object to search for
      * @return The matching EObject in the model given its ID or null if not found
@@ -139,19 +270,8 @@ public class ArchimateModelUtils {
             return null;
         }
         
-        if(id.equals(model.getId())) {
-            return model;
-        }
-        
-        // This is an expensive iteration!
-        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
-            EObject element = iter.next();
-            if(element instanceof IIdentifier && id.equals(((IIdentifier)element).getId())) {
-                return element;
-            }
-        }
-
-        return null;
+        // Use the model's ID index rather than iterating through all of the model's contents
+        return ModelIDIndex.getIndex(model).getObjectByID(id);
     }
 
     
@@ -0,0 +1,264 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateRelationship;
+
+
+
+/**
+ * Traverses the graph of concepts and relationships of a model from a start concept.
+ *
+ * The relationships of each concept that is reached are followed once, up to a maximum depth and in a given direction.
+ * Relationships and the concepts at their other end can be filtered, and a visitor is told about each relationship
+ * that is followed as it is found so that results can be used as they arrive or the traversal stopped early.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ModelGraphTraversal {
+
+    /**
+     * Direction of the relationships to follow from a concept
+     */
+    public enum Direction {
+        BOTH,
+        INCOMING,
+        OUTGOING
+    }
+
+    /**
+     * Order in which concepts are traversed
+     */
+    public enum Order {
+        /**
+         * All concepts at one depth are traversed before those at the next depth,
+         * so each concept is traversed at its shortest distance from the start concept
+         */
+        BREADTH_FIRST,
+
+        /**
+         * The concept at the other end of a relationship is traversed before the next relationship
+         */
+        DEPTH_FIRST
+    }
+
+    /**
+     * Visitor of the relationships that are followed
+     */
+    public interface IVisitor {
+        /**
+         * A relationship is followed.
+         * A relationship is visited once from each of its ends whose relationships are followed.
+         * @param relationship The relationship
+         * @param from The concept whose relationships are being followed
+         * @param to The concept at the other end of the relationship. This is from if the relationship connects a concept to itself.
+         * @param depth The depth of from. The start concept is at depth 0.
+         * @return true to continue the traversal or false to stop it
+         */
+        boolean visit(IArchimateRelationship relationship, IArchimateConcept from, IArchimateConcept to, int depth);
+    }
+
+    /**
+     * Unlimited depth
+     */
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private int fMaxDepth = UNLIMITED_DEPTH;
+    private Direction fDirection = Direction.BOTH;
+    private Order fOrder = Order.BREADTH_FIRST;
+    private Predicate<IArchimateRelationship> fRelationshipFilter;
+    private Predicate<IArchimateConcept> fConceptFilter;
+
+    public ModelGraphTraversal() {
+    }
+
+    /**
+     * @param maxDepth The depth of the furthest concepts whose relationships are followed.
+     *                 0 follows only the relationships of the start concept.
+     */
+    public void setMaxDepth(int maxDepth) {
+        fMaxDepth = maxDepth;
+    }
+
+    public int getMaxDepth() {
+        return fMaxDepth;
+    }
+
+    public void setDirection(Direction direction) {
+        fDirection = direction;
+    }
+
+    public Direction getDirection() {
+        return fDirection;
+    }
+
+    public void setOrder(Order order) {
+        fOrder = order;
+    }
+
+    public Order getOrder() {
+        return fOrder;
+    }
+
+    /**
+     * @param filter Relationships that may be followed, or null for all relationships
+     */
+    public void setRelationshipFilter(Predicate<IArchimateRelationship> filter) {
+        fRelationshipFilter = filter;
+    }
+
+    /**
+     * @param filter Concepts that may be reached, or null for all concepts
+     */
+    public void setConceptFilter(Predicate<IArchimateConcept> filter) {
+        fConceptFilter = filter;
+    }
+
+    /**
+     * Traverse the graph from a start concept
+     * @param start The start concept
+     * @param visitor The visitor of the relationships that are followed
+     */
+    public void traverse(IArchimateConcept start, IVisitor visitor) {
+        if(start == null || fMaxDepth < 0) {
+            return;
+        }
+
+        // Concepts that have been reached
+        Set<IArchimateConcept> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+        reached.add(start);
+
+        if(fOrder == Order.DEPTH_FIRST) {
+            traverseDepthFirst(start, visitor, reached);
+        }
+        else {
+            traverseBreadthFirst(start, visitor, reached);
+        }
+    }
+
+    /**
+     * @param start The start concept
+     * @return The relationships that are followed from the start concept in the order that they are first found
+     */
+    public List<IArchimateRelationship> getRelationships(IArchimateConcept start) {
+        Set<IArchimateRelationship> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<IArchimateRelationship> result = new ArrayList<>();
+
+        traverse(start, (relationship, from, to, depth) -> {
+            if(found.add(relationship)) {
+                result.add(relationship);
+            }
+            return true;
+        });
+
+        return result;
+    }
+
+    private void traverseBreadthFirst(IArchimateConcept start, IVisitor visitor, Set<IArchimateConcept> reached) {
+        Deque<IArchimateConcept> queue = new ArrayDeque<>();
+        queue.add(start);
+
+        // Follow the relationships of all the concepts at one depth before the next depth
+        for(int depth = 0; !queue.isEmpty() && depth <= fMaxDepth; depth++) {
+            for(int count = queue.size(); count > 0; count--) {
+                IArchimateConcept concept = queue.poll();
+
+                for(IArchimateRelationship relationship : ArchimateModelUtils.getRelationships(concept)) {
+                    IArchimateConcept other = getOtherConcept(concept, relationship);
+                    if(other == null) {
+                        continue;
+                    }
+
+                    if(!visitor.visit(relationship, concept, other, depth)) {
+                        return;
+                    }
+
+                    if(reached.add(other)) {
+                        queue.add(other);
+                    }
+                }
+            }
+        }
+    }
+
+    private void traverseDepthFirst(IArchimateConcept start, IVisitor visitor, Set<IArchimateConcept> reached) {
+        // A stack rather than recursion so that long chains of relationships can't overflow the call stack
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(start, 0));
+
+        while(!stack.isEmpty()) {
+            Frame frame = stack.peek();
+
+            if(!frame.relationships.hasNext()) {
+                stack.pop();
+                continue;
+            }
+
+            IArchimateRelationship relationship = frame.relationships.next();
+            IArchimateConcept other = getOtherConcept(frame.concept, relationship);
+            if(other == null) {
+                continue;
+            }
+
+            if(!visitor.visit(relationship, frame.concept, other, frame.depth)) {
+                return;
+            }
+
+            if(reached.add(other) && frame.depth < fMaxDepth) {
+                stack.push(new Frame(other, frame.depth + 1));
+            }
+        }
+    }
+
+    /**
+     * @return The concept at the other end of a relationship from concept, or null if the relationship is not followed
+     */
+    private IArchimateConcept getOtherConcept(IArchimateConcept concept, IArchimateRelationship relationship) {
+        boolean outgoing = relationship.getSource() == concept;
+
+        if((fDirection == Direction.OUTGOING && !outgoing) || (fDirection == Direction.INCOMING && outgoing)) {
+            return null;
+        }
+
+        if(fRelationshipFilter != null && !fRelationshipFilter.test(relationship)) {
+            return null;
+        }
+
+        IArchimateConcept other = outgoing ? relationship.getTarget() : relationship.getSource();
+
+        if(other == null || (fConceptFilter != null && !fConceptFilter.test(other))) {
+            return null;
+        }
+
+        return other;
+    }
+
+    /**
+     * A concept whose relationships are being followed depth first
+     */
+    private static class Frame {
+        final IArchimateConcept concept;
+        final int depth;
+        final Iterator<IArchimateRelationship> relationships;
+
+        Frame(IArchimateConcept concept, int depth) {
+            this.concept = concept;
+            this.depth = depth;
+            relationships = ArchimateModelUtils.getRelationships(concept).iterator();
+        }
+    }
+}
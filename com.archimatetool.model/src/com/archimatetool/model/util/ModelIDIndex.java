@@ -0,0 +1,261 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IIdentifier;
+
+
+
+/**
+ * Index of ID to EObject for all objects contained in an Archimate Model.
+ *
+ * The index is created on first use and attached to the model as an EContentAdapter
+ * so that it is kept current when objects are added, removed or have their IDs changed.
+ * It should be removed with {@link #removeIndex(IArchimateModel)} when the model is closed.
+ *
+ * An ID can be shared by more than one object in an invalid model. All of them are indexed so that
+ * if one is removed the next one found is returned.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ModelIDIndex extends EContentAdapter {
+
+    /**
+     * Get the ID index for a model, creating and attaching it if this is the first time it is asked for
+     * @param model The Archimate Model
+     * @return The ModelIDIndex for the model, or null if model is null
+     */
+    public static ModelIDIndex getIndex(IArchimateModel model) {
+        if(model == null) {
+            return null;
+        }
+
+        synchronized(model) {
+            ModelIDIndex index = (ModelIDIndex)EcoreUtil.getExistingAdapter(model, ModelIDIndex.class);
+            if(index == null) {
+                index = new ModelIDIndex(model);
+                model.eAdapters().add(index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Remove the ID index from a model if it has one
+     * @param model The Archimate Model
+     */
+    public static void removeIndex(IArchimateModel model) {
+        if(model == null) {
+            return;
+        }
+
+        synchronized(model) {
+            ModelIDIndex index = (ModelIDIndex)EcoreUtil.getExistingAdapter(model, ModelIDIndex.class);
+            if(index != null) {
+                model.eAdapters().remove(index);
+            }
+        }
+    }
+
+    private IArchimateModel model;
+
+    // Objects in the order that they were found, usually only one
+    private Map<String, List<EObject>> map = new HashMap<>();
+
+    private ModelIDIndex(IArchimateModel model) {
+        this.model = model;
+
+        // Index in the same order as eAllContents() so that duplicate IDs resolve to the first one found
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext();) {
+            put(iter.next());
+        }
+    }
+
+    /**
+     * @param id The ID of the object to search for
+     * @return The matching EObject in the model given its ID or null if not found
+     */
+    public synchronized EObject getObjectByID(String id) {
+        if(id == null) {
+            return null;
+        }
+
+        if(id.equals(model.getId())) {
+            return model;
+        }
+
+        List<EObject> objects = map.get(id);
+        return objects != null ? objects.get(0) : null;
+    }
+
+    /**
+     * @return The number of indexed IDs, not including the model's ID
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isAdapterForType(Object type) {
+        return type == ModelIDIndex.class;
+    }
+
+    @Override
+    public void notifyChanged(Notification notification) {
+        super.notifyChanged(notification);
+
+        Object feature = notification.getFeature();
+
+        // ID changed
+        if(feature == IArchimatePackage.Literals.IDENTIFIER__ID && notification.getNotifier() != model) {
+            handleIDChanged((EObject)notification.getNotifier(), notification.getOldStringValue(), notification.getNewStringValue());
+        }
+
+        // Containment changed
+        else if(feature instanceof EReference && ((EReference)feature).isContainment()) {
+            switch(notification.getEventType()) {
+                case Notification.ADD:
+                case Notification.SET:
+                    remove(notification.getOldValue());
+                    add(notification.getNewValue());
+                    break;
+
+                case Notification.ADD_MANY:
+                    for(Object o : (Collection<?>)notification.getNewValue()) {
+                        add(o);
+                    }
+                    break;
+
+                case Notification.REMOVE:
+                case Notification.UNSET:
+                    remove(notification.getOldValue());
+                    break;
+
+                case Notification.REMOVE_MANY:
+                    for(Object o : (Collection<?>)notification.getOldValue()) {
+                        remove(o);
+                    }
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void unsetTarget(Notifier oldTarget) {
+        super.unsetTarget(oldTarget);
+
+        // Removed from the model so clear the index
+        if(oldTarget == model) {
+            synchronized(this) {
+                map.clear();
+            }
+        }
+    }
+
+    private synchronized void handleIDChanged(EObject eObject, String oldID, String newID) {
+        if(oldID != null) {
+            removeFromMap(oldID, eObject);
+        }
+        if(newID != null && isInModel(eObject)) {
+            addToMap(newID, eObject);
+        }
+    }
+
+    private synchronized void add(Object object) {
+        if(!(object instanceof EObject)) {
+            return;
+        }
+
+        EObject eObject = (EObject)object;
+        put(eObject);
+
+        for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+            put(iter.next());
+        }
+    }
+
+    private synchronized void remove(Object object) {
+        if(!(object instanceof EObject)) {
+            return;
+        }
+
+        EObject eObject = (EObject)object;
+
+        // Object was moved to another container in the same model
+        if(isInModel(eObject)) {
+            return;
+        }
+
+        delete(eObject);
+
+        for(Iterator<EObject> iter = eObject.eAllContents(); iter.hasNext();) {
+            delete(iter.next());
+        }
+    }
+
+    private void put(EObject eObject) {
+        if(eObject instanceof IIdentifier) {
+            String id = ((IIdentifier)eObject).getId();
+            if(id != null) {
+                addToMap(id, eObject);
+            }
+        }
+    }
+
+    private void delete(EObject eObject) {
+        if(eObject instanceof IIdentifier) {
+            String id = ((IIdentifier)eObject).getId();
+            if(id != null) {
+                removeFromMap(id, eObject);
+            }
+        }
+    }
+
+    private void addToMap(String id, EObject eObject) {
+        List<EObject> objects = map.computeIfAbsent(id, k -> new ArrayList<>(1));
+        if(!objects.contains(eObject)) {
+            objects.add(eObject);
+        }
+    }
+
+    private void removeFromMap(String id, EObject eObject) {
+        List<EObject> objects = map.get(id);
+        if(objects != null) {
+            objects.remove(eObject);
+            if(objects.isEmpty()) {
+                map.remove(id);
+            }
+        }
+    }
+
+    private boolean isInModel(EObject eObject) {
+        for(EObject container = eObject; container != null; container = container.eContainer()) {
+            if(container == model) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
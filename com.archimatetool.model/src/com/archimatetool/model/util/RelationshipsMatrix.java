@@ -12,9 +12,11 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.input.SAXBuilder;
@@ -90,6 +92,31 @@ public class RelationshipsMatrix {
      * Mapping of relationships to key letters
      */
     private Map<EClass, Character> relationsValueMap = new LinkedHashMap<EClass, Character>();
+    
+    /*
+     * Lookup tables compiled from the matrix after loading, indexed by the classifier ID of the ArchiMate classes.
+     * Relationship types are represented by a bit in a long.
+     */
+    
+    // Number of classifiers in the ArchiMate package
+    private int classifierCount;
+    
+    // Classifier ID of the class used as a source or target in the matrix, or -1 if the class is not in the matrix
+    private int[] matrixIDs;
+    
+    // Bit of each relationship type, or 0 if the class is not a relationship type of the matrix
+    private long[] relationshipBits;
+    
+    // Relationship types allowed from a source class
+    private long[] validStarts;
+    
+    // Relationship types allowed between a source class and a target class, at [source * classifierCount + target]
+    private long[] validRelationships;
+    
+    // Arrays of the valid relationship types, at the same index as validRelationships
+    private EClass[][] validRelationshipsArrays;
+    
+    private static final EClass[] NO_RELATIONSHIPS = new EClass[0];
 
     private RelationshipsMatrix() {
         // Load Key letters file
@@ -97,6 +124,9 @@ public class RelationshipsMatrix {
         
         // Load Relationships file
         loadRelationships();
+        
+        // Compile lookup tables
+        compile();
     }
     
     public Map<EClass, List<TargetMatrix>> getRelationshipsMatrix() {
@@ -108,53 +138,121 @@ public class RelationshipsMatrix {
     }
 
     boolean isValidRelationshipStart(EClass sourceType, EClass relationshipType) {
-        // Use "Relationship" as a generic super type
-        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(sourceType)) {
-            sourceType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
-        }
-        
-        List<TargetMatrix> listMatrix = matrixMap.get(sourceType);
-        if(listMatrix != null) {
-            for(TargetMatrix targetMatrix : listMatrix) {
-                if(targetMatrix.getRelationships().contains(relationshipType)) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+        int sourceID = getMatrixID(sourceType);
+        return sourceID != -1 && (validStarts[sourceID] & getRelationshipBit(relationshipType)) != 0;
     }
     
     boolean isValidRelationship(EClass sourceType, EClass targetType, EClass relationshipType) {
-        if(relationshipType == null) {
-            return false;
-        }
-        
         // relationshipType has to be a Relationship class
-        if(!IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(relationshipType)) {
+        long bit = getRelationshipBit(relationshipType);
+        if(bit == 0) {
             return false;
         }
         
-        // Use "Relationship" as a generic super type
-        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(sourceType)) {
-            sourceType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        int index = getMatrixIndex(sourceType, targetType);
+        return index != -1 && (validRelationships[index] & bit) != 0;
+    }
+    
+    /**
+     * @return All valid relationship types between sourceType and targetType in the order of ArchimateModelUtils.getRelationsClasses().
+     *         The array is shared and must not be modified.
+     */
+    EClass[] getValidRelationships(EClass sourceType, EClass targetType) {
+        int index = getMatrixIndex(sourceType, targetType);
+        return index == -1 ? NO_RELATIONSHIPS : validRelationshipsArrays[index];
+    }
+    
+    /**
+     * @return The index of sourceType and targetType in validRelationships, or -1 if either is not in the matrix
+     */
+    private int getMatrixIndex(EClass sourceType, EClass targetType) {
+        int sourceID = getMatrixID(sourceType);
+        int targetID = getMatrixID(targetType);
+        return sourceID == -1 || targetID == -1 ? -1 : sourceID * classifierCount + targetID;
+    }
+    
+    /**
+     * @return The classifier ID of the class used for eClass in the matrix, or -1.
+     *         "Relationship" is used as a generic super type for all relationships.
+     */
+    private int getMatrixID(EClass eClass) {
+        return isArchimateClass(eClass) ? matrixIDs[eClass.getClassifierID()] : -1;
+    }
+    
+    private long getRelationshipBit(EClass relationshipType) {
+        return isArchimateClass(relationshipType) ? relationshipBits[relationshipType.getClassifierID()] : 0;
+    }
+    
+    private boolean isArchimateClass(EClass eClass) {
+        return eClass != null && eClass.getEPackage() == IArchimatePackage.eINSTANCE;
+    }
+    
+    /**
+     * Compile the loaded matrix into lookup tables
+     */
+    private void compile() {
+        IArchimatePackage archimatePackage = IArchimatePackage.eINSTANCE;
+        EClass relationshipClass = archimatePackage.getArchimateRelationship();
+        
+        classifierCount = archimatePackage.getEClassifiers().size();
+        matrixIDs = new int[classifierCount];
+        relationshipBits = new long[classifierCount];
+        validStarts = new long[classifierCount];
+        validRelationships = new long[classifierCount * classifierCount];
+        validRelationshipsArrays = new EClass[classifierCount * classifierCount][];
+        
+        int bitIndex = 0;
+        for(EClass relationship : relationsValueMap.keySet()) {
+            // Only relationship classes and no more than the number of bits in a long
+            if(relationshipClass.isSuperTypeOf(relationship) && bitIndex < Long.SIZE) {
+                relationshipBits[relationship.getClassifierID()] = 1L << bitIndex++;
+            }
         }
         
-        // Use "Relationship" as a generic super type
-        if(IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(targetType)) {
-            targetType = IArchimatePackage.eINSTANCE.getArchimateRelationship();
+        for(EClassifier eClassifier : archimatePackage.getEClassifiers()) {
+            int id = eClassifier.getClassifierID();
+            
+            if(!(eClassifier instanceof EClass)) {
+                matrixIDs[id] = -1;
+            }
+            // Use "Relationship" as a generic super type
+            else if(relationshipClass.isSuperTypeOf((EClass)eClassifier)) {
+                matrixIDs[id] = relationshipClass.getClassifierID();
+            }
+            else {
+                matrixIDs[id] = id;
+            }
         }
         
-        List<TargetMatrix> listMatrix = matrixMap.get(sourceType);
-        if(listMatrix != null) {
-            for(TargetMatrix targetMatrix : listMatrix) {
-                if(targetMatrix.getTargetClass() == targetType && targetMatrix.getRelationships().contains(relationshipType)) {
-                    return true;
+        for(Entry<EClass, List<TargetMatrix>> entry : matrixMap.entrySet()) {
+            int sourceID = entry.getKey().getClassifierID();
+            
+            for(TargetMatrix targetMatrix : entry.getValue()) {
+                int index = sourceID * classifierCount + targetMatrix.getTargetClass().getClassifierID();
+                
+                for(EClass relationship : targetMatrix.getRelationships()) {
+                    validRelationships[index] |= relationshipBits[relationship.getClassifierID()];
+                    validStarts[sourceID] |= relationshipBits[relationship.getClassifierID()];
                 }
             }
         }
         
-        return false;
+        EClass[] relationsClasses = ArchimateModelUtils.getRelationsClasses();
+        
+        for(int index = 0; index < validRelationships.length; index++) {
+            if(validRelationships[index] == 0) {
+                validRelationshipsArrays[index] = NO_RELATIONSHIPS;
+                continue;
+            }
+            
+            List<EClass> list = new ArrayList<EClass>();
+            for(EClass eClass : relationsClasses) {
+                if((validRelationships[index] & relationshipBits[eClass.getClassifierID()]) != 0) {
+                    list.add(eClass);
+                }
+            }
+            validRelationshipsArrays[index] = list.toArray(new EClass[list.size()]);
+        }
     }
     
     private void loadKeyLetters() {
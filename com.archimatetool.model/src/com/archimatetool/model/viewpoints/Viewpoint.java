@@ -6,9 +6,11 @@
 package com.archimatetool.model.viewpoints;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 
 import com.archimatetool.model.IArchimatePackage;
 
@@ -28,6 +30,23 @@ class Viewpoint implements IViewpoint {
         defaultList.add(IArchimatePackage.eINSTANCE.getGrouping());
     }
     
+    /**
+     * Lookup table of the allowed concepts indexed by classifier ID, compiled from the class list
+     */
+    private static class AllowedTable {
+        final boolean[] allowed;
+        
+        AllowedTable(Viewpoint vp) {
+            List<EClassifier> eClassifiers = IArchimatePackage.eINSTANCE.getEClassifiers();
+            allowed = new boolean[eClassifiers.size()];
+            for(EClassifier eClassifier : eClassifiers) {
+                allowed[eClassifier.getClassifierID()] = eClassifier instanceof EClass && vp.isAllowedInClassList((EClass)eClassifier);
+            }
+        }
+    }
+    
+    private volatile AllowedTable allowedTable;
+    
     private String id;
     private String name;
     
@@ -36,12 +55,40 @@ class Viewpoint implements IViewpoint {
         this.name = name;
     }
     
+    /**
+     * @return The concepts in this Viewpoint. This can't be changed, use addConcept() to add a concept.
+     */
     List<EClass> getClassList() {
-        return classList;
+        return Collections.unmodifiableList(classList);
+    }
+    
+    /**
+     * Add a concept to this Viewpoint if it is not already added
+     */
+    void addConcept(EClass eClass) {
+        if(!classList.contains(eClass)) {
+            classList.add(eClass);
+            // Compile the lookup table again when next used
+            allowedTable = null;
+        }
     }
     
     @Override
     public boolean isAllowedConcept(EClass eClass) {
+        if(eClass.getEPackage() != IArchimatePackage.eINSTANCE) {
+            return isAllowedInClassList(eClass);
+        }
+        
+        // The class list can only be changed with addConcept() which clears the table
+        AllowedTable table = allowedTable;
+        if(table == null) {
+            allowedTable = table = new AllowedTable(this);
+        }
+        
+        return table.allowed[eClass.getClassifierID()];
+    }
+    
+    private boolean isAllowedInClassList(EClass eClass) {
         // Safety
         if(!IArchimatePackage.eINSTANCE.getArchimateElement().isSuperTypeOf(eClass)) {
             return true;
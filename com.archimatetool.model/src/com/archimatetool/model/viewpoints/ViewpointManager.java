@@ -201,7 +201,7 @@ public class ViewpointManager {
                 else {
                     EClass eClass = (EClass)IArchimatePackage.eINSTANCE.getEClassifier(conceptName);
                     if(eClass != null) {
-                        addConcept(vp, eClass);
+                        vp.addConcept(eClass);
                     }
                     else {
                         System.err.println("Couldn't get eClass: " + conceptName); //$NON-NLS-1$
@@ -216,13 +216,7 @@ public class ViewpointManager {
     
     private void addCollection(Viewpoint vp, String conceptName) {
         for(EClass eClass : ELEMENTS_MAP.get(conceptName)) {
-            addConcept(vp, eClass);
-        }
-    }
-    
-    private void addConcept(Viewpoint vp, EClass eClass) {
-        if(!vp.getClassList().contains(eClass)) {
-            vp.getClassList().add(eClass);
+            vp.addConcept(eClass);
         }
     }
     
@@ -49,8 +49,8 @@ import com.archimatetool.model.IIdentifier;
 import com.archimatetool.model.INameable;
 import com.archimatetool.model.IProperties;
 import com.archimatetool.model.IProperty;
-import com.archimatetool.model.util.ArchimateModelUtils;
 import com.archimatetool.model.util.ArchimateResourceFactory;
+import com.archimatetool.model.util.ModelIDIndex;
 import com.archimatetool.modelimporter.StatusMessage.StatusMessageLevel;
 
 
@@ -67,7 +67,10 @@ public class ModelImporter {
     private IArchimateModel importedModel;
     private IArchimateModel targetModel;
     
-    // Keep a cache of objects in the target model for speed
+    // ID index of objects in the target model
+    private ModelIDIndex targetModelIndex;
+    
+    // Keep a cache of newly created objects that are not yet in the target model
     private Map<String, IIdentifier> objectCache;
     
     // Status Messages
@@ -84,7 +87,8 @@ public class ModelImporter {
 
         this.targetModel = targetModel;
         
-        objectCache = createObjectIDCache();
+        targetModelIndex = ModelIDIndex.getIndex(targetModel);
+        objectCache = new HashMap<>();
         
         statusMessages = new ArrayList<>();
         
@@ -129,6 +133,7 @@ public class ModelImporter {
         
         objectCache.clear();
         objectCache = null;
+        targetModelIndex = null;
         importedModel = null;
         this.targetModel = null;
     }
@@ -223,22 +228,6 @@ public class ModelImporter {
         return model;
     }
     
-    /**
-     * Create a cache of objects in the target model for speed
-     */
-    private Map<String, IIdentifier> createObjectIDCache() {
-        HashMap<String, IIdentifier> map = new HashMap<String, IIdentifier>();
-        
-        for(Iterator<EObject> iter = targetModel.eAllContents(); iter.hasNext();) {
-            EObject eObject = iter.next();
-            if(eObject instanceof IIdentifier) {
-                map.put(((IIdentifier)eObject).getId(), (IIdentifier)eObject);
-            }
-        }
-        
-        return map;
-    }
-    
     /**
      * Resolve Diagram Model References *after* the import has happened.
      * New and Updated Diagram Model References will be pointing to the DM in the imported model.
@@ -250,7 +239,7 @@ public class ModelImporter {
                 IDiagramModelReference ref = (IDiagramModelReference)eObject;
                 IDiagramModel dm = ref.getReferencedModel(); 
                 if(dm.getArchimateModel() == getImportedModel()) { // This could be the dm in the imported model
-                    EObject targetDM = ArchimateModelUtils.getObjectByID(targetModel, dm.getId()); // Use its id to find the target dm
+                    EObject targetDM = targetModelIndex.getObjectByID(dm.getId()); // Use its id to find the target dm
                     if(targetDM instanceof IDiagramModel) {
                         ref.setReferencedModel((IDiagramModel)targetDM);
                     }
@@ -280,7 +269,11 @@ public class ModelImporter {
      */
     @SuppressWarnings("unchecked")
     <T extends IIdentifier> T findObjectInTargetModel(T eObject) throws ImportException {
+        // Newly created object or existing object in the target model
         EObject foundObject = objectCache.get(eObject.getId());
+        if(foundObject == null) {
+            foundObject = targetModelIndex.getObjectByID(eObject.getId());
+        }
         
         // Not found
         if(foundObject == null) {
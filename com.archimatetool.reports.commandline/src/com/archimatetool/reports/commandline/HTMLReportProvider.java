@@ -28,6 +28,7 @@ import com.archimatetool.reports.html.HTMLReportExporter;
  * Archi -consoleLog -nosplash -application com.archimatetool.commandline.app
    --loadModel "/pathToModel/model.archimate"
    --html.createReport "/pathToOutputFolder"
+   [--html.incremental]
  * 
  * @author Phillip Beauvoir
  */
@@ -36,6 +37,7 @@ public class HTMLReportProvider extends AbstractCommandLineProvider {
     static final String PREFIX = Messages.HTMLReportProvider_0;
     
     static final String OPTION_CREATE_HTML_REPORT = "html.createReport"; //$NON-NLS-1$
+    static final String OPTION_INCREMENTAL = "html.incremental"; //$NON-NLS-1$
     
     public HTMLReportProvider() {
     }
@@ -69,6 +71,7 @@ public class HTMLReportProvider extends AbstractCommandLineProvider {
         logMessage(NLS.bind(Messages.HTMLReportProvider_4, model.getName(), sOutput));
 
         HTMLReportExporter ex = new HTMLReportExporter(model);
+        ex.setIncremental(commandLine.hasOption(OPTION_INCREMENTAL));
         ex.createReport(folderOutput, "index.html", new NullProgressMonitor() { //$NON-NLS-1$
             @Override
             public void subTask(String name) {
@@ -95,6 +98,12 @@ public class HTMLReportProvider extends AbstractCommandLineProvider {
                 .build();
         options.addOption(option);
         
+        option = Option.builder()
+                .longOpt(OPTION_INCREMENTAL)
+                .desc(Messages.HTMLReportProvider_8)
+                .build();
+        options.addOption(option);
+        
         return options;
     }
     
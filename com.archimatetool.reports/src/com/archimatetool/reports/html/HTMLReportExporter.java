@@ -6,23 +6,42 @@
 package com.archimatetool.reports.html;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InterruptedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Hashtable;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.draw2d.geometry.Rectangle;
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.gef.GraphicalViewer;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.operation.IRunnableWithProgress;
@@ -32,8 +51,10 @@ import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
+import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.browser.IWebBrowser;
@@ -49,15 +70,19 @@ import com.archimatetool.editor.browser.BrowserEditorInput;
 import com.archimatetool.editor.browser.IBrowserEditor;
 import com.archimatetool.editor.diagram.util.DiagramUtils;
 import com.archimatetool.editor.diagram.util.ModelReferencedImage;
+import com.archimatetool.editor.model.IArchiveManager;
 import com.archimatetool.editor.ui.ImageFactory;
 import com.archimatetool.editor.ui.services.EditorManager;
+import com.archimatetool.editor.ui.textrender.TextRenderer;
 import com.archimatetool.editor.utils.FileUtils;
 import com.archimatetool.editor.utils.PlatformUtils;
 import com.archimatetool.editor.utils.StringUtils;
 import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimateModelObject;
 import com.archimatetool.model.IDiagramModel;
+import com.archimatetool.model.IDiagramModelArchimateComponent;
 import com.archimatetool.model.IDiagramModelArchimateObject;
 import com.archimatetool.model.IDiagramModelContainer;
 import com.archimatetool.model.IDiagramModelObject;
@@ -70,6 +95,13 @@ import com.archimatetool.reports.ArchiReportsPlugin;
 /**
  * Export model to HTML report
  * 
+ * Diagram images are painted on the calling thread with one reusable viewer, while the pages are rendered from the
+ * templates and written, and the images encoded as PNG files, by a pool of threads.
+ * 
+ * The files written to the report are recorded with fingerprints in a manifest in the model's folder.
+ * In incremental mode a file is only written if its fingerprint has changed, files of objects that are no longer in
+ * the model are deleted, and only the changed files of the HTML skeleton and hints are copied.
+ * 
  * @author Jean-Baptiste Sarrodie
  * @author Quentin Varquet
  * @author Phillip Beauvoir
@@ -80,20 +112,40 @@ public class HTMLReportExporter {
     
     static final String PREFS_LAST_FOLDER = "Reports_LastFolder"; //$NON-NLS-1$
     
-    private IArchimateModel fModel;
+    /**
+     * Number of threads that render pages, write files and encode images
+     */
+    static final int THREADS = Runtime.getRuntime().availableProcessors();
     
     /**
-     * Map of new bounds for each digram for bounds offset
+     * Maximum number of diagram images waiting to be encoded, to limit the memory used by their image data
      */
-    private Map<IDiagramModel, Rectangle> diagramBoundsMap = new HashMap<IDiagramModel, Rectangle>();
+    static final int MAX_PENDING_IMAGES = THREADS * 2;
     
     /**
-     * Map of new bounds for child objects in images for hit areas
+     * Manifest entry of a diagram image that can't be fingerprinted and so is always painted
      */
-    private Map<String, BoundsWithAbsolutePosition> childBoundsMap = new HashMap<String, BoundsWithAbsolutePosition>();
+    private static final String NO_FINGERPRINT = "-"; //$NON-NLS-1$
+    
+    private IArchimateModel fModel;
     
     private IProgressMonitor progressMonitor;
     
+    private boolean incremental;
+    
+    private ReportManifest manifest;
+    
+    private File mainTemplateFile;
+    
+    /**
+     * Each thread renders pages with its own templates because STGroups and STs are not thread safe
+     */
+    private ThreadLocal<STGroupFile> groupFiles;
+    
+    private ExecutorService executor;
+    
+    private List<Future<?>> tasks;
+    
     static class CancelledException extends IOException {
         public CancelledException(String message) {
             super(message);
@@ -141,14 +193,7 @@ public class HTMLReportExporter {
             }
         };
         
-        try {
-            ProgressMonitorDialog dialog = new ProgressMonitorDialog(Display.getCurrent().getActiveShell());
-            dialog.run(false, true, runnable);
-        }
-        catch(InvocationTargetException | InterruptedException ex) {
-            ex.printStackTrace();
-            Logger.log(IStatus.ERROR, "Error saving HTML Report", ex); //$NON-NLS-1$
-        }
+        runWithSnapshot(runnable);
 
         if(exception[0] != null) {
             if(exception[0] instanceof CancelledException) {
@@ -182,14 +227,7 @@ public class HTMLReportExporter {
             }
         };
         
-        try {
-            ProgressMonitorDialog dialog = new ProgressMonitorDialog(Display.getCurrent().getActiveShell());
-            dialog.run(false, true, runnable);
-        }
-        catch(InvocationTargetException | InterruptedException ex) {
-            ex.printStackTrace();
-            Logger.log(IStatus.ERROR, "Error saving HTML Report", ex); //$NON-NLS-1$
-        }
+        runWithSnapshot(runnable);
 
         if(exception[0] != null) {
             if(exception[0] instanceof CancelledException) {
@@ -202,6 +240,45 @@ public class HTMLReportExporter {
         }
     }
     
+    /**
+     * Run the runnable in a progress dialog with a snapshot of the model.
+     * Pages are written on other threads while the UI keeps running, so the report is created from a copy of the model
+     * that can't be edited until the report is finished.
+     */
+    private void runWithSnapshot(IRunnableWithProgress runnable) {
+        IArchimateModel model = fModel;
+        fModel = createSnapshot(model);
+        
+        try {
+            ProgressMonitorDialog dialog = new ProgressMonitorDialog(Display.getCurrent().getActiveShell());
+            dialog.run(false, true, runnable);
+        }
+        catch(InvocationTargetException | InterruptedException ex) {
+            ex.printStackTrace();
+            Logger.log(IStatus.ERROR, "Error saving HTML Report", ex); //$NON-NLS-1$
+        }
+        finally {
+            fModel = model;
+        }
+    }
+    
+    /**
+     * @return A copy of the model with the same IDs that shares the model's file and Archive Manager for images
+     */
+    IArchimateModel createSnapshot(IArchimateModel model) {
+        IArchimateModel snapshot = EcoreUtil.copy(model);
+        snapshot.setFile(model.getFile());
+        snapshot.setAdapter(IArchiveManager.class, model.getAdapter(IArchiveManager.class));
+        return snapshot;
+    }
+    
+    /**
+     * @param incremental If true only write the files that have changed since the report was last created in the target folder
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+    
     public File createReport(File targetFolder, String indexFileName) throws IOException {
         return createReport(targetFolder, indexFileName, null);
     }
@@ -233,30 +310,48 @@ public class HTMLReportExporter {
              
         File objectsFolder = new File(targetFolder, fModel.getId() + "/objects"); //$NON-NLS-1$
         objectsFolder.mkdirs(); // Make dir
-
-        // Instantiate templates files
-        File mainFile = new File(ArchiReportsPlugin.INSTANCE.getTemplatesFolder(), "st/main.stg"); //$NON-NLS-1$
-        STGroupFile groupFile = new STGroupFile(mainFile.getAbsolutePath(), '^', '^');
-        ST stFrame = groupFile.getInstanceOf("frame"); //$NON-NLS-1$
         
-        groupFile.registerRenderer(String.class, new StringRenderer());
-        
-        // Write model purpose and properties html
-        writeElement(new File(elementsFolder, "model.html"), stFrame, fModel); //$NON-NLS-1$
-        
-        // Write all folders
-        writeFolders(elementsFolder, stFrame, fModel.getFolders());
+        // Manifest of the files written
+        manifest = new ReportManifest(targetFolder, new File(targetFolder, fModel.getId() + "/" + ReportManifest.FILE_NAME)); //$NON-NLS-1$
+
+        // Templates file
+        mainTemplateFile = new File(ArchiReportsPlugin.INSTANCE.getTemplatesFolder(), "st/main.stg"); //$NON-NLS-1$
+        groupFiles = ThreadLocal.withInitial(this::createGroupFile);
         
-        // Write other graphical objects
-        writeGraphicalObjects(objectsFolder, stFrame);
+        executor = Executors.newFixedThreadPool(THREADS);
+        tasks = new ArrayList<>();
         
-        // Write Diagrams and images
-        writeDiagrams(imagesFolder, viewsFolder, stFrame);
+        try {
+            // Write model purpose and properties html
+            writeElement(new File(elementsFolder, "model.html"), fModel); //$NON-NLS-1$
+            
+            // Write all folders
+            writeFolders(elementsFolder, fModel.getFolders());
+            
+            // Write other graphical objects
+            writeGraphicalObjects(objectsFolder);
+            
+            // Write Diagrams and images
+            writeDiagrams(imagesFolder, viewsFolder);
+            
+            // Wait for all pages and images to be written
+            setProgressSubTask(Messages.HTMLReportExporter_11, true);
+            for(Future<?> task : tasks) {
+                waitForTask(task);
+            }
+        }
+        finally {
+            // Stop any tasks still running if cancelled or failed
+            executor.shutdownNow();
+            executor = null;
+            tasks = null;
+            groupFiles = null;
+        }
         
         setProgressSubTask(Messages.HTMLReportExporter_13, true);
         
         // Write root model.html frame
-        ST stModel = groupFile.getInstanceOf("modelreport"); //$NON-NLS-1$
+        ST stModel = createGroupFile().getInstanceOf("modelreport"); //$NON-NLS-1$
         stModel.add("model", fModel); //$NON-NLS-1$
         stModel.add("strategyFolder", fModel.getFolder(FolderType.STRATEGY)); //$NON-NLS-1$
         stModel.add("businessFolder", fModel.getFolder(FolderType.BUSINESS)); //$NON-NLS-1$
@@ -269,10 +364,15 @@ public class HTMLReportExporter {
         stModel.add("viewsFolder", fModel.getFolder(FolderType.DIAGRAMS)); //$NON-NLS-1$
         
         File indexFile = new File(targetFolder, indexFileName);
-        try(OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(indexFile), "UTF8")) { //$NON-NLS-1$
-            writer.write(stModel.render());
+        writeFile(indexFile, stModel.render());
+        
+        if(incremental) {
+            manifest.deleteStaleFiles();
         }
         
+        manifest.save();
+        manifest = null;
+        
         return indexFile;
     }
     
@@ -284,7 +384,7 @@ public class HTMLReportExporter {
         setProgressSubTask(Messages.HTMLReportExporter_9, true);
         
         File srcDir = new File(ArchiReportsPlugin.INSTANCE.getTemplatesFolder(), "html"); //$NON-NLS-1$
-        FileUtils.copyFolder(srcDir, targetFolder);
+        copyFolder(srcDir, targetFolder);
     }
     
     /**
@@ -297,38 +397,72 @@ public class HTMLReportExporter {
         // Main hints
         Bundle bundle = Platform.getBundle("com.archimatetool.help"); //$NON-NLS-1$
         URL url = FileLocator.resolve(bundle.getEntry("hints")); //$NON-NLS-1$
-        FileUtils.copyFolder(new File(url.getPath()), new File(targetFolder, "hints")); //$NON-NLS-1$
+        copyFolder(new File(url.getPath()), new File(targetFolder, "hints")); //$NON-NLS-1$
         
         // Canvas hints
         bundle = Platform.getBundle("com.archimatetool.canvas"); //$NON-NLS-1$
         url = FileLocator.resolve(bundle.getEntry("help/hints")); //$NON-NLS-1$
-        FileUtils.copyFolder(new File(url.getPath()), new File(targetFolder, "hints")); //$NON-NLS-1$
+        copyFolder(new File(url.getPath()), new File(targetFolder, "hints")); //$NON-NLS-1$
+    }
+    
+    /**
+     * Copy a folder, or in incremental mode only the files that are missing or different
+     */
+    private void copyFolder(File srcFolder, File destFolder) throws IOException {
+        if(!incremental) {
+            FileUtils.copyFolder(srcFolder, destFolder);
+            return;
+        }
+        
+        destFolder.mkdirs();
+        
+        File[] files = srcFolder.listFiles();
+        if(files == null) {
+            return;
+        }
+        
+        for(File srcFile : files) {
+            File destFile = new File(destFolder, srcFile.getName());
+            if(srcFile.isDirectory()) {
+                copyFolder(srcFile, destFile);
+            }
+            else if(!destFile.isFile() || destFile.length() != srcFile.length()
+                    || !Arrays.equals(Files.readAllBytes(srcFile.toPath()), Files.readAllBytes(destFile.toPath()))) {
+                Files.copy(srcFile.toPath(), destFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private STGroupFile createGroupFile() {
+        STGroupFile groupFile = new STGroupFile(mainTemplateFile.getAbsolutePath(), '^', '^');
+        groupFile.registerRenderer(String.class, new StringRenderer());
+        return groupFile;
     }
 
     /**
      * Write all folders
      */
-    private void writeFolders(File elementsFolder, ST stFrame, List<IFolder> folders) throws IOException {
+    private void writeFolders(File elementsFolder, List<IFolder> folders) throws IOException {
     	for(IFolder folder : folders) {
-    		writeFolder(elementsFolder, stFrame, folder);
+    		writeFolder(elementsFolder, folder);
     	}
     }
     
     /**
      * Write a single folder
      */
-    private void writeFolder(File elementsFolder, ST stFrame, IFolder folder) throws IOException {
-    	writeElements(elementsFolder, stFrame, folder.getElements());
-    	writeFolders(elementsFolder, stFrame, folder.getFolders());
+    private void writeFolder(File elementsFolder, IFolder folder) throws IOException {
+    	writeElements(elementsFolder, folder.getElements());
+    	writeFolders(elementsFolder, folder.getFolders());
     }
     
     /**
      * Write all elements
      */
-    private void writeElements(File elementsFolder, ST stFrame, List<EObject> list) throws IOException {
+    private void writeElements(File elementsFolder, List<EObject> list) throws IOException {
         for(EObject object : list) {
             if(object instanceof IArchimateConcept) {
-                writeElement(new File(elementsFolder, ((IIdentifier) object).getId() + ".html"), stFrame, object); //$NON-NLS-1$
+                writeElement(new File(elementsFolder, ((IIdentifier) object).getId() + ".html"), object); //$NON-NLS-1$
             }
         }
     }
@@ -336,28 +470,57 @@ public class HTMLReportExporter {
     /**
      * Write a single element
      */
-    private void writeElement(File elementFile, ST stFrame, EObject component) throws IOException {
-        stFrame.remove("element"); //$NON-NLS-1$
-        //frame.remove("children");
-        stFrame.add("element", component); //$NON-NLS-1$
+    private void writeElement(File elementFile, EObject component) throws IOException {
+        writePage(elementFile, component, null);
+        updateProgress();
+    }
+    
+    /**
+     * Render the frame template for an object and write it to a file in a background task
+     * @param map Bounds of the objects in a view's image for the image map, or null
+     */
+    private void writePage(File file, EObject element, Map<String, BoundsWithAbsolutePosition> map) {
+        ThreadLocal<STGroupFile> threadGroupFiles = groupFiles;
+        
+        submit(() -> {
+            ST stFrame = threadGroupFiles.get().getInstanceOf("frame"); //$NON-NLS-1$
+            stFrame.add("element", element); //$NON-NLS-1$
+            if(map != null) {
+                stFrame.add("map", map); //$NON-NLS-1$
+            }
+            
+            writeFile(file, stFrame.render());
+            return null;
+        });
+    }
+    
+    /**
+     * Write text to a file as UTF-8 and record it in the manifest.
+     * In incremental mode the file is not written if it is unchanged since the last report.
+     */
+    private void writeFile(File file, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String fingerprint = ReportManifest.getFingerprint(bytes);
+        
+        manifest.putEntry(file, fingerprint);
         
-        try(OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(elementFile), "UTF8")) { //$NON-NLS-1$
-            writer.write(stFrame.render());
+        if(incremental && manifest.isUnchanged(file, fingerprint)) {
+            return;
         }
-
-        updateProgress();
+        
+        Files.write(file.toPath(), bytes);
     }
     
     /**
      * Write graphical objects
      */
-    private void writeGraphicalObjects(File objectsFolder, ST stFrame) throws IOException {
+    private void writeGraphicalObjects(File objectsFolder) throws IOException {
         for(IDiagramModel dm : fModel.getDiagramModels()) {
             for(Iterator<EObject> iter =  dm.eAllContents(); iter.hasNext();) {
                 EObject eObject = iter.next();
                 if(eObject instanceof IDiagramModelObject && !(eObject instanceof IDiagramModelArchimateObject) 
                         && !(eObject instanceof IDiagramModelReference)) {
-                    writeElement(new File(objectsFolder, ((IIdentifier) eObject).getId() + ".html"), stFrame, eObject); //$NON-NLS-1$
+                    writeElement(new File(objectsFolder, ((IIdentifier) eObject).getId() + ".html"), eObject); //$NON-NLS-1$
                 }
             }
         }
@@ -366,102 +529,246 @@ public class HTMLReportExporter {
     /**
      * Write diagrams
      */
-    private void writeDiagrams(File imagesFolder, File viewsFolder, ST stFrame) throws IOException {
+    private void writeDiagrams(File imagesFolder, File viewsFolder) throws IOException {
         List<IDiagramModel> diagramModels = fModel.getDiagramModels();
         
         if(diagramModels.isEmpty()) {
             return;
         }
         
-        // Save images
-        saveImages(imagesFolder, diagramModels);
+        // Use this to generate unique name for image file
+        Set<String> imageNames = new HashSet<String>();
         
-        setProgressSubTask(Messages.HTMLReportExporter_11, true);
-
-        // Create html files
-        for(IDiagramModel dm : diagramModels) {
-            // Add the necessary bounds in order to get correct absolute coordinates for the elements in the generated image
-            Rectangle bounds = diagramBoundsMap.get(dm);
+        int nameCount = 1;
+        int total = diagramModels.size();
+        int i = 1;
+        
+        // Images waiting to be encoded
+        Deque<Future<?>> imageTasks = new ArrayDeque<>();
+        
+        // One viewer shows each diagram model in turn
+        Shell shell = new Shell();
+        shell.setLayout(new FillLayout());
+        GraphicalViewer viewer = DiagramUtils.createViewer(shell);
+        
+        try {
+            for(IDiagramModel dm : diagramModels) {
+                setProgressSubTask(NLS.bind(Messages.HTMLReportExporter_4, i++, total), true);
+                
+                // Generate file name
+                String diagramName = dm.getId();
+                if(StringUtils.isSet(diagramName)) {
+                    // removed this because ids can have hyphens in them (when imported from TOG format)
+                    // Let's hope that ids are filename friendly...
+                    //diagramName = FileUtils.getValidFileName(diagramName);
+                    
+                    int j = 2;
+                    String s = diagramName + ".png";  //$NON-NLS-1$
+                    while(imageNames.contains(s)) {
+                        s = diagramName + "_" + j++ + ".png"; //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    diagramName = s;
+                }
+                else {
+                    diagramName = Messages.HTMLReportExporter_1 + " " + nameCount++ + ".png";  //$NON-NLS-1$//$NON-NLS-2$
+                }
+                
+                imageNames.add(diagramName);
+                
+                File imageFile = new File(imagesFolder, diagramName);
+                
+                // The image's offset is kept in the manifest with its fingerprint
+                String fingerprint = getDiagramFingerprint(dm);
+                Rectangle bounds = incremental && fingerprint != null ? getUnchangedImageBounds(imageFile, fingerprint) : null;
+                
+                if(bounds == null) {
+                    bounds = writeImage(viewer, dm, imageFile, imageTasks);
+                }
+                
+                if(fingerprint != null) {
+                    manifest.putEntry(imageFile, fingerprint + " " + bounds.x + " " + bounds.y); //$NON-NLS-1$ //$NON-NLS-2$
+                }
+                else {
+                    manifest.putEntry(imageFile, NO_FINGERPRINT);
+                }
+                
+                // New bounds of this diagram's objects in the image for hit areas, released when its page is written
+                Map<String, BoundsWithAbsolutePosition> childBoundsMap = new HashMap<String, BoundsWithAbsolutePosition>();
+                
+                // Add the necessary bounds in order to get correct absolute coordinates for the elements in the generated image
+                for(IDiagramModelObject dmo : dm.getChildren()) {
+                    addNewBounds(childBoundsMap, dmo, bounds.x * -1, bounds.y * -1);
+                }
+                
+                writePage(new File(viewsFolder, dm.getId() + ".html"), dm, childBoundsMap); //$NON-NLS-1$
+            }
+        }
+        finally {
+            shell.dispose();
+        }
+    }
+    
+    /**
+     * Paint a diagram's image here and encode it to a file in a task
+     * @return The bounds of the top-left element in the image to act as overall x,y offset
+     */
+    private Rectangle writeImage(GraphicalViewer viewer, IDiagramModel dm, File imageFile, Deque<Future<?>> imageTasks) throws IOException {
+        DiagramUtils.setViewerContents(viewer, dm);
+        ModelReferencedImage geoImage = DiagramUtils.createModelReferencedImage(viewer, 1, 10);
+        Image image = geoImage.getImage();
+        
+        ImageData imageData;
+        try {
+            imageData = image.getImageData(ImageFactory.getImageDeviceZoom());
+        }
+        finally {
+            image.dispose();
+        }
+        
+        // Limit the image data waiting to be encoded
+        while(imageTasks.size() >= MAX_PENDING_IMAGES) {
+            waitForTask(imageTasks.poll());
+        }
+        
+        imageTasks.add(submit(() -> {
+            ImageLoader loader = new ImageLoader();
+            loader.data = new ImageData[] { imageData };
+            loader.save(imageFile.getAbsolutePath(), SWT.IMAGE_PNG);
+            return null;
+        }));
+        
+        Rectangle bounds = geoImage.getBounds();
+        bounds.performScale(ImageFactory.getImageDeviceZoom() / 100); // Account for device zoom level
+        return bounds;
+    }
+    
+    /**
+     * @return The offset of an image from the manifest if the image exists and its fingerprint is unchanged, or null
+     */
+    private Rectangle getUnchangedImageBounds(File imageFile, String fingerprint) {
+        String entry = manifest.getOldEntry(imageFile);
+        if(entry == null || !imageFile.exists()) {
+            return null;
+        }
+        
+        String[] parts = entry.split(" "); //$NON-NLS-1$
+        if(parts.length != 3 || !parts[0].equals(fingerprint)) {
+            return null;
+        }
+        
+        try {
+            return new Rectangle(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), 0, 0);
+        }
+        catch(NumberFormatException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * @return A fingerprint of what a diagram's image is painted from: the diagram and its objects, their concepts
+     *         and the diagrams that they reference. Preferences that affect how diagrams are painted are not included.
+     *         If an object in the diagram has a label expression null is returned because a label expression can
+     *         show any object in the model, and so the image is always painted.
+     */
+    String getDiagramFingerprint(IDiagramModel dm) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ImageFactory.getImageDeviceZoom()).append('\n');
+        
+        appendFeatures(sb, dm);
+        
+        for(Iterator<EObject> iter = dm.eAllContents(); iter.hasNext();) {
+            EObject eObject = iter.next();
             
-            // process the children
-            for(IDiagramModelObject dmo: dm.getChildren() ) {
-                addNewBounds(dmo, bounds.x * -1, bounds.y * -1);
+            if(eObject instanceof IArchimateModelObject && TextRenderer.getDefault().hasFormatExpression((IArchimateModelObject)eObject)) {
+                return null;
             }
-
-            stFrame.remove("element"); //$NON-NLS-1$
-            stFrame.add("element", dm); //$NON-NLS-1$
             
-            stFrame.remove("map"); //$NON-NLS-1$
-            stFrame.add("map", childBoundsMap); //$NON-NLS-1$
+            appendFeatures(sb, eObject);
             
-            File viewFile = new File(viewsFolder, dm.getId() + ".html"); //$NON-NLS-1$
-            try(OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(viewFile), "UTF8")) { //$NON-NLS-1$
-                writer.write(stFrame.render());
+            if(eObject instanceof IDiagramModelArchimateComponent) {
+                IArchimateConcept concept = ((IDiagramModelArchimateComponent)eObject).getArchimateConcept();
+                appendFeatures(sb, concept);
+                for(Iterator<EObject> conceptIter = concept.eAllContents(); conceptIter.hasNext();) {
+                    appendFeatures(sb, conceptIter.next());
+                }
+            }
+            else if(eObject instanceof IDiagramModelReference) {
+                IDiagramModel referencedModel = ((IDiagramModelReference)eObject).getReferencedModel();
+                if(referencedModel != null) {
+                    appendFeatures(sb, referencedModel);
+                }
             }
-            
-            updateProgress();
         }
+        
+        return ReportManifest.getFingerprint(sb.toString());
     }
     
     /**
-     * Save diagram images
-     * @param diagramModels 
-     * @throws IOException 
+     * Append an object's attributes and the ids of the objects that it references
      */
-    private void saveImages(File imagesFolder, List<IDiagramModel> diagramModels) throws IOException {
-        // Use this to generate unique name for image file
-        Hashtable<IDiagramModel, String> nameTable = new Hashtable<IDiagramModel, String>();
+    private void appendFeatures(StringBuilder sb, EObject eObject) {
+        sb.append(eObject.eClass().getName());
         
-        int nameCount = 1;
-        int total = diagramModels.size();
-        int i = 1;
-        
-        for(IDiagramModel dm : diagramModels) {
-            setProgressSubTask(NLS.bind(Messages.HTMLReportExporter_4, i++, total), true);
-
-            ModelReferencedImage geoImage = DiagramUtils.createModelReferencedImage(dm, 1, 10);
-            Image image = geoImage.getImage();
-            
-            // Generate file name
-            String diagramName = dm.getId();
-            if(StringUtils.isSet(diagramName)) {
-                // removed this because ids can have hyphens in them (when imported from TOG format)
-                // Let's hope that ids are filename friendly...
-                //diagramName = FileUtils.getValidFileName(diagramName);
-                
-                int j = 2;
-                String s = diagramName + ".png";  //$NON-NLS-1$
-                while(nameTable.containsValue(s)) {
-                    s = diagramName + "_" + j++ + ".png"; //$NON-NLS-1$ //$NON-NLS-2$
-                }
-                diagramName = s;
+        for(EStructuralFeature feature : eObject.eClass().getEAllStructuralFeatures()) {
+            if(feature instanceof EAttribute) {
+                sb.append('|').append(eObject.eGet(feature));
             }
-            else {
-                diagramName = Messages.HTMLReportExporter_1 + " " + nameCount++ + ".png";  //$NON-NLS-1$//$NON-NLS-2$
+            else if(!((EReference)feature).isContainment()) {
+                Object value = eObject.eGet(feature);
+                for(Object o : value instanceof List ? (List<?>)value : Arrays.asList(value)) {
+                    if(o instanceof IIdentifier) {
+                        sb.append('|').append(((IIdentifier)o).getId());
+                    }
+                }
             }
-
-            nameTable.put(dm, diagramName);
-
-            // Get and store the bounds of the top-left element in the figure to act as overall x,y offset
-            Rectangle bounds = geoImage.getBounds();
-            bounds.performScale(ImageFactory.getImageDeviceZoom() / 100); // Account for device zoom level
-            diagramBoundsMap.put(dm, bounds);
-
+        }
+        
+        sb.append('\n');
+    }
+    
+    /**
+     * Run a task in the thread pool
+     */
+    private Future<?> submit(Callable<Void> task) {
+        Future<?> future = executor.submit(task);
+        tasks.add(future);
+        return future;
+    }
+    
+    /**
+     * Wait for a task to finish, keeping the UI responsive and checking for cancellation
+     * @throws IOException if the task failed or the report was cancelled
+     */
+    private void waitForTask(Future<?> task) throws IOException {
+        while(true) {
             try {
-                ImageLoader loader = new ImageLoader();
-                loader.data = new ImageData[] { image.getImageData(ImageFactory.getImageDeviceZoom()) };
-                File file = new File(imagesFolder, diagramName);
-                loader.save(file.getAbsolutePath(), SWT.IMAGE_PNG);
+                task.get(100, TimeUnit.MILLISECONDS);
+                return;
+            }
+            catch(TimeoutException ex) {
+                updateProgress();
             }
-            finally {
-                image.dispose();
+            catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            catch(ExecutionException ex) {
+                if(ex.getCause() instanceof IOException) {
+                    throw (IOException)ex.getCause();
+                }
+                if(ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException)ex.getCause();
+                }
+                throw new IOException(ex.getCause());
             }
         }
     }
     
     private void updateProgress() throws IOException {
-        if(progressMonitor != null && PlatformUI.isWorkbenchRunning() && Display.getCurrent() != null) {
-            while(Display.getCurrent().readAndDispatch());
+        if(progressMonitor != null) {
+            if(PlatformUI.isWorkbenchRunning() && Display.getCurrent() != null) {
+                while(Display.getCurrent().readAndDispatch());
+            }
             
             if(progressMonitor.isCanceled()) {
                 throw new CancelledException(Messages.HTMLReportExporter_14);
@@ -535,7 +842,7 @@ public class HTMLReportExporter {
     /**
      * Add new bounds for each diagram object in relation to its parent offset x,y
      */
-    private void addNewBounds(IDiagramModelObject dmo, int offsetX, int offsetY) {
+    private void addNewBounds(Map<String, BoundsWithAbsolutePosition> childBoundsMap, IDiagramModelObject dmo, int offsetX, int offsetY) {
         // Add new bounds caled to device zoom
         BoundsWithAbsolutePosition newBounds = new BoundsWithAbsolutePosition(dmo.getBounds(), ImageFactory.getImageDeviceZoom() / 100);
         newBounds.setOffset(offsetX, offsetY); // Add offset
@@ -544,7 +851,7 @@ public class HTMLReportExporter {
         // Children
         if(dmo instanceof IDiagramModelContainer) {
             for(IDiagramModelObject child: ((IDiagramModelContainer)dmo).getChildren() ) {
-                addNewBounds(child, newBounds.getX1(), newBounds.getY1());
+                addNewBounds(childBoundsMap, child, newBounds.getX1(), newBounds.getY1());
             }
         }
     }
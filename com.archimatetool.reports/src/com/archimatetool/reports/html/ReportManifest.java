@@ -0,0 +1,137 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.reports.html;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.archimatetool.editor.utils.DigestUtils;
+
+
+/**
+ * Manifest of the files written to a report's target folder and the fingerprints of their contents or inputs,
+ * so that a report can be created again writing only the files that have changed.
+ *
+ * The manifest is kept in a properties file in the target folder. Entries are keyed by the path of the file
+ * relative to the target folder. New entries can be put from any thread.
+ *
+ * @author Phillip Beauvoir
+ */
+class ReportManifest {
+
+    static final String FILE_NAME = "report-manifest.properties"; //$NON-NLS-1$
+
+    private File fTargetFolder;
+
+    private File fFile;
+
+    private Properties fOldEntries = new Properties();
+
+    private Map<String, String> fNewEntries = new ConcurrentHashMap<>();
+
+    /**
+     * Load a manifest if it exists
+     * @param targetFolder The report's target folder
+     * @param file The manifest file
+     */
+    ReportManifest(File targetFolder, File file) throws IOException {
+        fTargetFolder = targetFolder;
+        fFile = file;
+
+        if(file.exists()) {
+            try(InputStream in = new FileInputStream(file)) {
+                fOldEntries.load(in);
+            }
+        }
+    }
+
+    /**
+     * @return The entry of a file when the manifest was loaded, or null
+     */
+    String getOldEntry(File file) {
+        return fOldEntries.getProperty(getKey(file));
+    }
+
+    /**
+     * Set the entry of a file written to this report
+     */
+    void putEntry(File file, String entry) {
+        fNewEntries.put(getKey(file), entry);
+    }
+
+    /**
+     * @return true if a file exists and had the entry when the manifest was loaded
+     */
+    boolean isUnchanged(File file, String entry) {
+        return entry.equals(getOldEntry(file)) && file.exists();
+    }
+
+    /**
+     * Delete the files that were in the manifest when it was loaded but are not in this report.
+     * The manifest file could have been edited so files that are not in the target folder are never deleted.
+     */
+    void deleteStaleFiles() throws IOException {
+        Path targetPath = fTargetFolder.getCanonicalFile().toPath();
+        
+        for(String key : fOldEntries.stringPropertyNames()) {
+            if(!fNewEntries.containsKey(key)) {
+                File file = new File(fTargetFolder, key).getCanonicalFile();
+                if(!file.toPath().equals(targetPath) && file.toPath().startsWith(targetPath)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the entries of this report
+     */
+    void save() throws IOException {
+        // Sorted by key so that the entries of unchanged files stay where they are
+        @SuppressWarnings("serial")
+        Properties properties = new Properties() {
+            @Override
+            public synchronized Enumeration<Object> keys() {
+                return Collections.enumeration(new TreeSet<Object>(super.keySet()));
+            }
+        };
+        properties.putAll(fNewEntries);
+
+        try(OutputStream out = new FileOutputStream(fFile)) {
+            properties.store(out, null);
+        }
+    }
+
+    private String getKey(File file) {
+        return fTargetFolder.getAbsoluteFile().toPath().relativize(file.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * @return A fingerprint of some text
+     */
+    static String getFingerprint(String text) {
+        return getFingerprint(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return A fingerprint of some bytes
+     */
+    static String getFingerprint(byte[] bytes) {
+        return DigestUtils.getSHA256(bytes);
+    }
+}
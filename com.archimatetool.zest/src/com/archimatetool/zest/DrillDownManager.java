@@ -154,6 +154,13 @@ public class DrillDownManager implements ISelectionChangedListener {
             return;
         }
         
+        // The nodes are not where the layout will put them, so lay out again when coming back
+        if(fGraphViewer.isLayoutPending()) {
+            fGraphViewer.cancelLayout();
+            fPositions.remove(fCurrentConcept);
+            return;
+        }
+        
         NodePositions pos = fPositions.get(fCurrentConcept);
         if(pos == null) {
             pos = new NodePositions();
@@ -170,10 +177,11 @@ public class DrillDownManager implements ISelectionChangedListener {
         NodePositions pos = fPositions.get(fCurrentConcept);
         if(pos != null) {
             // Restore positions
+            fGraphViewer.cancelLayout();
             pos.restoreNodePositions();
         }
         else {
-            // Use default layout
+            // Use default layout in the background
             fGraphViewer.doApplyLayout();
         }
     }
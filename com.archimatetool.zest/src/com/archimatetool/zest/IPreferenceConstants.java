@@ -20,5 +20,6 @@ public interface IPreferenceConstants {
     String VISUALISER_DIRECTION = "visualiserDirection"; //$NON-NLS-1$
     String VISUALISER_RELATIONSHIP = "visualiserRelationship"; //$NON-NLS-1$
     String VISUALISER_ELEMENT = "visualiserElement"; //$NON-NLS-1$
+    String VISUALISER_LAYOUT = "visualiserLayout"; //$NON-NLS-1$
     
 }
@@ -32,6 +32,8 @@ public class Messages extends NLS {
 
     public static String IZestView_0;
 
+    public static String ZestGraphViewer_0;
+
     public static String ZestView_0;
 
     public static String ZestView_1;
@@ -52,6 +54,14 @@ public class Messages extends NLS {
 
 	public static String ZestView_17;
 
+    public static String ZestView_18;
+
+    public static String ZestView_19;
+
+    public static String ZestView_20;
+
+    public static String ZestView_21;
+
     public static String ZestView_2;
 
     public static String ZestView_3;
@@ -5,23 +5,51 @@
  */
 package com.archimatetool.zest;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.draw2d.Viewport;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.events.MouseWheelListener;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.zest.core.viewers.GraphViewer;
+import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphNode;
 import org.eclipse.zest.core.widgets.ZestStyles;
 
+import com.archimatetool.zest.layout.ForceDirectedLayoutAlgorithm;
+import com.archimatetool.zest.layout.ILayoutAlgorithm;
+import com.archimatetool.zest.layout.LayoutGraph;
+
 
 
 /**
  * Zest Graph Viewer
  * 
+ * Layouts are done by an ILayoutAlgorithm in a background Job on a LayoutGraph copy of the nodes' locations and sizes,
+ * and the new locations are set on the nodes when the Job is done.
+ * 
  * @author Phillip Beauvoir
  */
 public class ZestGraphViewer extends GraphViewer {
     
+    // Size of the area to lay out in if the control has not been sized yet
+    private static final int DEFAULT_LAYOUT_WIDTH = 800;
+    private static final int DEFAULT_LAYOUT_HEIGHT = 600;
+    
+    private ILayoutAlgorithm fLayoutAlgorithm = new ForceDirectedLayoutAlgorithm();
+    
+    private Job fLayoutJob;
+    
     public ZestGraphViewer(Composite composite, int style) {
         super(composite, style);
         setContentProvider(new ZestViewerContentProvider());
@@ -55,8 +83,122 @@ public class ZestGraphViewer extends GraphViewer {
         });
     }
     
+    /**
+     * Set the layout algorithm used by doApplyLayout()
+     */
+    public void setGraphLayoutAlgorithm(ILayoutAlgorithm algorithm) {
+        fLayoutAlgorithm = algorithm;
+    }
+    
+    public ILayoutAlgorithm getGraphLayoutAlgorithm() {
+        return fLayoutAlgorithm;
+    }
+    
+    /**
+     * Lay out the nodes in a background Job, cancelling any layout that hasn't finished
+     */
     void doApplyLayout() {
-        super.applyLayout();
+        cancelLayout();
+        
+        final LayoutGraph layoutGraph = createLayoutGraph();
+        if(layoutGraph.getNodeCount() == 0) {
+            return;
+        }
+        
+        Rectangle area = getGraphControl().getClientArea();
+        final int width = area.width > 0 ? area.width : DEFAULT_LAYOUT_WIDTH;
+        final int height = area.height > 0 ? area.height : DEFAULT_LAYOUT_HEIGHT;
+        
+        final ILayoutAlgorithm algorithm = fLayoutAlgorithm;
+        final Display display = getGraphControl().getDisplay();
+        
+        fLayoutJob = new Job(Messages.ZestGraphViewer_0) {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                algorithm.layout(layoutGraph, width, height, monitor);
+                
+                if(monitor.isCanceled()) {
+                    return Status.CANCEL_STATUS;
+                }
+                
+                final Job job = this;
+                
+                display.asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Layout is still current
+                        if(job == fLayoutJob && !getGraphControl().isDisposed()) {
+                            fLayoutJob = null;
+                            setNodeLocations(layoutGraph);
+                        }
+                    }
+                });
+                
+                return Status.OK_STATUS;
+            }
+        };
+        
+        fLayoutJob.setSystem(true);
+        fLayoutJob.schedule();
+    }
+    
+    /**
+     * @return true if a layout has been started and its node locations have not been set yet
+     */
+    boolean isLayoutPending() {
+        return fLayoutJob != null;
+    }
+    
+    /**
+     * Cancel a layout that hasn't finished so that its node locations are not set
+     */
+    void cancelLayout() {
+        if(fLayoutJob != null) {
+            fLayoutJob.cancel();
+            fLayoutJob = null;
+        }
+    }
+    
+    /**
+     * @return A copy of the nodes and connections of the graph with the GraphNodes as the data of the nodes
+     */
+    LayoutGraph createLayoutGraph() {
+        LayoutGraph layoutGraph = new LayoutGraph();
+        Map<GraphNode, Integer> indexes = new IdentityHashMap<>();
+        Object input = getInput();
+        
+        for(Object o : getGraphControl().getNodes()) {
+            GraphNode node = (GraphNode)o;
+            Point location = node.getLocation();
+            Dimension size = node.getSize();
+            int index = layoutGraph.addNode(node, location.x, location.y, size.width, size.height);
+            indexes.put(node, index);
+            
+            if(input != null && node.getData() == input) {
+                layoutGraph.setFocus(index);
+            }
+        }
+        
+        for(Object o : getGraphControl().getConnections()) {
+            GraphConnection connection = (GraphConnection)o;
+            Integer source = indexes.get(connection.getSource());
+            Integer target = indexes.get(connection.getDestination());
+            if(source != null && target != null) {
+                layoutGraph.addEdge(source, target);
+            }
+        }
+        
+        return layoutGraph;
+    }
+    
+    private void setNodeLocations(LayoutGraph layoutGraph) {
+        for(int i = 0; i < layoutGraph.getNodeCount(); i++) {
+            GraphNode node = (GraphNode)layoutGraph.getData(i);
+            // The graph may have been refreshed since the layout was started
+            if(!node.isDisposed()) {
+                node.setLocation(Math.round(layoutGraph.getX(i)), Math.round(layoutGraph.getY(i)));
+            }
+        }
     }
 
     @Override
@@ -43,8 +43,6 @@ import org.eclipse.ui.IWorkbenchActionConstants;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.actions.ActionFactory;
-import org.eclipse.zest.layouts.LayoutStyles;
-import org.eclipse.zest.layouts.algorithms.SpringLayoutAlgorithm;
 
 import com.archimatetool.editor.model.IEditorModelManager;
 import com.archimatetool.editor.ui.ArchiLabelProvider;
@@ -63,6 +61,10 @@ import com.archimatetool.model.IBounds;
 import com.archimatetool.model.util.ArchimateModelUtils;
 import com.archimatetool.model.viewpoints.IViewpoint;
 import com.archimatetool.model.viewpoints.ViewpointManager;
+import com.archimatetool.zest.layout.ForceDirectedLayoutAlgorithm;
+import com.archimatetool.zest.layout.ILayoutAlgorithm;
+import com.archimatetool.zest.layout.LayeredLayoutAlgorithm;
+import com.archimatetool.zest.layout.RadialLayoutAlgorithm;
 
 
 
@@ -88,6 +90,7 @@ implements IZestView, ISelectionListener {
     
     private IAction[] fDepthActions;
     private IAction[] fDirectionActions;
+    private IAction[] fLayoutActions;
     private List<IAction> fViewpointActions;
     
     private List<IAction> fRelationshipActions;
@@ -119,12 +122,6 @@ implements IZestView, ISelectionListener {
         fGraphViewer = new ZestGraphViewer(parent, SWT.NONE);
         fGraphViewer.getGraphControl().setLayoutData(new GridData(GridData.FILL, GridData.FILL, true, true));
         
-        // spring is the default - we do need to set this here!
-        fGraphViewer.setLayoutAlgorithm(new SpringLayoutAlgorithm(LayoutStyles.NO_LAYOUT_NODE_RESIZING), true);
-        //fGraphViewer.setLayoutAlgorithm(new TreeLayoutAlgorithm(LayoutStyles.NO_LAYOUT_NODE_RESIZING), true);
-        //fGraphViewer.setLayoutAlgorithm(new RadialLayoutAlgorithm(LayoutStyles.NO_LAYOUT_NODE_RESIZING), true);
-        //fGraphViewer.setLayoutAlgorithm(new HorizontalTreeLayoutAlgorithm(LayoutStyles.NO_LAYOUT_NODE_RESIZING), true);
-        
         // Graph selection listener
         fGraphViewer.addSelectionChangedListener(new ISelectionChangedListener() {
             @Override
@@ -274,6 +271,9 @@ implements IZestView, ISelectionListener {
         // Direction
         menuManager.add(createDirectionMenu());
 
+        // Layout Algorithm
+        menuManager.add(createLayoutMenu());
+
 		menuManager.add(new Separator());
 		
 		menuManager.add(fActionSelectInModelTree);
@@ -324,6 +324,9 @@ implements IZestView, ISelectionListener {
         // Direction
         createDirectionActions();
 
+        // Layout Algorithm
+        createLayoutActions();
+
         fActionProperties = new PropertiesAction(getViewer());
 
         fActionLayout = new Action(Messages.ZestView_0) {
@@ -638,6 +641,47 @@ implements IZestView, ISelectionListener {
         return act;
     }
 
+    private void createLayoutActions() {
+        // Layout Algorithm
+        ILayoutAlgorithm[] algorithms = {
+                new ForceDirectedLayoutAlgorithm(),
+                new LayeredLayoutAlgorithm(),
+                new RadialLayoutAlgorithm()
+        };
+
+        fLayoutActions = new Action[3];
+        fLayoutActions[0] = createLayoutMenuAction(0, Messages.ZestView_19, algorithms[0]);
+        fLayoutActions[1] = createLayoutMenuAction(1, Messages.ZestView_20, algorithms[1]);
+        fLayoutActions[2] = createLayoutMenuAction(2, Messages.ZestView_21, algorithms[2]);
+
+        // Set layout algorithm from prefs
+        int layout = ArchiZestPlugin.INSTANCE.getPreferenceStore().getInt(IPreferenceConstants.VISUALISER_LAYOUT);
+        if(layout < 0 || layout >= algorithms.length) {
+            layout = 0;
+        }
+        fGraphViewer.setGraphLayoutAlgorithm(algorithms[layout]);
+        fLayoutActions[layout].setChecked(true);
+    }
+
+    private IAction createLayoutMenuAction(final int actionId, String label, final ILayoutAlgorithm algorithm) {
+        IAction act = new Action(label, IAction.AS_RADIO_BUTTON) {
+
+            @Override
+            public void run() {
+                // Set layout algorithm
+                fGraphViewer.setGraphLayoutAlgorithm(algorithm);
+                // Store in prefs
+                ArchiZestPlugin.INSTANCE.getPreferenceStore().setValue(IPreferenceConstants.VISUALISER_LAYOUT, actionId);
+                // Layout
+                fGraphViewer.doApplyLayout();
+            }
+        };
+
+        act.setId(Integer.toString(actionId));
+
+        return act;
+    }
+
     /**
      * Register Global Action Handlers
      */
@@ -699,6 +743,9 @@ implements IZestView, ISelectionListener {
         // Direction
         manager.add(createDirectionMenu());
 
+        // Layout Algorithm
+        manager.add(createLayoutMenu());
+
         manager.add(new Separator());
 
         manager.add(fActionCopyImageToClipboard);
@@ -734,6 +781,16 @@ implements IZestView, ISelectionListener {
         return directionMenuManager;
     }
     
+    private IMenuManager createLayoutMenu() {
+        IMenuManager layoutMenuManager = new MenuManager(Messages.ZestView_18);
+
+        for(IAction action : fLayoutActions) {
+            layoutMenuManager.add(action);
+        }
+
+        return layoutMenuManager;
+    }
+    
     private IMenuManager createDepthMenu() {
         IMenuManager depthMenuManager = new MenuManager(Messages.ZestView_3);
 
@@ -5,8 +5,8 @@
  */
 package com.archimatetool.zest;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.jface.viewers.Viewer;
@@ -15,7 +15,8 @@ import org.eclipse.zest.core.viewers.IGraphContentProvider;
 import com.archimatetool.model.IArchimateConcept;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateRelationship;
-import com.archimatetool.model.util.ArchimateModelUtils;
+import com.archimatetool.model.util.ModelGraphTraversal;
+import com.archimatetool.model.util.ModelGraphTraversal.Direction;
 import com.archimatetool.model.viewpoints.IViewpoint;
 import com.archimatetool.model.viewpoints.ViewpointManager;
 
@@ -105,9 +106,17 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
 
             // Element - Get its relationships
             if(archimateConcept instanceof IArchimateElement) {
-                List<IArchimateRelationship> mainList = new ArrayList<IArchimateRelationship>();
-                getRelations(mainList, new ArrayList<IArchimateConcept>(), archimateConcept, 0);
-                return mainList.toArray();
+                Set<IArchimateRelationship> relationships = new LinkedHashSet<IArchimateRelationship>();
+                
+                createTraversal().traverse(archimateConcept, (relationship, from, to, depth) -> {
+                    // If the other concept is an element and is not filtered
+                    if(to instanceof IArchimateElement && !isFilteredByElement((IArchimateElement)to)) {
+                        relationships.add(relationship);
+                    }
+                    return true;
+                });
+                
+                return relationships.toArray();
             }
         }
         
@@ -115,42 +124,24 @@ public class ZestViewerContentProvider implements IGraphContentProvider {
     }
     
     /**
-     * Get all relations from source and target of concept and add to list, no more than DEPTH
+     * @return A traversal of relationships from a concept with this provider's depth, direction, viewpoint and relationship filter
      */
-    private void getRelations(List<IArchimateRelationship> mainList, List<IArchimateConcept> checkList, IArchimateConcept concept, int count) {
-        if(checkList.contains(concept)) {
-            return;
-        }
+    private ModelGraphTraversal createTraversal() {
+        ModelGraphTraversal traversal = new ModelGraphTraversal();
         
-        checkList.add(concept);
+        traversal.setMaxDepth(fDepth);
         
-        if(count > fDepth) {
-            return;
+        if(fDirection == DIR_IN) {
+            traversal.setDirection(Direction.INCOMING);
+        }
+        else if(fDirection == DIR_OUT) {
+            traversal.setDirection(Direction.OUTGOING);
         }
         
-        count++;
-        
-        List<IArchimateRelationship> allRelationships = ArchimateModelUtils.getAllRelationshipsForConcept(concept);
+        traversal.setConceptFilter(concept -> fViewpoint.isAllowedConcept(concept.eClass()));
+        traversal.setRelationshipFilter(relationship -> !isFilteredByRelationship(relationship));
         
-        for(IArchimateRelationship relationship : allRelationships) {
-            IArchimateConcept other = relationship.getSource().equals(concept) ? relationship.getTarget() : relationship.getSource();
-            int direction = relationship.getSource().equals(concept) ? DIR_OUT : DIR_IN;
-
-            if(!mainList.contains(relationship) && fViewpoint.isAllowedConcept(other.eClass()) && !isFilteredByRelationship(relationship)) {
-                if(direction == fDirection || fDirection == DIR_BOTH) {
-                    // If the other concept is an element and is filtered
-                    if(other instanceof IArchimateElement && !isFilteredByElement((IArchimateElement)other)) {
-                        mainList.add(relationship);
-                    }
-                }
-            }
-
-            if(fViewpoint.isAllowedConcept(other.eClass()) && !isFilteredByRelationship(relationship)) {
-                if(direction == fDirection || fDirection == DIR_BOTH) {
-                    getRelations(mainList, checkList, other, count);
-                }
-            }
-        }
+        return traversal;
     }
     
     @Override
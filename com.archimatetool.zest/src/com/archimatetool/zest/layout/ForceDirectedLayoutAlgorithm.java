@@ -0,0 +1,301 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.zest.layout;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+
+/**
+ * Force directed layout.
+ *
+ * Nodes repel each other and edges pull the nodes they connect together, as in Fruchterman and Reingold's algorithm,
+ * and the nodes are moved a little less on each iteration until they settle.
+ * The repulsion between all pairs of nodes is approximated with a Barnes-Hut quadtree so that each iteration takes
+ * O(n log n) rather than O(n^2) time: a group of nodes far enough away from a node pushes it as one node at the group's centre.
+ *
+ * If the nodes already have different locations they are the starting point, so laying out again keeps the
+ * graph's overall shape. Otherwise the nodes start on a circle.
+ *
+ * @author Phillip Beauvoir
+ */
+public class ForceDirectedLayoutAlgorithm implements ILayoutAlgorithm {
+
+    static final int ITERATIONS = 200;
+
+    /**
+     * A group of nodes is treated as one node if its size divided by its distance is less than this
+     */
+    static final double THETA = 0.8;
+
+    // Space between nodes in addition to their size
+    private static final double SPACING = 40;
+
+    // Pull towards the centre so that unconnected nodes don't drift away
+    private static final double GRAVITY = 0.02;
+
+    // Maximum depth of the quadtree, below which nodes at the same location are kept together
+    private static final int MAX_DEPTH = 32;
+
+    private static final double MARGIN = 20;
+
+    public ForceDirectedLayoutAlgorithm() {
+    }
+
+    @Override
+    public void layout(LayoutGraph graph, double width, double height, IProgressMonitor monitor) {
+        int n = graph.getNodeCount();
+        if(n == 0) {
+            return;
+        }
+
+        Simulation simulation = new Simulation(graph);
+
+        // Far enough to cross the start circle at first, and less each iteration
+        double startTemperature = simulation.k * Math.max(2, Math.sqrt(n) / 2);
+
+        for(int iteration = 0; iteration < ITERATIONS; iteration++) {
+            if(monitor.isCanceled()) {
+                return;
+            }
+
+            double temperature = startTemperature * (1 - (double)iteration / ITERATIONS);
+            simulation.iterate(temperature);
+        }
+
+        for(int i = 0; i < n; i++) {
+            graph.setLocation(i, simulation.x[i] - graph.getWidth(i) / 2, simulation.y[i] - graph.getHeight(i) / 2);
+        }
+
+        graph.place(width, height, MARGIN);
+    }
+
+    /**
+     * The state of one layout, so that the algorithm can lay out more than one graph at a time
+     */
+    private static class Simulation {
+        final LayoutGraph graph;
+
+        // Ideal distance between nodes and its square
+        final double k, k2;
+
+        // Centres of the nodes
+        final double[] x, y;
+
+        // Displacement of the nodes in an iteration
+        final double[] dispX, dispY;
+
+        Simulation(LayoutGraph graph) {
+            this.graph = graph;
+
+            int n = graph.getNodeCount();
+            k = graph.getMaxNodeSize() + SPACING;
+            k2 = k * k;
+            x = new double[n];
+            y = new double[n];
+            dispX = new double[n];
+            dispY = new double[n];
+
+            setStartLocations();
+        }
+
+        private void setStartLocations() {
+            int n = graph.getNodeCount();
+
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+            for(int i = 0; i < n; i++) {
+                x[i] = graph.getX(i) + graph.getWidth(i) / 2;
+                y[i] = graph.getY(i) + graph.getHeight(i) / 2;
+                minX = Math.min(minX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxX = Math.max(maxX, x[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+
+            // All in the same place, as new nodes are
+            if(n > 1 && maxX - minX < 1 && maxY - minY < 1) {
+                double radius = k * n / (2 * Math.PI);
+                for(int i = 0; i < n; i++) {
+                    double angle = 2 * Math.PI * i / n;
+                    x[i] = radius * Math.cos(angle);
+                    y[i] = radius * Math.sin(angle);
+                }
+            }
+        }
+
+        void iterate(double temperature) {
+            int n = graph.getNodeCount();
+
+            Quad root = createQuadTree(n);
+
+            double centreX = root.sumX / n;
+            double centreY = root.sumY / n;
+
+            // Repulsion and gravity
+            for(int i = 0; i < n; i++) {
+                dispX[i] = 0;
+                dispY[i] = 0;
+                repulse(root, i);
+                dispX[i] -= (x[i] - centreX) * GRAVITY;
+                dispY[i] -= (y[i] - centreY) * GRAVITY;
+            }
+
+            // Attraction
+            for(int e = 0; e < graph.getEdgeCount(); e++) {
+                int source = graph.getEdgeSource(e);
+                int target = graph.getEdgeTarget(e);
+                double dx = x[source] - x[target];
+                double dy = y[source] - y[target];
+                double d = Math.sqrt(dx * dx + dy * dy);
+
+                // (d * d / k) along the unit vector
+                double f = d / k;
+                dispX[source] -= dx * f;
+                dispY[source] -= dy * f;
+                dispX[target] += dx * f;
+                dispY[target] += dy * f;
+            }
+
+            // Move each node in the direction of its displacement, by no more than the temperature
+            for(int i = 0; i < n; i++) {
+                double d = Math.sqrt(dispX[i] * dispX[i] + dispY[i] * dispY[i]);
+                if(d > 0) {
+                    double move = Math.min(d, temperature);
+                    x[i] += dispX[i] / d * move;
+                    y[i] += dispY[i] / d * move;
+                }
+            }
+        }
+
+        /**
+         * Add the repulsion of the nodes in a quad to node i's displacement
+         */
+        private void repulse(Quad quad, int i) {
+            if(quad.mass == 0 || (quad.children == null && quad.body == i && quad.mass == 1)) {
+                return;
+            }
+
+            double dx = x[i] - quad.sumX / quad.mass;
+            double dy = y[i] - quad.sumY / quad.mass;
+            double d2 = dx * dx + dy * dy;
+
+            if(quad.children == null || quad.size * quad.size < THETA * THETA * d2) {
+                // Nodes in the same place are pushed apart in a different direction for each node
+                if(d2 < 0.01) {
+                    double angle = i * 2.399963;
+                    dx = Math.cos(angle) * 0.1;
+                    dy = Math.sin(angle) * 0.1;
+                    d2 = 0.01;
+                }
+
+                // (k * k / d) along the unit vector
+                double f = k2 * quad.mass / d2;
+                dispX[i] += dx * f;
+                dispY[i] += dy * f;
+            }
+            else {
+                for(Quad child : quad.children) {
+                    if(child != null) {
+                        repulse(child, i);
+                    }
+                }
+            }
+        }
+
+        private Quad createQuadTree(int n) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+            for(int i = 0; i < n; i++) {
+                minX = Math.min(minX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxX = Math.max(maxX, x[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+
+            Quad root = new Quad(minX, minY, Math.max(maxX - minX, maxY - minY) + 1);
+
+            for(int i = 0; i < n; i++) {
+                insert(root, i);
+            }
+
+            return root;
+        }
+
+        private void insert(Quad quad, int i) {
+            for(int depth = 0; ; depth++) {
+                if(quad.children == null) {
+                    // Empty leaf
+                    if(quad.mass == 0) {
+                        quad.body = i;
+                        quad.add(x[i], y[i]);
+                        return;
+                    }
+
+                    // Too deep to split, so keep the nodes together
+                    if(depth >= MAX_DEPTH) {
+                        quad.add(x[i], y[i]);
+                        return;
+                    }
+
+                    // Split the leaf and move its node down
+                    int body = quad.body;
+                    quad.body = -1;
+                    quad.children = new Quad[4];
+                    Quad child = quad.getChild(x[body], y[body]);
+                    child.body = body;
+                    child.add(x[body], y[body]);
+                }
+
+                quad.add(x[i], y[i]);
+                quad = quad.getChild(x[i], y[i]);
+            }
+        }
+    }
+
+    /**
+     * A square of the quadtree
+     */
+    private static class Quad {
+        final double x, y, size;
+
+        // Number of nodes and the sum of their locations
+        int mass;
+        double sumX, sumY;
+
+        // The node of a leaf with one node
+        int body = -1;
+
+        Quad[] children;
+
+        Quad(double x, double y, double size) {
+            this.x = x;
+            this.y = y;
+            this.size = size;
+        }
+
+        void add(double px, double py) {
+            mass++;
+            sumX += px;
+            sumY += py;
+        }
+
+        Quad getChild(double px, double py) {
+            double half = size / 2;
+            boolean right = px >= x + half;
+            boolean bottom = py >= y + half;
+            int index = (right ? 1 : 0) + (bottom ? 2 : 0);
+
+            if(children[index] == null) {
+                children[index] = new Quad(right ? x + half : x, bottom ? y + half : y, half);
+            }
+
+            return children[index];
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.zest.layout;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+
+/**
+ * A layout algorithm that sets the locations of the nodes of a LayoutGraph.
+ *
+ * Algorithms do not use the UI and may be run on any thread. An algorithm instance is not used by more than
+ * one thread at a time.
+ *
+ * @author Phillip Beauvoir
+ */
+public interface ILayoutAlgorithm {
+
+    /**
+     * Lay out a graph
+     * @param graph The graph. Node locations are the current locations and are set to the new locations.
+     * @param width The width of the area that the graph is shown in
+     * @param height The height of the area that the graph is shown in
+     * @param monitor Progress monitor. If cancelled the algorithm may stop and leave the graph in any state.
+     */
+    void layout(LayoutGraph graph, double width, double height, IProgressMonitor monitor);
+
+}
@@ -0,0 +1,272 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.zest.layout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+
+/**
+ * Layered layout in the manner of Sugiyama.
+ *
+ * Edges point down the layout from their source to their target:
+ * 1. Cycles are broken by treating the edges that point back up a depth first search as if they were reversed.
+ * 2. Each node is put in the layer below the longest path of edges that leads to it.
+ * 3. The nodes in each layer are ordered by the average position of their neighbours in the layers above and then
+ *    below, a number of times, to reduce the number of edges that cross.
+ * 4. The layers are spaced by the height of their nodes and each layer is centred.
+ *
+ * Edges that span more than one layer are not given bends, so their crossings are only reduced approximately.
+ *
+ * @author Phillip Beauvoir
+ */
+public class LayeredLayoutAlgorithm implements ILayoutAlgorithm {
+
+    static final int SWEEPS = 8;
+
+    private static final double HORIZONTAL_SPACING = 30;
+    private static final double VERTICAL_SPACING = 80;
+    private static final double MARGIN = 20;
+
+    public LayeredLayoutAlgorithm() {
+    }
+
+    @Override
+    public void layout(LayoutGraph graph, double width, double height, IProgressMonitor monitor) {
+        int n = graph.getNodeCount();
+        if(n == 0) {
+            return;
+        }
+
+        int[] layer = getLayers(graph);
+
+        if(monitor.isCanceled()) {
+            return;
+        }
+
+        List<List<Integer>> layers = new ArrayList<>();
+        for(int i = 0; i < n; i++) {
+            while(layers.size() <= layer[i]) {
+                layers.add(new ArrayList<>());
+            }
+            layers.get(layer[i]).add(i);
+        }
+
+        // Position of each node in its layer
+        double[] position = new double[n];
+        setPositions(layers, position);
+
+        double[] barycentre = new double[n];
+
+        for(int sweep = 0; sweep < SWEEPS; sweep++) {
+            if(monitor.isCanceled()) {
+                return;
+            }
+
+            boolean down = sweep % 2 == 0;
+            for(int l = 0; l < layers.size(); l++) {
+                List<Integer> nodes = layers.get(down ? l : layers.size() - 1 - l);
+                orderByBarycentre(graph, nodes, layer, position, barycentre, down);
+            }
+        }
+
+        setLocations(graph, layers);
+        graph.place(width, height, MARGIN);
+    }
+
+    /**
+     * @return The layer of each node
+     */
+    int[] getLayers(LayoutGraph graph) {
+        int n = graph.getNodeCount();
+        int edgeCount = graph.getEdgeCount();
+
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        for(int e = 0; e < edgeCount; e++) {
+            sources[e] = graph.getEdgeSource(e);
+            targets[e] = graph.getEdgeTarget(e);
+        }
+
+        boolean[] reversed = getReversedEdges(graph, getOutgoingEdges(n, sources));
+
+        // Break the cycles
+        for(int e = 0; e < edgeCount; e++) {
+            if(reversed[e]) {
+                int source = sources[e];
+                sources[e] = targets[e];
+                targets[e] = source;
+            }
+        }
+
+        int[][] outgoing = getOutgoingEdges(n, sources);
+
+        // Longest path layering in topological order
+        int[] inDegree = new int[n];
+        for(int e = 0; e < edgeCount; e++) {
+            inDegree[targets[e]]++;
+        }
+
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        for(int i = 0; i < n; i++) {
+            if(inDegree[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+
+        int[] layer = new int[n];
+
+        while(head < tail) {
+            int node = queue[head++];
+            for(int e : outgoing[node]) {
+                int to = targets[e];
+                layer[to] = Math.max(layer[to], layer[node] + 1);
+                if(--inDegree[to] == 0) {
+                    queue[tail++] = to;
+                }
+            }
+        }
+
+        return layer;
+    }
+
+    /**
+     * @return The indexes of the edges from each node
+     */
+    private int[][] getOutgoingEdges(int n, int[] sources) {
+        int[] counts = new int[n];
+        for(int source : sources) {
+            counts[source]++;
+        }
+
+        int[][] outgoing = new int[n][];
+        for(int i = 0; i < n; i++) {
+            outgoing[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+
+        for(int e = 0; e < sources.length; e++) {
+            outgoing[sources[e]][counts[sources[e]]++] = e;
+        }
+
+        return outgoing;
+    }
+
+    /**
+     * @return Whether each edge points back up a depth first search, starting from the focus node
+     */
+    private boolean[] getReversedEdges(LayoutGraph graph, int[][] outgoing) {
+        int n = graph.getNodeCount();
+        boolean[] reversed = new boolean[graph.getEdgeCount()];
+
+        // 0 not visited, 1 on the search path, 2 done
+        byte[] state = new byte[n];
+        int[] stack = new int[n];
+        int[] next = new int[n];
+
+        for(int k = -1; k < n; k++) {
+            int start = k == -1 ? graph.getFocus() : k;
+            if(start == -1 || state[start] != 0) {
+                continue;
+            }
+
+            int top = 0;
+            stack[0] = start;
+            state[start] = 1;
+
+            while(top >= 0) {
+                int node = stack[top];
+
+                if(next[node] == outgoing[node].length) {
+                    state[node] = 2;
+                    top--;
+                    continue;
+                }
+
+                int e = outgoing[node][next[node]++];
+                int target = graph.getEdgeTarget(e);
+
+                if(state[target] == 1) {
+                    reversed[e] = true;
+                }
+                else if(state[target] == 0) {
+                    state[target] = 1;
+                    stack[++top] = target;
+                }
+            }
+        }
+
+        return reversed;
+    }
+
+    private void orderByBarycentre(LayoutGraph graph, List<Integer> nodes, int[] layer, double[] position, double[] barycentre, boolean down) {
+        for(int node : nodes) {
+            double sum = 0;
+            int count = 0;
+
+            // Neighbours in the layers that have just been ordered
+            for(int neighbour : graph.getNeighbours(node)) {
+                if(down ? layer[neighbour] < layer[node] : layer[neighbour] > layer[node]) {
+                    sum += position[neighbour];
+                    count++;
+                }
+            }
+
+            barycentre[node] = count == 0 ? position[node] : sum / count;
+        }
+
+        // Stable, so nodes with the same barycentre keep their order
+        nodes.sort(Comparator.comparingDouble(node -> barycentre[node]));
+
+        for(int i = 0; i < nodes.size(); i++) {
+            position[nodes.get(i)] = i;
+        }
+    }
+
+    private void setPositions(List<List<Integer>> layers, double[] position) {
+        for(List<Integer> nodes : layers) {
+            for(int i = 0; i < nodes.size(); i++) {
+                position[nodes.get(i)] = i;
+            }
+        }
+    }
+
+    private void setLocations(LayoutGraph graph, List<List<Integer>> layers) {
+        double[] layerWidths = new double[layers.size()];
+        double maxWidth = 0;
+
+        for(int l = 0; l < layers.size(); l++) {
+            for(int node : layers.get(l)) {
+                layerWidths[l] += graph.getWidth(node) + HORIZONTAL_SPACING;
+            }
+            maxWidth = Math.max(maxWidth, layerWidths[l]);
+        }
+
+        double y = 0;
+
+        for(int l = 0; l < layers.size(); l++) {
+            double x = (maxWidth - layerWidths[l]) / 2;
+            double layerHeight = 0;
+
+            for(int node : layers.get(l)) {
+                layerHeight = Math.max(layerHeight, graph.getHeight(node));
+            }
+
+            for(int node : layers.get(l)) {
+                // Centre the node vertically in its layer
+                graph.setLocation(node, x, y + (layerHeight - graph.getHeight(node)) / 2);
+                x += graph.getWidth(node) + HORIZONTAL_SPACING;
+            }
+
+            y += layerHeight + VERTICAL_SPACING;
+        }
+    }
+}
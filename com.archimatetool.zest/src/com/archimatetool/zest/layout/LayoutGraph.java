@@ -0,0 +1,252 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.zest.layout;
+
+import java.util.Arrays;
+
+
+
+/**
+ * A graph of nodes and edges with plain coordinates that a layout algorithm can work on away from the UI thread.
+ *
+ * Nodes are referred to by their index in the order that they were added. Each node has the opaque data it was
+ * added with so that the result can be applied to whatever the graph was made from.
+ *
+ * @author Phillip Beauvoir
+ */
+public class LayoutGraph {
+
+    private Object[] fData = new Object[16];
+    private double[] fX = new double[16];
+    private double[] fY = new double[16];
+    private double[] fWidth = new double[16];
+    private double[] fHeight = new double[16];
+    private int fNodeCount;
+
+    private int[] fSources = new int[16];
+    private int[] fTargets = new int[16];
+    private int fEdgeCount;
+
+    private int fFocus = -1;
+
+    // Neighbours of each node, built when first asked for
+    private int[][] fNeighbours;
+
+    public LayoutGraph() {
+    }
+
+    /**
+     * Add a node
+     * @param data The data of the node
+     * @return The index of the node
+     */
+    public int addNode(Object data, double x, double y, double width, double height) {
+        if(fNodeCount == fData.length) {
+            int size = fNodeCount * 2;
+            fData = Arrays.copyOf(fData, size);
+            fX = Arrays.copyOf(fX, size);
+            fY = Arrays.copyOf(fY, size);
+            fWidth = Arrays.copyOf(fWidth, size);
+            fHeight = Arrays.copyOf(fHeight, size);
+        }
+
+        fData[fNodeCount] = data;
+        fX[fNodeCount] = x;
+        fY[fNodeCount] = y;
+        fWidth[fNodeCount] = width;
+        fHeight[fNodeCount] = height;
+        fNeighbours = null;
+
+        return fNodeCount++;
+    }
+
+    /**
+     * Add an edge between two nodes. Edges from a node to itself are ignored.
+     * @param source The index of the source node
+     * @param target The index of the target node
+     */
+    public void addEdge(int source, int target) {
+        checkNode(source);
+        checkNode(target);
+
+        if(source == target) {
+            return;
+        }
+
+        if(fEdgeCount == fSources.length) {
+            fSources = Arrays.copyOf(fSources, fEdgeCount * 2);
+            fTargets = Arrays.copyOf(fTargets, fEdgeCount * 2);
+        }
+
+        fSources[fEdgeCount] = source;
+        fTargets[fEdgeCount] = target;
+        fEdgeCount++;
+        fNeighbours = null;
+    }
+
+    public int getNodeCount() {
+        return fNodeCount;
+    }
+
+    public int getEdgeCount() {
+        return fEdgeCount;
+    }
+
+    public Object getData(int node) {
+        checkNode(node);
+        return fData[node];
+    }
+
+    /**
+     * @return The x coordinate of the top left of a node
+     */
+    public double getX(int node) {
+        checkNode(node);
+        return fX[node];
+    }
+
+    /**
+     * @return The y coordinate of the top left of a node
+     */
+    public double getY(int node) {
+        checkNode(node);
+        return fY[node];
+    }
+
+    public double getWidth(int node) {
+        checkNode(node);
+        return fWidth[node];
+    }
+
+    public double getHeight(int node) {
+        checkNode(node);
+        return fHeight[node];
+    }
+
+    /**
+     * Set the top left of a node
+     */
+    public void setLocation(int node, double x, double y) {
+        checkNode(node);
+        fX[node] = x;
+        fY[node] = y;
+    }
+
+    public int getEdgeSource(int edge) {
+        checkEdge(edge);
+        return fSources[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        checkEdge(edge);
+        return fTargets[edge];
+    }
+
+    /**
+     * @param node The index of the node that the layout is centred on, or -1 for none
+     */
+    public void setFocus(int node) {
+        if(node != -1) {
+            checkNode(node);
+        }
+        fFocus = node;
+    }
+
+    /**
+     * @return The index of the node that the layout is centred on, or -1 for none
+     */
+    public int getFocus() {
+        return fFocus;
+    }
+
+    /**
+     * @return The indexes of the nodes connected to a node by an edge in either direction.
+     *         A node connected by more than one edge is included once for each edge.
+     */
+    public int[] getNeighbours(int node) {
+        checkNode(node);
+
+        if(fNeighbours == null) {
+            int[] counts = new int[fNodeCount];
+            for(int i = 0; i < fEdgeCount; i++) {
+                counts[fSources[i]]++;
+                counts[fTargets[i]]++;
+            }
+
+            int[][] neighbours = new int[fNodeCount][];
+            for(int i = 0; i < fNodeCount; i++) {
+                neighbours[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+
+            for(int i = 0; i < fEdgeCount; i++) {
+                int source = fSources[i];
+                int target = fTargets[i];
+                neighbours[source][counts[source]++] = target;
+                neighbours[target][counts[target]++] = source;
+            }
+
+            fNeighbours = neighbours;
+        }
+
+        return fNeighbours[node];
+    }
+
+    /**
+     * @return The largest width or height of the nodes
+     */
+    public double getMaxNodeSize() {
+        double max = 0;
+        for(int i = 0; i < fNodeCount; i++) {
+            max = Math.max(max, Math.max(fWidth[i], fHeight[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Move the nodes into an area without changing their relative locations.
+     * In each direction the nodes are centred if they fit in the area, or else start at the margin.
+     */
+    public void place(double width, double height, double margin) {
+        if(fNodeCount == 0) {
+            return;
+        }
+
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+
+        for(int i = 0; i < fNodeCount; i++) {
+            minX = Math.min(minX, fX[i]);
+            minY = Math.min(minY, fY[i]);
+            maxX = Math.max(maxX, fX[i] + fWidth[i]);
+            maxY = Math.max(maxY, fY[i] + fHeight[i]);
+        }
+
+        double boundsWidth = maxX - minX;
+        double boundsHeight = maxY - minY;
+        double x = boundsWidth + margin * 2 > width ? margin : (width - boundsWidth) / 2;
+        double y = boundsHeight + margin * 2 > height ? margin : (height - boundsHeight) / 2;
+
+        for(int i = 0; i < fNodeCount; i++) {
+            fX[i] += x - minX;
+            fY[i] += y - minY;
+        }
+    }
+
+    private void checkNode(int node) {
+        if(node < 0 || node >= fNodeCount) {
+            throw new IndexOutOfBoundsException("Node: " + node); //$NON-NLS-1$
+        }
+    }
+
+    private void checkEdge(int edge) {
+        if(edge < 0 || edge >= fEdgeCount) {
+            throw new IndexOutOfBoundsException("Edge: " + edge); //$NON-NLS-1$
+        }
+    }
+}
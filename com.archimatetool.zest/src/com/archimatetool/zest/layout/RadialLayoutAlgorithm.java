@@ -0,0 +1,163 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.zest.layout;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+
+/**
+ * Radial layout.
+ *
+ * The focus node, or else the node with the most edges, is in the centre and every other node is on a ring
+ * around it at its distance in edges from the centre node. Nodes that can't be reached from the centre node are
+ * put on the first ring with the nodes reached from them on the rings outside it.
+ * Each node has a wedge of its parent's wedge in proportion to the number of leaf nodes under it in the breadth first
+ * search tree, so that subtrees don't overlap.
+ *
+ * @author Phillip Beauvoir
+ */
+public class RadialLayoutAlgorithm implements ILayoutAlgorithm {
+
+    private static final double RING_SPACING = 60;
+    private static final double NODE_SPACING = 20;
+    private static final double MARGIN = 20;
+
+    public RadialLayoutAlgorithm() {
+    }
+
+    @Override
+    public void layout(LayoutGraph graph, double width, double height, IProgressMonitor monitor) {
+        int n = graph.getNodeCount();
+        if(n == 0) {
+            return;
+        }
+
+        int root = getRoot(graph);
+
+        // Breadth first search tree
+        int[] parent = new int[n];
+        int[] depth = new int[n];
+        int[] order = new int[n];
+        int count = 0;
+
+        parent[root] = -1;
+        order[count++] = root;
+        boolean[] reached = new boolean[n];
+        reached[root] = true;
+
+        for(int head = 0, next = 0; head < n; ) {
+            // Start again from a node that hasn't been reached, on the first ring
+            if(head == count) {
+                while(reached[next]) {
+                    next++;
+                }
+                reached[next] = true;
+                parent[next] = root;
+                depth[next] = 1;
+                order[count++] = next;
+            }
+
+            int node = order[head++];
+            for(int neighbour : graph.getNeighbours(node)) {
+                if(!reached[neighbour]) {
+                    reached[neighbour] = true;
+                    parent[neighbour] = node;
+                    depth[neighbour] = depth[node] + 1;
+                    order[count++] = neighbour;
+                }
+            }
+        }
+
+        if(monitor.isCanceled()) {
+            return;
+        }
+
+        // Number of leaves under each node, children before parents
+        int[] leaves = new int[n];
+        for(int i = n - 1; i >= 0; i--) {
+            int node = order[i];
+            if(leaves[node] == 0) {
+                leaves[node] = 1;
+            }
+            if(parent[node] != -1) {
+                leaves[parent[node]] += leaves[node];
+            }
+        }
+
+        // Wedge of each node, parents before children. The next free angle of each parent's wedge is kept in start.
+        double[] wedge = new double[n];
+        double[] start = new double[n];
+        double[] angle = new double[n];
+        wedge[root] = 2 * Math.PI;
+
+        for(int i = 1; i < n; i++) {
+            int node = order[i];
+            int p = parent[node];
+            wedge[node] = wedge[p] * leaves[node] / leaves[p];
+            angle[node] = start[p] + wedge[node] / 2;
+            start[node] = start[p];
+            start[p] += wedge[node];
+        }
+
+        double[] radius = getRadii(graph, depth, wedge);
+
+        for(int i = 0; i < n; i++) {
+            double r = radius[depth[i]];
+            double x = r * Math.cos(angle[i]);
+            double y = r * Math.sin(angle[i]);
+            graph.setLocation(i, x - graph.getWidth(i) / 2, y - graph.getHeight(i) / 2);
+        }
+
+        graph.place(width, height, MARGIN);
+    }
+
+    /**
+     * @return The focus node, or else the node with the most edges
+     */
+    private int getRoot(LayoutGraph graph) {
+        if(graph.getFocus() != -1) {
+            return graph.getFocus();
+        }
+
+        int root = 0;
+        for(int i = 1; i < graph.getNodeCount(); i++) {
+            if(graph.getNeighbours(i).length > graph.getNeighbours(root).length) {
+                root = i;
+            }
+        }
+
+        return root;
+    }
+
+    /**
+     * @return The radius of the ring at each depth, far enough from the ring inside it and large enough that
+     *         the nodes with the smallest wedge on the ring don't overlap their neighbours
+     */
+    private double[] getRadii(LayoutGraph graph, int[] depth, double[] wedge) {
+        int maxDepth = 0;
+        for(int d : depth) {
+            maxDepth = Math.max(maxDepth, d);
+        }
+
+        double[] minWedge = new double[maxDepth + 1];
+        Arrays.fill(minWedge, 2 * Math.PI);
+        for(int i = 0; i < depth.length; i++) {
+            minWedge[depth[i]] = Math.min(minWedge[depth[i]], wedge[i]);
+        }
+
+        double nodeSize = graph.getMaxNodeSize();
+        double[] radius = new double[maxDepth + 1];
+
+        for(int d = 1; d <= maxDepth; d++) {
+            radius[d] = Math.max(radius[d - 1] + nodeSize + RING_SPACING, (nodeSize + NODE_SPACING) / minWedge[d]);
+        }
+
+        return radius;
+    }
+}
@@ -71,6 +71,9 @@ public class ExportXMLProvider extends AbstractCommandLineProvider {
         // Language
         exporter.setLanguageCode(commandLine.getOptionValue(OPTION_EXPORT_XML_LANGUAGE));
         
+        // Write to the file as the model is traversed so that large models don't need the whole Document in memory
+        exporter.setStreaming(true);
+        
         logMessage(NLS.bind(Messages.ExportXMLProvider_3, model.getName(), outputFile.getPath()));
 
         exporter.exportModel(model, outputFile);
@@ -14,7 +14,6 @@ import org.apache.commons.cli.Options;
 import org.eclipse.gef.commands.CommandStack;
 import org.eclipse.osgi.util.NLS;
 import org.opengroup.archimate.xmlexchange.XMLModelImporter;
-import org.opengroup.archimate.xmlexchange.XMLValidator;
 
 import com.archimatetool.commandline.AbstractCommandLineProvider;
 import com.archimatetool.commandline.CommandLineState;
@@ -60,18 +59,16 @@ public class ImportXMLProvider extends AbstractCommandLineProvider {
             return;
         }
         
-        // Validate file
-        logMessage(Messages.ImportXMLProvider_3);
-        
-        XMLValidator validator = new XMLValidator();
-        validator.validateXML(importFile);
-
-        logMessage(Messages.ImportXMLProvider_4);
-        
         logMessage(NLS.bind(Messages.ImportXMLProvider_5, importFile.getPath()));
         
+        // Validate file while it is imported
+        logMessage(Messages.ImportXMLProvider_3);
+        
         XMLModelImporter importer = new XMLModelImporter();
+        importer.setValidate(true);
         IArchimateModel model = importer.createArchiMateModel(importFile);
+        
+        logMessage(Messages.ImportXMLProvider_4);
 
         if(model == null) {
             throw new IOException(Messages.ImportXMLProvider_6);
@@ -80,6 +80,7 @@ public class XMLExchangeExportProvider implements IModelExporter, IXMLExchangeGl
                             xmlModelExporter.setSaveOrganisation(wizard.doSaveOrganisation());
                             xmlModelExporter.setIncludeXSD(wizard.doIncludeXSD());
                             xmlModelExporter.setLanguageCode(wizard.getLanguageCode());
+                            xmlModelExporter.setStreaming(true);
                             
                             xmlModelExporter.exportModel(model, file);
                             
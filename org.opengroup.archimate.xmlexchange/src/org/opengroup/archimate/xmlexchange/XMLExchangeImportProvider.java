@@ -13,7 +13,6 @@ import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.FileDialog;
 import org.jdom2.JDOMException;
-import org.xml.sax.SAXException;
 
 import com.archimatetool.editor.model.IEditorModelManager;
 import com.archimatetool.editor.model.IModelImporter;
@@ -41,19 +40,19 @@ public class XMLExchangeImportProvider implements IModelImporter, IXMLExchangeGl
         BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
             @Override
             public void run() {
-                // Validate file
                 try {
-                    XMLValidator validator = new XMLValidator();
-                    validator.validateXML(file);
-                    
                     XMLModelImporter xmlModelImporter = new XMLModelImporter();
+                    
+                    // Validate file while it is imported
+                    xmlModelImporter.setValidate(true);
+                    
                     IArchimateModel model = xmlModelImporter.createArchiMateModel(file);
                     
                     if(model != null) {
                         IEditorModelManager.INSTANCE.openModel(model);
                     }
                 }
-                catch(SAXException | IOException | JDOMException | XMLModelParserException ex) {
+                catch(IOException | JDOMException | XMLModelParserException ex) {
                     ex1[0] = ex;
                     ex.printStackTrace();
                 }
@@ -7,6 +7,8 @@ package org.opengroup.archimate.xmlexchange;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +31,7 @@ import com.archimatetool.editor.model.DiagramModelUtils;
 import com.archimatetool.editor.ui.ColorFactory;
 import com.archimatetool.editor.ui.FontFactory;
 import com.archimatetool.editor.utils.StringUtils;
+import com.archimatetool.jdom.JDOMStreamWriter;
 import com.archimatetool.jdom.JDOMUtils;
 import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IAccessRelationship;
@@ -61,6 +64,9 @@ import com.archimatetool.model.util.UUIDFactory;
 /**
  * Export Archi Model to Open Exchange XML Format using JDOM
  * 
+ * By default the whole JDOM Document is built and then saved. In streaming mode each element, relationship and view
+ * is written to the file as soon as it has been built, using the same format, so that the Document is never held in memory.
+ * 
  * @author Phillip Beauvoir
  */
 public class XMLModelExporter implements IXMLExchangeGlobals {
@@ -90,21 +96,60 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
      * The language code
      */
     private String fLanguageCode;
+    
+    /**
+     * Whether to write to the file while the model is traversed
+     */
+    private boolean fStreaming;
+    
+    /**
+     * Writer when streaming
+     */
+    private JDOMStreamWriter fWriter;
 
     public void exportModel(IArchimateModel model, File outputFile) throws IOException {
         fModel = model;
         
-        // JDOM Document
-        Document doc = createDocument();
-        
-        // Root Element
-        Element rootElement = createRootElement(doc);
+        if(fStreaming) {
+            // Write to a temporary file that replaces the output file only if the whole model is written,
+            // so that a failure doesn't leave a truncated file or lose an existing one
+            File parent = outputFile.getAbsoluteFile().getParentFile();
+            parent.mkdirs();
+            File tmpFile = File.createTempFile("~" + outputFile.getName(), ".tmp", parent); //$NON-NLS-1$ //$NON-NLS-2$
+            
+            try {
+                try(JDOMStreamWriter writer = new JDOMStreamWriter(tmpFile)) {
+                    fWriter = writer;
+                    
+                    // Root Element
+                    Element rootElement = createRootElement(null);
+                    
+                    // Persist model
+                    writeModel(rootElement);
+                    
+                    writer.endDocument();
+                }
+                
+                Files.move(tmpFile.toPath(), outputFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            finally {
+                fWriter = null;
+                tmpFile.delete();
+            }
+        }
+        else {
+            // JDOM Document
+            Document doc = createDocument();
+            
+            // Root Element
+            Element rootElement = createRootElement(doc);
 
-        // Persist model
-        writeModel(rootElement);
-        
-        // Save
-        JDOMUtils.write2XMLFile(doc, outputFile);
+            // Persist model
+            writeModel(rootElement);
+            
+            // Save
+            JDOMUtils.write2XMLFile(doc, outputFile);
+        }
         
         // XSD
         if(fIncludeXSD) {
@@ -162,6 +207,15 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
     public void setLanguageCode(String languageCode) {
         fLanguageCode = languageCode;
     }
+    
+    /**
+     * Set whether to write to the file while the model is traversed rather than building the whole JDOM Document first.
+     * The file is the same either way.
+     * @param set
+     */
+    public void setStreaming(boolean set) {
+        fStreaming = set;
+    }
 
     /**
      * @return A JDOM Document
@@ -171,12 +225,14 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
     }
     
     /**
-     * @param doc
+     * @param doc The Document, or null if streaming
      * @return The Root JDOM Element
      */
     Element createRootElement(Document doc) {
         Element rootElement = new Element(ELEMENT_MODEL, ARCHIMATE3_NAMESPACE);
-        doc.setRootElement(rootElement);
+        if(doc != null) {
+            doc.setRootElement(rootElement);
+        }
 
         rootElement.addNamespaceDeclaration(JDOMUtils.XSI_Namespace);
         // rootElement.addNamespaceDeclaration(ARCHIMATE3_NAMESPACE_EMBEDDED); // Don't include this
@@ -212,9 +268,11 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
     /**
      * Write the model
      */
-    private void writeModel(Element rootElement) {
+    private void writeModel(Element rootElement) throws IOException {
         rootElement.setAttribute(ATTRIBUTE_IDENTIFIER, checkID(fModel));
         
+        startElement(null, rootElement, false);
+        
         // Gather all properties now
         fPropertyDefsList = getAllUniquePropertyKeysForModel();
         
@@ -246,6 +304,8 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
         
         // Views
         writeViews(rootElement);
+        
+        endElement(rootElement, false);
     }
     
     // ========================================= Metadata ======================================
@@ -285,9 +345,12 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
     /**
      * Write the elements from the layers and extensions
      */
-    Element writeModelElements(Element rootElement) {
+    void writeModelElements(Element rootElement) throws IOException {
         Element elementsElement = new Element(ELEMENT_ELEMENTS, ARCHIMATE3_NAMESPACE);
         
+        // If there are no elements it is left out
+        startElement(rootElement, elementsElement, true);
+        
         writeModelElementsFolder(fModel.getFolder(FolderType.STRATEGY), elementsElement);
         writeModelElementsFolder(fModel.getFolder(FolderType.BUSINESS), elementsElement);
         writeModelElementsFolder(fModel.getFolder(FolderType.APPLICATION), elementsElement);
@@ -296,20 +359,13 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
         writeModelElementsFolder(fModel.getFolder(FolderType.IMPLEMENTATION_MIGRATION), elementsElement);
         writeModelElementsFolder(fModel.getFolder(FolderType.OTHER), elementsElement);
         
-        // If there are elements
-        if(!elementsElement.getChildren().isEmpty()) {
-            rootElement.addContent(elementsElement);
-            return elementsElement;
-        }
-        
-        // No children, so return null
-        return null;
+        endElement(elementsElement, true);
     }
     
     /**
      * Write the elements from an Archi folder
      */
-    private void writeModelElementsFolder(IFolder folder, Element elementsElement) {
+    private void writeModelElementsFolder(IFolder folder, Element elementsElement) throws IOException {
         if(folder == null) {
             return;
         }
@@ -319,6 +375,7 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
         for(EObject eObject : list) {
             if(eObject instanceof IArchimateElement) {
                 writeModelElement((IArchimateElement)eObject, elementsElement);
+                flushElements();
              }
         }
     }
@@ -370,25 +427,21 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
     /**
      * Write the relationships
      */
-    Element writeModelRelationships(Element rootElement) {
+    void writeModelRelationships(Element rootElement) throws IOException {
         Element relationshipsElement = new Element(ELEMENT_RELATIONSHIPS, ARCHIMATE3_NAMESPACE);
         
-        writeModelRelationshipsFolder(fModel.getFolder(FolderType.RELATIONS), relationshipsElement);
+        // If there are no relationships it is left out
+        startElement(rootElement, relationshipsElement, true);
         
-        // If there are relationships
-        if(!relationshipsElement.getChildren().isEmpty()) {
-            rootElement.addContent(relationshipsElement);
-            return relationshipsElement;
-        }
+        writeModelRelationshipsFolder(fModel.getFolder(FolderType.RELATIONS), relationshipsElement);
         
-        // No children, so return null
-        return null;
+        endElement(relationshipsElement, true);
     }
     
     /**
      * Write the relationships from an Archi folder
      */
-    private void writeModelRelationshipsFolder(IFolder folder, Element relationshipsElement) {
+    private void writeModelRelationshipsFolder(IFolder folder, Element relationshipsElement) throws IOException {
         if(folder == null) {
             return;
         }
@@ -398,6 +451,7 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
         for(EObject eObject : list) {
             if(eObject instanceof IArchimateRelationship) {
                 writeModelRelationship((IArchimateRelationship)eObject, relationshipsElement);
+                flushElements();
              }
         }
     }
@@ -470,9 +524,12 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
     
     // ========================================= Organizations ======================================
 
-    Element writeOrganizations(Element rootElement) {
+    void writeOrganizations(Element rootElement) throws IOException {
         Element organizationsElement = new Element(ELEMENT_ORGANIZATIONS, ARCHIMATE3_NAMESPACE);
         
+        // If there are no children it is left out
+        startElement(rootElement, organizationsElement, true);
+        
         for(IFolder folder : fModel.getFolders()) {
             // If the top level folder is not empty
             if(!(folder.getElements().isEmpty() && folder.getFolders().isEmpty())) {
@@ -480,19 +537,12 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
             }
         }
         
-        // If there are children
-        if(!organizationsElement.getChildren().isEmpty()) {
-            rootElement.addContent(organizationsElement);
-            return organizationsElement;
-        }
-        
-        // No children, so return null
-        return null;
+        endElement(organizationsElement, true);
     }
     
-    Element writeFolder(IFolder folder, Element parentElement) {
+    void writeFolder(IFolder folder, Element parentElement) throws IOException {
         Element itemElement = new Element(ELEMENT_ITEM, ARCHIMATE3_NAMESPACE);
-        parentElement.addContent(itemElement);
+        startElement(parentElement, itemElement, false);
         
         // Name
         writeTextToElement(folder.getName(), itemElement, ELEMENT_LABEL, false);
@@ -517,10 +567,11 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
                 Element itemChildElement = new Element(ELEMENT_ITEM, ARCHIMATE3_NAMESPACE);
                 itemElement.addContent(itemChildElement);
                 itemChildElement.setAttribute(ATTRIBUTE_IDENTIFIERREF, checkID(component));
+                flushElements();
             }
         }
         
-        return itemElement;
+        endElement(itemElement, false);
     }
     
     // ========================================= Properties ======================================
@@ -622,18 +673,18 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
      */
     private Point fCurrentDiagramNegativeOffset;
     
-    Element writeViews(Element rootElement) {
+    void writeViews(Element rootElement) throws IOException {
         // Do we have any views?
         EList<IDiagramModel> views = fModel.getDiagramModels();
         if(views.isEmpty()) {
-            return null;
+            return;
         }
         
         Element viewsElement = new Element(ELEMENT_VIEWS, ARCHIMATE3_NAMESPACE);
-        rootElement.addContent(viewsElement);
+        startElement(rootElement, viewsElement, false);
         
         Element diagramsElement = new Element(ELEMENT_DIAGRAMS, ARCHIMATE3_NAMESPACE);
-        viewsElement.addContent(diagramsElement);
+        startElement(viewsElement, diagramsElement, false);
         
         for(IDiagramModel dm : views) {
             if(dm instanceof IArchimateDiagramModel) {
@@ -641,10 +692,12 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
                 fCurrentDiagramNegativeOffset = XMLExchangeUtils.getNegativeOffsetForDiagram(dm);
                 
                 writeView((IArchimateDiagramModel)dm, diagramsElement);
+                flushElements();
             }
         }
         
-        return viewsElement;
+        endElement(diagramsElement, false);
+        endElement(viewsElement, false);
     }
     
     Element writeView(IArchimateDiagramModel dm, Element viewsElement) {
@@ -993,6 +1046,46 @@ public class XMLModelExporter implements IXMLExchangeGlobals {
         return styleElement;
     }
 
+    // ========================================= Output ======================================
+    
+    /**
+     * Start an element that other elements are added to.
+     * When streaming, the elements added to the last started element are written to the file and removed from it
+     * when another element is started or ended or when flushElements() is called.
+     * @param parentElement The parent element, or null for the root element
+     * @param omitIfEmpty If true the element is left out if no elements are added to it
+     */
+    private void startElement(Element parentElement, Element element, boolean omitIfEmpty) throws IOException {
+        if(fWriter != null) {
+            fWriter.startElement(element, omitIfEmpty);
+        }
+        else if(parentElement != null) {
+            parentElement.addContent(element);
+        }
+    }
+    
+    /**
+     * End the last started element
+     * @param omitIfEmpty As when the element was started
+     */
+    private void endElement(Element element, boolean omitIfEmpty) throws IOException {
+        if(fWriter != null) {
+            fWriter.endElement();
+        }
+        else if(omitIfEmpty && element.getChildren().isEmpty()) {
+            element.detach();
+        }
+    }
+    
+    /**
+     * When streaming, write the elements added to the last started element to the file
+     */
+    private void flushElements() throws IOException {
+        if(fWriter != null) {
+            fWriter.flush();
+        }
+    }
+
     // ========================================= Helpers ======================================
     
     /**
@@ -20,10 +20,11 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.FontData;
 import org.eclipse.swt.graphics.RGB;
-import org.jdom2.Document;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
+import org.jdom2.input.JDOMParseException;
+import org.xml.sax.SAXException;
 
 import com.archimatetool.editor.diagram.ArchimateDiagramModelFactory;
 import com.archimatetool.editor.diagram.ICreationFactory;
@@ -31,7 +32,7 @@ import com.archimatetool.editor.model.DiagramModelUtils;
 import com.archimatetool.editor.ui.ColorFactory;
 import com.archimatetool.editor.ui.FontFactory;
 import com.archimatetool.editor.utils.StringUtils;
-import com.archimatetool.jdom.JDOMUtils;
+import com.archimatetool.jdom.JDOMStreamReader;
 import com.archimatetool.model.FolderType;
 import com.archimatetool.model.IAccessRelationship;
 import com.archimatetool.model.IArchimateConcept;
@@ -68,15 +69,29 @@ import com.archimatetool.model.IProperty;
 /**
  * XML Model Importer
  * 
+ * The file is read with SAX an element, relationship and view at a time rather than as a whole JDOM Document.
+ * Concepts and diagram objects are created as they are read, and references to objects that come later in the file
+ * (property definitions, and the views in organizations) are resolved when the model element ends.
+ * This relies on the order of the model's child elements in the Exchange Format schema.
+ * 
  * @author Phillip Beauvoir
  */
 public class XMLModelImporter implements IXMLExchangeGlobals {
     
     private IArchimateModel fModel;
     
+    // Whether to validate the file while it is read
+    private boolean fValidate;
+    
     // Properties
     private Map<String, String> fPropertyDefinitionsList;
     
+    // Property definition references lookup
+    private Map<IProperty, String> fPropertyRefsLookup;
+    
+    // Relations whose source and target are set when all relations have been read
+    private List<RelationInfo> fRelationInfoList;
+    
     // Concepts lookup
     private Map<String, IArchimateConcept> fConceptsLookup;
     
@@ -89,9 +104,20 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
     // Diagram Model references lookup
     private Map<IDiagramModelReference, String> fDiagramRefsLookup;
     
+    /**
+     * Set whether to validate the file against the Exchange Format schema while it is read.
+     * If the file is not valid a JDOMException is thrown.
+     * @param set
+     */
+    public void setValidate(boolean set) {
+        fValidate = set;
+    }
+    
     public IArchimateModel createArchiMateModel(File instanceFile) throws IOException, JDOMException, XMLModelParserException {
         // New lookup tables
         fPropertyDefinitionsList = new HashMap<>();
+        fPropertyRefsLookup = new HashMap<>();
+        fRelationInfoList = new ArrayList<>();
         fConceptsLookup = new HashMap<>();
         fConnectionsNodesLookup = new HashMap<>();
         fDiagramsLookup = new HashMap<>();
@@ -101,37 +127,91 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
         fModel = IArchimateFactory.eINSTANCE.createArchimateModel();
         fModel.setDefaults();
         
-        // Read file without Schema validation
-        Document doc = JDOMUtils.readXMLFile(instanceFile);
-        
-        Element rootElement = doc.getRootElement();
-        
-        // Parse Property Definitions first
-        parsePropertyDefinitions(rootElement.getChild(ELEMENT_PROPERTYDEFINITIONS, ARCHIMATE3_NAMESPACE));
-        
-        // Parse Root Element
-        parseRootElement(rootElement);
+        JDOMStreamReader reader = new JDOMStreamReader(new ModelElementHandler());
         
-        // Parse ArchiMate Elements
-        parseArchiMateElements(rootElement.getChild(ELEMENT_ELEMENTS, ARCHIMATE3_NAMESPACE));
-        
-        // Parse ArchiMate Relations
-        parseArchiMateRelations(rootElement.getChild(ELEMENT_RELATIONSHIPS, ARCHIMATE3_NAMESPACE));
-        
-        // Parse Views
-        Element viewsElement = rootElement.getChild(ELEMENT_VIEWS, ARCHIMATE3_NAMESPACE);
-        if(viewsElement != null) {
-            parseViews(viewsElement.getChild(ELEMENT_DIAGRAMS, ARCHIMATE3_NAMESPACE));
+        try {
+            // Read file with Schema validation in the same pass, or without
+            reader.read(instanceFile, fValidate ? new XMLValidator().createValidatorHandler() : null);
         }
-        
-        // Parse Organizations
-        for(Element orgsElement : rootElement.getChildren(ELEMENT_ORGANIZATIONS, ARCHIMATE3_NAMESPACE)) {
-            parseOrganizations(orgsElement);
+        catch(SAXException ex) {
+            // Thrown when creating the model
+            if(ex.getException() instanceof XMLModelParserException) {
+                throw (XMLModelParserException)ex.getException();
+            }
+            if(ex.getException() instanceof IOException) {
+                throw (IOException)ex.getException();
+            }
+            
+            // Not well-formed or not valid
+            throw new JDOMParseException(ex.getMessage(), ex);
         }
         
         return fModel;
     }
     
+    /**
+     * Creates the model from the elements as they are read.
+     * The model element's sections of elements, relationships and views are read one child element at a time,
+     * and other elements are read whole.
+     */
+    private class ModelElementHandler implements JDOMStreamReader.IElementHandler {
+        @Override
+        public boolean startElement(Element element) throws SAXException {
+            boolean isSection = element.getParentElement() == null // model
+                    || isElement(element, ELEMENT_ELEMENTS)
+                    || isElement(element, ELEMENT_RELATIONSHIPS)
+                    || isElement(element, ELEMENT_VIEWS)
+                    || isElement(element, ELEMENT_DIAGRAMS);
+            
+            return !isSection;
+        }
+
+        @Override
+        public void endElement(Element element) throws SAXException {
+            try {
+                Element parentElement = element.getParentElement();
+                
+                // Model
+                if(parentElement == null) {
+                    parseRootElement(element);
+                }
+                // ArchiMate Element
+                else if(isElement(element, ELEMENT_ELEMENT) && isElement(parentElement, ELEMENT_ELEMENTS)) {
+                    parseArchiMateElement(element);
+                    element.detach();
+                }
+                // ArchiMate Relation
+                else if(isElement(element, ELEMENT_RELATIONSHIP) && isElement(parentElement, ELEMENT_RELATIONSHIPS)) {
+                    parseArchiMateRelation(element);
+                    element.detach();
+                }
+                // All ArchiMate Relations have been read
+                else if(isElement(element, ELEMENT_RELATIONSHIPS)) {
+                    setRelationsSourceAndTarget();
+                }
+                // View
+                else if(isElement(element, ELEMENT_VIEW) && isElement(parentElement, ELEMENT_DIAGRAMS)) {
+                    parseView(element);
+                    element.detach();
+                }
+                // Property Definitions
+                else if(isElement(element, ELEMENT_PROPERTYDEFINITIONS)) {
+                    parsePropertyDefinitions(element);
+                    element.detach();
+                }
+                
+                // Other child elements of the model stay in it until it ends
+            }
+            catch(XMLModelParserException | IOException ex) {
+                throw new SAXException(ex);
+            }
+        }
+        
+        private boolean isElement(Element element, String name) {
+            return name.equals(element.getName()) && ARCHIMATE3_NAMESPACE.equals(element.getNamespace());
+        }
+    }
+    
     // ========================================= Property Definitions ======================================
 
     private void parsePropertyDefinitions(Element propertydefsElement) {
@@ -151,7 +231,14 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
     
     // ========================================= Root Element ======================================
 
-    private void parseRootElement(Element rootElement) {
+    /**
+     * The model element has ended and has the child elements that were not read one at a time
+     */
+    private void parseRootElement(Element rootElement) throws XMLModelParserException {
+        if(rootElement.getChild(ELEMENT_ELEMENTS, ARCHIMATE3_NAMESPACE) == null) {
+            throw new XMLModelParserException(Messages.XMLModelImporter_0);
+        }
+        
         // Identifier
         String id = rootElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
         if(id != null) {
@@ -172,6 +259,15 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
         
         // Properties
         addProperties(fModel, rootElement);
+        
+        // Now that all Property Definitions and Views have been read
+        setPropertyKeys();
+        setDiagramModelReferences();
+        
+        // Parse Organizations
+        for(Element orgsElement : rootElement.getChildren(ELEMENT_ORGANIZATIONS, ARCHIMATE3_NAMESPACE)) {
+            parseOrganizations(orgsElement);
+        }
     }
     
     // ========================================= Properties ======================================
@@ -184,176 +280,180 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
                 String idref = propertyElement.getAttributeValue(ATTRIBUTE_PROPERTY_IDENTIFIERREF);
                 
                 if(idref != null) {
-                    String propertyName = fPropertyDefinitionsList.get(idref);
-                    if(propertyName != null) {
-                        String propertyValue = getChildElementText(propertyElement, ELEMENT_VALUE, true);
-                        IProperty property = IArchimateFactory.eINSTANCE.createProperty();
-                        property.setKey(propertyName);
-                        property.setValue(propertyValue);
-                        propertiesModel.getProperties().add(property);
-                    }
+                    String propertyValue = getChildElementText(propertyElement, ELEMENT_VALUE, true);
+                    IProperty property = IArchimateFactory.eINSTANCE.createProperty();
+                    property.setValue(propertyValue);
+                    propertiesModel.getProperties().add(property);
+                    
+                    // The Property Definitions come later in the file so the key is set afterwards
+                    fPropertyRefsLookup.put(property, idref);
                 }
             }
         }
     }
     
+    /**
+     * Set the keys of the properties from their Property Definitions, and remove properties that don't have one
+     */
+    private void setPropertyKeys() {
+        for(Entry<IProperty, String> entry : fPropertyRefsLookup.entrySet()) {
+            IProperty property = entry.getKey();
+            String propertyName = fPropertyDefinitionsList.get(entry.getValue());
+            if(propertyName != null) {
+                property.setKey(propertyName);
+            }
+            else {
+                ((IProperties)property.eContainer()).getProperties().remove(property);
+            }
+        }
+    }
+    
     // ========================================= Elements ======================================
 
-    private void parseArchiMateElements(Element elementsElement) throws XMLModelParserException {
-        if(elementsElement == null) {
-            throw new XMLModelParserException(Messages.XMLModelImporter_0);
+    private void parseArchiMateElement(Element childElement) throws XMLModelParserException {
+        String type = childElement.getAttributeValue(ATTRIBUTE_TYPE, XSI_NAMESPACE);
+        // If type is bogus ignore
+        if(type == null) {
+            return;
         }
         
-        for(Element childElement : elementsElement.getChildren(ELEMENT_ELEMENT, ARCHIMATE3_NAMESPACE)) {
-            String type = childElement.getAttributeValue(ATTRIBUTE_TYPE, XSI_NAMESPACE);
-            // If type is bogus ignore
-            if(type == null) {
-                continue;
-            }
-            
-            IArchimateElement element = (IArchimateElement)XMLTypeMapper.createArchimateConcept(type);
-            // If element is null throw exception
-            if(element == null) {
-                throw new XMLModelParserException(NLS.bind(Messages.XMLModelImporter_1, type));
-            }
-                    
-            // Identifier first
-            String id = childElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
-            if(id != null) {
-                element.setId(id);
-            }
+        IArchimateElement element = (IArchimateElement)XMLTypeMapper.createArchimateConcept(type);
+        // If element is null throw exception
+        if(element == null) {
+            throw new XMLModelParserException(NLS.bind(Messages.XMLModelImporter_1, type));
+        }
+                
+        // Identifier first
+        String id = childElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
+        if(id != null) {
+            element.setId(id);
+        }
 
-            // Add to model
-            fModel.getDefaultFolderForObject(element).getElements().add(element);
-            
-            String name = getChildElementText(childElement, ELEMENT_NAME, true);
-            if(name != null) {
-                element.setName(name);
-            }
-            
-            String documentation = getChildElementText(childElement, ELEMENT_DOCUMENTATION, false);
-            if(documentation != null) {
-                element.setDocumentation(documentation);
-            }
-            
-            // Properties
-            addProperties(element, childElement);
-            
-            // Add to lookup
-            fConceptsLookup.put(element.getId(), element);
+        // Add to model
+        fModel.getDefaultFolderForObject(element).getElements().add(element);
+        
+        String name = getChildElementText(childElement, ELEMENT_NAME, true);
+        if(name != null) {
+            element.setName(name);
+        }
+        
+        String documentation = getChildElementText(childElement, ELEMENT_DOCUMENTATION, false);
+        if(documentation != null) {
+            element.setDocumentation(documentation);
         }
+        
+        // Properties
+        addProperties(element, childElement);
+        
+        // Add to lookup
+        fConceptsLookup.put(element.getId(), element);
     }
     
     // ========================================= Relations ======================================
 
-    private void parseArchiMateRelations(Element relationsElement) throws IOException {
-        if(relationsElement == null) { // Optional
+    private static class RelationInfo {
+        IArchimateRelationship relation;
+        String sourceID;
+        String targetID;
+    }
+    
+    private void parseArchiMateRelation(Element childElement) throws IOException {
+        String type = childElement.getAttributeValue(ATTRIBUTE_TYPE, XSI_NAMESPACE);
+        // If type is bogus ignore
+        if(type == null) {
             return;
         }
         
-        class RelationInfo {
-            IArchimateRelationship relation;
-            String sourceID;
-            String targetID;
+        IArchimateRelationship relation = (IArchimateRelationship)XMLTypeMapper.createArchimateConcept(type);
+        // If relation is null throw exception
+        if(relation == null) {
+            throw new IOException(NLS.bind(Messages.XMLModelImporter_2, type));
         }
         
-        List<RelationInfo> relationInfoList = new ArrayList<RelationInfo>();
-        IFolder relationshipFolder = fModel.getFolder(FolderType.RELATIONS);
-        
-        for(Element childElement : relationsElement.getChildren(ELEMENT_RELATIONSHIP, ARCHIMATE3_NAMESPACE)) {
-            String type = childElement.getAttributeValue(ATTRIBUTE_TYPE, XSI_NAMESPACE);
-            // If type is bogus ignore
-            if(type == null) {
-                continue;
-            }
-            
-            IArchimateRelationship relation = (IArchimateRelationship)XMLTypeMapper.createArchimateConcept(type);
-            // If relation is null throw exception
-            if(relation == null) {
-                throw new IOException(NLS.bind(Messages.XMLModelImporter_2, type));
-            }
-            
-            // Identifier first
-            String id = childElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
-            if(id != null) {
-                relation.setId(id);
-            }
+        // Identifier first
+        String id = childElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
+        if(id != null) {
+            relation.setId(id);
+        }
 
-            // Add to model
-            relationshipFolder.getElements().add(relation);
-            
-            // Name
-            String name = getChildElementText(childElement, ELEMENT_NAME, true);
-            if(name != null) {
-                relation.setName(name);
-            }
-            
-            // Documentation
-            String documentation = getChildElementText(childElement, ELEMENT_DOCUMENTATION, false);
-            if(documentation != null) {
-                relation.setDocumentation(documentation);
-            }
-            
-            // Properties
-            addProperties(relation, childElement);
-            
-            // Source and target
-            String sourceID = childElement.getAttributeValue(ATTRIBUTE_SOURCE);
-            String targetID = childElement.getAttributeValue(ATTRIBUTE_TARGET);
-            
-            // Access type
-            if(relation instanceof IAccessRelationship) {
-                String accessType = childElement.getAttributeValue(ATTRIBUTE_ACCESS_TYPE);
-                if(accessType != null) {
-                    IAccessRelationship accessRelationship = (IAccessRelationship)relation;
-                    
-                    switch(accessType) {
-                        case ACCESS_TYPE_ACCESS:
-                            accessRelationship.setAccessType(IAccessRelationship.UNSPECIFIED_ACCESS);
-                            break;
+        // Add to model
+        fModel.getFolder(FolderType.RELATIONS).getElements().add(relation);
+        
+        // Name
+        String name = getChildElementText(childElement, ELEMENT_NAME, true);
+        if(name != null) {
+            relation.setName(name);
+        }
+        
+        // Documentation
+        String documentation = getChildElementText(childElement, ELEMENT_DOCUMENTATION, false);
+        if(documentation != null) {
+            relation.setDocumentation(documentation);
+        }
+        
+        // Properties
+        addProperties(relation, childElement);
+        
+        // Source and target
+        String sourceID = childElement.getAttributeValue(ATTRIBUTE_SOURCE);
+        String targetID = childElement.getAttributeValue(ATTRIBUTE_TARGET);
+        
+        // Access type
+        if(relation instanceof IAccessRelationship) {
+            String accessType = childElement.getAttributeValue(ATTRIBUTE_ACCESS_TYPE);
+            if(accessType != null) {
+                IAccessRelationship accessRelationship = (IAccessRelationship)relation;
+                
+                switch(accessType) {
+                    case ACCESS_TYPE_ACCESS:
+                        accessRelationship.setAccessType(IAccessRelationship.UNSPECIFIED_ACCESS);
+                        break;
 
-                        case ACCESS_TYPE_READ:
-                            accessRelationship.setAccessType(IAccessRelationship.READ_ACCESS);
-                            break;
+                    case ACCESS_TYPE_READ:
+                        accessRelationship.setAccessType(IAccessRelationship.READ_ACCESS);
+                        break;
 
-                        case ACCESS_TYPE_READ_WRITE:
-                            accessRelationship.setAccessType(IAccessRelationship.READ_WRITE_ACCESS);
-                            break;
+                    case ACCESS_TYPE_READ_WRITE:
+                        accessRelationship.setAccessType(IAccessRelationship.READ_WRITE_ACCESS);
+                        break;
 
-                        default:
-                            accessRelationship.setAccessType(IAccessRelationship.WRITE_ACCESS);
-                            break;
-                    }
+                    default:
+                        accessRelationship.setAccessType(IAccessRelationship.WRITE_ACCESS);
+                        break;
                 }
             }
-            // Influence type
-            else if(relation instanceof IInfluenceRelationship) {
-                String influenceStrength = childElement.getAttributeValue(ATTRIBUTE_INFLUENCE_MODIFIER);
-                if(influenceStrength != null) {
-                    ((IInfluenceRelationship)relation).setStrength(influenceStrength);
-                }
+        }
+        // Influence type
+        else if(relation instanceof IInfluenceRelationship) {
+            String influenceStrength = childElement.getAttributeValue(ATTRIBUTE_INFLUENCE_MODIFIER);
+            if(influenceStrength != null) {
+                ((IInfluenceRelationship)relation).setStrength(influenceStrength);
             }
-            // Association type
-            else if(relation instanceof IAssociationRelationship) {
-                String isDirected = childElement.getAttributeValue(ATTRIBUTE_ASSOCIATION_DIRECTED);
-                if("true".equalsIgnoreCase(isDirected)) { //$NON-NLS-1$
-                    ((IAssociationRelationship)relation).setDirected(true);
-                }
+        }
+        // Association type
+        else if(relation instanceof IAssociationRelationship) {
+            String isDirected = childElement.getAttributeValue(ATTRIBUTE_ASSOCIATION_DIRECTED);
+            if("true".equalsIgnoreCase(isDirected)) { //$NON-NLS-1$
+                ((IAssociationRelationship)relation).setDirected(true);
             }
-            
-            // Add to lookup table
-            fConceptsLookup.put(relation.getId(), relation);
-            
-            // Add to relations list for 2nd pass
-            RelationInfo rInfo = new RelationInfo();
-            rInfo.relation = relation;
-            rInfo.sourceID = sourceID;
-            rInfo.targetID = targetID;
-            relationInfoList.add(rInfo);
         }
         
-        // 2nd pass, add source and target concepts
-        for(RelationInfo rInfo : relationInfoList) {
+        // Add to lookup table
+        fConceptsLookup.put(relation.getId(), relation);
+        
+        // Add to relations list for 2nd pass
+        RelationInfo rInfo = new RelationInfo();
+        rInfo.relation = relation;
+        rInfo.sourceID = sourceID;
+        rInfo.targetID = targetID;
+        fRelationInfoList.add(rInfo);
+    }
+    
+    /**
+     * 2nd pass when all relations have been read, add source and target concepts
+     */
+    private void setRelationsSourceAndTarget() throws IOException {
+        for(RelationInfo rInfo : fRelationInfoList) {
             IArchimateConcept source = fConceptsLookup.get(rInfo.sourceID);
             if(source == null) {
                 throw new IOException(Messages.XMLModelImporter_3 + rInfo.sourceID);
@@ -367,6 +467,8 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
             rInfo.relation.setSource(source);
             rInfo.relation.setTarget(target);
         }
+        
+        fRelationInfoList.clear();
     }
     
     // ========================================= Organizations ======================================
@@ -541,55 +643,55 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
     
     // ========================================= Views ======================================
 
-    private void parseViews(Element viewsElement) throws XMLModelParserException {
-        if(viewsElement == null) { // Optional
-            return;
-        }
+    private void parseView(Element viewElement) throws XMLModelParserException {
+        IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+        fModel.getDefaultFolderForObject(dm).getElements().add(dm);
         
-        // Add the views first because there may be child node view references
-        for(Element viewElement : viewsElement.getChildren(ELEMENT_VIEW, ARCHIMATE3_NAMESPACE)) {
-            IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
-            fModel.getDefaultFolderForObject(dm).getElements().add(dm);
-            
-            // Identifier first
-            String id = viewElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
-            if(id != null) {
-                dm.setId(id);
+        // Identifier first
+        String id = viewElement.getAttributeValue(ATTRIBUTE_IDENTIFIER);
+        if(id != null) {
+            dm.setId(id);
 
-                // Store it
-                fDiagramsLookup.put(id, dm);
-            }
-            
-            // Viewpoint
-            String viewPointName = viewElement.getAttributeValue(ATTRIBUTE_VIEWPOINT);
-            if(viewPointName != null) {
-                String viewPointID = XMLTypeMapper.getViewpointID(viewPointName);
-                dm.setViewpoint(viewPointID);
-            }
+            // Store it
+            fDiagramsLookup.put(id, dm);
+        }
+        
+        // Viewpoint
+        String viewPointName = viewElement.getAttributeValue(ATTRIBUTE_VIEWPOINT);
+        if(viewPointName != null) {
+            String viewPointID = XMLTypeMapper.getViewpointID(viewPointName);
+            dm.setViewpoint(viewPointID);
+        }
 
-            // Name
-            String name = getChildElementText(viewElement, ELEMENT_NAME, true);
-            if(name != null) {
-                dm.setName(name);
-            }
-            
-            // Documentation
-            String documentation = getChildElementText(viewElement, ELEMENT_DOCUMENTATION, false);
-            if(documentation != null) {
-                dm.setDocumentation(documentation);
-            }
-            
-            // Properties
-            addProperties(dm, viewElement);
-            
-            // Nodes
-            addNodes(dm, viewElement);
-            
-            // Connections
-            addConnections(viewElement);
+        // Name
+        String name = getChildElementText(viewElement, ELEMENT_NAME, true);
+        if(name != null) {
+            dm.setName(name);
+        }
+        
+        // Documentation
+        String documentation = getChildElementText(viewElement, ELEMENT_DOCUMENTATION, false);
+        if(documentation != null) {
+            dm.setDocumentation(documentation);
         }
         
-        // Now add any view diagram references
+        // Properties
+        addProperties(dm, viewElement);
+        
+        // Nodes
+        addNodes(dm, viewElement);
+        
+        // Connections
+        addConnections(viewElement);
+        
+        // Add implicit nested connections
+        addNestedConnections(dm);
+    }
+    
+    /**
+     * Now that all views have been read add any view diagram references
+     */
+    private void setDiagramModelReferences() throws XMLModelParserException {
         for(Entry<IDiagramModelReference, String> element : fDiagramRefsLookup.entrySet()) {
             IDiagramModelReference dmRef = element.getKey();
             String refID = element.getValue();
@@ -853,44 +955,39 @@ public class XMLModelImporter implements IXMLExchangeGlobals {
             // Style
             addConnectionStyle(cInfo.connection, cInfo.connectionElement.getChild(ELEMENT_STYLE, ARCHIMATE3_NAMESPACE));
         }
-        
-        // Add implicit nested connections
-        addNestedConnections();
     }
     
     /**
      * Add implicit nested connections
-     * 1. Iterate through all diagram ArchiMate nodes and look for nested nodes
+     * 1. Iterate through the diagram's ArchiMate nodes and look for nested nodes
      * 2. If there is a relationship between the ArchiMate elements of the nodes and no existing connection, add one
      */
-    private void addNestedConnections() {
-        for(IDiagramModel dm : fModel.getDiagramModels()) { // All diagrams
-            for(Iterator<EObject> iter = dm.eAllContents(); iter.hasNext();) { // Contents of a diagram
-                EObject eObject = iter.next();
+    private void addNestedConnections(IDiagramModel dm) {
+        for(Iterator<EObject> iter = dm.eAllContents(); iter.hasNext();) { // Contents of a diagram
+            EObject eObject = iter.next();
+            
+            if(eObject instanceof IDiagramModelArchimateObject) { // ArchiMate node
+                IDiagramModelArchimateObject parent = (IDiagramModelArchimateObject)eObject;
                 
-                if(eObject instanceof IDiagramModelArchimateObject) { // ArchiMate node
-                    IDiagramModelArchimateObject parent = (IDiagramModelArchimateObject)eObject;
-                    
-                    for(IDiagramModelObject dmo : parent.getChildren()) {
-                        if(dmo instanceof IDiagramModelArchimateObject) { // ArchiMate child node
-                            IDiagramModelArchimateObject child = (IDiagramModelArchimateObject)dmo;
-                            IArchimateElement parentElement = parent.getArchimateElement();
-                            IArchimateElement childElement = child.getArchimateElement();
-                            
-                            // Parent -> Child
-                            for(IArchimateRelationship relation : parentElement.getSourceRelationships()) {
-                                if(relation.getTarget() == childElement && !DiagramModelUtils.hasDiagramModelArchimateConnection(parent, child, relation)) {
-                                    IDiagramModelArchimateConnection connection = ArchimateDiagramModelFactory.createDiagramModelArchimateConnection(relation);
-                                    connection.connect(parent, child);
-                                }
+                for(IDiagramModelObject dmo : parent.getChildren()) {
+                    if(dmo instanceof IDiagramModelArchimateObject) { // ArchiMate child node
+                        IDiagramModelArchimateObject child = (IDiagramModelArchimateObject)dmo;
+                        IArchimateElement parentElement = parent.getArchimateElement();
+                        IArchimateElement childElement = child.getArchimateElement();
+                        
+                        // Parent -> Child
+                        for(IArchimateRelationship relation : parentElement.getSourceRelationships()) {
+                            if(relation.getTarget() == childElement && !DiagramModelUtils.hasDiagramModelArchimateConnection(parent, child, relation)) {
+                                IDiagramModelArchimateConnection connection = ArchimateDiagramModelFactory.createDiagramModelArchimateConnection(relation);
+                                connection.connect(parent, child);
                             }
-                            
-                            // Child -> Parent
-                            for(IArchimateRelationship relation : childElement.getSourceRelationships()) {
-                                if(relation.getTarget() == parentElement && !DiagramModelUtils.hasDiagramModelArchimateConnection(child, parent, relation)) {
-                                    IDiagramModelArchimateConnection connection = ArchimateDiagramModelFactory.createDiagramModelArchimateConnection(relation);
-                                    connection.connect(child, parent);
-                                }
+                        }
+                        
+                        // Child -> Parent
+                        for(IArchimateRelationship relation : childElement.getSourceRelationships()) {
+                            if(relation.getTarget() == parentElement && !DiagramModelUtils.hasDiagramModelArchimateConnection(child, parent, relation)) {
+                                IDiagramModelArchimateConnection connection = ArchimateDiagramModelFactory.createDiagramModelArchimateConnection(relation);
+                                connection.connect(child, parent);
                             }
                         }
                     }
@@ -10,7 +10,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
@@ -18,10 +27,13 @@ import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
+import javax.xml.validation.ValidatorHandler;
 
 import org.w3c.dom.ls.LSInput;
 import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 
 /**
@@ -31,39 +43,181 @@ import org.xml.sax.SAXException;
  */
 public final class XMLValidator {
     
+    /**
+     * Ignore error where an XSD declaration is one that we do not have locally (for example for additional metadata)
+     */
+    private static final String IGNORED_ERROR = "The matching wildcard is strict, but no declaration can be found"; //$NON-NLS-1$
+    
+    /**
+     * Number of threads that validate files in a batch
+     */
+    static final int THREADS = Runtime.getRuntime().availableProcessors();
+    
+    /**
+     * The compiled XSDs. A Schema is immutable and thread-safe so it is compiled once and shared by all validations
+     */
+    private static volatile Schema schema;
+    
     public void validateXML(File xmlInstance) throws SAXException, IOException {
-        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        Validator validator = createValidator();
         
-        // Resolver for xsd import
-        factory.setResourceResolver(new ResourceResolver());
+        // Fixes #274 https://github.com/archimatetool/archi/issues/274
+        try(InputStream in = new BufferedInputStream(new FileInputStream(xmlInstance))) {
+            validator.validate(new StreamSource(in));
+        }
+        catch(SAXException ex) {
+            if(!ex.getMessage().contains(IGNORED_ERROR)) {
+                throw ex;
+            }
+        }
+    }
+    
+    /**
+     * Validate many files in parallel against the same compiled Schema
+     * @param xmlInstances The files to validate
+     * @return The files that are not valid mapped to their SAXException or IOException, in the order given. Empty if all files are valid.
+     * @throws SAXException if the Schema could not be compiled
+     * @throws IOException if interrupted
+     */
+    public Map<File, Exception> validateXML(List<File> xmlInstances) throws SAXException, IOException {
+        Map<File, Exception> errors = new LinkedHashMap<>();
         
-        // Local XSDs
-        Schema schema = factory.newSchema(new Source[]{
-                new StreamSource(XMLExchangePlugin.INSTANCE.getBundleInputStream(XMLExchangePlugin.XSD_FOLDER + XMLExchangePlugin.ARCHIMATE3_DIAGRAM_XSD)),
-                new StreamSource(XMLExchangePlugin.INSTANCE.getBundleInputStream(XMLExchangePlugin.XSD_FOLDER + XMLExchangePlugin.DUBLINCORE_XSD))
-        });
-
-        Validator validator = schema.newValidator();
+        if(xmlInstances.isEmpty()) {
+            return errors;
+        }
         
-        // Don't allow DTD loading in case of XSS exploits
-        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, ""); //$NON-NLS-1$
-        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, ""); //$NON-NLS-1$
+        // Compile the Schema once before the tasks use it
+        getSchema();
         
-        // Fixes #274 https://github.com/archimatetool/archi/issues/274
-        FileInputStream in = new FileInputStream(xmlInstance);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS, xmlInstances.size()));
         
         try {
-            validator.validate(new StreamSource(in));
+            List<Future<Exception>> tasks = new ArrayList<>();
+            
+            for(File xmlInstance : xmlInstances) {
+                tasks.add(executor.submit(() -> {
+                    try {
+                        validateXML(xmlInstance);
+                        return null;
+                    }
+                    catch(SAXException | IOException ex) {
+                        return ex;
+                    }
+                }));
+            }
+            
+            for(int i = 0; i < tasks.size(); i++) {
+                Exception ex = tasks.get(i).get();
+                if(ex != null) {
+                    errors.put(xmlInstances.get(i), ex);
+                }
+            }
         }
-        catch(SAXException ex) {
-            // Ignore error where an XSD declaration is one that we do not have locally (for example for additional metadata)
-            if(!ex.getMessage().contains("The matching wildcard is strict, but no declaration can be found")) { //$NON-NLS-1$
-                throw ex;
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch(ExecutionException ex) {
+            if(ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)ex.getCause();
             }
+            throw new IOException(ex.getCause());
         }
         finally {
-            in.close();
+            executor.shutdownNow();
         }
+        
+        return errors;
+    }
+    
+    /**
+     * Create a Validator from the shared Schema. A Validator is not thread-safe so create one for each validation.
+     * @return The Validator
+     */
+    public Validator createValidator() throws SAXException, IOException {
+        Validator validator = getSchema().newValidator();
+        
+        // Don't allow DTD loading in case of XSS exploits
+        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, ""); //$NON-NLS-1$
+        validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, ""); //$NON-NLS-1$
+        
+        return validator;
+    }
+    
+    /**
+     * Create a handler that validates the SAX events that it is sent and passes them on to its content handler,
+     * so that a file can be validated while it is read rather than read again.
+     * As with {@link #validateXML(File)}, validation stops at the first ignored error and the rest of the file is read without
+     * reporting validation errors.
+     * @return The ValidatorHandler
+     */
+    public ValidatorHandler createValidatorHandler() throws SAXException, IOException {
+        ValidatorHandler validatorHandler = getSchema().newValidatorHandler();
+        
+        // Don't allow DTD loading in case of XSS exploits
+        validatorHandler.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, ""); //$NON-NLS-1$
+        validatorHandler.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, ""); //$NON-NLS-1$
+        
+        validatorHandler.setErrorHandler(new ErrorHandler() {
+            // Set at the first ignored error, after which validation has stopped
+            private boolean stopped;
+            
+            @Override
+            public void warning(SAXParseException ex) throws SAXException {
+            }
+            
+            @Override
+            public void error(SAXParseException ex) throws SAXException {
+                if(stopped) {
+                    return;
+                }
+                
+                if(ex.getMessage().contains(IGNORED_ERROR)) {
+                    stopped = true;
+                    return;
+                }
+                
+                throw ex;
+            }
+            
+            @Override
+            public void fatalError(SAXParseException ex) throws SAXException {
+                throw ex;
+            }
+        });
+        
+        return validatorHandler;
+    }
+    
+    /**
+     * @return The shared Schema, compiled the first time that it is needed
+     */
+    static Schema getSchema() throws SAXException, IOException {
+        Schema result = schema;
+        
+        if(result == null) {
+            synchronized(XMLValidator.class) {
+                result = schema;
+                if(result == null) {
+                    schema = result = createSchema();
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    private static Schema createSchema() throws SAXException, IOException {
+        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        
+        // Resolver for xsd import
+        factory.setResourceResolver(new ResourceResolver());
+        
+        // Local XSDs
+        return factory.newSchema(new Source[]{
+                new StreamSource(XMLExchangePlugin.INSTANCE.getBundleInputStream(XMLExchangePlugin.XSD_FOLDER + XMLExchangePlugin.ARCHIMATE3_DIAGRAM_XSD)),
+                new StreamSource(XMLExchangePlugin.INSTANCE.getBundleInputStream(XMLExchangePlugin.XSD_FOLDER + XMLExchangePlugin.DUBLINCORE_XSD))
+        });
     }
 
     static class ResourceResolver implements LSResourceResolver {
@@ -5,6 +5,7 @@
  */
 package com.archimatetool.commandline;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
@@ -32,4 +33,15 @@ public class CommandLineStateTests {
         assertNull(CommandLineState.getModel());
     }
     
+    @Test
+    public void getExitCode_IsSet() {
+        assertEquals(0, CommandLineState.getExitCode());
+        
+        CommandLineState.setExitCode(1);
+        assertEquals(1, CommandLineState.getExitCode());
+
+        CommandLineState.setExitCode(0);
+        assertEquals(0, CommandLineState.getExitCode());
+    }
+    
 }
@@ -13,7 +13,11 @@ import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.gef.commands.CommandStack;
 import org.junit.Before;
@@ -232,6 +236,38 @@ public class CSVImporterTests {
         
         assertEquals(7, importer.newProperties.size());
     }
+    
+    @Test
+    public void testReadRecords() throws Exception {
+        List<String> ids = new ArrayList<>();
+        
+        long count = importer.readRecords(properties1File, csvRecord -> ids.add(csvRecord.get(0)));
+        
+        assertEquals(8, count);
+        assertEquals(8, ids.size());
+        assertEquals("ID", ids.get(0));
+        assertEquals("862677a6", ids.get(1));
+    }
+    
+    @Test
+    public void testGetDelimiter() throws Exception {
+        assertEquals(',', importer.getDelimiter(new BufferedReader(new StringReader("\"ID\",\"Key\",\"Value\""))));
+        assertEquals(';', importer.getDelimiter(new BufferedReader(new StringReader("\"ID\";\"Key\";\"Value\""))));
+        assertEquals('\t', importer.getDelimiter(new BufferedReader(new StringReader("ID\tKey\tValue"))));
+        
+        // Delimiters in quotes and after the first record are not counted
+        assertEquals(',', importer.getDelimiter(new BufferedReader(new StringReader("\"a;b;c\",\"d\"\n1;2;3;4"))));
+        
+        // Nothing to go on
+        assertEquals(',', importer.getDelimiter(new BufferedReader(new StringReader(""))));
+    }
+    
+    @Test
+    public void testGetDelimiter_ResetsReader() throws Exception {
+        BufferedReader reader = new BufferedReader(new StringReader("a;b"));
+        importer.getDelimiter(reader);
+        assertEquals("a;b", reader.readLine());
+    }
 
     @Test
     public void testIsElementsFileName() {
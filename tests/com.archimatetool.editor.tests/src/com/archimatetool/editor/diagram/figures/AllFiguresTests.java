@@ -5,6 +5,7 @@
  */
 package com.archimatetool.editor.diagram.figures;
 
+import com.archimatetool.editor.diagram.figures.connections.ConnectionSegmentIndexTests;
 import com.archimatetool.editor.diagram.figures.diagram.DiagramImageFigureTests;
 import com.archimatetool.editor.diagram.figures.diagram.DiagramModelReferenceFigureTests;
 import com.archimatetool.editor.diagram.figures.diagram.GroupFigureTests;
@@ -22,6 +23,9 @@ public class AllFiguresTests {
         // figures
         suite.addTest(AllArchimateTextControlContainerFigureTests.suite());
         
+        // figures.connections
+        suite.addTest(ConnectionSegmentIndexTests.suite());
+        
         // figures.diagram
         suite.addTest(DiagramImageFigureTests.suite());
         suite.addTest(DiagramModelReferenceFigureTests.suite());
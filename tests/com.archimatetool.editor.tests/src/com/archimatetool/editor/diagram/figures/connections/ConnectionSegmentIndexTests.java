@@ -0,0 +1,91 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.diagram.figures.connections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.PointList;
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ConnectionSegmentIndexTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ConnectionSegmentIndexTests.class);
+    }
+    
+    private ConnectionSegmentIndex index;
+    private RoundedPolylineConnection connection1, connection2;
+    
+    @Before
+    public void runOnceBeforeEachTest() {
+        index = new ConnectionSegmentIndex();
+        connection1 = new RoundedPolylineConnection();
+        connection2 = new RoundedPolylineConnection();
+    }
+    
+    @Test
+    public void getSegments_FindsSegmentsOfOtherConnectionsNearby() {
+        ConnectionSegmentIndex.Entry entry1 = index.update(null, connection1, createPoints(0, 50, 300, 50));
+        ConnectionSegmentIndex.Entry entry2 = index.update(null, connection2, createPoints(100, 0, 100, 100, 1000, 100));
+        
+        // Horizontal segment of connection1 finds the vertical segment of connection2
+        List<ConnectionSegmentIndex.Segment> segments = index.getSegments(entry1, new Point(0, 50), new Point(300, 50));
+        assertEquals(1, segments.size());
+        assertSame(entry2, segments.get(0).entry);
+        assertEquals(new Point(100, 0), segments.get(0).start);
+        
+        // Own segments are not returned
+        segments = index.getSegments(entry2, new Point(100, 0), new Point(100, 100));
+        assertEquals(1, segments.size());
+        assertSame(entry1, segments.get(0).entry);
+        
+        // Nothing far away
+        assertTrue(index.getSegments(entry1, new Point(2000, 2000), new Point(2100, 2100)).isEmpty());
+    }
+    
+    @Test
+    public void update_ReplacesSegments() {
+        ConnectionSegmentIndex.Entry entry1 = index.update(null, connection1, createPoints(0, 50, 300, 50));
+        ConnectionSegmentIndex.Entry entry2 = index.update(null, connection2, createPoints(100, 0, 100, 100));
+        
+        // Move connection2 far away
+        assertSame(entry2, index.update(entry2, connection2, createPoints(1000, 1000, 1000, 1100)));
+        
+        assertTrue(index.getSegments(entry1, new Point(0, 50), new Point(300, 50)).isEmpty());
+        assertEquals(1, index.getSegments(entry1, new Point(900, 1050), new Point(1100, 1050)).size());
+    }
+    
+    @Test
+    public void remove_RemovesSegmentsAndCells() {
+        ConnectionSegmentIndex.Entry entry1 = index.update(null, connection1, createPoints(0, 50, 300, 50));
+        ConnectionSegmentIndex.Entry entry2 = index.update(null, connection2, createPoints(-100, -100, 100, 100));
+        assertTrue(index.getCellCount() > 0);
+        
+        index.remove(entry2);
+        assertTrue(index.getSegments(entry1, new Point(0, 50), new Point(300, 50)).isEmpty());
+        
+        index.remove(entry1);
+        assertEquals(0, index.getCellCount());
+    }
+    
+    private PointList createPoints(int... coordinates) {
+        PointList points = new PointList();
+        for(int i = 0; i < coordinates.length; i += 2) {
+            points.addPoint(coordinates[i], coordinates[i + 1]);
+        }
+        return points;
+    }
+}
@@ -12,14 +12,26 @@ import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.Resource.Diagnostic;
 import org.junit.Test;
 
 import com.archimatetool.editor.TestSupport;
+import com.archimatetool.model.IArchimateFactory;
 import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IDiagramModelGroup;
 import com.archimatetool.model.util.ArchimateResourceFactory;
+import com.archimatetool.testingtools.ArchimateTestModel;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -129,6 +141,117 @@ public class ModelCompatibilityTests {
         assertTrue(mc.isCatastrophicException(diagnostic));
     }
     
+    @Test
+    public void testFixCompatibility_ObjectHandlersInOneTraversal() throws CompatibilityHandlerException {
+        ArchimateTestModel tm = new ArchimateTestModel();
+        IArchimateModel model = tm.createNewModel();
+        IDiagramModelArchimateObject dmo = tm.createDiagramModelArchimateObjectAndAddToModel(IArchimateFactory.eINSTANCE.createBusinessActor());
+        model.getDefaultDiagramModel().getChildren().add(dmo);
+        IDiagramModelGroup group = IArchimateFactory.eINSTANCE.createDiagramModelGroup();
+        model.getDefaultDiagramModel().getChildren().add(group);
+        
+        resource = ArchimateResourceFactory.createNewResource(URI.createFileURI("test.archimate"));
+        resource.getContents().add(model);
+        mc = new ModelCompatibility(resource);
+        
+        List<String> calls = new ArrayList<>();
+        
+        TestObjectHandler handler1 = new TestObjectHandler("1", true, calls, IArchimatePackage.Literals.DIAGRAM_MODEL_OBJECT);
+        TestObjectHandler handler2 = new TestObjectHandler("2", true, calls, IArchimatePackage.Literals.DIAGRAM_MODEL_GROUP);
+        TestObjectHandler handler3 = new TestObjectHandler("3", false, calls, IArchimatePackage.Literals.DIAGRAM_MODEL_OBJECT);
+        ICompatibilityHandler resourceHandler = r -> calls.add("resource");
+        
+        List<EObject> visited = new ArrayList<>();
+        mc.fixCompatibility(Arrays.asList(handler1, resourceHandler, handler2, handler3), visited::add);
+        
+        // Object handlers applied per object in handler order and in the same order as the resource handler
+        assertEquals(Arrays.asList("1", "1", "resource", "2"), calls);
+        assertEquals(Arrays.asList(dmo, group), handler1.fixed);
+        assertEquals(Arrays.asList(group), handler2.fixed);
+        assertTrue(handler3.fixed.isEmpty());
+        
+        // Visitor called for every object
+        int count = 0;
+        for(Iterator<EObject> iter = model.eAllContents(); iter.hasNext(); iter.next()) {
+            count++;
+        }
+        assertEquals(count, visited.size());
+        
+        assertTrue(mc.getTimings().containsKey("Traversal"));
+    }
+    
+    @Test
+    public void testFixCompatibility_ObjectHandlersSeeResourceHandlerChanges() throws CompatibilityHandlerException {
+        ArchimateTestModel tm = new ArchimateTestModel();
+        IArchimateModel model = tm.createNewModel();
+        model.setVersion("1.0.0");
+        
+        resource = ArchimateResourceFactory.createNewResource(URI.createFileURI("test.archimate"));
+        resource.getContents().add(model);
+        mc = new ModelCompatibility(resource);
+        
+        List<String> calls = new ArrayList<>();
+        
+        // Applies to the model before it is converted
+        TestObjectHandler handlerBefore = new TestObjectHandler("before", true, calls, IArchimatePackage.Literals.DIAGRAM_MODEL) {
+            @Override
+            public boolean isApplicable(IArchimateModel model) {
+                return "1.0.0".equals(model.getVersion());
+            }
+        };
+        
+        // A conversion of the whole model as Archimate2To3Handler does
+        ICompatibilityHandler converter = r -> ((IArchimateModel)r.getContents().get(0)).setVersion("2.0.0");
+        
+        // Applies to the model after it is converted
+        TestObjectHandler handlerAfter = new TestObjectHandler("after", true, calls, IArchimatePackage.Literals.DIAGRAM_MODEL) {
+            @Override
+            public boolean isApplicable(IArchimateModel model) {
+                return "2.0.0".equals(model.getVersion());
+            }
+        };
+        
+        mc.fixCompatibility(Arrays.asList(handlerBefore, converter, handlerAfter), null);
+        
+        // Same as applying each handler to the whole model in turn
+        assertEquals(Arrays.asList("before", "after"), calls);
+    }
+    
+    private static class TestObjectHandler implements IObjectCompatibilityHandler {
+        String name;
+        boolean applicable;
+        List<String> calls;
+        EClass eClass;
+        List<EObject> fixed = new ArrayList<>();
+        
+        TestObjectHandler(String name, boolean applicable, List<String> calls, EClass eClass) {
+            this.name = name;
+            this.applicable = applicable;
+            this.calls = calls;
+            this.eClass = eClass;
+        }
+
+        @Override
+        public void fixCompatibility(Resource resource) {
+        }
+
+        @Override
+        public boolean isApplicable(IArchimateModel model) {
+            return applicable;
+        }
+
+        @Override
+        public EClass[] getEClasses() {
+            return new EClass[] { eClass };
+        }
+
+        @Override
+        public void fixObject(EObject eObject) {
+            calls.add(name);
+            fixed.add(eObject);
+        }
+    }
+    
     private void createResource(File file) {
         resource = ArchimateResourceFactory.createNewResource(file);
         mc = new ModelCompatibility(resource);
@@ -5,8 +5,10 @@
  */
 package com.archimatetool.editor.model.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
@@ -16,9 +18,17 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
 
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.swt.graphics.Image;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -140,6 +150,31 @@ public class ArchiveManagerTests {
         assertEquals(2, archiveManager.getLoadedImagePaths().size());
     }
     
+    @Test
+    public void testLoadImages_ReadWhenAskedFor() throws Exception {
+        model.setFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+        archiveManager.loadImages();
+        
+        for(String entryName : archiveManager.getLoadedImagePaths()) {
+            assertTrue(archiveManager.byteArrayStorage.isZipEntry(entryName));
+            assertNotNull(archiveManager.getBytesFromEntry(entryName));
+            assertNotNull(archiveManager.createImage(entryName));
+        }
+        
+        // Same bytes as loading all of the images
+        ArchiveManager archiveManager2 = new ArchiveManager(model);
+        archiveManager2.loadImagesFromModelFile(TestSupport.TEST_MODEL_FILE_ZIPPED);
+        
+        for(String entryName : archiveManager2.getLoadedImagePaths()) {
+            assertArrayEquals(archiveManager2.getBytesFromEntry(entryName), archiveManager.getBytesFromEntry(entryName));
+            
+            // Found by the bytes
+            String key = archiveManager.addByteContentEntry("images/another.png", archiveManager2.getBytesFromEntry(entryName));
+            assertNotEquals("images/another.png", key);
+            assertArrayEquals(archiveManager2.getBytesFromEntry(entryName), archiveManager.getBytesFromEntry(key));
+        }
+    }
+    
     @Test
     public void testLoadImagesFromModelFile() throws Exception {
         boolean result = archiveManager.loadImagesFromModelFile(null);
@@ -190,6 +225,122 @@ public class ArchiveManagerTests {
         file.delete();
     }
     
+    @Test
+    public void testSaveModel_ImagesReadFromSameFile() throws Exception {
+        File file = TestUtils.createTempFile(".archimate");
+        Files.copy(TestSupport.TEST_MODEL_FILE_ZIPPED.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        model.setFile(file);
+        archiveManager.loadImages();
+        
+        String imagePath = archiveManager.getLoadedImagePaths().get(0);
+        String unusedImagePath = archiveManager.getLoadedImagePaths().get(1);
+        byte[] bytes = archiveManager.getBytesFromEntry(imagePath);
+        byte[] unusedBytes = archiveManager.getBytesFromEntry(unusedImagePath);
+        
+        IDiagramModelImage dmImage = IArchimateFactory.eINSTANCE.createDiagramModelImage();
+        dmImage.setImagePath(imagePath);
+        dm.getChildren().add(dmImage);
+        
+        archiveManager.saveModel();
+        assertTrue(IArchiveManager.FACTORY.isArchiveFile(file));
+        
+        // Saved image is read from the new file and the image not saved was kept
+        assertTrue(archiveManager.byteArrayStorage.isZipEntry(imagePath));
+        assertArrayEquals(bytes, archiveManager.getBytesFromEntry(imagePath));
+        assertFalse(archiveManager.byteArrayStorage.isZipEntry(unusedImagePath));
+        assertArrayEquals(unusedBytes, archiveManager.getBytesFromEntry(unusedImagePath));
+        
+        // And can be loaded
+        ArchiveManager archiveManager2 = new ArchiveManager(model);
+        archiveManager2.loadImagesFromModelFile(file);
+        assertEquals(1, archiveManager2.getLoadedImagePaths().size());
+        assertArrayEquals(bytes, archiveManager2.getBytesFromEntry(imagePath));
+        
+        archiveManager.dispose();
+        file.delete();
+    }
+    
+    @Test
+    public void testSaveModel_SaveAsThenDeleteOriginalFile() throws Exception {
+        File file = TestUtils.createTempFile(".archimate");
+        Files.copy(TestSupport.TEST_MODEL_FILE_ZIPPED.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        model.setFile(file);
+        archiveManager.loadImages();
+        
+        String imagePath = archiveManager.getLoadedImagePaths().get(0);
+        String unusedImagePath = archiveManager.getLoadedImagePaths().get(1);
+        
+        // Expected bytes read from another manager so that this one's images are not read yet
+        ArchiveManager archiveManager2 = new ArchiveManager(model);
+        archiveManager2.loadImagesFromModelFile(file);
+        byte[] bytes = archiveManager2.getBytesFromEntry(imagePath);
+        byte[] unusedBytes = archiveManager2.getBytesFromEntry(unusedImagePath);
+        assertTrue(archiveManager.byteArrayStorage.isZipEntry(imagePath));
+        
+        IDiagramModelImage dmImage = IArchimateFactory.eINSTANCE.createDiagramModelImage();
+        dmImage.setImagePath(imagePath);
+        dm.getChildren().add(dmImage);
+        
+        // Save As
+        File newFile = TestUtils.createTempFile(".archimate");
+        model.setFile(newFile);
+        archiveManager.saveModel();
+        
+        // The original file is not locked and can be deleted
+        assertTrue(file.delete());
+        
+        // And the images can still be read
+        assertArrayEquals(bytes, archiveManager.getBytesFromEntry(imagePath));
+        assertArrayEquals(unusedBytes, archiveManager.getBytesFromEntry(unusedImagePath));
+        assertNotNull(archiveManager.createImage(imagePath));
+        
+        // The new file can also be deleted
+        assertTrue(newFile.delete());
+        assertArrayEquals(bytes, archiveManager.getBytesFromEntry(imagePath));
+        
+        archiveManager.dispose();
+    }
+    
+    @Test
+    public void testSaveModel_SymbolicLinkAndPermissionsKept() throws Exception {
+        File file = TestUtils.createTempFile(".archimate");
+        Files.copy(TestSupport.TEST_MODEL_FILE_ZIPPED.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        
+        // POSIX file systems only
+        Assume.assumeNotNull(Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class));
+        
+        Path link = new File(file.getParentFile(), "link.archimate").toPath();
+        Files.deleteIfExists(link);
+        
+        try {
+            Files.createSymbolicLink(link, file.toPath());
+        }
+        catch(IOException | UnsupportedOperationException ex) {
+            Assume.assumeNoException(ex); // Not supported on this platform
+        }
+        
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        
+        model.setFile(link.toFile());
+        archiveManager.loadImages();
+        
+        IDiagramModelImage dmImage = IArchimateFactory.eINSTANCE.createDiagramModelImage();
+        dmImage.setImagePath(archiveManager.getLoadedImagePaths().get(0));
+        dm.getChildren().add(dmImage);
+        
+        archiveManager.saveModel();
+        
+        // Still a link and the file it links to was saved
+        assertTrue(Files.isSymbolicLink(link));
+        assertTrue(IArchiveManager.FACTORY.isArchiveFile(file));
+        assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+        
+        archiveManager.dispose();
+        Files.delete(link);
+        file.delete();
+    }
+    
     @Test
     public void testSaveModel_ResourceSame() throws IOException {
         File file = TestUtils.createTempFile(".archimate");
@@ -221,4 +372,4 @@ public class ArchiveManagerTests {
             assertSame(archiveManager.getBytesFromEntry(entryName), clone.getBytesFromEntry(entryName));
         }
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -5,6 +5,7 @@
  */
 package com.archimatetool.editor.model.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -12,9 +13,13 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -85,11 +90,15 @@ public class ByteArrayStorageTests {
     }    
 
     @Test
-    public void getEntrySet() throws Exception {
-        assertEquals(0, storage.getEntrySet().size());
+    public void getEntryNames() throws Exception {
+        assertEquals(0, storage.getEntryNames().size());
 
         storage.addFileContentEntry(entry1, img1File);
-        assertEquals(1, storage.getEntrySet().size());
+        assertEquals(1, storage.getEntryNames().size());
+        
+        // Same bytes with another name
+        storage.addFileContentEntry(entry2, img2File);
+        assertEquals(2, storage.getEntryNames().size());
     }    
 
     @Test
@@ -153,5 +162,83 @@ public class ByteArrayStorageTests {
         assertEquals(bytes1, storage.getEntry(entry2));
     }
 
+    @Test
+    public void getKey_NotFound() throws Exception {
+        assertNull(storage.getKey(new byte[] { 1, 2, 3 }));
+        
+        storage.addByteContentEntry(entry1, new byte[] { 1, 2, 3 });
+        assertEquals(entry1, storage.getKey(new byte[] { 1, 2, 3 }));
+        assertNull(storage.getKey(new byte[] { 1, 2, 4 }));
+    }
+    
+    @Test
+    public void removeEntry_SharedBytes() throws Exception {
+        byte[] bytes = storage.getBytesFromFile(img1File);
+        storage.addByteContentEntry(entry1, bytes);
+        storage.addByteContentEntry(entry2, bytes);
+        
+        // The remaining entry is found for the bytes
+        storage.removeEntry(entry1);
+        assertEquals(entry2, storage.getKey(bytes));
+        assertEquals(bytes, storage.getEntry(entry2));
+        
+        storage.removeEntry(entry2);
+        assertNull(storage.getKey(bytes));
+    }
+    
+    @Test
+    public void spilledEntry() throws Exception {
+        storage = new ByteArrayStorage(1024);
+        
+        storage.addFileContentEntry(entry1, img1File);
+        storage.addByteContentEntry(entry2, new byte[] { 1, 2, 3 });
+        
+        assertTrue(storage.isSpilled(entry1));
+        assertFalse(storage.isSpilled(entry2));
+        
+        assertEquals(imgfileByteSize, storage.getEntrySize(entry1));
+        assertArrayEquals(storage.getBytesFromFile(img1File), storage.getEntry(entry1));
+        assertEquals(entry1, storage.getKey(storage.getBytesFromFile(img2File)));
+        
+        InputStream is = storage.getInputStream(entry1);
+        assertNotNull(is);
+        is.close();
+        
+        storage.dispose();
+    }
     
+    @Test
+    public void writeEntry_StoredOnlyIfCompressedFormat() throws Exception {
+        byte[] bytes = storage.getBytesFromFile(img1File);
+        storage.addByteContentEntry("images/img.png", bytes);
+        storage.addByteContentEntry("images/img.bmp", new byte[1000]);
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(ZipOutputStream zOut = new ZipOutputStream(out)) {
+            assertTrue(storage.writeEntry("images/img.png", zOut));
+            assertTrue(storage.writeEntry("images/img.bmp", zOut));
+            assertFalse(storage.writeEntry("images/none.png", zOut));
+        }
+        
+        try(ZipInputStream zIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry zipEntry = zIn.getNextEntry();
+            assertEquals("images/img.png", zipEntry.getName());
+            assertEquals(ZipEntry.STORED, zipEntry.getMethod());
+            
+            zipEntry = zIn.getNextEntry();
+            assertEquals("images/img.bmp", zipEntry.getName());
+            assertEquals(ZipEntry.DEFLATED, zipEntry.getMethod());
+        }
+    }
+    
+    @Test
+    public void isCompressedFormat() {
+        assertTrue(ByteArrayStorage.isCompressedFormat("images/a.png"));
+        assertTrue(ByteArrayStorage.isCompressedFormat("images/a.JPG"));
+        assertTrue(ByteArrayStorage.isCompressedFormat("images/a.jpeg"));
+        assertTrue(ByteArrayStorage.isCompressedFormat("images/a.gif"));
+        assertFalse(ByteArrayStorage.isCompressedFormat("images/a.bmp"));
+        assertFalse(ByteArrayStorage.isCompressedFormat("images/a.svg"));
+        assertFalse(ByteArrayStorage.isCompressedFormat("images/a"));
+    }
 }
@@ -259,6 +259,51 @@ public class TextRendererTests {
         assertEquals("This \nis a \nProperty", textRenderer.render(dmo, "${wordwrap:6:$model{property:p1}}"));
     }
 
+    // ============================= Compiled Expression Tests =========================================
+    
+    @Test
+    public void compile_Supported() {
+        assertTrue(CompiledExpression.compile("Text ${name} $model{name} ${type} ${doc} $mfolder{documentation}").isCompiled());
+        assertTrue(CompiledExpression.compile("${property:k1} ${properties} $view{propertiesvalues} ${properties:, :k3}").isCompiled());
+        assertTrue(CompiledExpression.compile("$connection:source{content} ${strength} ${viewpoint} ${wordwrap:6:${name} text}").isCompiled());
+    }
+    
+    @Test
+    public void compile_NotSupported() {
+        assertFalse(CompiledExpression.compile("${unknown}").isCompiled());
+        assertFalse(CompiledExpression.compile("$model{type}").isCompiled());
+        assertFalse(CompiledExpression.compile("$foo{name}").isCompiled());
+        assertFalse(CompiledExpression.compile("$${name}").isCompiled());
+        assertFalse(CompiledExpression.compile("${name").isCompiled());
+        assertFalse(CompiledExpression.compile("${property:}").isCompiled());
+        assertFalse(CompiledExpression.compile("${property:$model{property:lang}}").isCompiled());
+        assertFalse(CompiledExpression.compile("${wordwrap:6:}").isCompiled());
+    }
+    
+    @Test
+    public void render_CompiledSameAsRenderers() {
+        IDiagramModelArchimateObject dmo = createDiagramModelObject();
+        
+        String[] expressions = {
+                "Text ${name} $model{name} ${type} ${doc} $mfolder{documentation} $view{name}",
+                "${property:k1} ${properties} $view{propertiesvalues} ${properties:, :k3} $model{property:none}",
+                "${content} ${strength} ${viewpoint} $source{name}",
+                "${wordwrap:6:${name} and $model{name}}\\n${wordwrap:3:${wordwrap:6:${type}}}"
+        };
+        
+        for(String expression : expressions) {
+            assertTrue(CompiledExpression.compile(expression.replace("\\n", "\n")).isCompiled());
+            assertEquals(textRenderer.renderWithRenderers(dmo, expression), textRenderer.render(dmo, expression));
+        }
+    }
+    
+    @Test
+    public void render_CompiledValueWithExpression() {
+        IDiagramModelArchimateObject dmo = createDiagramModelObject();
+        dmo.getArchimateConcept().setName("${type}");
+        assertEquals("Business Actor", textRenderer.render(dmo, "${name}"));
+    }
+
     // ============================= Utils =========================================
     
     static IDiagramModelArchimateObject createDiagramModelObject() {
@@ -14,6 +14,7 @@ public class AllUtilsTests {
 		TestSuite suite = new TestSuite("com.archimatetool.editor.utils");
 		
         // utils
+        suite.addTest(DigestUtilsTests.suite());
         suite.addTest(FileUtilsTests.suite());
         suite.addTest(HTMLUtilsTests.suite());
         suite.addTest(StringUtilsTests.suite());
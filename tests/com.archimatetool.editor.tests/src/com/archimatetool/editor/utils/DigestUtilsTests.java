@@ -0,0 +1,40 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class DigestUtilsTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(DigestUtilsTests.class);
+    }
+    
+    @Test
+    public void getSHA256() {
+        // Known digest of "abc"
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                DigestUtils.getSHA256("abc".getBytes(StandardCharsets.UTF_8)));
+        
+        assertNotEquals(DigestUtils.getSHA256("abc".getBytes(StandardCharsets.UTF_8)),
+                DigestUtils.getSHA256("abd".getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    @Test
+    public void getSHA256_SeveralInputsSameAsOne() {
+        assertEquals(DigestUtils.getSHA256("abc".getBytes(StandardCharsets.UTF_8)),
+                DigestUtils.getSHA256("a".getBytes(StandardCharsets.UTF_8), "bc".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -9,7 +9,9 @@ import junit.framework.TestSuite;
 
 import com.archimatetool.editor.views.tree.TreeModelViewerDragDropHandlerTests;
 import com.archimatetool.editor.views.tree.TreeModelViewerFindReplaceProviderTests;
+import com.archimatetool.editor.views.tree.TreeModelViewerTests;
 import com.archimatetool.editor.views.tree.commands.DeleteCommandHandlerTests;
+import com.archimatetool.editor.views.tree.search.SearchIndexTests;
 
 @SuppressWarnings("nls")
 public class AllViewsTests {
@@ -20,10 +22,14 @@ public class AllViewsTests {
         // views.tree
         suite.addTest(TreeModelViewerDragDropHandlerTests.suite());
         suite.addTest(TreeModelViewerFindReplaceProviderTests.suite());
+        suite.addTest(TreeModelViewerTests.suite());
 
         // views.tree.commands
         suite.addTest(DeleteCommandHandlerTests.suite());
 
+        // views.tree.search
+        suite.addTest(SearchIndexTests.suite());
+
         return suite;
 	}
 
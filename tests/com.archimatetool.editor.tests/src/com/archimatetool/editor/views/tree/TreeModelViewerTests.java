@@ -0,0 +1,128 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.views.tree;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Shell;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.editor.ui.textrender.TextRenderer;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IFolder;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class TreeModelViewerTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(TreeModelViewerTests.class);
+    }
+    
+    private TreeModelViewer treeViewer;
+    private IArchimateModel model;
+    private IFolder folder;
+    
+    private IArchimateElement element1, element2, element3;
+    
+    @Before
+    public void runOnceBeforeEachTest() {
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        folder = model.getFolder(FolderType.BUSINESS);
+        
+        element1 = createElement("b");
+        element2 = createElement("A");
+        element3 = createElement("c");
+        
+        treeViewer = new TreeModelViewer(new Shell(), SWT.NONE);
+        treeViewer.setInput(model);
+        
+        // Forward model notifications as the Tree View does
+        model.eAdapters().add(new EContentAdapter() {
+            @Override
+            public void notifyChanged(Notification msg) {
+                super.notifyChanged(msg);
+                treeViewer.invalidateSortKeys(msg);
+            }
+        });
+    }
+    
+    @After
+    public void runOnceAfterEachTest() {
+        treeViewer.getControl().getShell().dispose();
+    }
+    
+    @Test
+    public void testSortIgnoresCase() {
+        assertArrayEquals(new Object[] { element2, element1, element3 }, treeViewer.getSortedChildren(folder));
+    }
+
+    @Test
+    public void testSortKeyInvalidatedOnNameChange() {
+        assertArrayEquals(new Object[] { element2, element1, element3 }, treeViewer.getSortedChildren(folder));
+        
+        element2.setName("d");
+        assertArrayEquals(new Object[] { element1, element3, element2 }, treeViewer.getSortedChildren(folder));
+    }
+    
+    @Test
+    public void testSortKeyInvalidatedOnPropertyChange() {
+        folder.getFeatures().putString(TextRenderer.FEATURE_NAME, "${property:key}");
+        element1.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "2"));
+        element2.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "3"));
+        element3.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "1"));
+        assertArrayEquals(new Object[] { element3, element1, element2 }, treeViewer.getSortedChildren(folder));
+        
+        element3.getProperties().get(0).setValue("4");
+        assertArrayEquals(new Object[] { element1, element2, element3 }, treeViewer.getSortedChildren(folder));
+        
+        // Remove the label expression
+        folder.getFeatures().remove(TextRenderer.FEATURE_NAME);
+        assertArrayEquals(new Object[] { element2, element1, element3 }, treeViewer.getSortedChildren(folder));
+    }
+    
+    @Test
+    public void testSortKeyInvalidatedOnFolderWithExpressionAdded() {
+        assertArrayEquals(new Object[] { element2, element1, element3 }, treeViewer.getSortedChildren(folder));
+        
+        IFolder subFolder = IArchimateFactory.eINSTANCE.createFolder();
+        subFolder.getFeatures().putString(TextRenderer.FEATURE_NAME, "${property:key}");
+        folder.getFolders().add(subFolder);
+        
+        element1.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "2"));
+        element2.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "3"));
+        element3.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "1"));
+        subFolder.getElements().add(element1);
+        subFolder.getElements().add(element2);
+        subFolder.getElements().add(element3);
+        assertArrayEquals(new Object[] { element3, element1, element2 }, treeViewer.getSortedChildren(subFolder));
+        
+        // Folder removed
+        folder.getFolders().remove(subFolder);
+        folder.getElements().add(element1);
+        folder.getElements().add(element2);
+        folder.getElements().add(element3);
+        assertArrayEquals(new Object[] { element2, element1, element3 }, treeViewer.getSortedChildren(folder));
+    }
+    
+    private IArchimateElement createElement(String name) {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setName(name);
+        folder.getElements().add(element);
+        return element;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.editor.views.tree.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.editor.model.IEditorModelManager;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IFolder;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class SearchIndexTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(SearchIndexTests.class);
+    }
+    
+    private IArchimateModel model;
+    private IArchimateElement element;
+    private SearchIndex index;
+    private int changes;
+    
+    @Before
+    public void runOnceBeforeEachTest() {
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        
+        element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setName("Customer Portal");
+        element.setDocumentation("Some Documentation");
+        model.getFolder(FolderType.BUSINESS).getElements().add(element);
+        
+        IEditorModelManager.INSTANCE.openModel(model);
+        
+        index = new SearchIndex(() -> changes++);
+    }
+    
+    @After
+    public void runOnceAfterEachTest() throws Exception {
+        index.dispose();
+        
+        if(IEditorModelManager.INSTANCE.getModels().contains(model)) {
+            IEditorModelManager.INSTANCE.closeModel(model);
+        }
+    }
+    
+    @Test
+    public void getEntry() {
+        SearchIndex.Entry entry = index.getEntry(element);
+        assertNotNull(entry);
+        assertEquals("customer portal", entry.name);
+        assertEquals("some documentation", entry.documentation);
+        assertEquals(0, entry.propertyKeys.length);
+        
+        assertNotNull(index.getEntry(model));
+        assertNotNull(index.getEntry(model.getFolder(FolderType.BUSINESS)));
+    }
+    
+    @Test
+    public void getCandidates() {
+        assertTrue(getCandidateObjects("portal").contains(element));
+        assertTrue(getCandidateObjects("documentation").contains(element));
+        assertFalse(getCandidateObjects("xyz").contains(element));
+        
+        // Short text returns all entries
+        assertTrue(getCandidateObjects("").contains(element));
+        assertTrue(getCandidateObjects("zz").contains(element));
+    }
+    
+    @Test
+    public void indexUpdatedFromNotifications() {
+        element.setName("Supplier");
+        assertTrue(changes > 0);
+        assertFalse(getCandidateObjects("portal").contains(element));
+        assertTrue(getCandidateObjects("supplier").contains(element));
+        
+        element.getProperties().add(IArchimateFactory.eINSTANCE.createProperty("key", "Value"));
+        assertTrue(getCandidateObjects("value").contains(element));
+        assertEquals("key", index.getEntry(element).propertyKeys[0]);
+        
+        IFolder folder = IArchimateFactory.eINSTANCE.createFolder();
+        model.getFolder(FolderType.BUSINESS).getFolders().add(folder);
+        folder.getElements().add(element);
+        assertTrue(getCandidateObjects("supplier").contains(element));
+        
+        model.getFolder(FolderType.BUSINESS).getFolders().remove(folder);
+        assertNull(index.getEntry(folder));
+        assertNull(index.getEntry(element));
+    }
+    
+    @Test
+    public void modelRemoved() throws Exception {
+        IEditorModelManager.INSTANCE.closeModel(model);
+        assertNull(index.getEntry(model));
+        assertNull(index.getEntry(element));
+    }
+    
+    private List<EObject> getCandidateObjects(String text) {
+        List<EObject> objects = new ArrayList<>();
+        for(SearchIndex.Entry entry : index.getCandidates(text)) {
+            objects.add(entry.object);
+        }
+        return objects;
+    }
+}
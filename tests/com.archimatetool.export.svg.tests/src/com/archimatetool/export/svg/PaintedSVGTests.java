@@ -0,0 +1,98 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.export.svg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.FreeformLayer;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.tests.TestUtils;
+
+
+@SuppressWarnings("nls")
+public class PaintedSVGTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(PaintedSVGTests.class);
+    }
+    
+    private IFigure rootFigure;
+    
+    @Before
+    public void runOnceBeforeEachTest() {
+        rootFigure = new FreeformLayer();
+        rootFigure.setBounds(new Rectangle(0, 0, 500, 500));
+        
+        IFigure childFigure = new Figure();
+        childFigure.setBounds(new Rectangle(0, 0, 100, 50));
+        rootFigure.add(childFigure);
+    }
+    
+    @Test
+    public void testGetBounds() {
+        PaintedSVG svg = PaintedSVG.paint(rootFigure, false);
+        assertEquals(new Rectangle(-10, -10, 120, 70), svg.getBounds());
+    }
+    
+    @Test
+    public void testWriteSVG() throws Exception {
+        File tmp = TestUtils.createTempFile(null);
+        
+        PaintedSVG svg = PaintedSVG.paint(rootFigure, false);
+        svg.setViewBox(1, 2, 3, 4);
+        svg.writeSVG(tmp);
+        
+        String s = new String(Files.readAllBytes(tmp.toPath()), StandardCharsets.UTF_8);
+        assertTrue(s.contains("viewBox=\"1 2 3 4\""));
+    }
+    
+    @Test
+    public void testWriteSVGAndPDFOnOtherThreads() throws Exception {
+        File svgFile = TestUtils.createTempFile(".svg");
+        File pdfFile = TestUtils.createTempFile(".pdf");
+        
+        // Paint on this thread
+        PaintedSVG svg = PaintedSVG.paint(rootFigure, true);
+        PaintedSVG pdf = PaintedSVG.paint(rootFigure, true);
+        
+        // Write on other threads
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> svgTask = executor.submit(() -> {
+                svg.writeSVG(svgFile);
+                return null;
+            });
+            Future<?> pdfTask = executor.submit(() -> {
+                pdf.writePDF(pdfFile);
+                return null;
+            });
+            
+            svgTask.get();
+            pdfTask.get();
+        }
+        finally {
+            executor.shutdown();
+        }
+        
+        assertTrue(svgFile.length() > 100);
+        assertTrue(pdfFile.length() > 100);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.commandline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.commons.cli.CommandLine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.commandline.CommandLineState;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ValidateModelProviderTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ValidateModelProviderTests.class);
+    }
+    
+    ValidateModelProvider provider;
+    
+    @Before
+    public void runOnceBeforeEachTest() {
+        provider = new ValidateModelProvider();
+        provider.doLog = false;
+        
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        CommandLineState.setModel(model);
+        CommandLineState.setExitCode(0);
+    }
+    
+    @After
+    public void runOnceAfterEachTest() {
+        CommandLineState.setModel(null);
+        CommandLineState.setExitCode(0);
+    }
+    
+    @Test
+    public void getOptionsNotNull() {
+        assertNotNull(provider.getOptions());
+    }
+    
+    @Test
+    public void run_InvalidFailOnSetsExitCode() throws Exception {
+        CommandLine commandLine = mock(CommandLine.class);
+        when(commandLine.hasOption(ValidateModelProvider.OPTION_VALIDATE)).thenReturn(true);
+        when(commandLine.getOptionValue(ValidateModelProvider.OPTION_FAIL_ON)).thenReturn("rubbish");
+        
+        provider.run(commandLine);
+        
+        assertEquals(ValidateModelProvider.EXIT_INVALID_FAIL_ON, CommandLineState.getExitCode());
+    }
+    
+    @Test
+    public void run_ValidFailOnNoFailures() throws Exception {
+        CommandLine commandLine = mock(CommandLine.class);
+        when(commandLine.hasOption(ValidateModelProvider.OPTION_VALIDATE)).thenReturn(true);
+        when(commandLine.getOptionValue(ValidateModelProvider.OPTION_FAIL_ON)).thenReturn("error");
+        
+        // An empty model has no errors
+        provider.run(commandLine);
+        
+        assertEquals(0, CommandLineState.getExitCode());
+    }
+}
@@ -6,6 +6,8 @@
 package com.archimatetool.hammer;
 
 
+import com.archimatetool.hammer.validation.IncrementalValidatorTests;
+import com.archimatetool.hammer.validation.ValidationReportTests;
 import com.archimatetool.hammer.validation.ValidatorTests;
 import com.archimatetool.hammer.validation.checkers.DuplicateElementCheckerTests;
 import com.archimatetool.hammer.validation.checkers.EmptyViewsCheckerTests;
@@ -33,6 +35,8 @@ public class AllTests {
 		TestSuite suite = new TestSuite("com.archimatetool.hammer");
 
 		// validation
+		suite.addTest(IncrementalValidatorTests.suite());
+		suite.addTest(ValidationReportTests.suite());
 		suite.addTest(ValidatorTests.suite());
 		
         // validation.checkers
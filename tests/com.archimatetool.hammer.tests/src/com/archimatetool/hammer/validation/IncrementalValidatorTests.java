@@ -0,0 +1,219 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.IIssueCategory;
+import com.archimatetool.hammer.validation.issues.IIssueGroup;
+import com.archimatetool.model.FolderType;
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.testingtools.ArchimateTestModel;
+import com.archimatetool.tests.TestData;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class IncrementalValidatorTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(IncrementalValidatorTests.class);
+    }
+    
+    private IArchimateModel model;
+    private IncrementalValidator validator;
+    private IArchimateElement element;
+    
+    @Before
+    public void runBeforeEachTest() {
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        
+        element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element.setName("Actor");
+        model.getDefaultFolderForObject(element).getElements().add(element);
+        
+        validator = createValidator(model);
+    }
+    
+    @Test
+    public void testGetModel() {
+        assertSame(model, validator.getModel());
+    }
+    
+    @Test
+    public void testValidate_SameAsValidator() throws IOException {
+        IArchimateModel model = new ArchimateTestModel(TestData.TEST_MODEL_FILE_ARCHISURANCE).loadModel();
+        
+        List<IIssue> issues1 = getIssues(new Validator(model).validate());
+        List<IIssue> issues2 = getIssues(new IncrementalValidator(model).validate());
+        
+        // Same issues in the same order
+        assertEquals(issues1.size(), issues2.size());
+        for(int i = 0; i < issues1.size(); i++) {
+            assertSame(issues1.get(i).getClass(), issues2.get(i).getClass());
+            assertSame(issues1.get(i).getObject(), issues2.get(i).getObject());
+            assertEquals(issues1.get(i).getDescription(), issues2.get(i).getDescription());
+        }
+    }
+    
+    @Test
+    public void testRevalidate_SameOrderAsValidator() throws IOException {
+        IArchimateModel model = new ArchimateTestModel(TestData.TEST_MODEL_FILE_ARCHISURANCE).loadModel();
+        
+        validator = createValidator(model);
+        validator.validate();
+        
+        // Change an element so that it and its views are checked again
+        IArchimateElement element = (IArchimateElement)model.getFolder(FolderType.BUSINESS).getElements().get(0);
+        element.setName("Changed");
+        
+        List<IIssue> issues1 = getIssues(new Validator(model).validate());
+        List<IIssue> issues2 = getIssues(validator.revalidate());
+        
+        assertEquals(issues1.size(), issues2.size());
+        for(int i = 0; i < issues1.size(); i++) {
+            assertSame(issues1.get(i).getObject(), issues2.get(i).getObject());
+        }
+    }
+    
+    @Test
+    public void testRevalidate_NotChanged() {
+        validator.validate();
+        assertFalse(validator.isDirty());
+        assertTrue(hasIssueFor(validator.revalidate(), element));
+    }
+    
+    @Test
+    public void testRevalidate_ElementAddedToView() {
+        assertTrue(hasIssueFor(validator.validate(), element));
+        
+        IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+        model.getDefaultFolderForObject(dm).getElements().add(dm);
+        assertTrue(validator.isDirty());
+        
+        // Empty View
+        assertTrue(hasIssueFor(validator.revalidate(), dm));
+        
+        IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dmo.setArchimateElement(element);
+        dm.getChildren().add(dmo);
+        assertTrue(validator.isDirty());
+        
+        // No longer unused and View no longer empty
+        List<Object> result = validator.revalidate();
+        assertFalse(hasIssueFor(result, element));
+        assertFalse(hasIssueFor(result, dm));
+        
+        // Removed from View so unused again
+        dm.getChildren().remove(dmo);
+        assertTrue(hasIssueFor(validator.revalidate(), element));
+    }
+    
+    @Test
+    public void testRevalidate_ElementRemoved() {
+        assertTrue(hasIssueFor(validator.validate(), element));
+        
+        model.getDefaultFolderForObject(element).getElements().remove(element);
+        assertFalse(hasIssueFor(validator.revalidate(), element));
+    }
+    
+    @Test
+    public void testRevalidate_ElementRenamed() {
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element2.setName("Another Actor");
+        model.getDefaultFolderForObject(element2).getElements().add(element2);
+        
+        assertFalse(hasDuplicatesGroup(validator.validate()));
+        
+        element2.setName("Actor");
+        assertTrue(validator.isDirty());
+        assertTrue(hasDuplicatesGroup(validator.revalidate()));
+    }
+    
+    @Test
+    public void testNotifyChanged_OtherModelIgnored() {
+        validator.validate();
+        
+        IArchimateModel model2 = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model2.setDefaults();
+        createValidator(model2);
+        
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        model2.getDefaultFolderForObject(element2).getElements().add(element2);
+        
+        // Forward the other model's notification
+        model2.getDefaultFolderForObject(element2).getElements().remove(element2);
+        assertFalse(validator.isDirty());
+    }
+    
+    /**
+     * Create an IncrementalValidator for a model.
+     * The model's notifications are sent to the validator under test as they would be from the EditorModelManager.
+     */
+    private IncrementalValidator createValidator(IArchimateModel model) {
+        IncrementalValidator incrementalValidator = new IncrementalValidator(model);
+        
+        model.eAdapters().add(new EContentAdapter() {
+            @Override
+            public void notifyChanged(Notification notification) {
+                super.notifyChanged(notification);
+                IncrementalValidatorTests.this.validator.notifyChanged(notification);
+            }
+        });
+        
+        return incrementalValidator;
+    }
+    
+    private List<IIssue> getIssues(List<Object> result) {
+        List<IIssue> issues = new ArrayList<IIssue>();
+        
+        for(Object o : result) {
+            if(o instanceof IIssueCategory) {
+                issues.addAll(((IIssueCategory)o).getIssues());
+            }
+        }
+        
+        return issues;
+    }
+    
+    private boolean hasIssueFor(List<Object> result, Object object) {
+        for(IIssue issue : getIssues(result)) {
+            if(!(issue instanceof IIssueGroup) && issue.getObject() == object) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean hasDuplicatesGroup(List<Object> result) {
+        for(IIssue issue : getIssues(result)) {
+            if(issue instanceof IIssueGroup) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
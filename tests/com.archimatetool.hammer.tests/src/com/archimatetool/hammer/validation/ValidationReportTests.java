@@ -0,0 +1,203 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.hammer.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.hammer.validation.ValidationReport.Severity;
+import com.archimatetool.hammer.validation.issues.AdviceType;
+import com.archimatetool.hammer.validation.issues.ErrorType;
+import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.OKType;
+import com.archimatetool.hammer.validation.issues.WarningType;
+import com.archimatetool.jdom.JDOMUtils;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.testingtools.ArchimateTestModel;
+import com.archimatetool.tests.TestData;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class ValidationReportTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ValidationReportTests.class);
+    }
+
+    static IArchimateModel model;
+    static ValidationReport report;
+
+    @BeforeClass
+    public static void runOnceBeforeAllTests() throws IOException {
+        ArchimateTestModel tm = new ArchimateTestModel(TestData.TEST_MODEL_FILE_ARCHISURANCE);
+        model = tm.loadModel();
+        report = new ValidationReport(new Validator(model));
+        report.validate();
+    }
+
+    @AfterClass
+    public static void runOnceAfterAllTests() throws IOException {
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
+
+    @Test
+    public void testSeverityOf() {
+        assertEquals(Severity.ERROR, Severity.of(new ErrorType()));
+        assertEquals(Severity.WARNING, Severity.of(new WarningType()));
+        assertEquals(Severity.ADVICE, Severity.of(new AdviceType()));
+        assertNull(Severity.of(new OKType()));
+    }
+
+    @Test
+    public void testSeverityFromName() {
+        assertEquals(Severity.ERROR, Severity.fromName("error"));
+        assertEquals(Severity.WARNING, Severity.fromName("Warning"));
+        assertEquals(Severity.ADVICE, Severity.fromName("ADVICE"));
+        assertNull(Severity.fromName("bogus"));
+    }
+
+    @Test
+    public void testGetIssues() {
+        assertFalse(report.getIssues().isEmpty());
+
+        int count = 0;
+        for(Severity severity : Severity.values()) {
+            count += report.getCount(severity);
+        }
+        assertEquals(report.getIssues().size(), count);
+    }
+
+    @Test
+    public void testGetCheckerTimings() {
+        assertFalse(report.getCheckerTimings().isEmpty());
+    }
+
+    @Test
+    public void testIsFailure() {
+        try {
+            // All issues fail
+            report.setFailSeverity(null);
+            assertTrue(report.isFailure(new AdviceType()));
+            assertFalse(report.isFailure(new OKType()));
+
+            report.setFailSeverity(Severity.WARNING);
+            assertTrue(report.isFailure(new ErrorType()));
+            assertTrue(report.isFailure(new WarningType()));
+            assertFalse(report.isFailure(new AdviceType()));
+        }
+        finally {
+            report.setFailSeverity(null);
+        }
+    }
+
+    @Test
+    public void testHasFailures() {
+        try {
+            report.setFailSeverity(Severity.ADVICE);
+            assertTrue(report.hasFailures());
+
+            report.setFailSeverity(Severity.ERROR);
+            assertEquals(report.getCount(Severity.ERROR) > 0, report.hasFailures());
+        }
+        finally {
+            report.setFailSeverity(null);
+        }
+    }
+
+    @Test
+    public void testWriteJSON() throws IOException {
+        File file = new File(TestUtils.TMP_FOLDER, "reports/validation.json");
+        report.writeJSON(file);
+        assertTrue(file.exists());
+
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+        StringWriter writer = new StringWriter();
+        report.writeJSON(writer);
+        assertEquals(writer.toString(), json);
+
+        assertTrue(json.startsWith("{"));
+        assertTrue(json.contains("\"id\": \"" + model.getId() + "\""));
+        assertTrue(json.contains("\"error\": " + report.getCount(Severity.ERROR)));
+        assertTrue(json.contains("\"warning\": " + report.getCount(Severity.WARNING)));
+        assertTrue(json.contains("\"advice\": " + report.getCount(Severity.ADVICE)));
+
+        for(String checkerName : report.getCheckerTimings().keySet()) {
+            assertTrue(json.contains("{\"name\": \"" + checkerName + "\", \"time\": "));
+        }
+    }
+
+    @Test
+    public void testCreateJUnitXMLDocument() {
+        try {
+            report.setFailSeverity(Severity.WARNING);
+
+            Element rootElement = report.createJUnitXMLDocument().getRootElement();
+            assertEquals("testsuites", rootElement.getName());
+            assertEquals(report.getCheckerTimings().size(), rootElement.getChildren("testsuite").size());
+
+            int failures = report.getCount(Severity.ERROR) + report.getCount(Severity.WARNING);
+            assertEquals(String.valueOf(failures), rootElement.getAttributeValue("failures"));
+            assertEquals(String.valueOf(report.getCount(Severity.ADVICE)), rootElement.getAttributeValue("skipped"));
+
+            int failureElements = 0, tests = 0;
+            for(Element suiteElement : rootElement.getChildren("testsuite")) {
+                for(Element caseElement : suiteElement.getChildren("testcase")) {
+                    tests++;
+                    if(caseElement.getChild("failure") != null) {
+                        failureElements++;
+                    }
+                }
+            }
+
+            assertEquals(failures, failureElements);
+            assertEquals(String.valueOf(tests), rootElement.getAttributeValue("tests"));
+        }
+        finally {
+            report.setFailSeverity(null);
+        }
+    }
+
+    @Test
+    public void testWriteJUnitXML() throws Exception {
+        File file = new File(TestUtils.TMP_FOLDER, "reports/validation.xml");
+        report.writeJUnitXML(file);
+        assertTrue(file.exists());
+
+        Document doc = JDOMUtils.readXMLFile(file);
+        int issues = 0;
+        for(IIssue issue : report.getIssues()) {
+            if(Severity.of(issue) != null) {
+                issues++;
+            }
+        }
+        assertEquals(String.valueOf(issues), doc.getRootElement().getAttributeValue("failures"));
+    }
+
+    @Test
+    public void testQuoteJSON() {
+        assertEquals("\"abc\"", ValidationReport.quoteJSON("abc"));
+        assertEquals("\"a\\\"b\\\\c\\n\\t\\u0001\"", ValidationReport.quoteJSON("a\"b\\c\n\t\u0001"));
+    }
+}
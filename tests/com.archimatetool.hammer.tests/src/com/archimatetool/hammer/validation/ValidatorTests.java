@@ -17,6 +17,7 @@ import java.util.List;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.archimatetool.hammer.validation.issues.IIssue;
 import com.archimatetool.hammer.validation.issues.IIssueCategory;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.testingtools.ArchimateTestModel;
@@ -72,4 +73,54 @@ public class ValidatorTests {
     public void testGetArchimateViews() {
         assertEquals(17, validator.getArchimateViews().size());
     }
+    
+    @Test
+    public void testGetArchimateDiagramObjects() {
+        assertFalse(validator.getArchimateDiagramObjects().isEmpty());
+    }
+    
+    @Test
+    public void testGetCheckerTimings() {
+        validator.validate();
+        assertFalse(validator.getCheckerTimings().isEmpty());
+    }
+    
+    @Test
+    public void testGetCheckerIssues() {
+        List<Object> list = validator.validate();
+        
+        assertEquals(validator.getCheckerTimings().keySet(), validator.getCheckerIssues().keySet());
+        
+        // Same issues as the categories
+        int count = 0;
+        for(Object object : list) {
+            count += ((IIssueCategory)object).getIssues().size();
+        }
+        
+        int checkerCount = 0;
+        for(List<IIssue> issues : validator.getCheckerIssues().values()) {
+            checkerCount += issues.size();
+        }
+        
+        assertEquals(count, checkerCount);
+    }
+    
+    @Test
+    public void testValidateIsDeterministic() {
+        List<Object> list1 = validator.validate();
+        List<Object> list2 = validator.validate();
+        
+        assertEquals(list1.size(), list2.size());
+        
+        for(int i = 0; i < list1.size(); i++) {
+            List<? extends IIssue> issues1 = ((IIssueCategory)list1.get(i)).getIssues();
+            List<? extends IIssue> issues2 = ((IIssueCategory)list2.get(i)).getIssues();
+            assertEquals(issues1.size(), issues2.size());
+            
+            for(int j = 0; j < issues1.size(); j++) {
+                assertSame(issues1.get(j).getObject(), issues2.get(j).getObject());
+                assertEquals(issues1.get(j).getDescription(), issues2.get(j).getDescription());
+            }
+        }
+    }
 }
@@ -13,7 +13,9 @@ import java.util.List;
 
 import org.junit.Test;
 
+import com.archimatetool.hammer.validation.checkers.DuplicateElementChecker.MatchMode;
 import com.archimatetool.hammer.validation.issues.IIssue;
+import com.archimatetool.hammer.validation.issues.WarningGroupType;
 import com.archimatetool.hammer.validation.issues.WarningType;
 import com.archimatetool.model.IArchimateElement;
 import com.archimatetool.model.IArchimateFactory;
@@ -49,11 +51,92 @@ public class DuplicateElementCheckerTests {
         // Set name the same
         e2.setName("fido1");
         issues = checker.getIssues();
-        assertEquals(2, issues.size());
-        assertTrue(issues.get(0) instanceof WarningType);
-        assertTrue(issues.get(1) instanceof WarningType);
+        assertEquals(1, issues.size());
+        assertTrue(issues.get(0) instanceof WarningGroupType);
         assertSame(e1, issues.get(0).getObject());
-        assertSame(e2, issues.get(1).getObject());
+        
+        List<WarningType> group = ((WarningGroupType)issues.get(0)).getIssues();
+        assertEquals(2, group.size());
+        assertSame(e1, group.get(0).getObject());
+        assertSame(e2, group.get(1).getObject());
+    }
+    
+    @Test
+    public void testGetIssues_GroupsByTypeAndName() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        
+        for(int i = 0; i < 3; i++) {
+            IArchimateElement e = IArchimateFactory.eINSTANCE.createBusinessActor();
+            e.setName("Actor");
+            elements.add(e);
+        }
+        
+        for(int i = 0; i < 2; i++) {
+            IArchimateElement e = IArchimateFactory.eINSTANCE.createBusinessRole();
+            e.setName("Actor");
+            elements.add(e);
+        }
+        
+        IArchimateElement e = IArchimateFactory.eINSTANCE.createBusinessRole();
+        e.setName("Role");
+        elements.add(e);
+        
+        List<IIssue> issues = new DuplicateElementChecker(elements).getIssues();
+        assertEquals(2, issues.size());
+        assertEquals(3, ((WarningGroupType)issues.get(0)).getIssues().size());
+        assertEquals(2, ((WarningGroupType)issues.get(1)).getIssues().size());
+    }
+    
+    @Test
+    public void testGetIssues_IgnoreCaseAndWhitespace() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        
+        IArchimateElement e1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e1.setName("Customer Service");
+        elements.add(e1);
+        
+        IArchimateElement e2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e2.setName(" customer  service");
+        elements.add(e2);
+        
+        assertTrue(new DuplicateElementChecker(elements, MatchMode.EXACT).getIssues().isEmpty());
+        
+        List<IIssue> issues = new DuplicateElementChecker(elements, MatchMode.IGNORE_CASE_AND_WHITESPACE).getIssues();
+        assertEquals(1, issues.size());
+        assertEquals(2, ((WarningGroupType)issues.get(0)).getIssues().size());
+    }
+    
+    @Test
+    public void testGetIssues_Similar() {
+        List<IArchimateElement> elements = new ArrayList<IArchimateElement>();
+        
+        IArchimateElement e1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e1.setName("Customer Services Department");
+        elements.add(e1);
+        
+        IArchimateElement e2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e2.setName("Customer Service Department");
+        elements.add(e2);
+        
+        IArchimateElement e3 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e3.setName("Finance");
+        elements.add(e3);
+        
+        assertTrue(new DuplicateElementChecker(elements, MatchMode.IGNORE_CASE_AND_WHITESPACE).getIssues().isEmpty());
+        
+        List<IIssue> issues = new DuplicateElementChecker(elements, MatchMode.SIMILAR).getIssues();
+        assertEquals(1, issues.size());
+        
+        List<WarningType> group = ((WarningGroupType)issues.get(0)).getIssues();
+        assertEquals(2, group.size());
+        assertSame(e1, group.get(0).getObject());
+        assertSame(e2, group.get(1).getObject());
+    }
+    
+    @Test
+    public void testGetSimilarity() {
+        assertEquals(1.0, DuplicateElementChecker.getSimilarity(DuplicateElementChecker.getTrigrams("abc"), DuplicateElementChecker.getTrigrams("abc")), 0);
+        assertEquals(0.0, DuplicateElementChecker.getSimilarity(DuplicateElementChecker.getTrigrams("abc"), DuplicateElementChecker.getTrigrams("xyz")), 0);
     }
     
     @Test
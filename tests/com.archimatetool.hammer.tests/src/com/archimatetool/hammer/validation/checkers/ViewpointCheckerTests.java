@@ -54,4 +54,26 @@ public class ViewpointCheckerTests {
         assertSame(dmo1, issues.get(0).getObject());
     }
     
+    @Test
+    public void testGetIssues_ForDiagramObjects() {
+        IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+        dm.setViewpoint("organization");
+        
+        IDiagramModelArchimateObject dmo1 = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dmo1.setArchimateElement(IArchimateFactory.eINSTANCE.createNode());
+        dm.getChildren().add(dmo1);
+        
+        IDiagramModelArchimateObject dmo2 = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dmo2.setArchimateElement(IArchimateFactory.eINSTANCE.createBusinessActor());
+        dm.getChildren().add(dmo2);
+        
+        List<IDiagramModelArchimateObject> dmos = new ArrayList<IDiagramModelArchimateObject>();
+        dmos.add(dmo1);
+        dmos.add(dmo2);
+        
+        List<IIssue> issues = ViewpointChecker.createForDiagramObjects(dmos).getIssues();
+        assertEquals(1, issues.size());
+        assertSame(dmo1, issues.get(0).getObject());
+    }
+    
 }
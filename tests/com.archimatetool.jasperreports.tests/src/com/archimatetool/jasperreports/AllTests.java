@@ -21,6 +21,7 @@ public class AllTests {
     public static junit.framework.Test suite() {
 		TestSuite suite = new TestSuite("com.archimatetool.jasperreports");
 
+		suite.addTest(CompiledReportCacheTests.suite());
 		suite.addTest(JasperReportsExporterTests.suite());
 		suite.addTest(ArchimateModelDataSourceTests.suite());
         suite.addTest(ElementsDataSourceTests.suite());
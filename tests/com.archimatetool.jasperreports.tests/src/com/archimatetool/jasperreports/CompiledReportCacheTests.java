@@ -0,0 +1,148 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.jasperreports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.tests.TestUtils;
+
+import junit.framework.JUnit4TestAdapter;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+
+
+@SuppressWarnings("nls")
+public class CompiledReportCacheTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(CompiledReportCacheTests.class);
+    }
+
+    private File cacheFolder;
+    private File jrxmlFile;
+
+    @Before
+    public void runBeforeEachTest() throws IOException {
+        CompiledReportCache.clearMemory();
+
+        File tmpFolder = TestUtils.createTempFolder("cache");
+        cacheFolder = new File(tmpFolder, "compiled");
+
+        // Copy a template so that it can be changed
+        jrxmlFile = new File(tmpFolder, "properties.jrxml");
+        Files.copy(new File(TestSupport.getReportsFolder(), "Customizable Report/properties.jrxml").toPath(), jrxmlFile.toPath());
+    }
+
+    @After
+    public void runAfterEachTest() throws IOException {
+        CompiledReportCache.clearMemory();
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
+
+    @Test
+    public void getReport_IsCompiledOnce() throws IOException, JRException {
+        CompiledReportCache cache = new CompiledReportCache(cacheFolder);
+
+        JasperReport report = cache.getReport(jrxmlFile);
+        assertEquals(1, cache.getCompiledCount());
+        assertEquals(1, cacheFolder.listFiles().length);
+        assertTrue(cacheFolder.listFiles()[0].getName().endsWith(".jasper"));
+
+        // From memory
+        assertSame(report, cache.getReport(jrxmlFile));
+        assertEquals(1, cache.getCompiledCount());
+    }
+
+    @Test
+    public void getReport_IsLoadedFromCacheFolder() throws IOException, JRException {
+        JasperReport report = new CompiledReportCache(cacheFolder).getReport(jrxmlFile);
+
+        // As if in another process
+        CompiledReportCache.clearMemory();
+        CompiledReportCache cache = new CompiledReportCache(cacheFolder);
+
+        JasperReport loadedReport = cache.getReport(jrxmlFile);
+        assertNotSame(report, loadedReport);
+        assertEquals(report.getName(), loadedReport.getName());
+        assertEquals(0, cache.getCompiledCount());
+    }
+
+    @Test
+    public void getReport_IsCompiledWhenChanged() throws IOException, JRException {
+        CompiledReportCache cache = new CompiledReportCache(cacheFolder);
+        cache.getReport(jrxmlFile);
+
+        String content = new String(Files.readAllBytes(jrxmlFile.toPath()), StandardCharsets.UTF_8);
+        Files.write(jrxmlFile.toPath(), (content + "\n").getBytes(StandardCharsets.UTF_8));
+
+        cache.getReport(jrxmlFile);
+        assertEquals(2, cache.getCompiledCount());
+        assertEquals(2, cacheFolder.listFiles().length);
+    }
+
+    @Test
+    public void getReport_IsCompiledWhenCacheFileIsCorrupt() throws IOException, JRException {
+        new CompiledReportCache(cacheFolder).getReport(jrxmlFile);
+
+        CompiledReportCache.clearMemory();
+        Files.write(cacheFolder.listFiles()[0].toPath(), "rubbish".getBytes(StandardCharsets.UTF_8));
+
+        CompiledReportCache cache = new CompiledReportCache(cacheFolder);
+        cache.getReport(jrxmlFile);
+        assertEquals(1, cache.getCompiledCount());
+    }
+
+    @Test
+    public void getReport_MemoryOnly() throws IOException, JRException {
+        CompiledReportCache cache = new CompiledReportCache(null);
+        JasperReport report = cache.getReport(jrxmlFile);
+        assertSame(report, cache.getReport(jrxmlFile));
+        assertEquals(1, cache.getCompiledCount());
+    }
+
+    @Test
+    public void pruneCacheFolder_LeastRecentlyUsedDeleted() throws IOException {
+        cacheFolder.mkdirs();
+        CompiledReportCache cache = new CompiledReportCache(cacheFolder);
+
+        long time = System.currentTimeMillis();
+        for(int i = 0; i < 4; i++) {
+            File file = new File(cacheFolder, i + ".jasper");
+            Files.write(file.toPath(), new byte[] { 1 });
+            assertTrue(file.setLastModified(time - (i * 100000)));
+        }
+
+        cache.pruneCacheFolder(2);
+
+        assertTrue(new File(cacheFolder, "0.jasper").exists());
+        assertTrue(new File(cacheFolder, "1.jasper").exists());
+        assertFalse(new File(cacheFolder, "2.jasper").exists());
+        assertFalse(new File(cacheFolder, "3.jasper").exists());
+    }
+
+    @Test
+    public void getDigest() {
+        byte[] bytes = "abc".getBytes(StandardCharsets.UTF_8);
+        assertEquals(64, CompiledReportCache.getDigest(bytes).length());
+        assertEquals(CompiledReportCache.getDigest(bytes), CompiledReportCache.getDigest(bytes));
+        assertNotEquals(CompiledReportCache.getDigest(bytes), CompiledReportCache.getDigest("abd".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -6,17 +6,25 @@
 package com.archimatetool.jasperreports;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.jasperreports.JasperReportsExporter.CancelledException;
+import com.archimatetool.jasperreports.JasperReportsExporter.FormatExport;
+import com.archimatetool.jasperreports.JasperReportsExporter.JasperPrintSource;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.testingtools.ArchimateTestModel;
 import com.archimatetool.tests.TestData;
@@ -71,7 +79,7 @@ public class JasperReportsExporterTests {
     }
     
     @Test
-    public void testExportHTML() throws JRException {
+    public void testExportHTML() throws JRException, IOException {
         File file = new File(exportFolder, exportFileName + ".html");
         exporter.exportHTML(jasperPrint, file);
         
@@ -85,40 +93,107 @@ public class JasperReportsExporterTests {
     }
     
     @Test
-    public void testExportPDF() throws JRException {
+    public void testExportPDF() throws JRException, IOException {
         File file = new File(exportFolder, exportFileName + ".pdf");
         exporter.exportPDF(jasperPrint, file);
         assertTrue(file.exists());
     }
 
     @Test
-    public void testExportDOCX() throws JRException {
+    public void testExportDOCX() throws JRException, IOException {
         File file = new File(exportFolder, exportFileName + ".docx");
         exporter.exportDOCX(jasperPrint, file);
         assertTrue(file.exists());
     }
 
     @Test
-    public void testExportPPT() throws JRException {
+    public void testExportPPT() throws JRException, IOException {
         File file = new File(exportFolder, exportFileName + ".ppt");
         exporter.exportPPT(jasperPrint, file);
         assertTrue(file.exists());
     }
 
     @Test
-    public void testExportRTF() throws JRException {
+    public void testExportRTF() throws JRException, IOException {
         File file = new File(exportFolder, exportFileName + ".rtf");
         exporter.exportRTF(jasperPrint, file);
         assertTrue(file.exists());
     }
 
     @Test
-    public void testExportODT() throws JRException {
+    public void testExportODT() throws JRException, IOException {
         File file = new File(exportFolder, exportFileName + ".odt");
         exporter.exportODT(jasperPrint, file);
         assertTrue(file.exists());
     }
 
+    @Test
+    public void testExportFormats() throws JRException, IOException {
+        File folder = new File(exportFolder, "formats");
+        folder.mkdirs();
+        
+        JasperReportsExporter formatsExporter = new JasperReportsExporter(model, folder, exportFileName, mainTemplateFile, reportTitle, null, 0);
+        formatsExporter.exportFormats(jasperPrint, JasperReportsExporter.EXPORT_PDF | JasperReportsExporter.EXPORT_RTF
+                | JasperReportsExporter.EXPORT_ODT | JasperReportsExporter.EXPORT_HTML);
+        
+        assertTrue(new File(folder, exportFileName + ".pdf").exists());
+        assertTrue(new File(folder, exportFileName + ".rtf").exists());
+        assertTrue(new File(folder, exportFileName + ".odt").exists());
+        assertTrue(new File(folder, exportFileName + ".html").exists());
+        assertFalse(new File(folder, exportFileName + ".docx").exists());
+        assertFalse(new File(folder, exportFileName + ".pptx").exists());
+    }
+    
+    @Test
+    public void testCreateFormatExports() throws JRException {
+        List<FormatExport> exports = exporter.createFormatExports(jasperPrint, JasperReportsExporter.EXPORT_DOCX | JasperReportsExporter.EXPORT_PPT);
+        assertEquals(2, exports.size());
+        assertEquals("DOCX", exports.get(0).name);
+        assertEquals(new File(exportFolder, exportFileName + ".docx"), exports.get(0).file);
+        assertEquals("PPTX", exports.get(1).name);
+        assertEquals(new File(exportFolder, exportFileName + ".pptx"), exports.get(1).file);
+    }
+    
+    @Test
+    public void testCreateJasperPrintSource_OneFormatUsesJasperPrint() throws JRException {
+        JasperPrintSource source = exporter.createJasperPrintSource(jasperPrint, JasperReportsExporter.EXPORT_PDF);
+        assertSame(jasperPrint, source.get());
+    }
+    
+    @Test
+    public void testCreateJasperPrintSource_FormatsHaveOwnCopy() throws JRException {
+        JasperPrintSource source = exporter.createJasperPrintSource(jasperPrint, JasperReportsExporter.EXPORT_PDF | JasperReportsExporter.EXPORT_RTF);
+        
+        JasperPrint copy1 = source.get();
+        JasperPrint copy2 = source.get();
+        assertNotSame(jasperPrint, copy1);
+        assertNotSame(copy1, copy2);
+        assertEquals(jasperPrint.getName(), copy1.getName());
+        assertEquals(jasperPrint.getPages().size(), copy1.getPages().size());
+    }
+    
+    @Test
+    public void testJasperPrintCopiesAreBounded() {
+        assertTrue(JasperReportsExporter.THREADS >= 1);
+        assertTrue(JasperReportsExporter.THREADS <= JasperReportsExporter.MAX_JASPER_PRINT_COPIES);
+    }
+    
+    @Test
+    public void testFormatExportCancelled() throws Exception {
+        File file = new File(exportFolder, "cancelled.pdf");
+        FormatExport export = new FormatExport("PDF", file, () -> jasperPrint, exporter::exportPDF);
+        export.cancel();
+        
+        try {
+            export.call();
+            fail("Should have been cancelled");
+        }
+        catch(CancelledException ex) {
+        }
+        
+        assertFalse(file.exists());
+    }
+    
     @Test
     public void testDiagramsHaveBeenWritten() {
         File[] imageFiles = tmpFolder.listFiles();
@@ -14,6 +14,8 @@ public class AllTests {
     public static junit.framework.Test suite() {
 		TestSuite suite = new TestSuite("com.archimatetool.jdom");
 
+		suite.addTest(JDOMStreamReaderTests.suite());
+		suite.addTest(JDOMStreamWriterTests.suite());
 		suite.addTest(JDOMUtilsTests.suite());
 		
         return suite;
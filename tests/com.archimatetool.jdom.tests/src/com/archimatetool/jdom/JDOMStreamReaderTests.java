@@ -0,0 +1,130 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.jdom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+
+@SuppressWarnings("nls")
+public class JDOMStreamReaderTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(JDOMStreamReaderTests.class);
+    }
+
+    /**
+     * Builds the child elements of the root element and keeps them as strings
+     */
+    private static class Handler implements JDOMStreamReader.IElementHandler {
+        List<String> elements = new ArrayList<>();
+        Element rootElement;
+
+        @Override
+        public boolean startElement(Element element) throws SAXException {
+            if(element.getParentElement() == null) {
+                rootElement = element;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void endElement(Element element) throws SAXException {
+            if(element != rootElement) {
+                elements.add(outputString(element));
+                element.detach();
+            }
+        }
+    }
+
+    @Test
+    public void testRead_SameAsDocument() throws Exception {
+        File file = new File(JDOMUtilsTests.TESTDATA_FOLDER, "imsmanifest.xml");
+
+        Handler handler = new Handler();
+        new JDOMStreamReader(handler).read(file);
+
+        assertEquals(getExpected(file), handler.elements);
+
+        // Child elements were detached
+        assertEquals(0, handler.rootElement.getContentSize());
+        assertNull(handler.rootElement.getParentElement());
+    }
+
+    @Test
+    public void testRead_Validated() throws Exception {
+        File file = new File(JDOMUtilsTests.TESTDATA_FOLDER, "validate_this.xml");
+        File schemaFile = new File(JDOMUtilsTests.TESTDATA_FOLDER, "imscp_v1p2.xsd");
+
+        ValidatorHandler validatorHandler = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(schemaFile).newValidatorHandler();
+
+        Handler handler = new Handler();
+        new JDOMStreamReader(handler).read(file, validatorHandler);
+
+        // Same as when not validated
+        assertEquals(getExpected(file), handler.elements);
+    }
+
+    @Test
+    public void testRead_HandlerExceptionIsThrown() throws Exception {
+        File file = new File(JDOMUtilsTests.TESTDATA_FOLDER, "imsmanifest.xml");
+        SAXException exception = new SAXException("Test");
+
+        try {
+            new JDOMStreamReader(new JDOMStreamReader.IElementHandler() {
+                @Override
+                public boolean startElement(Element element) throws SAXException {
+                    return true;
+                }
+
+                @Override
+                public void endElement(Element element) throws SAXException {
+                    throw exception;
+                }
+            }).read(file);
+
+            fail("Should have thrown exception");
+        }
+        catch(SAXException ex) {
+            assertSame(exception, ex);
+        }
+    }
+
+    private List<String> getExpected(File file) throws Exception {
+        Document doc = JDOMUtils.readXMLFile(file);
+
+        List<String> expected = new ArrayList<>();
+        for(Element element : doc.getRootElement().getChildren()) {
+            expected.add(outputString(element));
+        }
+
+        return expected;
+    }
+
+    private static String outputString(Element element) {
+        return new XMLOutputter(Format.getRawFormat()).outputString(element);
+    }
+}
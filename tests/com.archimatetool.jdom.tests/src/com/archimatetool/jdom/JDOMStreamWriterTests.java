@@ -0,0 +1,189 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.jdom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.junit.Test;
+
+import com.archimatetool.tests.TestUtils;
+
+
+@SuppressWarnings("nls")
+public class JDOMStreamWriterTests {
+
+    private static final Namespace NS = Namespace.getNamespace("http://www.archimatetool.com/test");
+    private static final Namespace XSI = Namespace.getNamespace("xsi", "http://www.w3.org/2001/XMLSchema-instance");
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(JDOMStreamWriterTests.class);
+    }
+
+    @Test
+    public void testSameAsDocument() throws Exception {
+        // Document
+        Document doc = new Document();
+        Element root = createRoot();
+        doc.setRootElement(root);
+
+        Element items = new Element("items", NS);
+        root.addContent(items);
+        for(int i = 0; i < 3; i++) {
+            items.addContent(createItem(i));
+        }
+
+        root.addContent(new Element("empty", NS));
+
+        Element folder = new Element("folder", NS);
+        root.addContent(folder);
+        Element subFolder = new Element("folder", NS);
+        folder.addContent(subFolder);
+        subFolder.addContent(createItem(3));
+        folder.addContent(createItem(4));
+
+        // Streamed
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(JDOMStreamWriter writer = new JDOMStreamWriter(out)) {
+            writer.startElement(createRoot());
+
+            items = new Element("items", NS);
+            writer.startElement(items);
+            for(int i = 0; i < 3; i++) {
+                items.addContent(createItem(i));
+                writer.flush();
+            }
+            writer.endElement();
+
+            writer.startElement(new Element("empty", NS));
+            writer.endElement();
+
+            folder = new Element("folder", NS);
+            writer.startElement(folder);
+            subFolder = new Element("folder", NS);
+            writer.startElement(subFolder);
+            subFolder.addContent(createItem(3));
+            writer.endElement();
+            folder.addContent(createItem(4));
+            
+            // Folder and root are ended
+            writer.endDocument();
+        }
+
+        assertEquals(JDOMUtils.write2XMLString(doc), out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testOmitIfEmpty() throws Exception {
+        Document doc = new Document();
+        Element root = createRoot();
+        doc.setRootElement(root);
+        Element kept = new Element("kept", NS);
+        kept.addContent(createItem(1));
+        root.addContent(kept);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(JDOMStreamWriter writer = new JDOMStreamWriter(out)) {
+            writer.startElement(createRoot());
+
+            writer.startElement(new Element("omitted", NS), true);
+            writer.endElement();
+
+            Element element = new Element("kept", NS);
+            writer.startElement(element, true);
+            element.addContent(createItem(1));
+            writer.endElement();
+
+            writer.endElement();
+            writer.endDocument();
+        }
+
+        assertEquals(JDOMUtils.write2XMLString(doc), out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testWriteToFile() throws Exception {
+        File file = new File(TestUtils.TMP_FOLDER, "stream/test.xml");
+        file.delete();
+        file.getParentFile().delete();
+
+        Document doc = new Document(createRoot());
+
+        try(JDOMStreamWriter writer = new JDOMStreamWriter(file)) {
+            writer.startElement(createRoot());
+            writer.endDocument();
+        }
+
+        assertTrue(file.exists());
+        assertEquals(JDOMUtils.write2XMLString(doc), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testClose_StartedElementsAreNotEnded() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(JDOMStreamWriter writer = new JDOMStreamWriter(out)) {
+            writer.startElement(createRoot());
+            Element items = new Element("items", NS);
+            writer.startElement(items);
+            items.addContent(createItem(1));
+            writer.flush();
+            
+            // As if writing failed here
+        }
+        
+        String xml = out.toString(StandardCharsets.UTF_8.name());
+        assertTrue(xml.contains("<item "));
+        assertFalse(xml.contains("</items>"));
+        assertFalse(xml.contains("</model>"));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testStartElement_SecondRootThrowsException() throws IOException {
+        try(JDOMStreamWriter writer = new JDOMStreamWriter(new ByteArrayOutputStream())) {
+            writer.startElement(createRoot());
+            writer.endElement();
+            writer.startElement(createRoot());
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testEndElement_NoElementThrowsException() throws IOException {
+        try(JDOMStreamWriter writer = new JDOMStreamWriter(new ByteArrayOutputStream())) {
+            writer.endElement();
+        }
+    }
+
+    private Element createRoot() {
+        Element root = new Element("model", NS);
+        root.addNamespaceDeclaration(XSI);
+        root.setAttribute("schemaLocation", "http://www.archimatetool.com/test test.xsd", XSI);
+        root.setAttribute("identifier", "id-model");
+        return root;
+    }
+
+    private Element createItem(int i) {
+        Element item = new Element("item", NS);
+        item.setAttribute("identifier", "id-" + i);
+        item.setAttribute("type", "Item", XSI);
+        Element name = new Element("name", NS);
+        name.setAttribute("lang", "en", Namespace.XML_NAMESPACE);
+        name.setText("Item <" + i + "> & \"more\"");
+        item.addContent(name);
+        return item;
+    }
+}
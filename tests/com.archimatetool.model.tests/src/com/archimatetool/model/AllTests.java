@@ -26,11 +26,14 @@ import com.archimatetool.model.impl.FolderTests;
 import com.archimatetool.model.impl.MetadataTests;
 import com.archimatetool.model.impl.FeaturesEListTests;
 import com.archimatetool.model.impl.PropertyTests;
+import com.archimatetool.model.impl.RelationshipsEListTests;
 import com.archimatetool.model.impl.SketchModelActorTests;
 import com.archimatetool.model.impl.SketchModelStickyTests;
 import com.archimatetool.model.impl.SketchModelTests;
 import com.archimatetool.model.util.ArchimateModelUtilsTests;
 import com.archimatetool.model.util.ArchimateResourceFactoryTests;
+import com.archimatetool.model.util.ModelGraphTraversalTests;
+import com.archimatetool.model.util.ModelIDIndexTests;
 import com.archimatetool.model.util.RelationshipsMatrixTests;
 import com.archimatetool.model.util.UUIDFactoryTests;
 import com.archimatetool.model.viewpoints.ViewpointManagerTests;
@@ -61,6 +64,7 @@ public class AllTests {
         suite.addTest(FolderTests.suite());
         suite.addTest(MetadataTests.suite());
         suite.addTest(FeaturesEListTests.suite());
+        suite.addTest(RelationshipsEListTests.suite());
         suite.addTest(PropertyTests.suite());
         
         suite.addTest(SketchModelTests.suite());
@@ -72,7 +76,9 @@ public class AllTests {
         
         // util
         suite.addTest(ArchimateModelUtilsTests.suite());
+        suite.addTest(ModelGraphTraversalTests.suite());
         suite.addTest(ArchimateResourceFactoryTests.suite());
+        suite.addTest(ModelIDIndexTests.suite());
         suite.addTest(UUIDFactoryTests.suite());
         suite.addTest(RelationshipsMatrixTests.suite());
 
@@ -0,0 +1,89 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateRelationship;
+
+import junit.framework.JUnit4TestAdapter;
+
+public class RelationshipsEListTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(RelationshipsEListTests.class);
+    }
+    
+    private RelationshipsEList list;
+    private List<IArchimateRelationship> relations;
+
+    @Before
+    public void runBeforeEachTest() {
+        list = new RelationshipsEList();
+        
+        relations = new ArrayList<>();
+        for(int i = 0; i < RelationshipsEList.SET_THRESHOLD * 2; i++) {
+            relations.add(IArchimateFactory.eINSTANCE.createAssociationRelationship());
+        }
+    }
+    
+    @Test
+    public void testContains_BelowAndAboveThreshold() {
+        for(IArchimateRelationship relation : relations) {
+            list.add(relation);
+            assertTrue(list.contains(relation));
+        }
+        
+        assertTrue(list.hasSet());
+        assertEquals(relations.size(), list.size());
+        
+        for(IArchimateRelationship relation : relations) {
+            assertTrue(list.contains(relation));
+        }
+        
+        assertFalse(list.contains(IArchimateFactory.eINSTANCE.createAssociationRelationship()));
+    }
+    
+    @Test
+    public void testAddIsUnique() {
+        list.addAll(relations);
+        list.addAll(relations);
+        assertEquals(relations.size(), list.size());
+    }
+    
+    @Test
+    public void testRemoveAndSet() {
+        list.addAll(relations);
+        
+        IArchimateRelationship removed = relations.get(0);
+        list.remove(removed);
+        assertFalse(list.contains(removed));
+        
+        IArchimateRelationship replaced = list.get(0);
+        IArchimateRelationship newRelation = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+        list.set(0, newRelation);
+        assertFalse(list.contains(replaced));
+        assertTrue(list.contains(newRelation));
+    }
+    
+    @Test
+    public void testClear() {
+        list.addAll(relations);
+        list.clear();
+        
+        assertFalse(list.hasSet());
+        assertFalse(list.contains(relations.get(0)));
+    }
+}
@@ -7,6 +7,10 @@ package com.archimatetool.model.util;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.junit.Test;
@@ -126,6 +130,77 @@ public class ArchimateModelUtilsTests {
         assertEquals(2, ArchimateModelUtils.getAllRelationshipsForConcept(element2).size());
     }
     
+    @Test
+    public void testGetRelationships_SelfRelationshipOnce() {
+        IArchimateElement element1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        
+        IArchimateRelationship relation1 = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        relation1.connect(element1, element2);
+        IArchimateRelationship relation2 = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+        relation2.connect(element1, element1);
+        
+        List<IArchimateRelationship> list = new ArrayList<>();
+        for(IArchimateRelationship relation : ArchimateModelUtils.getRelationships(element1)) {
+            list.add(relation);
+        }
+        
+        assertEquals(2, list.size());
+        assertTrue(list.contains(relation1));
+        assertTrue(list.contains(relation2));
+        assertEquals(list, ArchimateModelUtils.getAllRelationshipsForConcept(element1));
+    }
+    
+    @Test
+    public void testGetRelationships_Type() {
+        IArchimateElement element1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        
+        IArchimateRelationship relation1 = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        relation1.connect(element1, element2);
+        IArchimateRelationship relation2 = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+        relation2.connect(element2, element1);
+        
+        Iterator<IArchimateRelationship> iter = ArchimateModelUtils.getRelationships(element1, IArchimatePackage.eINSTANCE.getAssociationRelationship()).iterator();
+        assertSame(relation2, iter.next());
+        assertFalse(iter.hasNext());
+        
+        assertTrue(ArchimateModelUtils.getRelationships(element1, IArchimatePackage.eINSTANCE.getArchimateRelationship()).iterator().hasNext());
+        assertFalse(ArchimateModelUtils.getRelationships(element1, IArchimatePackage.eINSTANCE.getFlowRelationship()).iterator().hasNext());
+    }
+    
+    @Test
+    public void testGetRelationshipsBetween() {
+        IArchimateElement hub = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IArchimateElement element1 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        
+        for(int i = 0; i < 100; i++) {
+            IArchimateRelationship relation = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+            relation.connect(hub, IArchimateFactory.eINSTANCE.createBusinessRole());
+        }
+        
+        IArchimateRelationship relation1 = IArchimateFactory.eINSTANCE.createAssignmentRelationship();
+        relation1.connect(hub, element1);
+        IArchimateRelationship relation2 = IArchimateFactory.eINSTANCE.createTriggeringRelationship();
+        relation2.connect(element1, hub);
+        
+        List<IArchimateRelationship> list = new ArrayList<>();
+        for(IArchimateRelationship relation : ArchimateModelUtils.getRelationshipsBetween(hub, element1)) {
+            list.add(relation);
+        }
+        assertEquals(2, list.size());
+        assertTrue(list.contains(relation1));
+        assertTrue(list.contains(relation2));
+        
+        assertTrue(ArchimateModelUtils.hasRelationship(hub, element1));
+        assertTrue(ArchimateModelUtils.hasRelationship(element1, hub));
+        assertTrue(ArchimateModelUtils.hasRelationship(element1, hub, IArchimatePackage.eINSTANCE.getTriggeringRelationship()));
+        assertFalse(ArchimateModelUtils.hasRelationship(element1, hub, IArchimatePackage.eINSTANCE.getFlowRelationship()));
+        assertFalse(ArchimateModelUtils.hasRelationship(hub, element2));
+        assertFalse(ArchimateModelUtils.hasRelationship(element1, element2));
+    }
+    
     @Test
     public void testGetObjectByID() {
         IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
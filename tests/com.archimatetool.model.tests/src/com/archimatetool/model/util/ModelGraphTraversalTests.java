@@ -0,0 +1,139 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimatePackage;
+import com.archimatetool.model.IArchimateRelationship;
+import com.archimatetool.model.util.ModelGraphTraversal.Direction;
+import com.archimatetool.model.util.ModelGraphTraversal.Order;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+public class ModelGraphTraversalTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ModelGraphTraversalTests.class);
+    }
+    
+    private ModelGraphTraversal traversal;
+    
+    // e0 -> e1 -> e2 -> e3 and e0 -> e3 with a triggering relationship
+    private IArchimateElement e0, e1, e2, e3;
+    private IArchimateRelationship r01, r12, r23, r03;
+    
+    @Before
+    public void runBeforeEachTest() {
+        traversal = new ModelGraphTraversal();
+        
+        e0 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        e1 = IArchimateFactory.eINSTANCE.createBusinessRole();
+        e2 = IArchimateFactory.eINSTANCE.createBusinessProcess();
+        e3 = IArchimateFactory.eINSTANCE.createBusinessService();
+        
+        r01 = createRelationship(e0, e1);
+        r12 = createRelationship(e1, e2);
+        r23 = createRelationship(e2, e3);
+        r03 = IArchimateFactory.eINSTANCE.createTriggeringRelationship();
+        r03.connect(e0, e3);
+    }
+    
+    @Test
+    public void testUnlimitedDepth() {
+        List<IArchimateRelationship> relationships = traversal.getRelationships(e0);
+        assertEquals(4, relationships.size());
+        assertTrue(relationships.containsAll(Arrays.asList(r01, r12, r23, r03)));
+    }
+    
+    @Test
+    public void testMaxDepth() {
+        traversal.setMaxDepth(0);
+        assertEquals(Arrays.asList(r01, r03), traversal.getRelationships(e0));
+        
+        // Breadth first reaches e3 at depth 1 so r23 is found from there
+        traversal.setMaxDepth(1);
+        List<IArchimateRelationship> relationships = traversal.getRelationships(e0);
+        assertEquals(4, relationships.size());
+        
+        traversal.setMaxDepth(-1);
+        assertTrue(traversal.getRelationships(e0).isEmpty());
+    }
+    
+    @Test
+    public void testDirection() {
+        traversal.setDirection(Direction.INCOMING);
+        assertTrue(traversal.getRelationships(e0).isEmpty());
+        assertEquals(Arrays.asList(r23, r03, r12, r01), traversal.getRelationships(e3));
+        
+        traversal.setDirection(Direction.OUTGOING);
+        assertTrue(traversal.getRelationships(e3).isEmpty());
+        assertEquals(Arrays.asList(r12, r23), traversal.getRelationships(e1));
+    }
+    
+    @Test
+    public void testFilters() {
+        traversal.setRelationshipFilter(relationship -> relationship.eClass() != IArchimatePackage.eINSTANCE.getTriggeringRelationship());
+        assertEquals(Arrays.asList(r01, r12, r23), traversal.getRelationships(e0));
+        
+        traversal.setRelationshipFilter(null);
+        traversal.setConceptFilter(concept -> concept != e1);
+        assertEquals(Arrays.asList(r03, r23), traversal.getRelationships(e0));
+    }
+    
+    @Test
+    public void testDepthFirst() {
+        traversal.setOrder(Order.DEPTH_FIRST);
+        traversal.setMaxDepth(1);
+        
+        // e1 is reached first and its relationships followed, then e2 at depth 2 is not expanded
+        List<IArchimateRelationship> relationships = traversal.getRelationships(e0);
+        assertEquals(Arrays.asList(r01, r12, r03, r23), relationships);
+    }
+    
+    @Test
+    public void testVisitorStops() {
+        List<IArchimateRelationship> visited = new ArrayList<>();
+        
+        traversal.traverse(e0, (relationship, from, to, depth) -> {
+            visited.add(relationship);
+            return false;
+        });
+        
+        assertEquals(Arrays.asList(r01), visited);
+    }
+    
+    @Test
+    public void testVisitorDepthAndEnds() {
+        traversal.setDirection(Direction.OUTGOING);
+        
+        traversal.traverse(e0, (relationship, from, to, depth) -> {
+            assertEquals(relationship.getSource(), from);
+            assertEquals(relationship.getTarget(), to);
+            if(relationship == r23) {
+                assertEquals(2, depth); // Only outgoing relationships so e2 is reached through e1
+            }
+            return true;
+        });
+    }
+    
+    private IArchimateRelationship createRelationship(IArchimateElement source, IArchimateElement target) {
+        IArchimateRelationship relationship = IArchimateFactory.eINSTANCE.createAssociationRelationship();
+        relationship.connect(source, target);
+        return relationship;
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.model.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.archimatetool.model.IArchimateDiagramModel;
+import com.archimatetool.model.IArchimateElement;
+import com.archimatetool.model.IArchimateFactory;
+import com.archimatetool.model.IArchimateModel;
+import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IFolder;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+
+/**
+ * ModelIDIndex Tests
+ *
+ * @author Phillip Beauvoir
+ */
+@SuppressWarnings("nls")
+public class ModelIDIndexTests {
+
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(ModelIDIndexTests.class);
+    }
+
+    private IArchimateModel model;
+    private ModelIDIndex index;
+
+    @Before
+    public void runBeforeEachTest() {
+        model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        model.setDefaults();
+        index = ModelIDIndex.getIndex(model);
+    }
+
+    @Test
+    public void testGetIndex_IsSameInstance() {
+        assertSame(index, ModelIDIndex.getIndex(model));
+        assertNull(ModelIDIndex.getIndex(null));
+    }
+
+    @Test
+    public void testGetIndex_IndexesExistingContents() {
+        IArchimateModel model = IArchimateFactory.eINSTANCE.createArchimateModel();
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        model.getDefaultFolderForObject(element).getElements().add(element);
+
+        ModelIDIndex index = ModelIDIndex.getIndex(model);
+        assertSame(element, index.getObjectByID(element.getId()));
+        assertSame(model, index.getObjectByID(model.getId()));
+    }
+
+    @Test
+    public void testGetObjectByID_Null() {
+        assertNull(index.getObjectByID(null));
+        assertNull(index.getObjectByID("not there"));
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IFolder folder = model.getDefaultFolderForObject(element);
+
+        folder.getElements().add(element);
+        assertSame(element, index.getObjectByID(element.getId()));
+
+        folder.getElements().remove(element);
+        assertNull(index.getObjectByID(element.getId()));
+    }
+
+    @Test
+    public void testAddAndRemove_ChildObjects() {
+        IFolder folder = IArchimateFactory.eINSTANCE.createFolder();
+        IArchimateDiagramModel dm = IArchimateFactory.eINSTANCE.createArchimateDiagramModel();
+        folder.getElements().add(dm);
+        IDiagramModelArchimateObject dmo = IArchimateFactory.eINSTANCE.createDiagramModelArchimateObject();
+        dm.getChildren().add(dmo);
+
+        model.getFolders().add(folder);
+        assertSame(folder, index.getObjectByID(folder.getId()));
+        assertSame(dm, index.getObjectByID(dm.getId()));
+        assertSame(dmo, index.getObjectByID(dmo.getId()));
+
+        model.getFolders().remove(folder);
+        assertNull(index.getObjectByID(folder.getId()));
+        assertNull(index.getObjectByID(dm.getId()));
+        assertNull(index.getObjectByID(dmo.getId()));
+    }
+
+    @Test
+    public void testMoveObject() {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        model.getDefaultFolderForObject(element).getElements().add(element);
+
+        IFolder subFolder = IArchimateFactory.eINSTANCE.createFolder();
+        model.getDefaultFolderForObject(element).getFolders().add(subFolder);
+
+        subFolder.getElements().add(element);
+        assertSame(element, index.getObjectByID(element.getId()));
+    }
+
+    @Test
+    public void testIDChanged() {
+        IArchimateElement element = IArchimateFactory.eINSTANCE.createBusinessActor();
+        model.getDefaultFolderForObject(element).getElements().add(element);
+
+        String oldID = element.getId();
+        element.setId("newID");
+
+        assertNull(index.getObjectByID(oldID));
+        assertSame(element, index.getObjectByID("newID"));
+        assertSame(element, ArchimateModelUtils.getObjectByID(model, "newID"));
+    }
+
+    @Test
+    public void testDuplicateIDs_RemoveOneFindsOther() {
+        IArchimateElement element1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        element2.setId(element1.getId());
+        
+        IFolder folder = model.getDefaultFolderForObject(element1);
+        folder.getElements().add(element1);
+        folder.getElements().add(element2);
+        
+        // First one found
+        assertSame(element1, index.getObjectByID(element1.getId()));
+        
+        folder.getElements().remove(element1);
+        assertSame(element2, index.getObjectByID(element1.getId()));
+        
+        folder.getElements().remove(element2);
+        assertNull(index.getObjectByID(element1.getId()));
+    }
+
+    @Test
+    public void testDuplicateIDs_IDChangedFindsOther() {
+        IArchimateElement element1 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        IArchimateElement element2 = IArchimateFactory.eINSTANCE.createBusinessActor();
+        String id = element1.getId();
+        element2.setId(id);
+        
+        IFolder folder = model.getDefaultFolderForObject(element1);
+        folder.getElements().add(element1);
+        folder.getElements().add(element2);
+        
+        element1.setId("newID");
+        assertSame(element2, index.getObjectByID(id));
+        assertSame(element1, index.getObjectByID("newID"));
+    }
+
+    @Test
+    public void testRemoveIndex() {
+        ModelIDIndex.removeIndex(model);
+        assertFalse(model.eAdapters().contains(index));
+        assertNull(index.getObjectByID(model.getFolders().get(0).getId()));
+        
+        // A new one is created
+        assertNotSame(index, ModelIDIndex.getIndex(model));
+    }
+
+    @Test
+    public void testModelIDChanged() {
+        model.setId("modelID");
+        assertSame(model, index.getObjectByID("modelID"));
+    }
+}
@@ -5,9 +5,13 @@
  */
 package com.archimatetool.model.util;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -130,4 +134,64 @@ public class RelationshipsMatrixTests {
         // Not OK from Junction to relation
         assertFalse(matrix.isValidRelationship(objectClass, relationClass, relationshipType));
     }
+    
+    @Test
+    public void testIsValidRelationship_NullOrNotRelationship() {
+        EClass sourceClass = IArchimatePackage.eINSTANCE.getBusinessActor();
+        assertFalse(matrix.isValidRelationship(sourceClass, sourceClass, null));
+        assertFalse(matrix.isValidRelationship(sourceClass, sourceClass, IArchimatePackage.eINSTANCE.getBusinessActor()));
+        assertFalse(matrix.isValidRelationshipStart(sourceClass, null));
+    }
+    
+    @Test
+    public void testLookupTablesMatchMatrix() {
+        List<EClass> classes = new ArrayList<>();
+        for(EClass eClass : ArchimateModelUtils.getAllArchimateClasses()) {
+            classes.add(eClass);
+        }
+        for(EClass eClass : ArchimateModelUtils.getRelationsClasses()) {
+            classes.add(eClass);
+        }
+        
+        Map<EClass, List<TargetMatrix>> map = matrix.getRelationshipsMatrix();
+        
+        for(EClass sourceClass : classes) {
+            for(EClass targetClass : classes) {
+                List<EClass> expected = new ArrayList<>();
+                
+                for(EClass relationship : ArchimateModelUtils.getRelationsClasses()) {
+                    boolean valid = false;
+                    List<TargetMatrix> list = map.get(getMatrixClass(sourceClass));
+                    if(list != null) {
+                        for(TargetMatrix targetMatrix : list) {
+                            valid |= targetMatrix.getTargetClass() == getMatrixClass(targetClass) && targetMatrix.getRelationships().contains(relationship);
+                        }
+                    }
+                    
+                    assertEquals(valid, matrix.isValidRelationship(sourceClass, targetClass, relationship));
+                    
+                    if(valid) {
+                        assertTrue(matrix.isValidRelationshipStart(sourceClass, relationship));
+                        expected.add(relationship);
+                    }
+                }
+                
+                assertArrayEquals(expected.toArray(), matrix.getValidRelationships(sourceClass, targetClass));
+            }
+        }
+    }
+    
+    @Test
+    public void testGetValidRelationshipsReturnsCopy() {
+        EClass sourceClass = IArchimatePackage.eINSTANCE.getBusinessActor();
+        EClass targetClass = IArchimatePackage.eINSTANCE.getBusinessRole();
+        
+        EClass[] classes = ArchimateModelUtils.getValidRelationships(sourceClass, targetClass);
+        assertTrue(classes.length > 0);
+        assertNotSame(classes, ArchimateModelUtils.getValidRelationships(sourceClass, targetClass));
+    }
+    
+    private EClass getMatrixClass(EClass eClass) {
+        return IArchimatePackage.eINSTANCE.getArchimateRelationship().isSuperTypeOf(eClass) ? IArchimatePackage.eINSTANCE.getArchimateRelationship() : eClass;
+    }
 } 
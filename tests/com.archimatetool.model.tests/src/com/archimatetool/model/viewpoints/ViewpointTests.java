@@ -58,7 +58,7 @@ public class ViewpointTests {
     @Test
     public void testIsAllowedConcept_True_When_Added_And_False_Otherwise() {
         // Add a concept
-        vp.getClassList().add(IArchimatePackage.eINSTANCE.getBusinessActor());
+        vp.addConcept(IArchimatePackage.eINSTANCE.getBusinessActor());
         
         // Should be allowed
         assertTrue(vp.isAllowedConcept(IArchimatePackage.eINSTANCE.getBusinessActor()));
@@ -74,4 +74,23 @@ public class ViewpointTests {
             }
         }
     }
-} 
+    
+    @Test
+    public void testAddConcept_AfterLookup() {
+        vp.addConcept(IArchimatePackage.eINSTANCE.getBusinessActor());
+        assertFalse(vp.isAllowedConcept(IArchimatePackage.eINSTANCE.getBusinessRole()));
+        
+        // Adding another concept after the lookup table is compiled
+        vp.addConcept(IArchimatePackage.eINSTANCE.getBusinessRole());
+        assertTrue(vp.isAllowedConcept(IArchimatePackage.eINSTANCE.getBusinessRole()));
+        
+        // Adding the same concept again is ignored
+        vp.addConcept(IArchimatePackage.eINSTANCE.getBusinessRole());
+        assertEquals(2, vp.getClassList().size());
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetClassList_CannotBeChanged() {
+        vp.getClassList().add(IArchimatePackage.eINSTANCE.getBusinessActor());
+    }
+}
@@ -6,21 +6,33 @@
 package com.archimatetool.reports.html;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Iterator;
 
 import org.eclipse.emf.ecore.EObject;
 import org.junit.Test;
 
+import com.archimatetool.editor.model.IArchiveManager;
 import com.archimatetool.editor.utils.FileUtils;
+import com.archimatetool.editor.ui.textrender.TextRenderer;
 import com.archimatetool.model.IArchimateConcept;
+import com.archimatetool.model.IArchimateFactory;
 import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IDiagramModel;
 import com.archimatetool.model.IDiagramModelArchimateObject;
+import com.archimatetool.model.IDiagramModelConnection;
 import com.archimatetool.model.IDiagramModelObject;
 import com.archimatetool.model.IDiagramModelReference;
+import com.archimatetool.model.IFolder;
 import com.archimatetool.reports.TestData;
 import com.archimatetool.testingtools.ArchimateTestModel;
 import com.archimatetool.tests.TestUtils;
@@ -107,4 +119,107 @@ public class HTMLReportExporterTests {
         FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
     }
 
+    @Test
+    public void testCreateReport_Incremental() throws Exception {
+        ArchimateTestModel tm = new ArchimateTestModel(TestData.TEST_MODEL_FILE);
+        IArchimateModel model = tm.loadModel();
+        
+        HTMLReportExporter exporter = new HTMLReportExporter(model);
+        exporter.setIncremental(true);
+        
+        File targetFolder = TestUtils.createTempFolder("archi-html-report");
+        exporter.createReport(targetFolder, "index.html");
+        
+        File modelFolder = new File(targetFolder, model.getId());
+        assertTrue(new File(modelFolder, ReportManifest.FILE_NAME).exists());
+        
+        IDiagramModel dm = model.getDiagramModels().get(0);
+        File imageFile = new File(modelFolder, "images/" + dm.getId() + ".png");
+        File pageFile = new File(modelFolder, "views/" + dm.getId() + ".html");
+        IDiagramModel dmRemoved = model.getDiagramModels().get(1);
+        File staleFile = new File(modelFolder, "views/" + dmRemoved.getId() + ".html");
+        
+        // Mark the files so we can tell if they are written again
+        long time = imageFile.lastModified() - 100000;
+        assertTrue(imageFile.setLastModified(time));
+        assertTrue(pageFile.setLastModified(time));
+        
+        // Nothing changed
+        exporter.createReport(targetFolder, "index.html");
+        assertEquals(time, imageFile.lastModified());
+        assertEquals(time, pageFile.lastModified());
+        
+        // Change the diagram
+        String fingerprint = exporter.getDiagramFingerprint(dm);
+        dm.setName("Changed");
+        assertNotEquals(fingerprint, exporter.getDiagramFingerprint(dm));
+        
+        // A connection added to a diagram object is a many-valued reference
+        fingerprint = exporter.getDiagramFingerprint(dm);
+        IDiagramModelObject dmo = dm.getChildren().get(0);
+        IDiagramModelConnection connection = IArchimateFactory.eINSTANCE.createDiagramModelConnection();
+        dmo.getTargetConnections().add(connection);
+        assertNotEquals(fingerprint, exporter.getDiagramFingerprint(dm));
+        dmo.getTargetConnections().remove(connection);
+        
+        // No fingerprint if there is a label expression
+        dmo.getFeatures().putString(TextRenderer.FEATURE_NAME, "${name}");
+        assertNull(exporter.getDiagramFingerprint(dm));
+        
+        // Remove a diagram so its page is stale
+        assertTrue(staleFile.exists());
+        ((IFolder)dmRemoved.eContainer()).getElements().remove(dmRemoved);
+        
+        exporter.createReport(targetFolder, "index.html");
+        assertNotEquals(time, imageFile.lastModified());
+        assertNotEquals(time, pageFile.lastModified());
+        assertFalse(staleFile.exists());
+        
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
+
+    @Test
+    public void testReportManifest_DeleteStaleFilesOnlyInTargetFolder() throws Exception {
+        File tmpFolder = TestUtils.createTempFolder("archi-html-report");
+        File targetFolder = new File(tmpFolder, "report");
+        targetFolder.mkdirs();
+        
+        File insideFile = new File(targetFolder, "inside.html");
+        File outsideFile = new File(tmpFolder, "outside.html");
+        Files.write(insideFile.toPath(), new byte[] { 1 });
+        Files.write(outsideFile.toPath(), new byte[] { 1 });
+        
+        // A manifest with an entry outside of the target folder
+        File manifestFile = new File(targetFolder, ReportManifest.FILE_NAME);
+        Files.write(manifestFile.toPath(), "inside.html=1\n../outside.html=1\n.=1\n".getBytes(StandardCharsets.UTF_8));
+        
+        ReportManifest manifest = new ReportManifest(targetFolder, manifestFile);
+        manifest.deleteStaleFiles();
+        
+        assertFalse(insideFile.exists());
+        assertTrue(outsideFile.exists());
+        assertTrue(targetFolder.exists());
+        
+        FileUtils.deleteFolder(TestUtils.TMP_FOLDER);
+    }
+
+    @Test
+    public void testCreateSnapshot() throws Exception {
+        ArchimateTestModel tm = new ArchimateTestModel(TestData.TEST_MODEL_FILE);
+        IArchimateModel model = tm.loadModel();
+        
+        IArchimateModel snapshot = new HTMLReportExporter(model).createSnapshot(model);
+        assertNotSame(model, snapshot);
+        assertEquals(model.getId(), snapshot.getId());
+        assertEquals(model.getFile(), snapshot.getFile());
+        assertSame(model.getAdapter(IArchiveManager.class), snapshot.getAdapter(IArchiveManager.class));
+        
+        // Editing the model doesn't change the snapshot
+        IDiagramModel dm = model.getDiagramModels().get(0);
+        String name = dm.getName();
+        dm.setName("changed");
+        assertEquals(name, snapshot.getDiagramModels().get(0).getName());
+        assertEquals(dm.getId(), snapshot.getDiagramModels().get(0).getId());
+    }
+
 }
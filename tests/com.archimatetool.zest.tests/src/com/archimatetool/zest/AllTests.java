@@ -5,6 +5,7 @@
  */
 package com.archimatetool.zest;
 
+import com.archimatetool.zest.layout.LayoutAlgorithmsTests;
 
 import junit.framework.TestSuite;
 
@@ -15,6 +16,7 @@ public class AllTests {
 		TestSuite suite = new TestSuite("com.archimatetool.zest");
 
 		suite.addTest(ZestViewerContentProviderTests.suite());
+		suite.addTest(LayoutAlgorithmsTests.suite());
 		
         return suite;
 	}
@@ -0,0 +1,210 @@
+/**
+ * This program and the accompanying materials
+ * are made available under the terms of the License
+ * which accompanies this distribution in the file LICENSE.txt
+ */
+package com.archimatetool.zest.layout;
+
+import static org.junit.Assert.*;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Test;
+
+import junit.framework.JUnit4TestAdapter;
+
+
+@SuppressWarnings("nls")
+public class LayoutAlgorithmsTests {
+    
+    public static junit.framework.Test suite() {
+        return new JUnit4TestAdapter(LayoutAlgorithmsTests.class);
+    }
+    
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+    
+    /**
+     * A tree of n nodes with all nodes at 0,0
+     */
+    private LayoutGraph createTree(int n) {
+        LayoutGraph graph = new LayoutGraph();
+        
+        for(int i = 0; i < n; i++) {
+            graph.addNode("node" + i, 0, 0, 120, 55);
+        }
+        
+        for(int i = 1; i < n; i++) {
+            graph.addEdge((i - 1) / 3, i);
+        }
+        
+        return graph;
+    }
+    
+    private void assertNoOverlaps(LayoutGraph graph) {
+        for(int i = 0; i < graph.getNodeCount(); i++) {
+            for(int j = i + 1; j < graph.getNodeCount(); j++) {
+                boolean overlaps = graph.getX(i) < graph.getX(j) + graph.getWidth(j) && graph.getX(j) < graph.getX(i) + graph.getWidth(i)
+                        && graph.getY(i) < graph.getY(j) + graph.getHeight(j) && graph.getY(j) < graph.getY(i) + graph.getHeight(i);
+                assertFalse("Nodes overlap: " + i + ", " + j, overlaps);
+            }
+        }
+    }
+    
+    private void assertPlaced(LayoutGraph graph) {
+        for(int i = 0; i < graph.getNodeCount(); i++) {
+            assertFalse(Double.isNaN(graph.getX(i)));
+            assertFalse(Double.isNaN(graph.getY(i)));
+            assertTrue(graph.getX(i) >= 0);
+            assertTrue(graph.getY(i) >= 0);
+        }
+    }
+    
+    // ---------------------------------------------------------------------------------------------
+    // LayoutGraph
+    // ---------------------------------------------------------------------------------------------
+
+    @Test
+    public void testLayoutGraph() {
+        LayoutGraph graph = new LayoutGraph();
+        assertEquals(0, graph.addNode("a", 1, 2, 3, 4));
+        assertEquals(1, graph.addNode("b", 5, 6, 7, 8));
+        
+        assertEquals("b", graph.getData(1));
+        assertEquals(5, graph.getX(1), 0);
+        assertEquals(6, graph.getY(1), 0);
+        assertEquals(7, graph.getWidth(1), 0);
+        assertEquals(8, graph.getHeight(1), 0);
+        assertEquals(8, graph.getMaxNodeSize(), 0);
+        
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 1); // ignored
+        assertEquals(1, graph.getEdgeCount());
+        assertEquals(0, graph.getEdgeSource(0));
+        assertEquals(1, graph.getEdgeTarget(0));
+        assertArrayEquals(new int[] { 1 }, graph.getNeighbours(0));
+        assertArrayEquals(new int[] { 0 }, graph.getNeighbours(1));
+        
+        assertEquals(-1, graph.getFocus());
+        graph.setFocus(1);
+        assertEquals(1, graph.getFocus());
+    }
+    
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testLayoutGraph_BadEdge() {
+        LayoutGraph graph = new LayoutGraph();
+        graph.addNode("a", 0, 0, 10, 10);
+        graph.addEdge(0, 1);
+    }
+    
+    @Test
+    public void testLayoutGraph_Place() {
+        LayoutGraph graph = new LayoutGraph();
+        graph.addNode("a", -100, -50, 100, 50);
+        graph.addNode("b", 0, 0, 100, 50);
+        
+        // Centred
+        graph.place(WIDTH, HEIGHT, 20);
+        assertEquals(300, graph.getX(0), 0);
+        assertEquals(250, graph.getY(0), 0);
+        assertEquals(400, graph.getX(1), 0);
+        assertEquals(300, graph.getY(1), 0);
+        
+        // At the margin
+        graph.place(100, 100, 20);
+        assertEquals(20, graph.getX(0), 0);
+        assertEquals(20, graph.getY(0), 0);
+        assertEquals(120, graph.getX(1), 0);
+        assertEquals(70, graph.getY(1), 0);
+    }
+    
+    // ---------------------------------------------------------------------------------------------
+    // Algorithms
+    // ---------------------------------------------------------------------------------------------
+
+    @Test
+    public void testEmptyGraph() {
+        for(ILayoutAlgorithm algorithm : new ILayoutAlgorithm[] { new ForceDirectedLayoutAlgorithm(), new LayeredLayoutAlgorithm(), new RadialLayoutAlgorithm() }) {
+            LayoutGraph graph = new LayoutGraph();
+            algorithm.layout(graph, WIDTH, HEIGHT, new NullProgressMonitor());
+            assertEquals(0, graph.getNodeCount());
+        }
+    }
+    
+    @Test
+    public void testForceDirectedLayout() {
+        LayoutGraph graph = createTree(40);
+        new ForceDirectedLayoutAlgorithm().layout(graph, WIDTH, HEIGHT, new NullProgressMonitor());
+        assertPlaced(graph);
+        
+        // Connected nodes are nearer than the furthest nodes
+        double dx = graph.getX(0) - graph.getX(1);
+        double dy = graph.getY(0) - graph.getY(1);
+        double connected = Math.sqrt(dx * dx + dy * dy);
+        
+        double furthest = 0;
+        for(int i = 1; i < graph.getNodeCount(); i++) {
+            dx = graph.getX(0) - graph.getX(i);
+            dy = graph.getY(0) - graph.getY(i);
+            furthest = Math.max(furthest, Math.sqrt(dx * dx + dy * dy));
+        }
+        
+        assertTrue(connected < furthest);
+    }
+    
+    @Test
+    public void testForceDirectedLayout_Cancelled() {
+        LayoutGraph graph = createTree(10);
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        new ForceDirectedLayoutAlgorithm().layout(graph, WIDTH, HEIGHT, monitor);
+        
+        // Not laid out
+        for(int i = 0; i < graph.getNodeCount(); i++) {
+            assertEquals(0, graph.getX(i), 0);
+            assertEquals(0, graph.getY(i), 0);
+        }
+    }
+    
+    @Test
+    public void testLayeredLayout() {
+        LayoutGraph graph = createTree(13);
+        new LayeredLayoutAlgorithm().layout(graph, WIDTH, HEIGHT, new NullProgressMonitor());
+        assertPlaced(graph);
+        assertNoOverlaps(graph);
+        
+        // Targets are below their sources
+        for(int e = 0; e < graph.getEdgeCount(); e++) {
+            assertTrue(graph.getY(graph.getEdgeTarget(e)) > graph.getY(graph.getEdgeSource(e)));
+        }
+    }
+    
+    @Test
+    public void testLayeredLayout_Layers() {
+        LayoutGraph graph = createTree(5);
+        // Cycle back to the root
+        graph.addEdge(4, 0);
+        
+        int[] layers = new LayeredLayoutAlgorithm().getLayers(graph);
+        assertArrayEquals(new int[] { 0, 1, 1, 1, 2 }, layers);
+    }
+    
+    @Test
+    public void testRadialLayout() {
+        LayoutGraph graph = createTree(13);
+        // Unconnected node
+        graph.addNode("other", 0, 0, 120, 55);
+        graph.setFocus(1);
+        
+        new RadialLayoutAlgorithm().layout(graph, WIDTH, HEIGHT, new NullProgressMonitor());
+        assertPlaced(graph);
+        assertNoOverlaps(graph);
+        
+        // Focus node is in the middle
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+        for(int i = 0; i < graph.getNodeCount(); i++) {
+            minX = Math.min(minX, graph.getX(i));
+            maxX = Math.max(maxX, graph.getX(i));
+        }
+        assertEquals((minX + maxX) / 2, graph.getX(1), 1);
+    }
+}
@@ -5,12 +5,20 @@
  */
 package org.opengroup.archimate.xmlexchange;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.emf.ecore.resource.Resource;
+import org.jdom2.Element;
 import org.junit.Test;
 import org.xml.sax.SAXException;
 
@@ -67,4 +75,65 @@ public class XMLModelExporterTests {
         validator.validateXML(outputFile);
     }
 
+    @Test
+    public void testExportModel_Streaming() throws IOException, SAXException {
+        Resource resource = ArchimateResourceFactory.createNewResource(TestSupport.archiFile1);
+        resource.load(null);
+        
+        IArchimateModel model = (IArchimateModel)resource.getContents().get(0);
+        
+        for(boolean saveOrganisation : new boolean[] { true, false }) {
+            XMLModelExporter exporter = new XMLModelExporter();
+            exporter.setSaveOrganisation(saveOrganisation);
+            
+            File documentFile = TestUtils.createTempFile(".xml");
+            exporter.exportModel(model, documentFile);
+            
+            exporter.setStreaming(true);
+            File streamedFile = TestUtils.createTempFile(".xml");
+            exporter.exportModel(model, streamedFile);
+            
+            // Same file either way
+            assertArrayEquals(Files.readAllBytes(documentFile.toPath()), Files.readAllBytes(streamedFile.toPath()));
+            
+            XMLValidator validator = new XMLValidator();
+            validator.validateXML(streamedFile);
+        }
+    }
+    
+    @Test
+    public void testExportModel_StreamingFailureKeepsExistingFile() throws IOException {
+        Resource resource = ArchimateResourceFactory.createNewResource(TestSupport.archiFile1);
+        resource.load(null);
+        
+        IArchimateModel model = (IArchimateModel)resource.getContents().get(0);
+        
+        // Fails part way through
+        XMLModelExporter exporter = new XMLModelExporter() {
+            @Override
+            void writeModelRelationships(Element rootElement) throws IOException {
+                throw new IOException("Failed");
+            }
+        };
+        exporter.setStreaming(true);
+        
+        File outputFile = TestUtils.createTempFile(".xml");
+        byte[] existing = "existing".getBytes(StandardCharsets.UTF_8);
+        Files.write(outputFile.toPath(), existing);
+        
+        try {
+            exporter.exportModel(model, outputFile);
+            fail("Should have thrown IOException");
+        }
+        catch(IOException ex) {
+            assertEquals("Failed", ex.getMessage());
+        }
+        
+        // Not replaced by a truncated file and no temporary file left
+        assertArrayEquals(existing, Files.readAllBytes(outputFile.toPath()));
+        for(File file : outputFile.getParentFile().listFiles()) {
+            assertFalse(file.getName().startsWith("~" + outputFile.getName()));
+        }
+    }
+
 }
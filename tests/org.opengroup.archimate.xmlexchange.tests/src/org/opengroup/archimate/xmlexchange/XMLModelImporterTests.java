@@ -9,6 +9,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.jdom2.JDOMException;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -18,6 +23,8 @@ import com.archimatetool.model.IArchimateModel;
 import com.archimatetool.model.IArchimatePackage;
 import com.archimatetool.model.IArchimateRelationship;
 import com.archimatetool.model.IFolder;
+import com.archimatetool.model.IProperty;
+import com.archimatetool.tests.TestUtils;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -26,6 +33,7 @@ import junit.framework.JUnit4TestAdapter;
  * 
  * @author Phillip Beauvoir
  */
+@SuppressWarnings("nls")
 public class XMLModelImporterTests {
     
     public static junit.framework.Test suite() {
@@ -74,4 +82,68 @@ public class XMLModelImporterTests {
         assertEquals(element1, relation.getSource());
         assertEquals(element2, relation.getTarget());
     }
+    
+    @Test
+    public void testPropertyKeysAreSetFromLaterPropertyDefinitions() throws Exception {
+        IArchimateModel model = importer.createArchiMateModel(TestSupport.xmlFile2);
+        
+        assertEquals(2, model.getProperties().size());
+        
+        IProperty property = model.getProperties().get(0);
+        assertEquals("Property1", property.getKey());
+        assertEquals("Value of Property 1", property.getValue());
+        
+        property = model.getProperties().get(1);
+        assertEquals("Property2", property.getKey());
+        assertEquals("Value of Property 2", property.getValue());
+    }
+    
+    @Test
+    public void testCreateArchiMateModel_Validate() throws Exception {
+        IArchimateModel model = importer.createArchiMateModel(TestSupport.xmlFile2);
+        
+        importer = new XMLModelImporter();
+        importer.setValidate(true);
+        IArchimateModel validatedModel = importer.createArchiMateModel(TestSupport.xmlFile2);
+        
+        // Same model
+        for(FolderType type : FolderType.values()) {
+            IFolder folder = model.getFolder(type);
+            if(folder != null) {
+                assertEquals(folder.getElements().size(), validatedModel.getFolder(type).getElements().size());
+                assertEquals(folder.getFolders().size(), validatedModel.getFolder(type).getFolders().size());
+            }
+        }
+    }
+    
+    @Test(expected=JDOMException.class)
+    public void testCreateArchiMateModel_ValidateInvalidFile() throws Exception {
+        // Not a valid model element
+        String xml = new String(Files.readAllBytes(TestSupport.xmlFile1.toPath()), StandardCharsets.UTF_8);
+        xml = xml.replace("relationships>", "relations>");
+        
+        File file = TestUtils.createTempFile(".xml");
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        
+        importer.setValidate(true);
+        importer.createArchiMateModel(file);
+    }
+    
+    @Test
+    public void testCreateArchiMateModel_ValidateStopsAtIgnoredError() throws Exception {
+        // Metadata that is not declared in our XSDs (ignored) followed by an element that is not valid
+        String xml = new String(Files.readAllBytes(TestSupport.xmlFile1.toPath()), StandardCharsets.UTF_8);
+        xml = xml.replace("<elements>", "<metadata><schema>Other</schema><other:data xmlns:other=\"http://www.example.com/other\">Data</other:data></metadata>\n  <elements>");
+        xml = xml.replace("relationships>", "relations>");
+        
+        File file = TestUtils.createTempFile(".xml");
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        
+        // Validation stops at the ignored error, as when validating the file on its own, and so the model is imported
+        new XMLValidator().validateXML(file);
+        
+        importer.setValidate(true);
+        IArchimateModel model = importer.createArchiMateModel(file);
+        assertEquals(2, model.getFolder(FolderType.BUSINESS).getElements().size());
+    }
 }
@@ -5,7 +5,25 @@
  */
 package org.opengroup.archimate.xmlexchange;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import com.archimatetool.tests.TestUtils;
 
 import junit.framework.JUnit4TestAdapter;
 
@@ -15,6 +33,7 @@ import junit.framework.JUnit4TestAdapter;
  * 
  * @author Phillip Beauvoir
  */
+@SuppressWarnings("nls")
 public class XMLValidatorTests {
     
     public static junit.framework.Test suite() {
@@ -27,4 +46,54 @@ public class XMLValidatorTests {
         validator.validateXML(TestSupport.xmlFile2);
     }
     
+    @Test(expected=SAXException.class)
+    public void testValidateInvalidFile() throws Exception {
+        XMLValidator validator = new XMLValidator();
+        validator.validateXML(createInvalidFile());
+    }
+    
+    @Test
+    public void testGetSchema_IsShared() throws Exception {
+        assertNotNull(XMLValidator.getSchema());
+        assertSame(XMLValidator.getSchema(), XMLValidator.getSchema());
+    }
+    
+    @Test
+    public void testCreateValidator_IsNewEachTime() throws Exception {
+        XMLValidator validator = new XMLValidator();
+        assertNotSame(validator.createValidator(), validator.createValidator());
+    }
+    
+    @Test
+    public void testValidateBatch() throws Exception {
+        File invalidFile = createInvalidFile();
+        
+        List<File> files = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            files.add(TestSupport.xmlFile2);
+        }
+        files.add(invalidFile);
+        files.add(new File("bogus.xml"));
+        
+        Map<File, Exception> errors = new XMLValidator().validateXML(files);
+        
+        assertEquals(Arrays.asList(invalidFile, new File("bogus.xml")), new ArrayList<>(errors.keySet()));
+        assertTrue(errors.get(invalidFile) instanceof SAXException);
+        assertTrue(errors.get(new File("bogus.xml")) instanceof IOException);
+    }
+    
+    @Test
+    public void testValidateBatch_Empty() throws Exception {
+        assertTrue(new XMLValidator().validateXML(new ArrayList<>()).isEmpty());
+    }
+    
+    private File createInvalidFile() throws Exception {
+        // Not a valid model element
+        String xml = new String(Files.readAllBytes(TestSupport.xmlFile1.toPath()), StandardCharsets.UTF_8);
+        xml = xml.replace("relationships>", "relations>");
+        
+        File file = TestUtils.createTempFile(".xml");
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
 }